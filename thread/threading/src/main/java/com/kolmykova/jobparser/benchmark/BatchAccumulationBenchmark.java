@@ -0,0 +1,147 @@
+package com.kolmykova.jobparser.benchmark;
+
+import com.kolmykova.jobparser.config.JacksonConfig;
+import com.kolmykova.jobparser.logging.LogOverflowPolicy;
+import com.kolmykova.jobparser.logging.LoggingDaemon;
+import com.kolmykova.jobparser.metrics.InstrumentationMode;
+import com.kolmykova.jobparser.metrics.ParserMetrics;
+import com.kolmykova.jobparser.metrics.VacancyCountTracker;
+import com.kolmykova.jobparser.model.Vacancy;
+import com.kolmykova.jobparser.repository.VacancyRepository;
+import com.kolmykova.jobparser.service.persistence.PersistenceMode;
+import com.kolmykova.jobparser.service.persistence.VacancyWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накопление вакансий в пачку под конкуренцией воркеров — стоимость одного add().
+ *
+ * MONITOR — прежняя схема ParseService: общий список под synchronized,
+ *           при заполнении копия в новый ArrayList;
+ * STRIPED — VacancyWriteBehind: полосы с чанками, место занимается getAndIncrement,
+ *           полный чанк уходит потоку записи без копирования.
+ *
+ * В обоих случаях "БД" — заглушка без работы, а вокруг записи пачки — та же обвязка,
+ * что в saveBatch (метрики, лог), так что разница — в накоплении и передаче пачки.
+ * У STRIPED эта обвязка выполняется в потоке записи, у MONITOR — в воркере.
+ * Число потоков задано в имени метода (@Threads не параметризуется); на машине
+ * с меньшим числом ядер 16/64 покажут уже переподписку, а не чистую конкуренцию.
+ *
+ * Запуск: java -jar target/benchmarks.jar BatchAccumulationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchAccumulationBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"MONITOR", "STRIPED"})
+    public String accumulator;
+
+    private final Vacancy vacancy = Vacancy.builder()
+            .url("http://localhost:8080/mock/vacancy/hh.ru/42")
+            .title("Java Developer")
+            .build();
+
+    private final Object batchLock = new Object();
+    private final List<Vacancy> batch = new ArrayList<>();
+
+    private ParserMetrics metrics;
+    private LoggingDaemon loggingDaemon;
+    private VacancyWriteBehind writeBehind;
+
+    @Setup
+    public void setup() throws IOException {
+        Path tempDir = Files.createTempDirectory("batch-bench");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        metrics = new ParserMetrics(registry, new VacancyCountTracker(null, registry, Long.MAX_VALUE),
+                InstrumentationMode.LIGHTWEIGHT, 0.0, 1000, 20);
+        loggingDaemon = new LoggingDaemon(registry, 8192, LogOverflowPolicy.DROP, 10, 256,
+                tempDir.resolve("bench.log").toString(), 10, 1);
+        if (!"STRIPED".equals(accumulator)) {
+            return;
+        }
+        writeBehind = new VacancyWriteBehind(noOpRepository(), metrics, loggingDaemon, Tracer.NOOP,
+                new JacksonConfig().objectMapper(), registry,
+                PersistenceMode.INSERT, BATCH_SIZE, 1000, 100_000, 0, tempDir.resolve("pending.jsonl").toString(), 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (writeBehind != null) {
+            writeBehind.shutdown();
+        }
+        loggingDaemon.shutdown();
+        metrics.shutdown();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int add_4threads() {
+        return add();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int add_16threads() {
+        return add();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int add_64threads() {
+        return add();
+    }
+
+    private int add() {
+        if (writeBehind != null) {
+            writeBehind.add(vacancy);
+            return 0;
+        }
+        List<Vacancy> toSave = null;
+        synchronized (batchLock) {
+            batch.add(vacancy);
+            if (batch.size() >= BATCH_SIZE) {
+                toSave = new ArrayList<>(batch);
+                batch.clear();
+            }
+        }
+        if (toSave == null) {
+            return 0;
+        }
+        long dbStart = metrics.start();
+        metrics.recordDb(dbStart);
+        metrics.incSaved(toSave.size());
+        loggingDaemon.log("Saved batch of {} vacancies (context: {})", toSave.size(), vacancy.getUrl());
+        return toSave.size();
+    }
+
+    /**
+     * insertAll возвращает размер пачки, остальные методы репозитория в бенчмарке не нужны
+     */
+    private static VacancyRepository noOpRepository() {
+        return (VacancyRepository) Proxy.newProxyInstance(
+                VacancyRepository.class.getClassLoader(),
+                new Class<?>[]{VacancyRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "insertAll" -> ((List<?>) args[0]).size();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "NoOpVacancyRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
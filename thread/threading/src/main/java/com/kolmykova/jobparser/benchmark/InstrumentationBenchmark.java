@@ -0,0 +1,115 @@
+package com.kolmykova.jobparser.benchmark;
+
+import com.kolmykova.jobparser.metrics.InstrumentationMode;
+import com.kolmykova.jobparser.metrics.ParserMetrics;
+import com.kolmykova.jobparser.metrics.VacancyCountTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы собственного инструментирования ParseService на один URL:
+ * 4 замера стадий (url, fetch, parse, db) и спаны processUrl/fetchHtml/parseHtml.
+ *
+ * NONE        — без метрик и спанов (нижняя граница);
+ * FULL        — Micrometer-таймеры + спан на каждую стадию (sampling probability = 1.0);
+ * LIGHTWEIGHT — thread-local HdrHistogram + head sampling раз на пачку (1%).
+ *
+ * Запуск: java -jar target/benchmarks.jar InstrumentationBenchmark -t 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    private static final String URL = "http://localhost:8080/mock/vacancy/hh.ru/42";
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"NONE", "FULL", "LIGHTWEIGHT"})
+    public String mode;
+
+    private ParserMetrics metrics;
+    private Tracer tracer;
+    private SdkTracerProvider tracerProvider;
+
+    @Setup
+    public void setup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InstrumentationMode instrumentation = "LIGHTWEIGHT".equals(mode)
+                ? InstrumentationMode.LIGHTWEIGHT
+                : InstrumentationMode.FULL;
+        metrics = new ParserMetrics(registry, new VacancyCountTracker(null, registry, Long.MAX_VALUE),
+                instrumentation, 0.01, 1000, 20);
+
+        // настоящий OTel SDK без экспортёра: спаны создаются и завершаются, но никуда не уходят
+        tracerProvider = SdkTracerProvider.builder().setSampler(Sampler.alwaysOn()).build();
+        tracer = new OtelTracer(tracerProvider.get("benchmark"), new OtelCurrentTraceContext(), event -> {
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracerProvider.close();
+        metrics.shutdown();
+    }
+
+    /**
+     * Пачка URL одного потока: решение о трассировке принимается на её первом URL
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+        int position;
+        boolean traced;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long processUrl(Batch batch) {
+        if ("NONE".equals(mode)) {
+            return URL.length();
+        }
+
+        if (batch.position++ % BATCH_SIZE == 0) {
+            batch.traced = metrics.sampleTrace();
+        }
+        boolean traced = batch.traced;
+
+        Span span = traced ? tracer.nextSpan().name("processUrl").tag("jobparser.url", URL).start() : null;
+        long urlStart = metrics.start();
+        try (Tracer.SpanInScope scope = span != null ? tracer.withSpan(span) : null) {
+            stage("fetchHtml", traced);
+            metrics.recordFetch(metrics.start());
+            stage("parseHtml", traced);
+            metrics.recordParse(metrics.start());
+            metrics.recordDb(metrics.start());
+        } finally {
+            metrics.recordUrl(urlStart);
+            if (span != null) {
+                span.end();
+            }
+        }
+        return urlStart;
+    }
+
+    private void stage(String name, boolean traced) {
+        if (!traced) {
+            return;
+        }
+        Span span = tracer.nextSpan().name(name).tag("jobparser.url", URL).start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            // сама стадия не измеряется — только обвязка
+        } finally {
+            span.end();
+        }
+    }
+}
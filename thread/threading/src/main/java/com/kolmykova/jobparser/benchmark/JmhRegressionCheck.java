@@ -0,0 +1,123 @@
+package com.kolmykova.jobparser.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Сравнение двух JMH-результатов в формате JSON (-rf json) для CI.
+ *
+ * Бенчмарк определяется именем и параметрами. Регрессия — ухудшение основной метрики
+ * больше порога (рост времени для avgt/sample/ss, падение для thrpt), причём доверительные
+ * интервалы JMH (score ± scoreError) не пересекаются: иначе разница может быть шумом.
+ * Без scoreError (одна итерация — NaN) интервал считается точкой.
+ * Бенчмарки, которых нет в одном из файлов, пропускаются.
+ *
+ *   java -cp target/benchmarks.jar com.kolmykova.jobparser.benchmark.JmhRegressionCheck \
+ *        baseline.json current.json [порог в %, по умолчанию 10]
+ */
+public final class JmhRegressionCheck {
+
+    /**
+     * @param beyondError интервалы score ± scoreError не пересекаются
+     */
+    public record Change(String benchmark, String unit, double baseline, double baselineError,
+                         double current, double currentError, double worsePercent, boolean beyondError) {
+
+        public boolean regression(double thresholdPercent) {
+            return worsePercent > thresholdPercent && beyondError;
+        }
+    }
+
+    private record Score(String mode, String unit, double value, double error) {
+    }
+
+    private JmhRegressionCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhRegressionCheck <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        List<Change> changes = compare(Path.of(args[0]), Path.of(args[1]));
+
+        int regressions = 0;
+        for (Change c : changes) {
+            boolean regression = c.regression(threshold);
+            regressions += regression ? 1 : 0;
+            System.out.printf("%s %-90s %12.3f ± %-9.3f -> %12.3f ± %-9.3f %-8s %+7.1f%%%s%n",
+                    regression ? "REGRESSION" : "ok        ",
+                    c.benchmark(), c.baseline(), c.baselineError(), c.current(), c.currentError(), c.unit(),
+                    c.worsePercent(), c.worsePercent() > threshold && !regression ? " (within error)" : "");
+        }
+        System.out.println(regressions + " regression(s) over " + threshold + "% in " + changes.size() + " benchmark(s)");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * @return изменения по бенчмаркам, присутствующим в обоих файлах; worsePercent > 0 — стало хуже
+     */
+    public static List<Change> compare(Path baseline, Path current) throws IOException {
+        Map<String, Score> before = read(baseline);
+        Map<String, Score> after = read(current);
+
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<String, Score> e : after.entrySet()) {
+            Score old = before.get(e.getKey());
+            Score now = e.getValue();
+            if (old == null || !old.mode().equals(now.mode()) || old.value() == 0) {
+                continue;
+            }
+            boolean higherIsBetter = "thrpt".equals(now.mode());
+            double delta = (now.value() - old.value()) / old.value() * 100;
+            double worse = higherIsBetter ? -delta : delta;
+            // зазор между интервалами в сторону ухудшения
+            double gap = higherIsBetter
+                    ? (old.value() - old.error()) - (now.value() + now.error())
+                    : (now.value() - now.error()) - (old.value() + old.error());
+            changes.add(new Change(e.getKey(), now.unit(), old.value(), old.error(), now.value(), now.error(),
+                    worse, gap > 0));
+        }
+        return changes;
+    }
+
+    private static Map<String, Score> read(Path file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file.toFile());
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : root) {
+            JsonNode metric = run.path("primaryMetric");
+            // scoreError — число или "NaN" строкой
+            double error = metric.path("scoreError").asDouble(0);
+            scores.put(key(run), new Score(run.path("mode").asText(),
+                    metric.path("scoreUnit").asText(), metric.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : Math.abs(error)));
+        }
+        return scores;
+    }
+
+    private static String key(JsonNode run) {
+        StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+        JsonNode params = run.path("params");
+        if (params.isObject()) {
+            Map<String, String> sorted = new TreeMap<>();
+            for (Map.Entry<String, JsonNode> p : params.properties()) {
+                sorted.put(p.getKey(), p.getValue().asText());
+            }
+            sorted.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+        }
+        int threads = run.path("threads").asInt(1);
+        if (threads != 1) {
+            key.append(" threads=").append(threads);
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.kolmykova.jobparser.benchmark;
+
+import com.kolmykova.jobparser.config.VacancyConfig;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig.VacancyRandomGenerator;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Корпус настоящих мок-страниц для бенчмарков: тот же шаблон templates/vacancy-mock.html,
+ * что отдаёт MockHtmlController, и те же вакансии, что генерирует мок (детерминированно по id).
+ *
+ * targetBytes > 0 — блок требований дополняется повторами, пока страница не дорастёт
+ * до нужного размера (в символах): так меряется зависимость от размера страницы.
+ */
+public final class MockPageCorpus {
+
+    public record Page(String url, String html, VacancyDto vacancy) {
+    }
+
+    private MockPageCorpus() {
+    }
+
+    public static List<Page> render(int count, int targetBytes) {
+        TemplateEngine engine = templateEngine();
+        VacancyRandomGenerator generator = new VacancyGeneratorConfig().vacancyRandomGenerator();
+        List<Page> pages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String source = VacancyConfig.SOURCES.get(i % VacancyConfig.SOURCES.size());
+            long id = i + 1;
+            VacancyDto vacancy = generator.generateRandomVacancy(source, id);
+            String html = render(engine, vacancy);
+            if (targetBytes > html.length()) {
+                String base = vacancy.getRequirements();
+                StringBuilder padded = new StringBuilder(targetBytes).append(base);
+                int missing = targetBytes - html.length();
+                while (padded.length() - base.length() < missing) {
+                    padded.append("; ").append(base);
+                }
+                vacancy.setRequirements(padded.toString());
+                html = render(engine, vacancy);
+            }
+            pages.add(new Page("http://localhost:8080/mock/vacancy/" + source + "/" + id, html, vacancy));
+        }
+        return pages;
+    }
+
+    static TemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        // SpEL, как в приложении; у голого TemplateEngine — OGNL, которого нет в classpath
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+
+    /**
+     * Те же переменные контекста, что в MockHtmlController
+     */
+    private static String render(TemplateEngine engine, VacancyDto vacancy) {
+        Context ctx = new Context();
+        ctx.setVariable("id", vacancy.getId());
+        ctx.setVariable("source", vacancy.getSource());
+        ctx.setVariable("title", vacancy.getTitle());
+        ctx.setVariable("salary", vacancy.getSalary());
+        ctx.setVariable("company", vacancy.getCompany());
+        ctx.setVariable("city", vacancy.getCity());
+        ctx.setVariable("url", vacancy.getUrl());
+        ctx.setVariable("publishedAt", vacancy.getPublishedAt());
+        ctx.setVariable("createdAt", vacancy.getCreatedAt());
+        ctx.setVariable("requirements", vacancy.getRequirements());
+        return engine.process("vacancy-mock", ctx);
+    }
+}
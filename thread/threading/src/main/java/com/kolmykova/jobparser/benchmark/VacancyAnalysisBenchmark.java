@@ -0,0 +1,144 @@
+package com.kolmykova.jobparser.benchmark;
+
+import com.kolmykova.jobparser.config.VacancyConfig;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig.VacancyRandomGenerator;
+import com.kolmykova.jobparser.domain.model.VacancyAnalysisResult;
+import com.kolmykova.jobparser.domain.model.VacancyDomain;
+import com.kolmykova.jobparser.domain.port.out.VacancyDataSource;
+import com.kolmykova.jobparser.domain.port.out.VacancyResultPublisher;
+import com.kolmykova.jobparser.domain.service.VacancyAnalysisService;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Аналитическое ядро (VacancyAnalysisService) на выборках 10k/100k/1M вакансий в памяти.
+ *
+ * Данные — детерминированный вывод генератора мок-вакансий, источник — заглушка
+ * VacancyDataSource, отдающая список без копирования (чтобы мерить анализ, а не адаптер).
+ * mode: SEQUENTIAL — stream(), PARALLEL — parallelStream() в общем ForkJoinPool.
+ *
+ * Запуск с сохранением истории для CI:
+ *   java -jar target/benchmarks.jar VacancyAnalysisBenchmark -prof gc -rf json -rff target/jmh/analysis.json
+ * Сравнение с прошлым прогоном (код выхода 1 при регрессии больше порога в % и за пределами scoreError):
+ *   java -cp target/benchmarks.jar com.kolmykova.jobparser.benchmark.JmhRegressionCheck \
+ *        baseline/analysis.json target/jmh/analysis.json 10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VacancyAnalysisBenchmark {
+
+    private static final List<String> KEYWORDS = List.of("spring", "kafka");
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    public String mode;
+
+    private VacancyAnalysisService service;
+    private String topCity;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<VacancyDomain> vacancies = generate(size);
+        service = new VacancyAnalysisService(new InMemoryDataSource(vacancies), new NoOpPublisher(),
+                "PARALLEL".equals(mode));
+        topCity = VacancyConfig.CITIES.get(0);
+    }
+
+    @Benchmark
+    public VacancyAnalysisResult analyzeAll() {
+        return service.analyzeAll(7);
+    }
+
+    @Benchmark
+    public Double averageSalaryByCity() {
+        return service.calculateAverageSalaryByCity(topCity);
+    }
+
+    @Benchmark
+    public String requirementsSentiment() {
+        return service.analyzeRequirementsSentiment(KEYWORDS);
+    }
+
+    static List<VacancyDomain> generate(int size) {
+        VacancyRandomGenerator generator = new VacancyGeneratorConfig().vacancyRandomGenerator();
+        List<VacancyDomain> vacancies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String source = VacancyConfig.SOURCES.get(i % VacancyConfig.SOURCES.size());
+            VacancyDto v = generator.generateRandomVacancy(source, (long) i + 1);
+            vacancies.add(new VacancyDomain(v.getId(), v.getSource(), v.getUrl(), v.getTitle(), v.getCompany(),
+                    v.getCity(), v.getSalary(), v.getRequirements(), v.getPublishedAt(), v.getCreatedAt()));
+        }
+        return vacancies;
+    }
+
+    /**
+     * fetchByCity фильтрует, как настоящие адаптеры; fetchAll — без копии
+     */
+    static final class InMemoryDataSource implements VacancyDataSource {
+
+        private final List<VacancyDomain> vacancies;
+
+        InMemoryDataSource(List<VacancyDomain> vacancies) {
+            this.vacancies = vacancies;
+        }
+
+        @Override
+        public List<VacancyDomain> fetchAll() {
+            return vacancies;
+        }
+
+        @Override
+        public List<VacancyDomain> fetchByCity(String city) {
+            List<VacancyDomain> result = new ArrayList<>();
+            for (VacancyDomain v : vacancies) {
+                if (city.equalsIgnoreCase(v.getCity())) {
+                    result.add(v);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Optional<VacancyDomain> fetchById(Long id) {
+            return vacancies.stream().filter(v -> id.equals(v.getId())).findFirst();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getSourceName() {
+            return "IN_MEMORY:" + vacancies.size();
+        }
+    }
+
+    static final class NoOpPublisher implements VacancyResultPublisher {
+
+        @Override
+        public void publishAnalysisResult(VacancyAnalysisResult result) {
+        }
+
+        @Override
+        public void saveVacancies(List<VacancyDomain> vacancies) {
+        }
+
+        @Override
+        public String getPublisherName() {
+            return "NO_OP";
+        }
+    }
+}
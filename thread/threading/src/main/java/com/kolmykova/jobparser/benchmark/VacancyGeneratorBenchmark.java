@@ -0,0 +1,44 @@
+package com.kolmykova.jobparser.benchmark;
+
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig.VacancyRandomGenerator;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность генератора мок-вакансий при росте числа потоков.
+ *
+ * Общего состояния у генератора нет, поэтому ops/us на 4 потоках должны быть
+ * примерно вчетверо выше, чем на одном (при наличии 4 ядер).
+ *
+ * Запуск: java -jar target/benchmarks.jar VacancyGeneratorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VacancyGeneratorBenchmark {
+
+    private final VacancyRandomGenerator generator = new VacancyGeneratorConfig().vacancyRandomGenerator();
+
+    @State(Scope.Thread)
+    public static class Ids {
+        long next;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public VacancyDto generate_1thread(Ids ids) {
+        return generator.generateRandomVacancy("hh.ru", ids.next++);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public VacancyDto generate_4threads(Ids ids) {
+        return generator.generateRandomVacancy("hh.ru", ids.next++);
+    }
+}
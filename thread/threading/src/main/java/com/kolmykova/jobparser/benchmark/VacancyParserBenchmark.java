@@ -0,0 +1,123 @@
+package com.kolmykova.jobparser.benchmark;
+
+import com.kolmykova.jobparser.model.Vacancy;
+import com.kolmykova.jobparser.service.VacancyParser;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VacancyParser на корпусе настоящих мок-страниц (MockPageCorpus).
+ *
+ * parse_*      — VacancyParser.parse целиком: Jsoup.parse + извлечение полей;
+ * jsoupParse   — только построение DOM;
+ * extract      — только извлечение всех полей из готового Document;
+ * field_*      — отдельные селекторы, которыми пользуется парсер.
+ * pageSize     — целевой размер страницы в символах (0 — как рендерит шаблон, ~4 КБ).
+ * Число потоков задано в имени метода (@Threads не параметризуется).
+ *
+ * Запуск: java -jar target/benchmarks.jar VacancyParserBenchmark -prof gc
+ *         (gc.alloc.rate.norm — байт на операцию)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VacancyParserBenchmark {
+
+    private static final int CORPUS_SIZE = 256;
+
+    @Param({"0", "16384", "65536"})
+    public int pageSize;
+
+    private final VacancyParser parser = new VacancyParser();
+    private List<MockPageCorpus.Page> pages;
+    private Document[] documents;
+
+    /**
+     * Курсор по корпусу у каждого потока свой — страницы чередуются, а не повторяются
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            int i = next;
+            next = (i + 1) & (CORPUS_SIZE - 1);
+            return i;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        pages = MockPageCorpus.render(CORPUS_SIZE, pageSize);
+        documents = new Document[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            documents[i] = Jsoup.parse(pages.get(i).html());
+        }
+        // страховка: бенчмарк должен мерить успешный разбор, а не пустые селекторы
+        Vacancy probe = parser.parse(pages.get(0).html(), pages.get(0).url());
+        if (!pages.get(0).vacancy().getTitle().equals(probe.getTitle())
+                || !pages.get(0).vacancy().getCity().equals(probe.getCity())) {
+            throw new IllegalStateException("Parser does not match the mock template");
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Vacancy parse_1thread(Cursor cursor) {
+        MockPageCorpus.Page page = pages.get(cursor.advance());
+        return parser.parse(page.html(), page.url());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Vacancy parse_4threads(Cursor cursor) {
+        MockPageCorpus.Page page = pages.get(cursor.advance());
+        return parser.parse(page.html(), page.url());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Document jsoupParse(Cursor cursor) {
+        return Jsoup.parse(pages.get(cursor.advance()).html());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Vacancy extract(Cursor cursor) {
+        int i = cursor.advance();
+        return parser.extract(documents[i], pages.get(i).url());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Element field_title(Cursor cursor) {
+        return documents[cursor.advance()].selectFirst("h1.title");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Element field_company(Cursor cursor) {
+        return VacancyParser.selectMetaValueAfterLabel(documents[cursor.advance()], "Компания:");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Element field_createdAt(Cursor cursor) {
+        // последняя метка в шаблоне — худший случай перебора div.meta
+        return VacancyParser.selectMetaValueAfterLabel(documents[cursor.advance()], "Загружено в систему:");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String field_requirements(Cursor cursor) {
+        return documents[cursor.advance()].selectFirst("div.requirements").text();
+    }
+}
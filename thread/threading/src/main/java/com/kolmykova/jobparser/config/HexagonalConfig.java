@@ -98,9 +98,10 @@ public class HexagonalConfig {
     @Bean
     public AnalyzeVacancyUseCase analyzeVacancyUseCase(
             VacancyDataSource dataSource,           // @Primary -> JpaVacancyDataSource
-            VacancyResultPublisher resultPublisher  // @Primary -> JpaVacancyResultPublisher
+            VacancyResultPublisher resultPublisher, // @Primary -> JpaVacancyResultPublisher
+            @Value("${hexagonal.analysis.parallel:false}") boolean parallel
     ) {
-        return new VacancyAnalysisService(dataSource, resultPublisher);
+        return new VacancyAnalysisService(dataSource, resultPublisher, parallel);
     }
 
     // ========== АЛЬТЕРНАТИВНЫЕ КОНФИГУРАЦИИ ==========
@@ -0,0 +1,62 @@
+package com.kolmykova.jobparser.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Разбор строковых настроек вида
+ *
+ *   hh.ru:read=2000,attempts=2;superjob.ru:backoff=200
+ *
+ * — записи через ";", в каждой ключ (хост, источник), ":" и опции key=value через ",".
+ * Так заданы parsing.fetch.hosts (FetchPolicies) и mock.origin.profiles (MockOriginProfiles);
+ * что значат опции, решает вызывающий. Ошибка формата — IllegalArgumentException.
+ */
+public final class OptionSpec {
+
+    private OptionSpec() {
+    }
+
+    /**
+     * @param keyName как называть ключ записи в сообщении об ошибке
+     * @param build   значение записи по её опциям (в порядке из строки)
+     * @return ключ → значение в порядке записей; пустая строка — пустая карта
+     */
+    public static <T> Map<String, T> parse(String spec, String keyName, Function<Map<String, String>, T> build) {
+        Map<String, T> result = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return result;
+        }
+        for (String entry : spec.split(";")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Expected <" + keyName + ">:<key>=<value>,... but got: " + entry);
+            }
+            result.put(entry.substring(0, colon).trim(), build.apply(options(entry.substring(colon + 1))));
+        }
+        return result;
+    }
+
+    /**
+     * key=value через "," → опции в порядке из строки; пустая строка — пустая карта
+     */
+    public static Map<String, String> options(String options) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (options == null || options.isBlank()) {
+            return result;
+        }
+        for (String option : options.split(",")) {
+            String[] kv = option.trim().split("=", 2);
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Expected <key>=<value> but got: " + option);
+            }
+            result.put(kv[0].trim(), kv[1].trim());
+        }
+        return result;
+    }
+}
@@ -4,43 +4,63 @@ import com.kolmykova.jobparser.model.dto.VacancyDto;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
 
 @Configuration
 public class VacancyGeneratorConfig {
 
-    private final Random random = new Random();
-
     @Bean
     public VacancyRandomGenerator vacancyRandomGenerator() {
         return new VacancyRandomGenerator();
     }
 
-    public class VacancyRandomGenerator {
+    /**
+     * Вакансия — чистая функция от (source, id): генератор SplitMix64 заводится
+     * на каждый вызов из сида, посчитанного по входам, общего изменяемого
+     * состояния нет. Одна и та же пара даёт одинаковую вакансию в любом потоке,
+     * после вытеснения из кэша, после перезапуска и на другом узле.
+     */
+    public static class VacancyRandomGenerator {
+
+        // даты отсчитываются от фиксированной точки, а не от now(), иначе контент не воспроизводится
+        private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+        private static final int CREATED_SPREAD_SECONDS = 365 * 24 * 3600;
 
         // Переиспользуем StringBuilder, чтобы меньше создавать временных объектов
         private static final ThreadLocal<StringBuilder> STRING_BUILDER =
                 ThreadLocal.withInitial(() -> new StringBuilder(256));
 
         public VacancyDto generateRandomVacancy(String source, Long id) {
+            return generateRandomVacancy(source, id, 0L);
+        }
+
+        /**
+         * @param salt сид набора данных: при 0 результат совпадает с generateRandomVacancy(source, id)
+         */
+        public VacancyDto generateRandomVacancy(String source, Long id, long salt) {
+            long seed = seed(source, id);
+            if (salt != 0) {
+                seed = SplitMix.mix(seed ^ salt * SplitMix.GOLDEN_GAMMA);
+            }
+            SplitMix random = new SplitMix(seed);
+
             String sourceValue = "unknown.tld";
             if (VacancyConfig.SOURCES.contains(source)) {
                 sourceValue = source;
             }
-            String title = randomFrom(VacancyConfig.VACANCY_TITLES);
-            String city = randomFrom(VacancyConfig.CITIES);
-            String company = randomFrom(VacancyConfig.COMPANIES);
+            String title = randomFrom(random, VacancyConfig.VACANCY_TITLES);
+            String city = randomFrom(random, VacancyConfig.CITIES);
+            String company = randomFrom(random, VacancyConfig.COMPANIES);
 
-            String salary = randomSalary();
-            String requirements = randomRequirements();
+            String salary = randomSalary(random);
+            String requirements = randomRequirements(random);
 
-            LocalDateTime createdAt = LocalDateTime.now();
+            LocalDateTime createdAt = EPOCH.plusSeconds(random.nextInt(CREATED_SPREAD_SECONDS));
             LocalDateTime publishedAt = createdAt.minusDays(random.nextInt(30));
 
-            String url = buildUrl(source, id);
+            String url = buildUrl(source, id, random);
 
             return new VacancyDto(
                     id,
@@ -56,42 +76,91 @@ public class VacancyGeneratorConfig {
             );
         }
 
-        private String randomFrom(List<String> list) {
+        /**
+         * FNV-1a по UTF-8 байтам source (не String.hashCode — он 32-битный) и id, затем финализатор SplitMix64
+         */
+        static long seed(String source, Long id) {
+            long hash = 0xcbf29ce484222325L;
+            if (source != null) {
+                for (byte b : source.getBytes(StandardCharsets.UTF_8)) {
+                    hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+                }
+            }
+            long idValue = id != null ? id : -1L;
+            return SplitMix.mix(hash ^ SplitMix.mix(idValue + SplitMix.GOLDEN_GAMMA));
+        }
+
+        private String randomFrom(SplitMix random, List<String> list) {
             return list.get(random.nextInt(list.size()));
         }
 
-        private String randomSalary() {
+        private String randomSalary(SplitMix random) {
             // Пример: "от 150 000 до 250 000 руб. на руки"
             int min = 80_000 + random.nextInt(120_000);        // 80k–200k
             int max = min + 20_000 + random.nextInt(100_000);  // +20k–120k
-            return String.format("от %,d до %,d руб. на руки", min, max)
-                    .replace('\u00A0', ' ');
+            StringBuilder sb = STRING_BUILDER.get();
+            sb.setLength(0);
+            sb.append("от ");
+            appendGrouped(sb, min);
+            sb.append(" до ");
+            appendGrouped(sb, max);
+            sb.append(" руб. на руки");
+            return sb.toString();
+        }
+
+        /**
+         * Разряды через пробел, как давал String.format("%,d") после замены NBSP, но без зависимости от локали
+         */
+        private static void appendGrouped(StringBuilder sb, int value) {
+            String digits = Integer.toString(value);
+            int head = digits.length() % 3;
+            if (head > 0) {
+                sb.append(digits, 0, head);
+            }
+            for (int i = head; i < digits.length(); i += 3) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                sb.append(digits, i, i + 3);
+            }
         }
 
-        private String randomRequirements() {
-            // Выбираем 5–10 случайных требований и собираем в один абзац
-            int count = 5 + random.nextInt(6); // 5–10
+        private String randomRequirements(SplitMix random) {
+            // Выбираем 5–10 различных требований (алгоритм Флойда) и собираем в один абзац:
+            // занятые индексы — в битовой маске из двух long, буфер не перечитывается
+            List<String> all = VacancyConfig.REQUIREMENTS;
+            int n = all.size();
+            int count = Math.min(n, 5 + random.nextInt(6)); // 5–10
 
             StringBuilder sb = STRING_BUILDER.get();
             sb.setLength(0); // очистить перед использованием
 
-            for (int i = 0; i < count; i++) {
-                String req = randomFrom(VacancyConfig.REQUIREMENTS);
-                if (sb.indexOf(req) >= 0) {
-                    // простая защита от дублей: пробуем еще раз
-                    i--;
-                    continue;
+            if (n > 128) {
+                throw new IllegalStateException("Requirement mask holds at most 128 entries, got " + n);
+            }
+            long low = 0;
+            long high = 0;
+            for (int j = n - count; j < n; j++) {
+                int pick = random.nextInt(j + 1);
+                boolean taken = pick < 64 ? (low & (1L << pick)) != 0 : (high & (1L << (pick - 64))) != 0;
+                if (taken) {
+                    pick = j; // j ещё не мог быть выбран
                 }
-                if (i > 0) {
+                if (pick < 64) {
+                    low |= 1L << pick;
+                } else {
+                    high |= 1L << (pick - 64);
+                }
+                if (sb.length() > 0) {
                     sb.append("; ");
                 }
-                sb.append(req);
+                sb.append(all.get(pick));
             }
 
             return sb.toString();
         }
 
-        private String buildUrl(String source, Long id) {
+        private String buildUrl(String source, Long id, SplitMix random) {
             // Очень грубая генерация URL для примера
             String base;
             if (source != null && source.contains("hh")) {
@@ -107,8 +176,48 @@ public class VacancyGeneratorConfig {
             } else {
                 base = "https://example.com/vacancy/";
             }
-            long randomPart = ThreadLocalRandom.current().nextLong(1_000_000, 9_999_999);
+            long randomPart = 1_000_000 + random.nextInt(8_999_999);
             return base + (id != null ? id : randomPart);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * SplitMix64 (Steele, Lea, Flood): без синхронизации, живёт в пределах одного вызова.
+     * Реализован здесь, а не через SplittableRandom, чтобы последовательность
+     * не зависела от версии JDK.
+     */
+    public static final class SplitMix {
+
+        public static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+        private long state;
+
+        public SplitMix(long seed) {
+            this.state = seed;
+        }
+
+        public static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+
+        public long nextLong() {
+            return mix(state += GOLDEN_GAMMA);
+        }
+
+        /**
+         * [0, bound): старшие 32 бита, умноженные на bound (метод Лемира без отбраковки)
+         */
+        public int nextInt(int bound) {
+            return (int) (((nextLong() >>> 32) * bound) >>> 32);
+        }
+
+        /**
+         * [0, 1) с 53 битами точности
+         */
+        public double nextDouble() {
+            return (nextLong() >>> 11) * 0x1.0p-53;
+        }
+    }
+}
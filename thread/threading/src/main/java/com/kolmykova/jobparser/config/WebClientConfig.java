@@ -1,13 +1,24 @@
 package com.kolmykova.jobparser.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
 
 @Configuration
 public class WebClientConfig {
+    /**
+     * Connect-таймаут задаётся на клиент целиком — в Reactor Netty он не переопределяется
+     * на отдельный запрос; read и total — по хостам, см. FetchPolicies
+     */
     @Bean
-    public WebClient webClient(WebClient.Builder builder) {
-        return builder.build();
+    public WebClient webClient(WebClient.Builder builder,
+                               @Value("${parsing.fetch.connect-timeout-ms:2000}") int connectTimeoutMs) {
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs);
+        return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
     }
-}
\ No newline at end of file
+}
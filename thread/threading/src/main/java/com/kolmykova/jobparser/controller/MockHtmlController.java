@@ -1,22 +1,36 @@
 package com.kolmykova.jobparser.controller;
 
 import com.kolmykova.jobparser.model.dto.VacancyDto;
+import com.kolmykova.jobparser.repository.VacancyKeys;
+import com.kolmykova.jobparser.service.MockPageCacheService;
+import com.kolmykova.jobparser.service.MockPageCacheService.RenderedPage;
 import com.kolmykova.jobparser.service.MockVacancyCacheService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import java.time.ZoneId;
+
 @RestController
 @RequestMapping("/mock")
 public class MockHtmlController {
 
+    private static final MediaType HTML_UTF8 = MediaType.parseMediaType("text/html;charset=UTF-8");
+
     private final MockVacancyCacheService mockVacancyCacheService;
+    private final MockPageCacheService pageCache;
     private final TemplateEngine templateEngine;
 
     public MockHtmlController(MockVacancyCacheService mockVacancyCacheService,
+                              MockPageCacheService pageCache,
                               TemplateEngine templateEngine) {
         this.mockVacancyCacheService = mockVacancyCacheService;
+        this.pageCache = pageCache;
         this.templateEngine = templateEngine;
     }
 
@@ -24,14 +38,45 @@ public class MockHtmlController {
             value = "/vacancy/{type}/{id}",
             produces = MediaType.TEXT_HTML_VALUE
     )
-    public String getMockVacancy(
+    public ResponseEntity<byte[]> getMockVacancy(
             @PathVariable("type") String templateType,
-            @PathVariable("id") Long id
+            @PathVariable("id") Long id,
+            WebRequest request
     ) {
+        // задержки и отказы источника (mock.origin.profiles) добавляет MockOriginFaultFilter
+
         // 1. Идемпотентно получаем VacancyDto из кэша / генератора
         VacancyDto vacancy = mockVacancyCacheService.getOrCreate(templateType, id);
 
-        // 2. Готовим контекст Thymeleaf
+        // 2. Валидаторы считаются по полям вакансии, без рендеринга:
+        //    пока вакансия в кэше та же, ETag тот же и повторный обход получает 304.
+        //    У gzip-варианта свой ETag — это другое представление ресурса
+        boolean gzip = pageCache.gzipEnabled() && acceptsGzip(request);
+        String etag = gzip ? gzipEtag(etag(vacancy)) : etag(vacancy);
+        long lastModified = lastModified(vacancy);
+        if (request.checkNotModified(etag, lastModified)) {
+            return validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag, lastModified).build();
+        }
+
+        // 3. Готовые байты страницы; шаблон рендерится только при промахе
+        RenderedPage page = pageCache.getOrRender(templateType + ":" + id, etag(vacancy), lastModified,
+                () -> render(vacancy));
+        byte[] body = gzip ? page.gzipped() : page.body();
+
+        ResponseEntity.BodyBuilder response = validators(ResponseEntity.ok(), etag, lastModified)
+                .contentType(HTML_UTF8)
+                .contentLength(body.length);
+        if (pageCache.gzipEnabled()) {
+            response.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        // byte[] пишется в ответ конвертером как есть, без копирования
+        return response.body(body);
+    }
+
+    private String render(VacancyDto vacancy) {
         Context ctx = new Context();
         ctx.setVariable("id", vacancy.getId());
         ctx.setVariable("source", vacancy.getSource());
@@ -44,7 +89,43 @@ public class MockHtmlController {
         ctx.setVariable("createdAt", vacancy.getCreatedAt());
         ctx.setVariable("requirements", vacancy.getRequirements());
 
-        // 3. Рендерим HTML из шаблона на диске
         return templateEngine.process("vacancy-mock", ctx);
     }
-}
\ No newline at end of file
+
+    private static ResponseEntity.BodyBuilder validators(ResponseEntity.BodyBuilder builder,
+                                                         String etag, long lastModified) {
+        builder.eTag(etag);
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+
+    private static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    /**
+     * Сильный ETag: тот же FNV-хэш полей, что content_hash в БД, плюс id
+     */
+    static String etag(VacancyDto v) {
+        long hash = VacancyKeys.contentHash(v.getSource(), v.getTitle(), v.getCompany(), v.getCity(),
+                v.getSalary(), v.getRequirements(), v.getPublishedAt());
+        return "\"" + v.getId() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    /**
+     * Момент генерации вакансии; -1 — не отдавать Last-Modified
+     */
+    private static long lastModified(VacancyDto v) {
+        if (v.getCreatedAt() == null) {
+            return -1;
+        }
+        return v.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
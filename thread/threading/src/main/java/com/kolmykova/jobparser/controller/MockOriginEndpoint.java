@@ -0,0 +1,54 @@
+package com.kolmykova.jobparser.controller;
+
+import com.kolmykova.jobparser.service.MockOriginProfiles;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Профили мок-источника на ходу (/actuator/mockorigin), без перезапуска.
+ *
+ * GET    /actuator/mockorigin                  — источник → опции;
+ * POST   /actuator/mockorigin/{source} {"options":"latency=200,dist=pareto,errors=0.1,status=429,retry-after=1"}
+ *                                              — заменить профиль источника ("*" — по умолчанию);
+ * DELETE /actuator/mockorigin/{source}         — убрать профиль источника;
+ * DELETE /actuator/mockorigin                  — убрать все.
+ */
+@Component
+@Endpoint(id = "mockorigin")
+public class MockOriginEndpoint {
+
+    private final MockOriginProfiles profiles;
+
+    public MockOriginEndpoint(MockOriginProfiles profiles) {
+        this.profiles = profiles;
+    }
+
+    @ReadOperation
+    public Map<String, String> profiles() {
+        return profiles.snapshot();
+    }
+
+    @WriteOperation
+    public Map<String, String> put(@Selector String source, String options) {
+        profiles.put(source, options);
+        return profiles.snapshot();
+    }
+
+    @DeleteOperation
+    public Map<String, String> remove(@Selector String source) {
+        profiles.remove(source);
+        return profiles.snapshot();
+    }
+
+    @DeleteOperation
+    public Map<String, String> clear() {
+        profiles.clear();
+        return profiles.snapshot();
+    }
+}
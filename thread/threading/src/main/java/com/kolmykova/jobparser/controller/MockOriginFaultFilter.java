@@ -0,0 +1,263 @@
+package com.kolmykova.jobparser.controller;
+
+import com.kolmykova.jobparser.service.MockOriginProfiles;
+import com.kolmykova.jobparser.service.MockOriginProfiles.Decision;
+import com.kolmykova.jobparser.service.MockOriginProfiles.Fault;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержки и отказы мок-источника вокруг MockHtmlController (см. MockOriginProfiles).
+ *
+ * Задержка выдерживается до контроллера. Ошибка — статус (+ Retry-After) без тела,
+ * reset — заголовки с Content-Length и закрытие соединения без тела (клиент видит
+ * обрыв посреди ответа). Обрезка и медленная отдача работают с готовым телом страницы
+ * и применяются только к ответам 200.
+ *
+ * Паузы не держат поток Tomcat: на время задержки запрос уходит в async и по таймеру
+ * возвращается в фильтр (ASYNC-диспетчеризация с тем же решением), куски медленной
+ * отдачи пишет таймер. Иначе тяжёлый хвост задержек выедает пул Tomcat, и измеренный
+ * хвост — это очередь к самому моку. Query-параметры не поднимают max выше
+ * mock.origin.override.max-delay-ms; max ограничивает и суммарную медленную отдачу.
+ *
+ * jobparser.mock.origin.faults.total{fault} — сколько отказов выдано.
+ */
+@Component
+public class MockOriginFaultFilter extends OncePerRequestFilter {
+
+    static final String PREFIX = "/mock/vacancy/";
+    // объявленная длина тела при reset: клиент ждёт его и получает закрытое соединение
+    private static final int RESET_DECLARED_LENGTH = 1 << 16;
+    // решение, отложенное до ASYNC-диспетчеризации после задержки
+    private static final String DECISION = MockOriginFaultFilter.class.getName() + ".decision";
+
+    private final MockOriginProfiles profiles;
+    private final long overrideMaxDelayMs;
+    private final Map<Fault, Counter> faults = new EnumMap<>(Fault.class);
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "mock-origin-delay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MockOriginFaultFilter(MockOriginProfiles profiles, MeterRegistry registry,
+                                 @Value("${mock.origin.override.max-delay-ms:5000}") long overrideMaxDelayMs) {
+        this.profiles = profiles;
+        this.overrideMaxDelayMs = overrideMaxDelayMs;
+        for (Fault fault : Fault.values()) {
+            if (fault != Fault.NONE) {
+                faults.put(fault, Counter.builder("jobparser.mock.origin.faults.total")
+                        .description("Faults injected by the mock origin")
+                        .tag("fault", fault.name().toLowerCase(Locale.ROOT))
+                        .register(registry));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + PREFIX);
+    }
+
+    /**
+     * Возврат после задержки приходит ASYNC-диспетчеризацией — её фильтр тоже обрабатывает
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Decision decision = (Decision) request.getAttribute(DECISION);
+        if (decision != null) {
+            request.removeAttribute(DECISION);
+            inject(request, response, chain, decision);
+            return;
+        }
+        if (isAsyncDispatch(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            decision = profiles.decide(source(request), overrides(request, overrideMaxDelayMs));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (decision == Decision.PASS) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (decision.delayMs() > 0) {
+            request.setAttribute(DECISION, decision);
+            AsyncContext async = startAsync(request, response);
+            timer.schedule(() -> async.dispatch(), decision.delayMs(), TimeUnit.MILLISECONDS);
+            return;
+        }
+        inject(request, response, chain, decision);
+    }
+
+    private void inject(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                        Decision decision) throws ServletException, IOException {
+        if (decision.fault() != Fault.NONE) {
+            faults.get(decision.fault()).increment();
+        }
+
+        switch (decision.fault()) {
+            case ERROR -> {
+                response.setStatus(decision.profile().errorStatus());
+                if (decision.profile().retryAfterSeconds() > 0) {
+                    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.profile().retryAfterSeconds()));
+                }
+                response.setContentLength(0);
+            }
+            case RESET -> reset(response);
+            case TRUNCATE, DRIP -> rewriteBody(request, response, chain, decision);
+            default -> chain.doFilter(request, response);
+        }
+    }
+
+    private void rewriteBody(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                             Decision decision) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        if (decision.fault() == Fault.TRUNCATE) {
+            int length = (int) (body.length * decision.profile().truncateAt());
+            response.setContentLength(length);
+            response.getOutputStream().write(body, 0, length);
+            return;
+        }
+
+        // медленная отдача: кусок, flush, пауза — клиент получает тело за (len / chunk) × drip-ms
+        response.setContentLength(body.length);
+        AsyncContext async = startAsync(request, response);
+        drip(async, response.getOutputStream(), body, 0, decision.profile(), System.nanoTime());
+    }
+
+    /**
+     * Кусок с from и следующий по таймеру; после max мс с начала отдачи остаток уходит сразу
+     */
+    private void drip(AsyncContext async, ServletOutputStream out, byte[] body, int from,
+                      MockOriginProfiles.Profile profile, long startNanos) {
+        try {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            int chunk = elapsedMs + profile.dripDelayMs() > profile.maxDelayMs()
+                    ? body.length - from
+                    : Math.min(profile.dripChunkBytes(), body.length - from);
+            out.write(body, from, chunk);
+            out.flush();
+            int next = from + chunk;
+            if (next < body.length) {
+                timer.schedule(() -> drip(async, out, body, next, profile, startNanos),
+                        profile.dripDelayMs(), TimeUnit.MILLISECONDS);
+                return;
+            }
+        } catch (IOException e) {
+            // клиент ушёл, не дождавшись тела
+        }
+        async.complete();
+    }
+
+    /**
+     * Без таймаута контейнера: задержку и отдачу завершает таймер фильтра
+     */
+    private static AsyncContext startAsync(HttpServletRequest request, HttpServletResponse response) {
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(0);
+        return async;
+    }
+
+    /**
+     * Заголовки уходят клиенту, затем исключение: Tomcat не может дописать ответ
+     * с уже отправленным статусом и закрывает соединение
+     */
+    private static void reset(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/html;charset=UTF-8");
+        response.setContentLength(RESET_DECLARED_LENGTH);
+        response.flushBuffer();
+        throw new MockOriginResetException();
+    }
+
+    static String source(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length() + PREFIX.length());
+        int slash = path.indexOf('/');
+        return slash < 0 ? path : path.substring(0, slash);
+    }
+
+    /**
+     * Опции из query; с ними max не больше maxDelayMs — запрос не может заказать себе
+     * сколь угодно долгую задержку или отдачу
+     */
+    static Map<String, String> overrides(HttpServletRequest request, long maxDelayMs) {
+        if (request.getQueryString() == null) {
+            return Map.of();
+        }
+        Map<String, String> overrides = new LinkedHashMap<>();
+        request.getParameterMap().forEach((name, values) -> {
+            if (MockOriginProfiles.OPTIONS.contains(name) && values.length > 0) {
+                overrides.put(name, values[values.length - 1]);
+            }
+        });
+        if (!overrides.isEmpty()) {
+            long max = maxDelayMs;
+            try {
+                max = Math.min(max, Long.parseLong(overrides.getOrDefault("max", String.valueOf(max)).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("max must be a number: " + overrides.get("max"));
+            }
+            overrides.put("max", String.valueOf(max));
+        }
+        return overrides;
+    }
+
+    /**
+     * Без стека: это не ошибка приложения, а заказанный обрыв соединения
+     */
+    static final class MockOriginResetException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        MockOriginResetException() {
+            super("Injected connection reset");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -3,13 +3,14 @@ package com.kolmykova.jobparser.controller;
 
 import com.kolmykova.jobparser.model.dto.ParseRequest;
 import com.kolmykova.jobparser.model.dto.ParsingStatus;
+import com.kolmykova.jobparser.service.ParseService;
 import com.kolmykova.jobparser.service.ParsingTaskService;
 import com.kolmykova.jobparser.service.UrlQueueService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import com.shanaurin.jobparser.service.ParseService;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
@@ -33,10 +34,18 @@ public class ParseController {
         return ResponseEntity.accepted().body("URLs added to queue");
     }
 
+    /**
+     * Немедленный парсинг мимо очереди; URL не откладываются и при разомкнутой цепи хоста.
+     * await=true — ответ придёт после сохранения всей пачки (асинхронно, поток запроса не держится)
+     */
     @PostMapping("/parse/force")
-    public ResponseEntity<String> forceParse(@RequestBody ParseRequest request) {
-        parseService.parseUrls(request.getUrls());
-        return ResponseEntity.accepted().body("URLs parsed");
+    public CompletableFuture<ResponseEntity<String>> forceParse(@RequestBody ParseRequest request,
+                                                                @RequestParam(defaultValue = "false") boolean await) {
+        CompletableFuture<Void> batch = parseService.parseUrls(request.getUrls(), true);
+        if (!await) {
+            return CompletableFuture.completedFuture(ResponseEntity.accepted().body("URLs parsed"));
+        }
+        return batch.thenApply(ignored -> ResponseEntity.ok("URLs parsed"));
     }
 
     /**
@@ -50,11 +59,13 @@ public class ParseController {
     }
 
     /**
-     * REST + Polling: получение статуса задачи
+     * REST + Polling: получение статуса задачи.
+     * includeResults=false отдаёт только счётчики, без списка вакансий.
      */
     @GetMapping("/parse/status/{taskId}")
-    public ResponseEntity<ParsingStatus> getStatus(@PathVariable String taskId) {
-        ParsingStatus status = parsingTaskService.getStatus(taskId);
+    public ResponseEntity<ParsingStatus> getStatus(@PathVariable String taskId,
+                                                   @RequestParam(defaultValue = "true") boolean includeResults) {
+        ParsingStatus status = parsingTaskService.getStatus(taskId, includeResults);
         if (status == null) {
             return ResponseEntity.notFound().build();
         }
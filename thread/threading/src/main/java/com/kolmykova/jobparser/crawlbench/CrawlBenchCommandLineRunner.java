@@ -0,0 +1,89 @@
+package com.kolmykova.jobparser.crawlbench;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сквозной прогон краулера при старте под профилем crawl-bench. Мок-источник — само приложение
+ * (/mock/vacancy), поведение хостов задаётся mock.origin.profiles:
+ *
+ *   java -jar app.jar --spring.profiles.active=crawl-bench --crawl-bench.urls=50000 \
+ *        --mock.origin.profiles='hh.ru:latency=80,jitter=40,errors=0.02;*:latency=10,jitter=5' \
+ *        --parsing.persistence.mode=INSERT --crawl-bench.report=data/crawl-bench/insert.json
+ *
+ * Отчёты разных режимов (исполнитель, загрузка, сохранение, инструментирование) сравниваются
+ * по полям result/stages, параметры прогона записаны в config.
+ * Код выхода 1 — прогон не уложился в timeout-seconds.
+ */
+@Component
+@Profile("crawl-bench")
+public class CrawlBenchCommandLineRunner implements CommandLineRunner {
+
+    private final CrawlBenchmark benchmark;
+    private final ApplicationContext context;
+    private final Environment environment;
+    private final CrawlBenchSpec.Entry entry;
+    private final int urls;
+    private final int warmupUrls;
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    private final long startId;
+    private final String baseUrl;
+    private final long timeoutSeconds;
+    private final String reportPath;
+    private final boolean exitOnFinish;
+
+    public CrawlBenchCommandLineRunner(CrawlBenchmark benchmark,
+                                       ApplicationContext context,
+                                       Environment environment,
+                                       @Value("${crawl-bench.entry:DIRECT}") CrawlBenchSpec.Entry entry,
+                                       @Value("${crawl-bench.urls:20000}") int urls,
+                                       @Value("${crawl-bench.warmup-urls:2000}") int warmupUrls,
+                                       @Value("${crawl-bench.batch-size:50}") int batchSize,
+                                       @Value("${crawl-bench.max-in-flight-batches:4}") int maxInFlightBatches,
+                                       @Value("${crawl-bench.start-id:1}") long startId,
+                                       @Value("${crawl-bench.base-url:}") String baseUrl,
+                                       @Value("${crawl-bench.timeout-seconds:600}") long timeoutSeconds,
+                                       @Value("${crawl-bench.report:data/crawl-bench/report.json}") String reportPath,
+                                       @Value("${crawl-bench.exit-on-finish:true}") boolean exitOnFinish) {
+        this.benchmark = benchmark;
+        this.context = context;
+        this.environment = environment;
+        this.entry = entry;
+        this.urls = urls;
+        this.warmupUrls = warmupUrls;
+        this.batchSize = batchSize;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.startId = startId;
+        this.baseUrl = baseUrl;
+        this.timeoutSeconds = timeoutSeconds;
+        this.reportPath = reportPath;
+        this.exitOnFinish = exitOnFinish;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        // веб-сервер к этому моменту запущен, порт известен и при server.port=0
+        String origin = baseUrl.isBlank()
+                ? "http://localhost:" + environment.getProperty("local.server.port", "8080")
+                : baseUrl;
+        CrawlBenchSpec spec = new CrawlBenchSpec(entry, urls, warmupUrls, batchSize, maxInFlightBatches,
+                startId, origin, timeoutSeconds, reportPath);
+
+        CrawlBenchReport report = benchmark.run(spec);
+        benchmark.write(report, reportPath);
+
+        CrawlBenchReport.Result result = report.result();
+        System.out.println("[CRAWL-BENCH] " + result.urls() + " URLs via " + spec.entry()
+                + " in " + result.durationMs() + " ms (" + Math.round(result.urlsPerSec()) + " URLs/s), errors "
+                + result.errors() + (result.completed() ? "" : ", TIMED OUT") + "; report: " + reportPath);
+        if (exitOnFinish) {
+            System.exit(SpringApplication.exit(context, () -> result.completed() ? 0 : 1));
+        }
+    }
+}
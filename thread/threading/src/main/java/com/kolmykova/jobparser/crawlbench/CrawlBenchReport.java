@@ -0,0 +1,64 @@
+package com.kolmykova.jobparser.crawlbench;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Машиночитаемый итог прогона (пишется в JSON).
+ *
+ * stages — ключи url/fetch/parse/db/batch, как тег stage у jobparser.hdr.stage.*.
+ * Время — в миллисекундах; null — метрика недоступна в текущем режиме инструментирования.
+ */
+public record CrawlBenchReport(Instant startedAt,
+                               Config config,
+                               Result result,
+                               Map<String, StageStats> stages,
+                               Jvm jvm) {
+
+    /**
+     * С чем сравниваем: параметры прогона и режимы приложения
+     */
+    public record Config(String entry,
+                         int urls,
+                         int warmupUrls,
+                         int batchSize,
+                         int maxInFlightBatches,
+                         String instrumentationMode,
+                         String persistenceMode,
+                         Integer executorCoreThreads,
+                         Integer executorMaxThreads,
+                         String mockOriginProfiles,
+                         int availableProcessors,
+                         String javaVersion) {
+    }
+
+    /**
+     * @param completed false — прогон не уложился в timeoutSeconds, цифры частичные
+     */
+    public record Result(long urls,
+                         long durationMs,
+                         double urlsPerSec,
+                         long saved,
+                         long notModified,
+                         Map<String, Long> errors,
+                         boolean completed) {
+    }
+
+    public record StageStats(long count, Double meanMs, Double p50Ms, Double p99Ms) {
+    }
+
+    /**
+     * @param allocatedBytes выделено потоками, живыми на конец прогона
+     * @param gc             сборки за время замера
+     */
+    public record Jvm(long heapUsedBytes,
+                      long heapCommittedBytes,
+                      long heapMaxBytes,
+                      long allocatedBytes,
+                      List<Gc> gc) {
+    }
+
+    public record Gc(String name, long count, long timeMs) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.kolmykova.jobparser.crawlbench;
+
+/**
+ * Параметры сквозного прогона краулера по мок-источнику.
+ *
+ * @param entry              DIRECT — пачками через ParseService.parseUrls, API — POST /api/parse
+ *                           (очередь + VacancyScheduler, т.е. с учётом его периода)
+ * @param urls               URL в замеряемом прогоне
+ * @param warmupUrls         URL прогрева до замера (JIT, пулы, кэши мок-страниц)
+ * @param batchSize          URL в одной пачке parseUrls / одном POST
+ * @param maxInFlightBatches пачек parseUrls одновременно (DIRECT)
+ * @param startId            id первой мок-вакансии; все URL прогона различны
+ * @param baseUrl            адрес мок-источника, обычно само приложение
+ * @param timeoutSeconds     предел ожидания замеряемого прогона
+ * @param reportPath         куда записать JSON-отчёт
+ */
+public record CrawlBenchSpec(Entry entry,
+                             int urls,
+                             int warmupUrls,
+                             int batchSize,
+                             int maxInFlightBatches,
+                             long startId,
+                             String baseUrl,
+                             long timeoutSeconds,
+                             String reportPath) {
+
+    public enum Entry {
+        DIRECT, API
+    }
+
+    public CrawlBenchSpec {
+        if (urls <= 0) {
+            throw new IllegalArgumentException("urls must be > 0: " + urls);
+        }
+        if (warmupUrls < 0) {
+            warmupUrls = 0;
+        }
+        if (batchSize <= 0) {
+            batchSize = 50;
+        }
+        if (maxInFlightBatches <= 0) {
+            maxInFlightBatches = 1;
+        }
+        if (baseUrl == null || baseUrl.isBlank()) {
+            throw new IllegalArgumentException("baseUrl is required");
+        }
+    }
+}
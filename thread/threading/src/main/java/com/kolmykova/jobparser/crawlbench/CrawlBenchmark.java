@@ -0,0 +1,356 @@
+package com.kolmykova.jobparser.crawlbench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kolmykova.jobparser.config.VacancyConfig;
+import com.kolmykova.jobparser.crawlbench.CrawlBenchReport.Gc;
+import com.kolmykova.jobparser.crawlbench.CrawlBenchReport.StageStats;
+import com.kolmykova.jobparser.metrics.InstrumentationMode;
+import com.kolmykova.jobparser.metrics.ParserMetrics;
+import com.kolmykova.jobparser.service.MockOriginProfiles;
+import com.kolmykova.jobparser.service.ParseService;
+import com.kolmykova.jobparser.service.persistence.VacancyWriteBehind;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Сквозной прогон краулера: N мок-URL через parseUrls или POST /api/parse,
+ * итог — устойчивая пропускная способность, p50/p99 по стадиям и статистика кучи/GC.
+ *
+ * Стадии читаются из тех же метрик, что видит Prometheus, — разницей между срезами
+ * до и после замера. Квантили в режиме FULL — из таймеров Micrometer (скользящее окно
+ * около 2 минут, может захватить конец прогрева), в LIGHTWEIGHT — из HdrHistogram
+ * за последний завершённый snapshot-interval (конец замера, а не весь замер).
+ */
+@Component
+public class CrawlBenchmark {
+
+    static final String[] STAGES = {"url", "fetch", "parse", "db", "batch"};
+    private static final String[] ERROR_TYPES = {"http", "timeout", "parse", "db", "unknown"};
+    private static final int API_CHUNK = 1000;
+
+    private final ParseService parseService;
+    private final VacancyWriteBehind writeBehind;
+    private final ParserMetrics metrics;
+    private final MeterRegistry registry;
+    private final WebClient webClient;
+    private final ExecutorService vacancyExecutor;
+    private final MockOriginProfiles originProfiles;
+    private final ObjectMapper objectMapper;
+    private final String persistenceMode;
+
+    public CrawlBenchmark(ParseService parseService,
+                          VacancyWriteBehind writeBehind,
+                          ParserMetrics metrics,
+                          MeterRegistry registry,
+                          WebClient webClient,
+                          ExecutorService vacancyExecutor,
+                          MockOriginProfiles originProfiles,
+                          ObjectMapper objectMapper,
+                          @Value("${parsing.persistence.mode:UPSERT}") String persistenceMode) {
+        this.parseService = parseService;
+        this.writeBehind = writeBehind;
+        this.metrics = metrics;
+        this.registry = registry;
+        this.webClient = webClient;
+        this.vacancyExecutor = vacancyExecutor;
+        this.originProfiles = originProfiles;
+        this.objectMapper = objectMapper;
+        this.persistenceMode = persistenceMode;
+    }
+
+    public CrawlBenchReport run(CrawlBenchSpec spec) throws InterruptedException {
+        Instant startedAt = Instant.now();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(spec.timeoutSeconds());
+
+        long nextId = spec.startId();
+        if (spec.warmupUrls() > 0) {
+            push(spec, urls(spec.baseUrl(), nextId, spec.warmupUrls()), deadline);
+            nextId += spec.warmupUrls();
+        }
+
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(spec.timeoutSeconds());
+        Sample before = sample();
+        long start = System.nanoTime();
+        boolean completed = push(spec, urls(spec.baseUrl(), nextId, spec.urls()), deadline);
+        long nanos = System.nanoTime() - start;
+        Sample after = sample();
+
+        return new CrawlBenchReport(startedAt, config(spec), result(spec, completed, nanos, before, after),
+                stages(before, after), jvm(before, after));
+    }
+
+    public void write(CrawlBenchReport report, String path) throws IOException {
+        Path file = Path.of(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    /**
+     * Источники по кругу, id подряд — каждый URL прогона новый
+     */
+    static List<String> urls(String baseUrl, long firstId, int count) {
+        List<String> urls = new ArrayList<>(count);
+        for (long id = firstId; id < firstId + count; id++) {
+            String source = VacancyConfig.SOURCES.get((int) (id % VacancyConfig.SOURCES.size()));
+            urls.add(baseUrl + "/mock/vacancy/" + source + "/" + id);
+        }
+        return urls;
+    }
+
+    private boolean push(CrawlBenchSpec spec, List<String> urls, long deadline) throws InterruptedException {
+        return spec.entry() == CrawlBenchSpec.Entry.API
+                ? pushApi(spec, urls, deadline)
+                : pushDirect(spec, urls, deadline);
+    }
+
+    /**
+     * Не больше maxInFlightBatches пачек одновременно: очередь пула не раздувается,
+     * и время ожидания в ней не подменяет собой время стадий.
+     * Пачка завершается и с URL, которые HostGuards откладывал.
+     */
+    private boolean pushDirect(CrawlBenchSpec spec, List<String> urls, long deadline) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(spec.maxInFlightBatches());
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < urls.size(); from += spec.batchSize()) {
+            if (!inFlight.tryAcquire(remaining(deadline), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            CompletableFuture<Void> batch = parseService.parseUrls(
+                    urls.subList(from, Math.min(urls.size(), from + spec.batchSize())));
+            batch.whenComplete((ignored, error) -> inFlight.release());
+            batches.add(batch);
+        }
+        return await(CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)), deadline);
+    }
+
+    /**
+     * Через REST и очередь: пачки забирает VacancyScheduler, поэтому в результат входит его период
+     */
+    private boolean pushApi(CrawlBenchSpec spec, List<String> urls, long deadline) throws InterruptedException {
+        long completedBefore = completedUrls();
+        for (int from = 0; from < urls.size(); from += API_CHUNK) {
+            webClient.post()
+                    .uri(spec.baseUrl() + "/api/parse")
+                    .bodyValue(Map.of("urls", urls.subList(from, Math.min(urls.size(), from + API_CHUNK))))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(Duration.ofNanos(remaining(deadline)));
+        }
+        return awaitCompleted(completedBefore, urls.size(), deadline);
+    }
+
+    private boolean awaitCompleted(long completedBefore, int count, long deadline) throws InterruptedException {
+        while (completedUrls() - completedBefore < count) {
+            if (remaining(deadline) == 0) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return await(writeBehind.flush(), deadline);
+    }
+
+    private static boolean await(CompletableFuture<?> future, long deadline) throws InterruptedException {
+        try {
+            future.get(remaining(deadline), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            // ошибки отдельных URL уже в счётчиках jobparser.url.errors.total
+            return true;
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    // ========== Срезы метрик ==========
+
+    /**
+     * Срез счётчиков, стадий и JVM в один момент
+     */
+    private static final class Sample {
+        long completed;
+        double saved;
+        double notModified;
+        final double[] errors = new double[ERROR_TYPES.length];
+        final long[] stageCount = new long[STAGES.length];
+        final double[] stageTotalMs = new double[STAGES.length];
+        final Double[] stageP50 = new Double[STAGES.length];
+        final Double[] stageP99 = new Double[STAGES.length];
+        final Map<String, long[]> gc = new LinkedHashMap<>();
+        final Map<Long, Long> allocated = new HashMap<>();
+    }
+
+    private Sample sample() {
+        Sample s = new Sample();
+        s.completed = completedUrls();
+        s.saved = counter("jobparser.vacancy.saved.total");
+        s.notModified = counter("jobparser.fetch.not_modified.total");
+        for (int i = 0; i < ERROR_TYPES.length; i++) {
+            var c = registry.find("jobparser.url.errors.total").tag("type", ERROR_TYPES[i]).counter();
+            s.errors[i] = c != null ? c.count() : 0;
+        }
+        for (int i = 0; i < STAGES.length; i++) {
+            sampleStage(s, i);
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            s.gc.put(gc.getName(), new long[]{gc.getCollectionCount(), gc.getCollectionTime()});
+        }
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = threads.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    s.allocated.put(ids[i], bytes[i]);
+                }
+            }
+        }
+        return s;
+    }
+
+    private void sampleStage(Sample s, int i) {
+        String stage = STAGES[i];
+        if (metrics.mode() == InstrumentationMode.LIGHTWEIGHT) {
+            FunctionCounter count = registry.find("jobparser.hdr.stage.count").tag("stage", stage).functionCounter();
+            s.stageCount[i] = count != null ? (long) count.count() : 0;
+            s.stageP50[i] = hdrQuantileMs(stage, "0.5");
+            s.stageP99[i] = hdrQuantileMs(stage, "0.99");
+            return;
+        }
+        Timer timer = registry.find(timerName(stage)).timer();
+        if (timer == null) {
+            return;
+        }
+        s.stageCount[i] = timer.count();
+        s.stageTotalMs[i] = timer.totalTime(TimeUnit.MILLISECONDS);
+        for (ValueAtPercentile v : timer.takeSnapshot().percentileValues()) {
+            if (v.percentile() == 0.5) {
+                s.stageP50[i] = v.value(TimeUnit.MILLISECONDS);
+            } else if (v.percentile() == 0.99) {
+                s.stageP99[i] = v.value(TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    static String timerName(String stage) {
+        return switch (stage) {
+            case "url" -> "jobparser.url.total.time";
+            case "batch" -> "jobparser.batch.total.time";
+            default -> "jobparser.stage." + stage + ".time";
+        };
+    }
+
+    private Double hdrQuantileMs(String stage, String quantile) {
+        Gauge gauge = registry.find("jobparser.hdr.stage.time").tags("stage", stage, "quantile", quantile).gauge();
+        if (gauge == null || Double.isNaN(gauge.value())) {
+            return null;
+        }
+        return gauge.value() * 1000;
+    }
+
+    /**
+     * Завершённые URL (счётчик пишется в finally processUrl, в т.ч. при ошибке)
+     */
+    private long completedUrls() {
+        if (metrics.mode() == InstrumentationMode.LIGHTWEIGHT) {
+            FunctionCounter count = registry.find("jobparser.hdr.stage.count").tag("stage", "url").functionCounter();
+            return count != null ? (long) count.count() : 0;
+        }
+        Timer timer = registry.find("jobparser.url.total.time").timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private double counter(String name) {
+        var c = registry.find(name).counter();
+        return c != null ? c.count() : 0;
+    }
+
+    // ========== Отчёт ==========
+
+    private CrawlBenchReport.Config config(CrawlBenchSpec spec) {
+        Integer core = null;
+        Integer max = null;
+        if (vacancyExecutor instanceof ThreadPoolExecutor pool) {
+            core = pool.getCorePoolSize();
+            max = pool.getMaximumPoolSize();
+        }
+        return new CrawlBenchReport.Config(spec.entry().name(), spec.urls(), spec.warmupUrls(), spec.batchSize(),
+                spec.maxInFlightBatches(), metrics.mode().name(), persistenceMode, core, max,
+                originProfiles.spec(), Runtime.getRuntime().availableProcessors(),
+                System.getProperty("java.version"));
+    }
+
+    private static CrawlBenchReport.Result result(CrawlBenchSpec spec, boolean completed, long nanos,
+                                                  Sample before, Sample after) {
+        long done = completed ? spec.urls() : Math.min(spec.urls(), after.completed - before.completed);
+        Map<String, Long> errors = new LinkedHashMap<>();
+        for (int i = 0; i < ERROR_TYPES.length; i++) {
+            errors.put(ERROR_TYPES[i], Math.round(after.errors[i] - before.errors[i]));
+        }
+        double seconds = nanos / 1e9;
+        return new CrawlBenchReport.Result(done, TimeUnit.NANOSECONDS.toMillis(nanos),
+                seconds > 0 ? done / seconds : 0,
+                Math.round(after.saved - before.saved), Math.round(after.notModified - before.notModified),
+                errors, completed);
+    }
+
+    private static Map<String, StageStats> stages(Sample before, Sample after) {
+        Map<String, StageStats> stages = new LinkedHashMap<>();
+        for (int i = 0; i < STAGES.length; i++) {
+            long count = after.stageCount[i] - before.stageCount[i];
+            Double mean = null;
+            if (count > 0 && after.stageTotalMs[i] > 0) {
+                mean = (after.stageTotalMs[i] - before.stageTotalMs[i]) / count;
+            }
+            stages.put(STAGES[i], new StageStats(count, mean, after.stageP50[i], after.stageP99[i]));
+        }
+        return stages;
+    }
+
+    private static CrawlBenchReport.Jvm jvm(Sample before, Sample after) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long allocated = 0;
+        for (Map.Entry<Long, Long> e : after.allocated.entrySet()) {
+            // поток, появившийся во время замера, считается с нуля
+            allocated += e.getValue() - before.allocated.getOrDefault(e.getKey(), 0L);
+        }
+        List<Gc> gc = new ArrayList<>();
+        after.gc.forEach((name, counts) -> {
+            long[] was = before.gc.getOrDefault(name, new long[2]);
+            gc.add(new Gc(name, counts[0] - was[0], counts[1] - was[1]));
+        });
+        return new CrawlBenchReport.Jvm(heap.getUsed(), heap.getCommitted(), heap.getMax(), allocated, gc);
+    }
+}
@@ -0,0 +1,59 @@
+package com.kolmykova.jobparser.dataset;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генерация набора при старте под профилем dataset:
+ *
+ *   java -jar app.jar --spring.profiles.active=dataset --dataset.rows=10000000 \
+ *        --dataset.target=CSV --dataset.path=data/vacancies-10m.csv --dataset.exit-on-finish=true
+ *
+ * Для target=DB приложение по умолчанию остаётся работать — H2 in-memory,
+ * и набор нужен для нагрузки на /api/vacancies и /api/analysis/*.
+ */
+@Component
+@Profile("dataset")
+public class DatasetCommandLineRunner implements CommandLineRunner {
+
+    private final DatasetGenerator generator;
+    private final ApplicationContext context;
+    private final DatasetSpec spec;
+    private final boolean exitOnFinish;
+
+    public DatasetCommandLineRunner(DatasetGenerator generator,
+                                    ApplicationContext context,
+                                    @Value("${dataset.rows:1000000}") long rows,
+                                    @Value("${dataset.target:DB}") DatasetSpec.Target target,
+                                    @Value("${dataset.path:data/generated/vacancies.csv}") String path,
+                                    @Value("${dataset.seed:0}") long seed,
+                                    @Value("${dataset.skew:1.0}") double skew,
+                                    @Value("${dataset.start-id:1}") long startId,
+                                    @Value("${dataset.threads:0}") int threads,
+                                    @Value("${dataset.batch-size:1000}") int batchSize,
+                                    @Value("${dataset.truncate:false}") boolean truncate,
+                                    @Value("${dataset.exit-on-finish:false}") boolean exitOnFinish) {
+        this.generator = generator;
+        this.context = context;
+        this.spec = new DatasetSpec(rows, target, path, seed, skew, startId, threads, batchSize, truncate);
+        this.exitOnFinish = exitOnFinish;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        long start = System.nanoTime();
+        long written = generator.generate(spec, new AtomicLong());
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("[DATASET] Wrote " + written + " rows into " + spec.target()
+                + " in " + millis + " ms (" + (written * 1000 / millis) + " rows/s)");
+        if (exitOnFinish) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
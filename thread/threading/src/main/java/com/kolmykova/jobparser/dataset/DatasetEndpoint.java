@@ -0,0 +1,172 @@
+package com.kolmykova.jobparser.dataset;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Запуск генерации синтетического набора через actuator (/actuator/dataset).
+ *
+ * GET  /actuator/dataset — состояние текущей/последней задачи и скорость;
+ * POST /actuator/dataset {"rows":1000000, "target":"DB", "skew":1.0, "seed":42}
+ *                        — запустить генерацию в фоне (одна задача за раз);
+ *      для CSV: {"rows":10000000, "target":"CSV", "path":"vacancies-10m.csv"}.
+ * Неуказанные параметры берутся из dataset.* в application.properties.
+ *
+ * Эндпоинт без аутентификации, поэтому path — только относительный путь внутри
+ * dataset.dir, а truncate принимается, лишь если включён dataset.endpoint.truncate-enabled.
+ */
+@Component
+@Endpoint(id = "dataset")
+public class DatasetEndpoint {
+
+    private final DatasetGenerator generator;
+    private final String defaultCsvPath;
+    private final Path datasetDir;
+    private final boolean truncateEnabled;
+    private final int defaultThreads;
+    private final int defaultBatchSize;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "dataset-job");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile Job job;
+
+    public DatasetEndpoint(DatasetGenerator generator,
+                           @Value("${dataset.path:data/generated/vacancies.csv}") String defaultCsvPath,
+                           @Value("${dataset.threads:0}") int defaultThreads,
+                           @Value("${dataset.batch-size:1000}") int defaultBatchSize,
+                           @Value("${dataset.dir:data/generated}") String datasetDir,
+                           @Value("${dataset.endpoint.truncate-enabled:false}") boolean truncateEnabled) {
+        this.generator = generator;
+        this.defaultCsvPath = defaultCsvPath;
+        this.datasetDir = Path.of(datasetDir).toAbsolutePath().normalize();
+        this.truncateEnabled = truncateEnabled;
+        this.defaultThreads = defaultThreads;
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    @PreDestroy
+    public void close() {
+        runner.shutdownNow();
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Job current = job;
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (current == null) {
+            result.put("state", "NONE");
+            return result;
+        }
+        long rows = current.progress.get();
+        Instant end = current.finishedAt != null ? current.finishedAt : Instant.now();
+        double seconds = Math.max(1, Duration.between(current.startedAt, end).toMillis()) / 1000.0;
+        result.put("state", current.state);
+        result.put("target", current.spec.target().name());
+        result.put("requestedRows", current.spec.rows());
+        result.put("writtenRows", rows);
+        result.put("seed", current.spec.seed());
+        result.put("skew", current.spec.skew());
+        if (current.spec.target() == DatasetSpec.Target.CSV) {
+            result.put("path", current.spec.path());
+        }
+        result.put("startedAt", current.startedAt.toString());
+        result.put("elapsedSeconds", seconds);
+        result.put("rowsPerSecond", Math.round(rows / seconds));
+        if (current.error != null) {
+            result.put("error", current.error);
+        }
+        return result;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> start(long rows,
+                                                  @Nullable String target,
+                                                  @Nullable String path,
+                                                  @Nullable Long seed,
+                                                  @Nullable Double skew,
+                                                  @Nullable Long startId,
+                                                  @Nullable Integer threads,
+                                                  @Nullable Boolean truncate) {
+        if (job != null && "RUNNING".equals(job.state)) {
+            throw new IllegalStateException("Dataset generation is already running");
+        }
+        if (truncate != null && truncate && !truncateEnabled) {
+            throw new IllegalArgumentException("truncate is disabled for the endpoint (dataset.endpoint.truncate-enabled)");
+        }
+        DatasetSpec spec = new DatasetSpec(
+                rows,
+                target != null ? DatasetSpec.Target.valueOf(target.toUpperCase(Locale.ROOT)) : DatasetSpec.Target.DB,
+                path != null ? resolveCsvPath(path).toString() : defaultCsvPath,
+                seed != null ? seed : 0L,
+                skew != null ? skew : 1.0,
+                startId != null ? startId : 1L,
+                threads != null ? threads : defaultThreads,
+                defaultBatchSize,
+                truncate != null && truncate);
+        Job next = new Job(spec);
+        job = next;
+        runner.execute(() -> run(next));
+        return status();
+    }
+
+    /**
+     * Путь из запроса — внутри dataset.dir; абсолютный путь или выход через ".." отклоняются
+     */
+    Path resolveCsvPath(String path) {
+        Path resolved = datasetDir.resolve(path).normalize();
+        if (Path.of(path).isAbsolute() || !resolved.startsWith(datasetDir) || resolved.equals(datasetDir)) {
+            throw new IllegalArgumentException("path must be a file inside " + datasetDir);
+        }
+        return resolved;
+    }
+
+    private void run(Job current) {
+        System.out.println("[DATASET] Generating " + current.spec.rows() + " rows into " + current.spec.target());
+        try {
+            generator.generate(current.spec, current.progress);
+            current.state = "DONE";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            current.state = "FAILED";
+            current.error = "interrupted";
+        } catch (Exception e) {
+            current.state = "FAILED";
+            current.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            System.err.println("[DATASET] Generation failed: " + current.error);
+        } finally {
+            current.finishedAt = Instant.now();
+        }
+        System.out.println("[DATASET] " + current.state + ": " + current.progress.get() + " rows");
+    }
+
+    private static final class Job {
+        final DatasetSpec spec;
+        final AtomicLong progress = new AtomicLong();
+        final Instant startedAt = Instant.now();
+        volatile String state = "RUNNING";
+        volatile String error;
+        volatile Instant finishedAt;
+
+        Job(DatasetSpec spec) {
+            this.spec = spec;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.kolmykova.jobparser.dataset;
+
+import com.kolmykova.jobparser.config.VacancyConfig;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig.SplitMix;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig.VacancyRandomGenerator;
+import com.kolmykova.jobparser.metrics.VacancyCountTracker;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import com.kolmykova.jobparser.repository.VacancyKeys;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Потоковая генерация синтетических вакансий для нагрузочных тестов (1M–100M строк).
+ *
+ * Строка i — чистая функция от (seed, i): источник выбирается по сиду строки,
+ * остальные поля даёт VacancyRandomGenerator с солью seed, город и компания
+ * перевыбираются по Ципфу. Поэтому строки можно генерировать в любом порядке
+ * и в любом числе потоков, а набор воспроизводится построчно.
+ *
+ * Набор целиком в памяти не держится: в БД каждый поток пишет свои блоки
+ * на своём соединении (батч + commit на блок), в CSV блоки рендерятся параллельно
+ * и дописываются в файл по порядку с ограниченным окном.
+ */
+@Component
+public class DatasetGenerator {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO vacancies (source, url, title, company, city, salary, requirements,
+                                   published_at, created_at, url_key, content_hash)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    static final String CSV_HEADER = "id;source;url;title;company;city;salary;requirements;publishedAt;createdAt";
+    private static final DateTimeFormatter CSV_DATE = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    // каждый поток держит соединение из пула всё время загрузки; вставки в одну таблицу H2
+    // дальше 4 потоков почти не масштабируются, а пул нужен и приложению
+    private static final int DB_MAX_THREADS = 4;
+
+    private final VacancyRandomGenerator vacancyRandomGenerator;
+    private final JdbcTemplate jdbcTemplate;
+    private final VacancyCountTracker vacancyCount;
+
+    public DatasetGenerator(VacancyRandomGenerator vacancyRandomGenerator,
+                            JdbcTemplate jdbcTemplate,
+                            VacancyCountTracker vacancyCount) {
+        this.vacancyRandomGenerator = vacancyRandomGenerator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.vacancyCount = vacancyCount;
+    }
+
+    /**
+     * Синхронно генерирует набор.
+     *
+     * @param progress счётчик записанных строк, читается снаружи во время работы
+     * @return число записанных строк
+     */
+    public long generate(DatasetSpec spec, AtomicLong progress) throws IOException, InterruptedException {
+        Rows rows = new Rows(spec);
+        long written = switch (spec.target()) {
+            case DB -> writeDb(spec, rows, progress);
+            case CSV -> writeCsv(spec, rows, progress);
+        };
+        if (spec.target() == DatasetSpec.Target.DB && vacancyCount != null) {
+            vacancyCount.reconcile();
+        }
+        return written;
+    }
+
+    // ---------- DB ----------
+
+    private long writeDb(DatasetSpec spec, Rows rows, AtomicLong progress) throws InterruptedException {
+        if (spec.truncate()) {
+            jdbcTemplate.execute("TRUNCATE TABLE vacancies");
+        }
+        long blocks = blocks(spec);
+        int threads = Math.min(spec.threads(), DB_MAX_THREADS);
+        AtomicLong nextBlock = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                    insertBlocks(con, spec, rows, nextBlock, blocks, progress);
+                    return null;
+                })));
+            }
+            for (Future<?> worker : workers) {
+                await(worker);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return progress.get();
+    }
+
+    private void insertBlocks(Connection con, DatasetSpec spec, Rows rows, AtomicLong nextBlock,
+                              long blocks, AtomicLong progress) throws SQLException {
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+            for (long block = nextBlock.getAndIncrement(); block < blocks; block = nextBlock.getAndIncrement()) {
+                long from = block * spec.batchSize();
+                long to = Math.min(spec.rows(), from + spec.batchSize());
+                for (long i = from; i < to; i++) {
+                    bind(ps, rows.row(i));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                con.commit();
+                progress.addAndGet(to - from);
+            }
+        } catch (SQLException | RuntimeException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, VacancyDto v) throws SQLException {
+        ps.setString(1, v.getSource());
+        ps.setString(2, v.getUrl());
+        ps.setString(3, v.getTitle());
+        ps.setString(4, v.getCompany());
+        ps.setString(5, v.getCity());
+        ps.setString(6, v.getSalary());
+        ps.setString(7, v.getRequirements());
+        ps.setTimestamp(8, Timestamp.valueOf(v.getPublishedAt()));
+        ps.setTimestamp(9, Timestamp.valueOf(v.getCreatedAt()));
+        ps.setString(10, VacancyKeys.normalizeUrl(v.getUrl()));
+        ps.setLong(11, VacancyKeys.contentHash(v.getSource(), v.getTitle(), v.getCompany(), v.getCity(),
+                v.getSalary(), v.getRequirements(), v.getPublishedAt()));
+    }
+
+    // ---------- CSV ----------
+
+    private long writeCsv(DatasetSpec spec, Rows rows, AtomicLong progress) throws IOException, InterruptedException {
+        Path path = Path.of(spec.path());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        long blocks = blocks(spec);
+        // генерация блоков упирается в CPU: потоков сверх ядер не нужно, а threads приходит и из эндпоинта
+        int threads = Math.min(spec.threads(), Runtime.getRuntime().availableProcessors());
+        int window = threads * 2;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Deque<Future<String>> pending = new ArrayDeque<>(window);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (long block = 0; block < blocks; block++) {
+                if (pending.size() >= window) {
+                    writer.write(await(pending.poll()));
+                }
+                long from = block * spec.batchSize();
+                long to = Math.min(spec.rows(), from + spec.batchSize());
+                pending.add(pool.submit(() -> {
+                    String csv = renderCsv(rows, from, to);
+                    progress.addAndGet(to - from);
+                    return csv;
+                }));
+            }
+            while (!pending.isEmpty()) {
+                writer.write(await(pending.poll()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return progress.get();
+    }
+
+    private static String renderCsv(Rows rows, long from, long to) {
+        StringBuilder sb = new StringBuilder((int) (to - from) * 320);
+        for (long i = from; i < to; i++) {
+            VacancyDto v = rows.row(i);
+            sb.append(v.getId()).append(';');
+            csvField(sb, v.getSource()).append(';');
+            csvField(sb, v.getUrl()).append(';');
+            csvField(sb, v.getTitle()).append(';');
+            csvField(sb, v.getCompany()).append(';');
+            csvField(sb, v.getCity()).append(';');
+            csvField(sb, v.getSalary()).append(';');
+            csvField(sb, v.getRequirements()).append(';');
+            sb.append(CSV_DATE.format(v.getPublishedAt())).append(';');
+            sb.append(CSV_DATE.format(v.getCreatedAt())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * FileVacancyDataSource режет строку по ';' без кавычек: ';' внутри поля
+     * (разделитель требований) заменяется на ',', переводы строк — на пробел
+     */
+    private static StringBuilder csvField(StringBuilder sb, String value) {
+        if (value == null) {
+            return sb;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            sb.append(c == ';' ? ',' : (c == '\n' || c == '\r') ? ' ' : c);
+        }
+        return sb;
+    }
+
+    // ---------- общее ----------
+
+    private static long blocks(DatasetSpec spec) {
+        return (spec.rows() + spec.batchSize() - 1) / spec.batchSize();
+    }
+
+    private static <T> T await(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Dataset generation failed", cause);
+        }
+    }
+
+    /**
+     * Генератор строк набора; потокобезопасен — состояния между вызовами нет
+     */
+    final class Rows {
+
+        private final long seed;
+        private final long startId;
+        private final ZipfDistribution cities;
+        private final ZipfDistribution companies;
+
+        Rows(DatasetSpec spec) {
+            this.seed = spec.seed();
+            this.startId = spec.startId();
+            this.cities = new ZipfDistribution(VacancyConfig.CITIES.size(), spec.skew());
+            this.companies = new ZipfDistribution(VacancyConfig.COMPANIES.size(), spec.skew());
+        }
+
+        VacancyDto row(long index) {
+            SplitMix random = new SplitMix(SplitMix.mix(seed ^ index * SplitMix.GOLDEN_GAMMA));
+            String source = VacancyConfig.SOURCES.get(random.nextInt(VacancyConfig.SOURCES.size()));
+            VacancyDto v = vacancyRandomGenerator.generateRandomVacancy(source, startId + index, seed);
+            v.setCity(VacancyConfig.CITIES.get(cities.sample(random.nextDouble())));
+            v.setCompany(VacancyConfig.COMPANIES.get(companies.sample(random.nextDouble())));
+            return v;
+        }
+    }
+
+    /**
+     * Для тестов: строка набора без записи
+     */
+    VacancyDto row(DatasetSpec spec, long index) {
+        return new Rows(spec).row(index);
+    }
+}
@@ -0,0 +1,44 @@
+package com.kolmykova.jobparser.dataset;
+
+/**
+ * Параметры синтетического набора вакансий.
+ *
+ * @param rows      число строк
+ * @param target    DB — пакетные INSERT в таблицу vacancies, CSV — файл в формате FileVacancyDataSource
+ * @param path      файл для CSV
+ * @param seed      сид: при одинаковых параметрах набор совпадает построчно
+ * @param skew      показатель Ципфа для городов и компаний (0 — равномерно, ~1 — реалистичный перекос)
+ * @param startId   id первой строки (для DB — часть URL, чтобы повторные загрузки не пересекались)
+ * @param threads   потоки генерации; для CSV не больше числа ядер, для DB — не больше 4
+ * @param batchSize строк в одном JDBC-батче / CSV-блоке
+ * @param truncate  очистить таблицу перед загрузкой в БД
+ */
+public record DatasetSpec(long rows,
+                          Target target,
+                          String path,
+                          long seed,
+                          double skew,
+                          long startId,
+                          int threads,
+                          int batchSize,
+                          boolean truncate) {
+
+    public enum Target {
+        DB, CSV
+    }
+
+    public DatasetSpec {
+        if (rows < 0) {
+            throw new IllegalArgumentException("rows must be >= 0: " + rows);
+        }
+        if (target == Target.CSV && (path == null || path.isBlank())) {
+            throw new IllegalArgumentException("path is required for CSV target");
+        }
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if (batchSize <= 0) {
+            batchSize = 1000;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.kolmykova.jobparser.dataset;
+
+import java.util.Arrays;
+
+/**
+ * Распределение Ципфа над рангами 0..n-1: P(k) ~ 1 / (k + 1)^s.
+ * s = 0 — равномерное. Выборка — бинарный поиск по заранее посчитанной CDF.
+ */
+public final class ZipfDistribution {
+
+    private final double[] cdf;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("exponent must be >= 0: " + exponent);
+        }
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+        cdf[n - 1] = 1.0;
+    }
+
+    /**
+     * @param u равномерное число из [0, 1)
+     * @return ранг 0..n-1
+     */
+    public int sample(double u) {
+        int i = Arrays.binarySearch(cdf, u);
+        // точное попадание в границу относится к следующему рангу
+        int rank = i >= 0 ? i + 1 : -i - 1;
+        return Math.min(rank, cdf.length - 1);
+    }
+}
@@ -7,7 +7,9 @@ import com.kolmykova.jobparser.domain.port.out.VacancyDataSource;
 import com.kolmykova.jobparser.domain.port.out.VacancyResultPublisher;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Доменный сервис - ЯДРО бизнес-логики.
@@ -18,8 +20,21 @@ import java.util.stream.Collectors;
  */
 public class VacancyAnalysisService implements AnalyzeVacancyUseCase {
 
+    // Позитивные индикаторы
+    private static final List<String> POSITIVE_INDICATORS = List.of(
+            "интересный", "развитие", "обучение", "карьера", "рост",
+            "гибкий", "удалёнка", "бонус", "премия", "дмс"
+    );
+
+    // Негативные индикаторы
+    private static final List<String> NEGATIVE_INDICATORS = List.of(
+            "срочно", "стресс", "переработки", "ненормированный",
+            "обязательно", "строго", "штраф"
+    );
+
     private final VacancyDataSource dataSource;
     private final VacancyResultPublisher resultPublisher;
+    private final boolean parallel;
 
     /**
      * Конструктор принимает порты (интерфейсы), а не конкретные реализации.
@@ -27,8 +42,19 @@ public class VacancyAnalysisService implements AnalyzeVacancyUseCase {
      */
     public VacancyAnalysisService(VacancyDataSource dataSource,
                                   VacancyResultPublisher resultPublisher) {
+        this(dataSource, resultPublisher, false);
+    }
+
+    /**
+     * @param parallel агрегации через parallelStream (общий ForkJoinPool) — имеет смысл
+     *                 на больших выборках; результат тот же, что и в последовательном режиме
+     */
+    public VacancyAnalysisService(VacancyDataSource dataSource,
+                                  VacancyResultPublisher resultPublisher,
+                                  boolean parallel) {
         this.dataSource = Objects.requireNonNull(dataSource, "dataSource must not be null");
         this.resultPublisher = Objects.requireNonNull(resultPublisher, "resultPublisher must not be null");
+        this.parallel = parallel;
     }
 
     @Override
@@ -97,53 +123,64 @@ public class VacancyAnalysisService implements AnalyzeVacancyUseCase {
             return "NEUTRAL";
         }
 
-        int positiveCount = 0;
-        int negativeCount = 0;
+        // счётчики упакованы в один long (позитивные — старшие 32 бита),
+        // чтобы сумма шла одним проходом и в параллельном режиме
+        long counts = stream(vacancies)
+                .mapToLong(VacancyAnalysisService::countIndicators)
+                .sum();
+        long positiveCount = counts >>> 32;
+        long negativeCount = counts & 0xFFFF_FFFFL;
 
-        // Позитивные индикаторы
-        List<String> positiveIndicators = List.of(
-                "интересный", "развитие", "обучение", "карьера", "рост",
-                "гибкий", "удалёнка", "бонус", "премия", "дмс"
-        );
+        if (positiveCount > negativeCount * 2) {
+            return "POSITIVE - Вакансии содержат много позитивных условий";
+        } else if (negativeCount > positiveCount * 2) {
+            return "NEGATIVE - Вакансии содержат много негативных индикаторов";
+        } else {
+            return "NEUTRAL - Сбалансированные требования";
+        }
+    }
 
-        // Негативные индикаторы
-        List<String> negativeIndicators = List.of(
-                "срочно", "стресс", "переработки", "ненормированный",
-                "обязательно", "строго", "штраф"
-        );
+    // ========== Приватные методы бизнес-логики ==========
 
-        for (VacancyDomain vacancy : vacancies) {
-            String req = vacancy.getRequirements();
-            if (req == null) continue;
+    private Stream<VacancyDomain> stream(List<VacancyDomain> vacancies) {
+        return parallel ? vacancies.parallelStream() : vacancies.stream();
+    }
 
-            String lowerReq = req.toLowerCase();
+    private static long countIndicators(VacancyDomain vacancy) {
+        String req = vacancy.getRequirements();
+        if (req == null) {
+            return 0;
+        }
 
-            for (String indicator : positiveIndicators) {
-                if (lowerReq.contains(indicator)) {
-                    positiveCount++;
-                }
-            }
+        String lowerReq = req.toLowerCase();
+        long positive = 0;
+        long negative = 0;
 
-            for (String indicator : negativeIndicators) {
-                if (lowerReq.contains(indicator)) {
-                    negativeCount++;
-                }
+        for (String indicator : POSITIVE_INDICATORS) {
+            if (lowerReq.contains(indicator)) {
+                positive++;
             }
         }
 
-        if (positiveCount > negativeCount * 2) {
-            return "POSITIVE - Вакансии содержат много позитивных условий";
-        } else if (negativeCount > positiveCount * 2) {
-            return "NEGATIVE - Вакансии содержат много негативных индикаторов";
-        } else {
-            return "NEUTRAL - Сбалансированные требования";
+        for (String indicator : NEGATIVE_INDICATORS) {
+            if (lowerReq.contains(indicator)) {
+                negative++;
+            }
         }
+        return positive << 32 | negative;
     }
 
-    // ========== Приватные методы бизнес-логики ==========
+    /**
+     * Подсчёт по ключу; в параллельном режиме — в общую ConcurrentMap без слияния частичных карт
+     */
+    private <K> Map<K, Long> countBy(Stream<VacancyDomain> vacancies, Function<VacancyDomain, K> key) {
+        return parallel
+                ? vacancies.collect(Collectors.groupingByConcurrent(key, Collectors.counting()))
+                : vacancies.collect(Collectors.groupingBy(key, Collectors.counting()));
+    }
 
     private Double calculateOverallAverageSalary(List<VacancyDomain> vacancies) {
-        return vacancies.stream()
+        return stream(vacancies)
                 .map(VacancyDomain::calculateAverageSalary)
                 .filter(Objects::nonNull)
                 .mapToInt(Integer::intValue)
@@ -152,7 +189,7 @@ public class VacancyAnalysisService implements AnalyzeVacancyUseCase {
     }
 
     private Integer findMinSalary(List<VacancyDomain> vacancies) {
-        return vacancies.stream()
+        return stream(vacancies)
                 .map(VacancyDomain::getSalaryMin)
                 .filter(Objects::nonNull)
                 .min(Integer::compareTo)
@@ -160,7 +197,7 @@ public class VacancyAnalysisService implements AnalyzeVacancyUseCase {
     }
 
     private Integer findMaxSalary(List<VacancyDomain> vacancies) {
-        return vacancies.stream()
+        return stream(vacancies)
                 .map(VacancyDomain::getSalaryMax)
                 .filter(Objects::nonNull)
                 .max(Integer::compareTo)
@@ -168,33 +205,19 @@ public class VacancyAnalysisService implements AnalyzeVacancyUseCase {
     }
 
     private Map<String, Long> groupByCity(List<VacancyDomain> vacancies) {
-        return vacancies.stream()
-                .filter(v -> v.getCity() != null)
-                .collect(Collectors.groupingBy(
-                        VacancyDomain::getCity,
-                        Collectors.counting()
-                ));
+        return countBy(stream(vacancies).filter(v -> v.getCity() != null), VacancyDomain::getCity);
     }
 
     private Map<String, Long> groupByCompany(List<VacancyDomain> vacancies) {
-        return vacancies.stream()
-                .filter(v -> v.getCompany() != null)
-                .collect(Collectors.groupingBy(
-                        VacancyDomain::getCompany,
-                        Collectors.counting()
-                ));
+        return countBy(stream(vacancies).filter(v -> v.getCompany() != null), VacancyDomain::getCompany);
     }
 
     private Map<VacancyDomain.SeniorityLevel, Long> groupBySeniority(List<VacancyDomain> vacancies) {
-        return vacancies.stream()
-                .collect(Collectors.groupingBy(
-                        VacancyDomain::determineSeniorityLevel,
-                        Collectors.counting()
-                ));
+        return countBy(stream(vacancies), VacancyDomain::determineSeniorityLevel);
     }
 
     private int countRecent(List<VacancyDomain> vacancies, int daysThreshold) {
-        return (int) vacancies.stream()
+        return (int) stream(vacancies)
                 .filter(v -> v.isRecent(daysThreshold))
                 .count();
     }
@@ -0,0 +1,25 @@
+package com.kolmykova.jobparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("jobparser.BatchSave")
+@Label("Batch Save")
+@Description("Сохранение пачки вакансий (saveBatch)")
+@Category({"JobParser", "Persistence"})
+@StackTrace(false)
+public final class BatchSaveEvent extends jdk.jfr.Event {
+
+    @Label("Batch Size")
+    public int batchSize;
+
+    @Label("Context")
+    @Description("URL, заполнивший пачку, или flush")
+    public String context;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,198 @@
+package com.kolmykova.jobparser.jfr;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Управление записью JFR через actuator (/actuator/jfr).
+ *
+ * GET    /actuator/jfr                — состояние записи и список дампов;
+ * POST   /actuator/jfr {"action":"start", "maxAgeMinutes":30, "maxSizeMb":250}
+ *                                      — начать запись (профиль default.jfc + jfr/jobparser.jfc);
+ * POST   /actuator/jfr {"action":"dump"} — сохранить текущий буфер записи в файл;
+ * DELETE /actuator/jfr                — остановить запись (с финальным дампом);
+ * GET    /actuator/jfr/{file}         — скачать дамп.
+ *
+ * При jfr.continuous.enabled=true запись стартует вместе с приложением
+ * и держит последние maxAge/maxSize данных — дамп можно снять в любой момент.
+ */
+@Component
+@Endpoint(id = "jfr")
+public class JfrEndpoint {
+
+    private static final String PROFILE = "jfr/jobparser.jfc";
+    private static final Pattern DUMP_NAME = Pattern.compile("[\\w.-]+\\.jfr");
+    private static final DateTimeFormatter DUMP_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path dumpDir;
+    private final boolean continuous;
+    private final int defaultMaxAgeMinutes;
+    private final int defaultMaxSizeMb;
+
+    private Recording recording;
+
+    public JfrEndpoint(@Value("${jfr.dump-dir:data/jfr}") String dumpDir,
+                       @Value("${jfr.continuous.enabled:false}") boolean continuous,
+                       @Value("${jfr.max-age-minutes:30}") int defaultMaxAgeMinutes,
+                       @Value("${jfr.max-size-mb:250}") int defaultMaxSizeMb) {
+        this.dumpDir = Path.of(dumpDir);
+        this.continuous = continuous;
+        this.defaultMaxAgeMinutes = defaultMaxAgeMinutes;
+        this.defaultMaxSizeMb = defaultMaxSizeMb;
+    }
+
+    @PostConstruct
+    public void init() throws IOException, ParseException {
+        if (continuous) {
+            start(defaultMaxAgeMinutes, defaultMaxSizeMb);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (recording == null) {
+            result.put("state", "NONE");
+        } else {
+            result.put("state", recording.getState().name());
+            result.put("name", recording.getName());
+            result.put("startedAt", String.valueOf(recording.getStartTime()));
+            result.put("maxAgeMinutes", recording.getMaxAge() != null ? recording.getMaxAge().toMinutes() : null);
+            result.put("maxSizeMb", recording.getMaxSize() / (1024 * 1024));
+        }
+        result.put("dumps", listDumps());
+        return result;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> control(String action,
+                                                    @Nullable Integer maxAgeMinutes,
+                                                    @Nullable Integer maxSizeMb) throws IOException, ParseException {
+        switch (action) {
+            case "start" -> start(maxAgeMinutes != null ? maxAgeMinutes : defaultMaxAgeMinutes,
+                    maxSizeMb != null ? maxSizeMb : defaultMaxSizeMb);
+            case "dump" -> {
+                if (recording == null || recording.getState() != RecordingState.RUNNING) {
+                    throw new IllegalStateException("JFR recording is not running");
+                }
+                Path file = dump();
+                return Map.of("dump", file.getFileName().toString());
+            }
+            default -> throw new IllegalArgumentException("Unknown action: " + action);
+        }
+        return status();
+    }
+
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() throws IOException {
+        if (recording == null) {
+            return status();
+        }
+        Path file = recording.getState() == RecordingState.RUNNING ? dump() : null;
+        recording.stop();
+        recording.close();
+        recording = null;
+
+        Map<String, Object> result = status();
+        if (file != null) {
+            result.put("dump", file.getFileName().toString());
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Resource download(@Selector String file) {
+        if (!DUMP_NAME.matcher(file).matches()) {
+            return null;
+        }
+        Path path = dumpDir.resolve(file);
+        return Files.isRegularFile(path) ? new FileSystemResource(path) : null;
+    }
+
+    private void start(int maxAgeMinutes, int maxSizeMb) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return;
+        }
+        close();
+
+        Recording r = new Recording(settings());
+        r.setName("jobparser");
+        r.setToDisk(true);
+        r.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        r.setMaxSize((long) maxSizeMb * 1024 * 1024);
+        r.start();
+        recording = r;
+        System.out.println("[JFR] Recording started (maxAge=" + maxAgeMinutes + "m, maxSize=" + maxSizeMb + "MB)");
+    }
+
+    private Path dump() throws IOException {
+        Files.createDirectories(dumpDir);
+        Path file = dumpDir.resolve("jobparser-" + LocalDateTime.now().format(DUMP_TIME) + ".jfr");
+        recording.dump(file);
+        System.out.println("[JFR] Recording dumped to " + file);
+        return file;
+    }
+
+    /**
+     * Стандартный профиль JDK плюс наши события и пороги из jfr/jobparser.jfc
+     */
+    static Map<String, String> settings() throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        try (Reader reader = new InputStreamReader(new ClassPathResource(PROFILE).getInputStream(),
+                StandardCharsets.UTF_8)) {
+            settings.putAll(Configuration.create(reader).getSettings());
+        }
+        return settings;
+    }
+
+    private List<String> listDumps() throws IOException {
+        if (!Files.isDirectory(dumpDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dumpDir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> DUMP_NAME.matcher(name).matches())
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.kolmykova.jobparser.jfr;
+
+/**
+ * Вспомогательные методы для заполнения событий.
+ * Вызываются только когда событие будет записано (shouldCommit/isEnabled).
+ */
+public final class JfrEvents {
+
+    public static final String OK = "ok";
+
+    private JfrEvents() {
+    }
+
+    public static void queueWait(String queue, long waitNanos) {
+        QueueWaitEvent event = new QueueWaitEvent();
+        if (event.isEnabled()) {
+            event.queue = queue;
+            event.waitTime = waitNanos;
+            event.commit();
+        }
+    }
+
+    public static String outcome(Throwable e) {
+        return e == null ? OK : e.getClass().getSimpleName();
+    }
+
+    /**
+     * Хост из URL без создания java.net.URI
+     */
+    public static String host(String url) {
+        if (url == null) {
+            return null;
+        }
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (c == '/' || c == ':' || c == '?' || c == '#') {
+                break;
+            }
+            end++;
+        }
+        return url.substring(start, end);
+    }
+
+    /**
+     * Размер строки в UTF-8 без кодирования в массив
+     */
+    public static long utf8Length(CharSequence s) {
+        if (s == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,26 @@
+package com.kolmykova.jobparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("jobparser.Parse")
+@Label("HTML Parse")
+@Description("Разбор HTML в Vacancy (VacancyParser)")
+@Category({"JobParser", "Parsing"})
+@StackTrace(false)
+public final class ParseEvent extends jdk.jfr.Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Input Size")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
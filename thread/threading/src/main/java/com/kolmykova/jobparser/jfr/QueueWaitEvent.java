@@ -0,0 +1,27 @@
+package com.kolmykova.jobparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Мгновенное событие: момент постановки в очередь известен только числом,
+ * поэтому ожидание передаётся полем, а не длительностью события
+ */
+@Name("jobparser.QueueWait")
+@Label("Queue Wait")
+@Description("Сколько задача или сообщение ждали в очереди до начала обработки")
+@Category({"JobParser", "Queues"})
+@StackTrace(false)
+public final class QueueWaitEvent extends jdk.jfr.Event {
+
+    @Label("Queue")
+    public String queue;
+
+    @Label("Wait Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long waitTime;
+}
@@ -0,0 +1,29 @@
+package com.kolmykova.jobparser.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("jobparser.WebSocketSend")
+@Label("WebSocket Send")
+@Description("Отправка сообщения в WebSocket-сессию")
+@Category({"JobParser", "WebSocket"})
+@StackTrace(false)
+public final class WsSendEvent extends jdk.jfr.Event {
+
+    @Label("Session")
+    public String sessionId;
+
+    @Label("Encoding")
+    public String encoding;
+
+    @Label("Payload Size")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,61 @@
+package com.kolmykova.jobparser.logging;
+
+/**
+ * Слот кольцевого буфера. Хранит шаблон и аргументы как есть —
+ * строка собирается только в потоке записи.
+ */
+final class LogEvent {
+
+    long timestamp;
+    String thread;
+    String pattern;
+    Object arg0;
+    Object arg1;
+    Object arg2;
+    int argCount;
+
+    void set(String pattern, int argCount, Object arg0, Object arg1, Object arg2) {
+        this.timestamp = System.currentTimeMillis();
+        this.thread = Thread.currentThread().getName();
+        this.pattern = pattern;
+        this.argCount = argCount;
+        this.arg0 = arg0;
+        this.arg1 = arg1;
+        this.arg2 = arg2;
+    }
+
+    /**
+     * Подставляет аргументы вместо {} по порядку
+     */
+    void formatMessage(StringBuilder sb) {
+        int from = 0;
+        for (int i = 0; i < argCount; i++) {
+            int at = pattern.indexOf("{}", from);
+            if (at < 0) {
+                break;
+            }
+            sb.append(pattern, from, at).append(arg(i));
+            from = at + 2;
+        }
+        sb.append(pattern, from, pattern.length());
+    }
+
+    /**
+     * Отпускаем ссылки, чтобы слот не удерживал аргументы до следующего круга
+     */
+    void clear() {
+        thread = null;
+        pattern = null;
+        arg0 = null;
+        arg1 = null;
+        arg2 = null;
+    }
+
+    private Object arg(int i) {
+        return switch (i) {
+            case 0 -> arg0;
+            case 1 -> arg1;
+            default -> arg2;
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package com.kolmykova.jobparser.logging;
+
+/**
+ * Что делать, если кольцевой буфер логов заполнен
+ */
+public enum LogOverflowPolicy {
+    /** ждать, пока писатель освободит место (логи не теряются, но вызывающий поток тормозит) */
+    BLOCK,
+    /** выбросить сообщение */
+    DROP,
+    /** при заполнении буфера выше порога пропускать только каждое N-е сообщение, при полном — выбрасывать */
+    SAMPLE
+}
@@ -0,0 +1,86 @@
+package com.kolmykova.jobparser.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Кольцевой буфер заранее созданных событий: много писателей, один читатель.
+ *
+ * Писатель захватывает номер (claim), заполняет слот и публикует его (publish).
+ * Читатель идёт по номерам подряд и освобождает слоты (release).
+ * Новых объектов на каждое сообщение не создаётся.
+ */
+final class LogRingBuffer {
+
+    private final LogEvent[] slots;
+    // номер события, опубликованного в слоте; -1 — слот ещё не заполнялся
+    private final AtomicLongArray published;
+    private final int mask;
+    private final int capacity;
+
+    // следующий номер для писателя
+    private final AtomicLong head = new AtomicLong();
+    // следующий номер для читателя; пишет только поток читателя
+    private volatile long tail;
+
+    LogRingBuffer(int requestedCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(1, requestedCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new LogEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new LogEvent();
+            published.set(i, -1);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return номер слота или -1, если буфер полон
+     */
+    long tryClaim() {
+        while (true) {
+            long h = head.get();
+            if (h - tail >= capacity) {
+                return -1;
+            }
+            if (head.compareAndSet(h, h + 1)) {
+                return h;
+            }
+        }
+    }
+
+    LogEvent slot(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    void publish(long sequence) {
+        published.lazySet((int) (sequence & mask), sequence);
+    }
+
+    /**
+     * @return событие с номером sequence, если оно уже опубликовано, иначе null
+     */
+    LogEvent peek(long sequence) {
+        int index = (int) (sequence & mask);
+        return published.get(index) == sequence ? slots[index] : null;
+    }
+
+    long tail() {
+        return tail;
+    }
+
+    void release(long nextSequence) {
+        tail = nextSequence;
+    }
+
+    /**
+     * Число занятых слотов (захваченных, но ещё не прочитанных)
+     */
+    int used() {
+        return (int) (head.get() - tail);
+    }
+}
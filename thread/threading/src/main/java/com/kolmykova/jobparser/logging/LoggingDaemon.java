@@ -1,36 +1,253 @@
 package com.kolmykova.jobparser.logging;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Асинхронный лог.
+ *
+ * Вызывающий поток только кладёт шаблон и аргументы в заранее выделенный кольцевой буфер,
+ * строка собирается в потоке logging-daemon. Он забирает сообщения пачками
+ * и пишет их в файл с ротацией (или в stdout, если файл не задан).
+ * При переполнении буфера действует LogOverflowPolicy.
+ */
 @Component
 public class LoggingDaemon {
 
-    private final BlockingQueue<String> logQueue = new LinkedBlockingQueue<>();
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final long BLOCK_PARK_NANOS = 50_000;
 
-    public LoggingDaemon() {
-        Thread daemon = new Thread(this::processLogs);
+    private final LogRingBuffer ring;
+    private final LogOverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int sampleThreshold;
+    private final int batchSize;
+    private final RollingFileSink fileSink;
+    private final WritableByteChannel consoleSink;
+    private final Thread daemon;
+
+    private final AtomicLong sampleCounter = new AtomicLong();
+    // отставание записи: сколько мс назад было создано последнее записанное сообщение
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private final Counter droppedFull;
+    private final Counter droppedSampled;
+    private final Counter blocked;
+    private final Counter written;
+    private final Counter writeErrors;
+
+    private volatile boolean running = true;
+
+    public LoggingDaemon(MeterRegistry registry,
+                         @Value("${logging.async.buffer-size:8192}") int bufferSize,
+                         @Value("${logging.async.overflow-policy:DROP}") LogOverflowPolicy overflowPolicy,
+                         @Value("${logging.async.sample-rate:10}") int sampleRate,
+                         @Value("${logging.async.batch-size:256}") int batchSize,
+                         @Value("${logging.async.file:}") String file,
+                         @Value("${logging.async.max-file-size-mb:10}") long maxFileSizeMb,
+                         @Value("${logging.async.max-files:5}") int maxFiles) throws IOException {
+        this.ring = new LogRingBuffer(bufferSize);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        // выборка включается, когда буфер заполнен на 3/4
+        this.sampleThreshold = ring.capacity() - ring.capacity() / 4;
+        this.batchSize = batchSize;
+
+        if (file == null || file.isBlank()) {
+            this.fileSink = null;
+            this.consoleSink = Channels.newChannel(System.out);
+        } else {
+            this.fileSink = new RollingFileSink(Path.of(file), maxFileSizeMb * 1024 * 1024, maxFiles);
+            this.consoleSink = null;
+        }
+
+        registry.gauge("jobparser.log.buffer.used", ring, LogRingBuffer::used);
+        registry.gauge("jobparser.log.lag.ms", lagMillis);
+
+        this.droppedFull = Counter.builder("jobparser.log.dropped.total")
+                .description("Log messages dropped on ring buffer overflow")
+                .tag("reason", "full")
+                .register(registry);
+        this.droppedSampled = Counter.builder("jobparser.log.dropped.total")
+                .description("Log messages dropped on ring buffer overflow")
+                .tag("reason", "sampled")
+                .register(registry);
+        this.blocked = Counter.builder("jobparser.log.blocked.total")
+                .description("Log calls that had to wait for free space (BLOCK policy)")
+                .register(registry);
+        this.written = Counter.builder("jobparser.log.written.total")
+                .description("Log messages written by the logging daemon")
+                .register(registry);
+        this.writeErrors = Counter.builder("jobparser.log.write.errors.total")
+                .description("Failed log batch writes")
+                .register(registry);
+
+        this.daemon = new Thread(this::processLogs);
         daemon.setDaemon(true);
         daemon.setName("logging-daemon");
         daemon.start();
     }
 
     public void log(String message) {
-        logQueue.offer(message);
+        enqueue(message, 0, null, null, null);
+    }
+
+    /**
+     * Параметризованное сообщение: {} заменяются аргументами в потоке записи
+     */
+    public void log(String pattern, Object arg) {
+        enqueue(pattern, 1, arg, null, null);
+    }
+
+    public void log(String pattern, Object arg0, Object arg1) {
+        enqueue(pattern, 2, arg0, arg1, null);
+    }
+
+    public void log(String pattern, Object arg0, Object arg1, Object arg2) {
+        enqueue(pattern, 3, arg0, arg1, arg2);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(daemon);
+        try {
+            daemon.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(String pattern, int argCount, Object arg0, Object arg1, Object arg2) {
+        if (!running) {
+            return;
+        }
+        long sequence = claim();
+        if (sequence < 0) {
+            return;
+        }
+        ring.slot(sequence).set(pattern, argCount, arg0, arg1, arg2);
+        ring.publish(sequence);
+    }
+
+    private long claim() {
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                long sequence = ring.tryClaim();
+                if (sequence >= 0) {
+                    return sequence;
+                }
+                blocked.increment();
+                while (running) {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    sequence = ring.tryClaim();
+                    if (sequence >= 0) {
+                        return sequence;
+                    }
+                }
+                return -1;
+            }
+            case SAMPLE -> {
+                if (ring.used() >= sampleThreshold && sampleCounter.incrementAndGet() % sampleRate != 0) {
+                    droppedSampled.increment();
+                    return -1;
+                }
+                return claimOrDrop();
+            }
+            default -> {
+                return claimOrDrop();
+            }
+        }
+    }
+
+    private long claimOrDrop() {
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            droppedFull.increment();
+        }
+        return sequence;
     }
 
     private void processLogs() {
-        while (true) {
-            try {
-                String msg = logQueue.take();
-                // писать в файл или системный лог
-                System.out.println("[ASYNC LOG] " + msg);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+        StringBuilder batch = new StringBuilder(16 * 1024);
+        while (running) {
+            if (drain(batch) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
             }
         }
+        // дописываем то, что успели опубликовать до остановки
+        while (drain(batch) > 0) {
+        }
+        closeSink();
+    }
+
+    /**
+     * Забирает до batchSize опубликованных сообщений и пишет их одной операцией
+     */
+    private int drain(StringBuilder batch) {
+        batch.setLength(0);
+        long sequence = ring.tail();
+        long lastTimestamp = 0;
+        int count = 0;
+
+        LogEvent event;
+        while (count < batchSize && (event = ring.peek(sequence)) != null) {
+            batch.append(Instant.ofEpochMilli(event.timestamp))
+                    .append(" [").append(event.thread).append("] ");
+            event.formatMessage(batch);
+            batch.append('\n');
+
+            lastTimestamp = event.timestamp;
+            event.clear();
+            ring.release(++sequence);
+            count++;
+        }
+
+        if (count > 0) {
+            write(batch);
+            written.increment(count);
+            lagMillis.set(System.currentTimeMillis() - lastTimestamp);
+        }
+        return count;
+    }
+
+    private void write(StringBuilder batch) {
+        ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            if (fileSink != null) {
+                fileSink.write(bytes);
+            } else {
+                while (bytes.hasRemaining()) {
+                    consoleSink.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            writeErrors.increment();
+            System.err.println("[ASYNC LOG] Error writing log batch: " + e.getMessage());
+        }
+    }
+
+    private void closeSink() {
+        if (fileSink == null) {
+            return;
+        }
+        try {
+            fileSink.close();
+        } catch (IOException e) {
+            System.err.println("[ASYNC LOG] Error closing log file: " + e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
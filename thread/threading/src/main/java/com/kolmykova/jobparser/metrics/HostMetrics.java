@@ -0,0 +1,224 @@
+package com.kolmykova.jobparser.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики в разрезе хоста (для мок-страниц /mock/vacancy/{source}/... — источника):
+ * jobparser.host.fetch.time, jobparser.host.response.bytes,
+ * jobparser.host.responses.total{status=2xx|3xx|4xx|5xx|io|unknown},
+ * jobparser.host.parse.errors.total.
+ *
+ * Тег host получают не больше maxHosts хостов — самые частые по Space-Saving-скетчу,
+ * остальные пишутся под host=other. Если новый хост становится заметно (вдвое)
+ * тяжелее самого редкого из допущенных, тот вытесняется вместе со своими метриками.
+ *
+ * Допущенный хост находится в meters без блокировок и считает свои запросы сам (LongAdder).
+ * Под монитор идут только новые хосты: пока есть место — каждый, потом — один запрос
+ * из sampleEvery с весом sampleEvery, так что поток запросов к "other" почти не блокируется.
+ */
+public class HostMetrics {
+
+    public static final String OTHER = "other";
+
+    private static final String MOCK_PREFIX = "/mock/vacancy/";
+    private static final int DEFAULT_SAMPLE_EVERY = 16;
+
+    private final MeterRegistry registry;
+    private final int maxHosts;
+    private final int sampleEvery;
+    // только для хостов вне meters; пишется и читается под монитором
+    private final TopKSketch sketch;
+    // допущенные хосты и "other"
+    private final Map<String, HostMeters> meters = new ConcurrentHashMap<>();
+    private final HostMeters other;
+
+    public HostMetrics(MeterRegistry registry, int maxHosts) {
+        this(registry, maxHosts, DEFAULT_SAMPLE_EVERY);
+    }
+
+    HostMetrics(MeterRegistry registry, int maxHosts, int sampleEvery) {
+        this.registry = registry;
+        this.maxHosts = maxHosts;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.sketch = new TopKSketch(Math.max(64, maxHosts * 4));
+        this.other = new HostMeters(OTHER, 0);
+        meters.put(OTHER, other);
+    }
+
+    /**
+     * @param status HTTP-статус ответа, 0 — ошибка ввода-вывода, -1 — неизвестная ошибка
+     */
+    public void recordFetch(String url, long nanos, long bytes, int status) {
+        HostMeters m = metersFor(url);
+        m.fetchTime.record(nanos, TimeUnit.NANOSECONDS);
+        if (bytes > 0) {
+            m.responseBytes.record(bytes);
+        }
+        m.status(statusClass(status)).increment();
+    }
+
+    public void incParseError(String url) {
+        metersFor(url).parseErrors.increment();
+    }
+
+    int admittedHosts() {
+        return meters.size() - 1;
+    }
+
+    /**
+     * Ключ хоста: для мок-страниц — источник из пути, иначе хост URL
+     */
+    public static String hostKey(String url) {
+        if (url == null) {
+            return OTHER;
+        }
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int pathStart = url.indexOf('/', start);
+        if (pathStart > 0 && url.startsWith(MOCK_PREFIX, pathStart)) {
+            int sourceStart = pathStart + MOCK_PREFIX.length();
+            int sourceEnd = url.indexOf('/', sourceStart);
+            return url.substring(sourceStart, sourceEnd < 0 ? url.length() : sourceEnd);
+        }
+        int end = start;
+        while (end < url.length() && "/:?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        return url.substring(start, end);
+    }
+
+    static String statusClass(int status) {
+        if (status == 0) {
+            return "io";
+        }
+        if (status < 100 || status > 599) {
+            return "unknown";
+        }
+        return (status / 100) + "xx";
+    }
+
+    private HostMeters metersFor(String url) {
+        String host = hostKey(url);
+        HostMeters m = meters.get(host);
+        if (m != null) {
+            m.hits.increment();
+            return m;
+        }
+        if (admittedHosts() >= maxHosts
+                && sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            return other;
+        }
+        return admit(host, admittedHosts() < maxHosts ? 1 : sampleEvery);
+    }
+
+    private synchronized HostMeters admit(String host, int weight) {
+        HostMeters m = meters.get(host);
+        if (m != null) {
+            // допустил другой поток, пока этот ждал монитор
+            m.hits.increment();
+            return m;
+        }
+        long estimate = sketch.offer(host, weight);
+        if (admittedHosts() < maxHosts) {
+            return admitNew(host, estimate);
+        }
+
+        HostMeters lightest = null;
+        long lightestWeight = Long.MAX_VALUE;
+        for (HostMeters admitted : meters.values()) {
+            if (admitted == other) {
+                continue;
+            }
+            long w = admitted.weight();
+            if (w < lightestWeight) {
+                lightestWeight = w;
+                lightest = admitted;
+            }
+        }
+        if (lightest != null && estimate > 2 * lightestWeight) {
+            meters.remove(lightest.host);
+            lightest.remove();
+            return admitNew(host, estimate);
+        }
+        return other;
+    }
+
+    private HostMeters admitNew(String host, long estimate) {
+        HostMeters m = new HostMeters(host, estimate);
+        meters.put(host, m);
+        return m;
+    }
+
+    private final class HostMeters {
+
+        final String host;
+        // оценка частоты на момент допуска + запросы после него
+        final long admittedWith;
+        final LongAdder hits = new LongAdder();
+        final Timer fetchTime;
+        final DistributionSummary responseBytes;
+        final Counter parseErrors;
+        final Map<String, Counter> statuses = new HashMap<>();
+        boolean removed;
+
+        HostMeters(String host, long admittedWith) {
+            this.host = host;
+            this.admittedWith = admittedWith;
+            this.fetchTime = Timer.builder("jobparser.host.fetch.time")
+                    .description("Fetch HTML time by host")
+                    .tag("host", host)
+                    .publishPercentileHistogram(true)
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry);
+            this.responseBytes = DistributionSummary.builder("jobparser.host.response.bytes")
+                    .description("Response body size by host")
+                    .baseUnit("bytes")
+                    .tag("host", host)
+                    .register(registry);
+            this.parseErrors = Counter.builder("jobparser.host.parse.errors.total")
+                    .description("Parse failures by host")
+                    .tag("host", host)
+                    .register(registry);
+        }
+
+        long weight() {
+            return admittedWith + hits.sum();
+        }
+
+        synchronized Counter status(String statusClass) {
+            if (removed) {
+                // хост вытеснен, пока поток держал ссылку — не регистрируем его серии заново
+                return other.status(statusClass);
+            }
+            return statuses.computeIfAbsent(statusClass, s -> Counter.builder("jobparser.host.responses.total")
+                    .description("Fetch outcomes by host and HTTP status class")
+                    .tag("host", host)
+                    .tag("status", s)
+                    .register(registry));
+        }
+
+        synchronized void remove() {
+            removed = true;
+            List<Meter> all = new ArrayList<>(statuses.values());
+            all.add(fetchTime);
+            all.add(responseBytes);
+            all.add(parseErrors);
+            all.forEach(registry::remove);
+        }
+    }
+}
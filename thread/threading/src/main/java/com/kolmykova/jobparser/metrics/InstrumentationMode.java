@@ -0,0 +1,11 @@
+package com.kolmykova.jobparser.metrics;
+
+/**
+ * Режим инструментирования ParseService
+ */
+public enum InstrumentationMode {
+    /** Micrometer-таймеры на каждую стадию и спаны на каждый URL */
+    FULL,
+    /** тайминги стадий — в thread-local HdrHistogram, спаны — только для выбранных (head sampling) пачек */
+    LIGHTWEIGHT
+}
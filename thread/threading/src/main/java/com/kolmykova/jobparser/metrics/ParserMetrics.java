@@ -1,37 +1,61 @@
 package com.kolmykova.jobparser.metrics;
 
-import com.kolmykova.jobparser.repository.VacancyRepository;
 import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import org.springframework.data.repository.CrudRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 @Component
 public class ParserMetrics {
 
-    private final MeterRegistry registry;
+    private final VacancyCountTracker vacancyCount;
+    private final InstrumentationMode mode;
+    private final double traceSampleRate;
+    // только в режиме LIGHTWEIGHT, иначе null
+    private final StageRecorder stageRecorder;
+    private final HostMetrics hostMetrics;
 
     private final Timer urlTotalTimer;
     private final Timer batchTotalTimer;
 
     private final Counter urlProcessed;
     private final Counter urlSaved;
+    private final Counter upsertInserted;
+    private final Counter upsertUpdated;
+    private final Counter upsertUnchanged;
+    private final Counter notModified;
 
     private final Counter urlErrorHttp;
     private final Counter urlErrorParse;
     private final Counter urlErrorDb;
+    private final Counter urlErrorTimeout;
     private final Counter urlErrorUnknown;
     // ParserMetrics.java (добавить поля)
     private final Timer fetchTimer;
     private final Timer parseTimer;
     private final Timer dbTimer;
 
-    public ParserMetrics(MeterRegistry registry, VacancyRepository vacancyRepository) {
-        this.registry = registry;
+    public ParserMetrics(MeterRegistry registry,
+                         VacancyCountTracker vacancyCount,
+                         @Value("${parsing.instrumentation.mode:FULL}") InstrumentationMode mode,
+                         @Value("${parsing.instrumentation.trace-sample-rate:0.01}") double traceSampleRate,
+                         @Value("${parsing.instrumentation.snapshot-interval-ms:1000}") long snapshotIntervalMs,
+                         @Value("${parsing.metrics.max-hosts:20}") int maxHosts) {
+        this.vacancyCount = vacancyCount;
+        this.mode = mode;
+        this.traceSampleRate = traceSampleRate;
+        if (mode == InstrumentationMode.LIGHTWEIGHT) {
+            this.stageRecorder = new StageRecorder(snapshotIntervalMs);
+            stageRecorder.bindTo(registry);
+        } else {
+            this.stageRecorder = null;
+        }
+        this.hostMetrics = new HostMetrics(registry, maxHosts);
 
         this.urlTotalTimer = Timer.builder("jobparser.url.total.time")
                 .description("Total processing time per URL (fetch + parse + save)")
@@ -51,6 +75,25 @@ public class ParserMetrics {
                 .description("How many Vacancy entities were saved")
                 .register(registry);
 
+        this.upsertInserted = Counter.builder("jobparser.db.upsert.rows.total")
+                .description("Upserted vacancies by outcome")
+                .tag("outcome", "inserted")
+                .register(registry);
+
+        this.upsertUpdated = Counter.builder("jobparser.db.upsert.rows.total")
+                .description("Upserted vacancies by outcome")
+                .tag("outcome", "updated")
+                .register(registry);
+
+        this.upsertUnchanged = Counter.builder("jobparser.db.upsert.rows.total")
+                .description("Upserted vacancies by outcome")
+                .tag("outcome", "unchanged")
+                .register(registry);
+
+        this.notModified = Counter.builder("jobparser.fetch.not_modified.total")
+                .description("Re-crawled pages answered with 304 Not Modified (parse and save skipped)")
+                .register(registry);
+
         this.urlErrorHttp = Counter.builder("jobparser.url.errors.total")
                 .description("URL processing errors by type")
                 .tag("type", "http")
@@ -66,6 +109,11 @@ public class ParserMetrics {
                 .tag("type", "db")
                 .register(registry);
 
+        this.urlErrorTimeout = Counter.builder("jobparser.url.errors.total")
+                .description("URL processing errors by type")
+                .tag("type", "timeout")
+                .register(registry);
+
         this.urlErrorUnknown = Counter.builder("jobparser.url.errors.total")
                 .description("URL processing errors by type")
                 .tag("type", "unknown")
@@ -88,27 +136,33 @@ public class ParserMetrics {
                 .publishPercentileHistogram(true)
                 .publishPercentiles(0.5, 0.95, 0.99)
                 .register(registry);
+    }
 
-        Gauge.builder("jobparser.db.records.total",
-                vacancyRepository, CrudRepository::count)
-                .description("Total number of vacancies in database")
-                .register(registry);
+    public InstrumentationMode mode() {
+        return mode;
     }
 
-    public Timer.Sample startUrlTimer() {
-        return Timer.start(registry);
+    /**
+     * Head sampling: решение принимается один раз на пачку URL.
+     * В режиме FULL трассируется всё, как раньше.
+     */
+    public boolean sampleTrace() {
+        return mode == InstrumentationMode.FULL || ThreadLocalRandom.current().nextDouble() < traceSampleRate;
     }
 
-    public void stopUrlTimer(Timer.Sample sample) {
-        sample.stop(urlTotalTimer);
+    /**
+     * Начало замера; передать результат в record*()
+     */
+    public long start() {
+        return System.nanoTime();
     }
 
-    public Timer.Sample startBatchTimer() {
-        return Timer.start(registry);
+    public void recordUrl(long startNanos) {
+        record(StageRecorder.Stage.URL, urlTotalTimer, startNanos);
     }
 
-    public void stopBatchTimer(Timer.Sample sample) {
-        sample.stop(batchTotalTimer);
+    public void recordBatch(long startNanos) {
+        record(StageRecorder.Stage.BATCH, batchTotalTimer, startNanos);
     }
 
     public void incProcessed() {
@@ -117,6 +171,23 @@ public class ParserMetrics {
 
     public void incSaved(int count) {
         urlSaved.increment(count);
+        // jobparser.db.records.total читает кэш, а не COUNT(*)
+        vacancyCount.add(count);
+    }
+
+    /**
+     * Итог upsert-пачки: в счётчик строк попадают только новые
+     */
+    public void recordUpsert(int inserted, int updated, int unchanged) {
+        urlSaved.increment(inserted + updated);
+        vacancyCount.add(inserted);
+        upsertInserted.increment(inserted);
+        upsertUpdated.increment(updated);
+        upsertUnchanged.increment(unchanged);
+    }
+
+    public void incNotModified() {
+        notModified.increment();
     }
 
     public void incError(String type) {
@@ -124,31 +195,49 @@ public class ParserMetrics {
             case "http" -> urlErrorHttp.increment();
             case "parse" -> urlErrorParse.increment();
             case "db" -> urlErrorDb.increment();
+            case "timeout" -> urlErrorTimeout.increment();
             default -> urlErrorUnknown.increment();
         }
     }
 
-    public Timer.Sample startFetchTimer() {
-        return Timer.start(registry);
+    public void recordFetch(long startNanos) {
+        record(StageRecorder.Stage.FETCH, fetchTimer, startNanos);
     }
 
-    public void stopFetchTimer(Timer.Sample s) {
-        s.stop(fetchTimer);
+    /**
+     * Загрузка страницы в разрезе хоста (см. HostMetrics)
+     *
+     * @param status HTTP-статус, 0 — ошибка ввода-вывода, -1 — прочая ошибка
+     */
+    public void recordHostFetch(String url, long startNanos, long bytes, int status) {
+        hostMetrics.recordFetch(url, System.nanoTime() - startNanos, bytes, status);
     }
 
-    public Timer.Sample startParseTimer() {
-        return Timer.start(registry);
+    public void incHostParseError(String url) {
+        hostMetrics.incParseError(url);
     }
 
-    public void stopParseTimer(Timer.Sample s) {
-        s.stop(parseTimer);
+    public void recordParse(long startNanos) {
+        record(StageRecorder.Stage.PARSE, parseTimer, startNanos);
     }
 
-    public Timer.Sample startDbTimer() {
-        return Timer.start(registry);
+    public void recordDb(long startNanos) {
+        record(StageRecorder.Stage.DB, dbTimer, startNanos);
     }
 
-    public void stopDbTimer(Timer.Sample s) {
-        s.stop(dbTimer);
+    @PreDestroy
+    public void shutdown() {
+        if (stageRecorder != null) {
+            stageRecorder.shutdown();
+        }
+    }
+
+    private void record(StageRecorder.Stage stage, Timer timer, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        if (stageRecorder != null) {
+            stageRecorder.record(stage, nanos);
+        } else {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.kolmykova.jobparser.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тайминги стадий для режима LIGHTWEIGHT.
+ *
+ * Каждый поток пишет в свои SingleWriterRecorder — без блокировок и без общих
+ * счётчиков между воркерами. Раз в snapshot-interval отдельный поток сливает
+ * интервальные гистограммы всех потоков в срез; чтение метрик срез не меняет,
+ * так что Prometheus, /actuator/metrics и CrawlBenchmark видят одни и те же
+ * интервалы и не забирают замеры друг у друга.
+ *
+ * jobparser.hdr.stage.time{stage,quantile} — квантили за последний завершённый интервал, сек;
+ * jobparser.hdr.stage.count{stage} — число замеров с момента старта (обновляется со срезом).
+ */
+public class StageRecorder {
+
+    public enum Stage {
+        URL, BATCH, FETCH, PARSE, DB;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99, 1.0};
+    private static final Stage[] STAGES = Stage.values();
+
+    private final List<ThreadRecorders> recorders = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<SingleWriterRecorder[]> local = ThreadLocal.withInitial(this::register);
+
+    private final Histogram[] interval = new Histogram[STAGES.length];
+    private final long[] totalCounts = new long[STAGES.length];
+    // null, если интервал 0 — тогда срезы делает тот, кто вызывает snapshot()
+    private final ScheduledExecutorService snapshots;
+
+    public StageRecorder(long snapshotIntervalMs) {
+        for (int i = 0; i < STAGES.length; i++) {
+            interval[i] = new Histogram(SIGNIFICANT_DIGITS);
+        }
+        if (snapshotIntervalMs > 0) {
+            this.snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "hdr-stage-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            snapshots.scheduleAtFixedRate(this::snapshot, snapshotIntervalMs, snapshotIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.snapshots = null;
+        }
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        for (Stage stage : STAGES) {
+            for (double q : QUANTILES) {
+                Gauge.builder("jobparser.hdr.stage.time", this, r -> r.quantileSeconds(stage, q))
+                        .description("Stage time quantiles over the last snapshot interval (LIGHTWEIGHT mode)")
+                        .tag("stage", stage.tag)
+                        .tag("quantile", String.valueOf(q))
+                        .baseUnit("seconds")
+                        .register(registry);
+            }
+            FunctionCounter.builder("jobparser.hdr.stage.count", this, r -> r.totalCount(stage))
+                    .description("Recorded stage timings (LIGHTWEIGHT mode)")
+                    .tag("stage", stage.tag)
+                    .register(registry);
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        local.get()[stage.ordinal()].recordValue(Math.max(0, nanos));
+    }
+
+    /**
+     * @return NaN, если за интервал не было замеров
+     */
+    public synchronized double quantileSeconds(Stage stage, double quantile) {
+        Histogram h = interval[stage.ordinal()];
+        if (h.getTotalCount() == 0) {
+            return Double.NaN;
+        }
+        return h.getValueAtPercentile(quantile * 100) / 1e9;
+    }
+
+    public synchronized long totalCount(Stage stage) {
+        return totalCounts[stage.ordinal()];
+    }
+
+    /**
+     * Закрывает интервал: замеры потоков с прошлого среза становятся новым срезом
+     */
+    synchronized void snapshot() {
+        for (Histogram h : interval) {
+            h.reset();
+        }
+        for (ThreadRecorders tr : recorders) {
+            for (int i = 0; i < STAGES.length; i++) {
+                Histogram h = tr.stages()[i].getIntervalHistogram();
+                interval[i].add(h);
+                totalCounts[i] += h.getTotalCount();
+            }
+            // замеры завершившегося потока уже забраны — больше его не держим
+            if (!tr.owner().isAlive()) {
+                recorders.remove(tr);
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (snapshots != null) {
+            snapshots.shutdownNow();
+        }
+    }
+
+    private SingleWriterRecorder[] register() {
+        SingleWriterRecorder[] stages = new SingleWriterRecorder[STAGES.length];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new SingleWriterRecorder(SIGNIFICANT_DIGITS);
+        }
+        recorders.add(new ThreadRecorders(Thread.currentThread(), stages));
+        return stages;
+    }
+
+    private record ThreadRecorders(Thread owner, SingleWriterRecorder[] stages) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.kolmykova.jobparser.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving: приблизительные частоты для не более чем capacity ключей.
+ * Оценка частого ключа завышена не больше чем на N / capacity, тяжёлые ключи
+ * из таблицы не вытесняются. Не потокобезопасен — вызывающий синхронизирует.
+ */
+final class TopKSketch {
+
+    private final int capacity;
+    private final Map<String, long[]> counters;
+
+    TopKSketch(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Учитывает одно появление ключа
+     *
+     * @return текущая оценка частоты ключа
+     */
+    long offer(String key) {
+        return offer(key, 1);
+    }
+
+    /**
+     * Учитывает weight появлений ключа (выборка: один учтённый запрос из weight)
+     *
+     * @return текущая оценка частоты ключа
+     */
+    long offer(String key, long weight) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0] += weight;
+            return counter[0];
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[]{weight});
+            return weight;
+        }
+        // вытесняем самый редкий ключ, новый наследует его счёт
+        String minKey = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> e : counters.entrySet()) {
+            if (e.getValue()[0] < min) {
+                min = e.getValue()[0];
+                minKey = e.getKey();
+            }
+        }
+        counter = counters.remove(minKey);
+        counter[0] = min + weight;
+        counters.put(key, counter);
+        return counter[0];
+    }
+
+    long estimate(String key) {
+        long[] counter = counters.get(key);
+        return counter != null ? counter[0] : 0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.kolmykova.jobparser.metrics;
+
+import com.kolmykova.jobparser.repository.VacancyRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Число вакансий в БД без SELECT COUNT(*) на каждый scrape.
+ *
+ * Значение = последний COUNT(*) + сохранённое после него (add из saveBatch).
+ * COUNT(*) выполняется в фоне раз в reconcile-interval-ms; если значение устарело
+ * больше чем на max-staleness-ms (например, планировщик занят), чтение гейджа
+ * запускает внеочередную сверку в отдельном потоке, но само всегда отдаёт кэш.
+ */
+@Component
+public class VacancyCountTracker {
+
+    private final VacancyRepository vacancyRepository;
+    private final long maxStalenessMs;
+
+    // всего добавлено через add() с момента старта
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    // null до первой сверки
+    private volatile Snapshot snapshot;
+
+    public VacancyCountTracker(VacancyRepository vacancyRepository,
+                               MeterRegistry registry,
+                               @Value("${metrics.db.records.max-staleness-ms:300000}") long maxStalenessMs) {
+        this.vacancyRepository = vacancyRepository;
+        this.maxStalenessMs = maxStalenessMs;
+
+        Gauge.builder("jobparser.db.records.total", this, VacancyCountTracker::value)
+                .description("Total number of vacancies in database (cached, reconciled in background)")
+                .register(registry);
+
+        Gauge.builder("jobparser.db.records.staleness.seconds", this, t -> t.stalenessMs() / 1000.0)
+                .description("Time since the cached vacancy count was reconciled with the database")
+                .register(registry);
+    }
+
+    public void add(int count) {
+        added.addAndGet(count);
+    }
+
+    /**
+     * @return NaN до первой сверки с БД
+     */
+    public double value() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return Double.NaN;
+        }
+        if (System.currentTimeMillis() - s.reconciledAt() > maxStalenessMs) {
+            reconcileAsync();
+        }
+        return s.dbCount() + (added.get() - s.addedAtBase());
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.db.records.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long dbCount = vacancyRepository.count();
+            // add() вызывается после коммита, поэтому всё добавленное до этой точки
+            // уже вошло в COUNT(*); расхождение на гонке исправит следующая сверка
+            snapshot = new Snapshot(dbCount, added.get(), System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            System.err.println("[METRICS] Error reconciling vacancy count: " + e.getMessage());
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    long stalenessMs() {
+        Snapshot s = snapshot;
+        return s == null ? 0 : System.currentTimeMillis() - s.reconciledAt();
+    }
+
+    private void reconcileAsync() {
+        if (!reconciling.get()) {
+            Thread.ofVirtual().name("vacancy-count-reconcile").start(this::reconcile);
+        }
+    }
+
+    private record Snapshot(long dbCount, long addedAtBase, long reconciledAt) {
+    }
+}
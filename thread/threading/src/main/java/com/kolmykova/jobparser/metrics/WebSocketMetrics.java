@@ -0,0 +1,112 @@
+package com.kolmykova.jobparser.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class WebSocketMetrics {
+
+    private final AtomicInteger queuedMessages = new AtomicInteger();
+
+    private final Counter droppedOldest;
+    private final Counter droppedCoalesced;
+    private final Counter slowDisconnects;
+    private final Counter sendErrors;
+
+    private final Timer sendTimer;
+    private final Timer queueWaitTimer;
+
+    // encoding (json/compact) -> метрики кодирования
+    private final Map<String, Timer> encodeTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> payloadSizes = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public WebSocketMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        registry.gauge("jobparser.ws.queue.depth", queuedMessages);
+
+        this.droppedOldest = Counter.builder("jobparser.ws.messages.dropped.total")
+                .description("Outbound WebSocket messages dropped on queue overflow")
+                .tag("policy", "drop_oldest")
+                .register(registry);
+
+        this.droppedCoalesced = Counter.builder("jobparser.ws.messages.dropped.total")
+                .description("Outbound WebSocket messages dropped on queue overflow")
+                .tag("policy", "coalesce")
+                .register(registry);
+
+        this.slowDisconnects = Counter.builder("jobparser.ws.slow.disconnects.total")
+                .description("Sessions closed because their outbound queue overflowed")
+                .register(registry);
+
+        this.sendErrors = Counter.builder("jobparser.ws.send.errors.total")
+                .description("Failed WebSocket sends")
+                .register(registry);
+
+        this.sendTimer = Timer.builder("jobparser.ws.send.time")
+                .description("Time spent in WebSocketSession.sendMessage")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        this.queueWaitTimer = Timer.builder("jobparser.ws.queue.wait.time")
+                .description("Time a message waited in the per-session outbound queue")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    public void onEnqueued() {
+        queuedMessages.incrementAndGet();
+    }
+
+    public void onDequeued(int count) {
+        queuedMessages.addAndGet(-count);
+    }
+
+    public void incDroppedOldest() {
+        droppedOldest.increment();
+    }
+
+    public void incDroppedCoalesced(int count) {
+        droppedCoalesced.increment(count);
+    }
+
+    public void incSlowDisconnect() {
+        slowDisconnects.increment();
+    }
+
+    public void incSendError() {
+        sendErrors.increment();
+    }
+
+    public void recordSend(long nanos) {
+        sendTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordQueueWait(long nanos) {
+        queueWaitTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEncode(String encoding, long nanos, int bytes) {
+        encodeTimers.computeIfAbsent(encoding, e -> Timer.builder("jobparser.ws.encode.time")
+                        .description("Time spent encoding an outbound WebSocket message")
+                        .tag("encoding", e)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        payloadSizes.computeIfAbsent(encoding, e -> DistributionSummary.builder("jobparser.ws.payload.bytes")
+                        .description("Size of an outbound WebSocket frame payload")
+                        .baseUnit("bytes")
+                        .tag("encoding", e)
+                        .register(registry))
+                .record(bytes);
+    }
+}
@@ -1,5 +1,6 @@
 package com.kolmykova.jobparser.model;
 
+import com.kolmykova.jobparser.repository.VacancyKeys;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -34,4 +35,21 @@ public class Vacancy {
 
     private LocalDateTime publishedAt;
     private LocalDateTime createdAt;
+
+    // нормализованный URL — ключ upsert (уникальный индекс)
+    @Column(name = "url_key", length = 500)
+    private String urlKey;
+
+    @Column(name = "content_hash")
+    private Long contentHash;
+
+    /**
+     * Ключи upsert заполняются при любой записи через JPA — иначе строка с NULL url_key
+     * не находится upsert'ом и повторный парсинг её URL даёт дубликат
+     */
+    @PrePersist
+    @PreUpdate
+    void assignKeys() {
+        VacancyKeys.assign(this);
+    }
 }
\ No newline at end of file
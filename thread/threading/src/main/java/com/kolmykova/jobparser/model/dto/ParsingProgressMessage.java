@@ -0,0 +1,59 @@
+package com.kolmykova.jobparser.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Сообщение о прогрессе задачи для WebSocket.
+ *
+ * SNAPSHOT  — полное состояние задачи (для клиентов, подключившихся позже);
+ * DELTA     — счётчики + только новые вакансии с момента предыдущего сообщения;
+ * COMPLETED — финальные счётчики + оставшиеся новые вакансии;
+ * ERROR     — задача упала.
+ *
+ * Счётчики всегда абсолютные, поэтому повторная доставка безопасна.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ParsingProgressMessage {
+
+    public static final String SNAPSHOT = "SNAPSHOT";
+    public static final String DELTA = "DELTA";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String ERROR = "ERROR";
+
+    private String type;
+    private String taskId;
+    private String status;
+    private int totalUrls;
+    private int processedUrls;
+    private int savedVacancies;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private List<VacancyDto> vacancies;
+    private String errorMessage;
+
+    public static ParsingProgressMessage of(String type, ParsingStatus status, List<VacancyDto> vacancies) {
+        return ParsingProgressMessage.builder()
+                .type(type)
+                .taskId(status.getTaskId())
+                .status(status.getStatus())
+                .totalUrls(status.getTotalUrls())
+                .processedUrls(status.getProcessedUrls())
+                .savedVacancies(status.getSavedVacancies())
+                .startedAt(status.getStartedAt())
+                .completedAt(status.getCompletedAt())
+                .vacancies(vacancies)
+                .errorMessage(status.getErrorMessage())
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.kolmykova.jobparser.repository;
+
+import com.kolmykova.jobparser.model.Vacancy;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Ключи для upsert: нормализованный URL (url_key) и хэш содержимого (content_hash).
+ */
+public final class VacancyKeys {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private VacancyKeys() {
+    }
+
+    /**
+     * Схема и хост в нижнем регистре, без порта по умолчанию, фрагмента,
+     * завершающего "/" и utm_*-параметров; параметры запроса отсортированы.
+     * Непарсящийся URL возвращается обрезанным, как есть.
+     */
+    public static String normalizeUrl(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        try {
+            URI uri = new URI(url.trim());
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return url.trim();
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : uri.getRawAuthority();
+            int port = uri.getPort();
+            boolean defaultPort = port == -1
+                    || (port == 80 && scheme.equals("http"))
+                    || (port == 443 && scheme.equals("https"));
+
+            String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+            while (path.length() > 1 && path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            if (path.equals("/")) {
+                path = "";
+            }
+
+            StringBuilder sb = new StringBuilder(url.length())
+                    .append(scheme).append("://").append(host);
+            if (!defaultPort) {
+                sb.append(':').append(port);
+            }
+            sb.append(path);
+
+            String query = uri.getRawQuery();
+            if (query != null && !query.isEmpty()) {
+                String sorted = Arrays.stream(query.split("&"))
+                        .filter(p -> !p.isEmpty() && !p.startsWith("utm_"))
+                        .sorted()
+                        .collect(Collectors.joining("&"));
+                if (!sorted.isEmpty()) {
+                    sb.append('?').append(sorted);
+                }
+            }
+            return sb.toString();
+        } catch (URISyntaxException e) {
+            return url.trim();
+        }
+    }
+
+    /**
+     * 64-битный FNV-1a по разобранным полям (без id, url и created_at)
+     */
+    public static long contentHash(Vacancy v) {
+        return contentHash(v.getSource(), v.getTitle(), v.getCompany(), v.getCity(),
+                v.getSalary(), v.getRequirements(), v.getPublishedAt());
+    }
+
+    /**
+     * То же по отдельным полям — для DTO, которые не являются сущностью (ETag мок-страниц)
+     */
+    public static long contentHash(String source, String title, String company, String city,
+                                   String salary, String requirements, LocalDateTime publishedAt) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, source);
+        hash = mix(hash, title);
+        hash = mix(hash, company);
+        hash = mix(hash, city);
+        hash = mix(hash, salary);
+        hash = mix(hash, requirements);
+        hash = mix(hash, publishedAt != null ? publishedAt.toString() : null);
+        return hash;
+    }
+
+    /**
+     * Заполняет urlKey и contentHash у вакансии
+     */
+    public static Vacancy assign(Vacancy v) {
+        v.setUrlKey(normalizeUrl(v.getUrl()));
+        v.setContentHash(contentHash(v));
+        return v;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+        }
+        // разделитель полей: ("ab", null) и ("a", "b") дают разные хэши
+        hash = (hash ^ (value != null ? 0x1f : 0x1e)) * FNV_PRIME;
+        return hash;
+    }
+}
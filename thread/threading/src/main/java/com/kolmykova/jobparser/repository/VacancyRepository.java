@@ -4,11 +4,14 @@ import com.kolmykova.jobparser.model.Vacancy;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 // repository/VacancyRepository.java
-public interface VacancyRepository extends JpaRepository<Vacancy, Long> {
+public interface VacancyRepository extends JpaRepository<Vacancy, Long>, VacancyRepositoryCustom {
 
     List<Vacancy> findByCityIgnoreCase(String city);
 
     List<Vacancy> findByCompanyIgnoreCase(String company);
+
+    Optional<Vacancy> findByUrlKey(String urlKey);
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.kolmykova.jobparser.repository;
+
+import com.kolmykova.jobparser.model.Vacancy;
+
+import java.util.List;
+
+public interface VacancyRepositoryCustom {
+
+    /**
+     * Идемпотентная запись по нормализованному URL: новые строки вставляются,
+     * изменившиеся (по content_hash) обновляются, неизменившиеся не пишутся.
+     * Вакансии без URL вставляются как есть.
+     */
+    UpsertResult upsertAll(List<Vacancy> vacancies);
+
+    /**
+     * Вставка каждой вакансии новой строкой (режим INSERT, повторы URL допустимы).
+     * Ключи заполняются; url_key остаётся только у первой строки URL. id проставляются.
+     *
+     * @return число вставленных строк
+     */
+    int insertAll(List<Vacancy> vacancies);
+
+    record UpsertResult(int inserted, int updated, int unchanged) {
+    }
+}
@@ -0,0 +1,189 @@
+package com.kolmykova.jobparser.repository;
+
+import com.kolmykova.jobparser.model.Vacancy;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Upsert через JDBC-батч MERGE INTO (H2) по уникальному индексу на url_key.
+ *
+ * Перед записью одним SELECT читаются content_hash уже сохранённых URL пачки:
+ * неизменившиеся вакансии отбрасываются ещё до MERGE, остальные делятся на
+ * новые и изменившиеся (для метрик и счётчика строк). Условие на хэш есть и в
+ * самом MERGE — на случай, если строку успели записать между SELECT и MERGE.
+ *
+ * insertAll (режим INSERT) пишет каждую вакансию новой строкой, но тоже с ключами:
+ * url_key получает первая строка URL, у повторов он NULL — так уникальный индекс
+ * не мешает дубликатам, а последующий upsert находит исходную строку.
+ */
+public class VacancyRepositoryImpl implements VacancyRepositoryCustom {
+
+    private static final String MERGE_SQL = """
+            MERGE INTO vacancies t
+            USING (VALUES (CAST(? AS VARCHAR(500)), CAST(? AS BIGINT), CAST(? AS VARCHAR(50)),
+                           CAST(? AS VARCHAR(500)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)),
+                           CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(100)), CAST(? AS VARCHAR(2000)),
+                           CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP)))
+                AS s(url_key, content_hash, source, url, title, company, city, salary, requirements,
+                     published_at, created_at)
+            ON t.url_key = s.url_key
+            WHEN MATCHED AND t.content_hash IS DISTINCT FROM s.content_hash THEN UPDATE SET
+                content_hash = s.content_hash, source = s.source, url = s.url, title = s.title,
+                company = s.company, city = s.city, salary = s.salary, requirements = s.requirements,
+                published_at = s.published_at
+            WHEN NOT MATCHED THEN INSERT
+                (url_key, content_hash, source, url, title, company, city, salary, requirements,
+                 published_at, created_at)
+                VALUES (s.url_key, s.content_hash, s.source, s.url, s.title, s.company, s.city, s.salary,
+                        s.requirements, s.published_at, s.created_at)
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO vacancies
+                (url_key, content_hash, source, url, title, company, city, salary, requirements,
+                 published_at, created_at)
+            SELECT CASE WHEN EXISTS (SELECT 1 FROM vacancies t WHERE t.url_key = s.url_key)
+                        THEN NULL ELSE s.url_key END,
+                   s.content_hash, s.source, s.url, s.title, s.company, s.city, s.salary,
+                   s.requirements, s.published_at, s.created_at
+            FROM (VALUES (CAST(? AS VARCHAR(500)), CAST(? AS BIGINT), CAST(? AS VARCHAR(50)),
+                          CAST(? AS VARCHAR(500)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)),
+                          CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(100)), CAST(? AS VARCHAR(2000)),
+                          CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP)))
+                AS s(url_key, content_hash, source, url, title, company, city, salary, requirements,
+                     published_at, created_at)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VacancyRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public UpsertResult upsertAll(List<Vacancy> vacancies) {
+        if (vacancies.isEmpty()) {
+            return new UpsertResult(0, 0, 0);
+        }
+
+        // повтор URL внутри пачки — берём последнюю версию
+        Map<String, Vacancy> byKey = new LinkedHashMap<>();
+        List<Vacancy> withoutKey = new ArrayList<>();
+        for (Vacancy v : vacancies) {
+            VacancyKeys.assign(v);
+            if (v.getUrlKey() == null) {
+                withoutKey.add(v);
+            } else {
+                byKey.put(v.getUrlKey(), v);
+            }
+        }
+        int unchanged = vacancies.size() - withoutKey.size() - byKey.size();
+
+        Map<String, Long> existing = existingHashes(byKey.keySet());
+        List<Vacancy> toWrite = new ArrayList<>(byKey.size() + withoutKey.size());
+        int updated = 0;
+        for (Vacancy v : byKey.values()) {
+            if (!existing.containsKey(v.getUrlKey())) {
+                toWrite.add(v);
+            } else if (!v.getContentHash().equals(existing.get(v.getUrlKey()))) {
+                toWrite.add(v);
+                updated++;
+            } else {
+                unchanged++;
+            }
+        }
+        toWrite.addAll(withoutKey);
+
+        if (!toWrite.isEmpty()) {
+            jdbcTemplate.batchUpdate(MERGE_SQL, toWrite, toWrite.size(), VacancyRepositoryImpl::bind);
+        }
+        return new UpsertResult(toWrite.size() - updated, updated, unchanged);
+    }
+
+    @Override
+    public int insertAll(List<Vacancy> vacancies) {
+        if (vacancies.isEmpty()) {
+            return 0;
+        }
+        vacancies.forEach(VacancyKeys::assign);
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, vacancies.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return vacancies.size();
+                    }
+                },
+                keys);
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int i = 0; i < ids.size() && i < vacancies.size(); i++) {
+            Object id = ids.get(i).values().stream().findFirst().orElse(null);
+            if (id instanceof Number number) {
+                vacancies.get(i).setId(number.longValue());
+            }
+        }
+        return vacancies.size();
+    }
+
+    /**
+     * url_key → content_hash сохранённых строк; null — строка записана без хэша
+     */
+    private Map<String, Long> existingHashes(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(keys.size(), "?"));
+        Map<String, Long> hashes = new HashMap<>(keys.size() * 2);
+        jdbcTemplate.query(
+                "SELECT url_key, content_hash FROM vacancies WHERE url_key IN (" + placeholders + ")",
+                rs -> {
+                    long hash = rs.getLong(2);
+                    hashes.put(rs.getString(1), rs.wasNull() ? null : hash);
+                },
+                keys.toArray());
+        return hashes;
+    }
+
+    private static void bind(PreparedStatement ps, Vacancy v) throws SQLException {
+        ps.setString(1, v.getUrlKey());
+        ps.setLong(2, v.getContentHash());
+        ps.setString(3, v.getSource());
+        ps.setString(4, v.getUrl());
+        ps.setString(5, v.getTitle());
+        ps.setString(6, v.getCompany());
+        ps.setString(7, v.getCity());
+        ps.setString(8, v.getSalary());
+        ps.setString(9, v.getRequirements());
+        setTimestamp(ps, 10, v.getPublishedAt());
+        setTimestamp(ps, 11, v.getCreatedAt() != null ? v.getCreatedAt() : LocalDateTime.now());
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.kolmykova.jobparser.service;
+
+import com.kolmykova.jobparser.config.OptionSpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Поведение мок-источника по хостам (source из /mock/vacancy/{source}/{id}).
+ *
+ *   mock.origin.profiles=hh.ru:latency=80,dist=lognormal,sigma=0.8,errors=0.02,status=429,retry-after=2;*:latency=5
+ *
+ * "*" — для источников без своей строки. Пустое значение — отвечать сразу и всегда 200.
+ * Профили меняются на ходу через /actuator/mockorigin, а отдельный запрос может
+ * переопределить любую опцию query-параметром (?latency=2000&resets=1); max при этом
+ * не выше mock.origin.override.max-delay-ms.
+ *
+ * Опции:
+ *   latency, jitter, max   — задержка до ответа, мс; max — потолок для тяжёлых хвостов
+ *                            и для всей медленной отдачи
+ *   dist                   — uniform (latency ± jitter) | lognormal (медиана latency, sigma) |
+ *                            pareto (минимум latency, alpha)
+ *   errors, status,        — доля ответов с ошибкой, её код (503, 429, ...) и Retry-After, сек;
+ *   retry-after              retry-after=0 — без заголовка
+ *   resets                 — доля соединений, закрытых сразу после заголовков, без тела
+ *   truncate, truncate-at  — доля страниц, обрезанных до доли truncate-at (корректный ответ, битый HTML)
+ *   drip, drip-chunk,      — доля страниц, отдаваемых кусками по drip-chunk байт
+ *   drip-ms                  с паузой drip-ms после каждого
+ */
+@Component
+public class MockOriginProfiles {
+
+    public static final String ANY = "*";
+
+    public static final Set<String> OPTIONS = Set.of(
+            "latency", "jitter", "dist", "sigma", "alpha", "max",
+            "errors", "status", "retry-after",
+            "resets", "truncate", "truncate-at",
+            "drip", "drip-chunk", "drip-ms");
+
+    public enum Distribution {
+        UNIFORM, LOGNORMAL, PARETO
+    }
+
+    public enum Fault {
+        NONE, ERROR, RESET, TRUNCATE, DRIP
+    }
+
+    public record Profile(long latencyMs, long jitterMs, Distribution distribution, double sigma, double alpha,
+                          long maxDelayMs,
+                          double errorRate, int errorStatus, long retryAfterSeconds,
+                          double resetRate, double truncateRate, double truncateAt,
+                          double dripRate, int dripChunkBytes, long dripDelayMs) {
+
+        public static final Profile NONE = new Profile(0, 0, Distribution.UNIFORM, 0.5, 1.5, 30_000,
+                0, 503, 0, 0, 0, 0.5, 0, 256, 50);
+
+        public Profile {
+            if (latencyMs < 0 || jitterMs < 0 || maxDelayMs < 0 || retryAfterSeconds < 0 || dripDelayMs < 0) {
+                throw new IllegalArgumentException("latency, jitter, max, retry-after and drip-ms must be >= 0");
+            }
+            if (sigma <= 0 || alpha <= 0) {
+                throw new IllegalArgumentException("sigma and alpha must be > 0");
+            }
+            if (errorStatus < 400 || errorStatus > 599) {
+                throw new IllegalArgumentException("status must be 4xx or 5xx: " + errorStatus);
+            }
+            if (truncateAt < 0 || truncateAt >= 1) {
+                throw new IllegalArgumentException("truncate-at must be in [0, 1): " + truncateAt);
+            }
+            if (dripChunkBytes <= 0) {
+                throw new IllegalArgumentException("drip-chunk must be > 0: " + dripChunkBytes);
+            }
+            for (double rate : new double[]{errorRate, resetRate, truncateRate, dripRate}) {
+                if (rate < 0 || rate > 1) {
+                    throw new IllegalArgumentException("rates must be in [0, 1]: " + rate);
+                }
+            }
+            if (errorRate + resetRate + truncateRate + dripRate > 1 + 1e-9) {
+                throw new IllegalArgumentException("errors + resets + truncate + drip must be <= 1");
+            }
+        }
+
+        long nextDelayMs(ThreadLocalRandom random) {
+            if (latencyMs == 0) {
+                return 0;
+            }
+            double delay = switch (distribution) {
+                case UNIFORM -> jitterMs == 0
+                        ? latencyMs
+                        : latencyMs + random.nextLong(-jitterMs, jitterMs + 1);
+                case LOGNORMAL -> latencyMs * Math.exp(sigma * random.nextGaussian());
+                // обратная функция распределения; 1 - u, чтобы не делить на ноль
+                case PARETO -> latencyMs / Math.pow(1 - random.nextDouble(), 1 / alpha);
+            };
+            return Math.max(0, Math.min(maxDelayMs, Math.round(delay)));
+        }
+
+        /**
+         * Один бросок на все отказы: они взаимоисключающие
+         */
+        Fault nextFault(ThreadLocalRandom random) {
+            if (errorRate + resetRate + truncateRate + dripRate == 0) {
+                return Fault.NONE;
+            }
+            double u = random.nextDouble();
+            if ((u -= resetRate) < 0) {
+                return Fault.RESET;
+            }
+            if ((u -= errorRate) < 0) {
+                return Fault.ERROR;
+            }
+            if ((u -= truncateRate) < 0) {
+                return Fault.TRUNCATE;
+            }
+            if ((u -= dripRate) < 0) {
+                return Fault.DRIP;
+            }
+            return Fault.NONE;
+        }
+
+        /**
+         * Опции, отличающиеся от NONE, в формате mock.origin.profiles
+         */
+        public String toSpec() {
+            Map<String, Object> options = new LinkedHashMap<>();
+            putIfChanged(options, "latency", latencyMs, NONE.latencyMs);
+            putIfChanged(options, "jitter", jitterMs, NONE.jitterMs);
+            putIfChanged(options, "dist", distribution.name().toLowerCase(Locale.ROOT),
+                    NONE.distribution.name().toLowerCase(Locale.ROOT));
+            putIfChanged(options, "sigma", sigma, NONE.sigma);
+            putIfChanged(options, "alpha", alpha, NONE.alpha);
+            putIfChanged(options, "max", maxDelayMs, NONE.maxDelayMs);
+            putIfChanged(options, "errors", errorRate, NONE.errorRate);
+            putIfChanged(options, "status", errorStatus, NONE.errorStatus);
+            putIfChanged(options, "retry-after", retryAfterSeconds, NONE.retryAfterSeconds);
+            putIfChanged(options, "resets", resetRate, NONE.resetRate);
+            putIfChanged(options, "truncate", truncateRate, NONE.truncateRate);
+            putIfChanged(options, "truncate-at", truncateAt, NONE.truncateAt);
+            putIfChanged(options, "drip", dripRate, NONE.dripRate);
+            putIfChanged(options, "drip-chunk", dripChunkBytes, NONE.dripChunkBytes);
+            putIfChanged(options, "drip-ms", dripDelayMs, NONE.dripDelayMs);
+            StringBuilder spec = new StringBuilder();
+            options.forEach((key, value) -> spec.append(spec.isEmpty() ? "" : ",").append(key).append('=').append(value));
+            return spec.toString();
+        }
+
+        private static void putIfChanged(Map<String, Object> options, String key, Object value, Object initial) {
+            if (!value.equals(initial)) {
+                options.put(key, value);
+            }
+        }
+
+        /**
+         * Копия с заменёнными опциями; неизвестная опция — IllegalArgumentException
+         */
+        public Profile with(Map<String, String> options) {
+            long latency = latencyMs, jitter = jitterMs, max = maxDelayMs, retryAfter = retryAfterSeconds;
+            long dripMs = dripDelayMs;
+            Distribution dist = distribution;
+            double sig = sigma, alp = alpha, errors = errorRate, resets = resetRate;
+            double truncate = truncateRate, cut = truncateAt, drip = dripRate;
+            int status = errorStatus, chunk = dripChunkBytes;
+            for (Map.Entry<String, String> option : options.entrySet()) {
+                String value = option.getValue().trim();
+                switch (option.getKey().trim()) {
+                    case "latency" -> latency = Long.parseLong(value);
+                    case "jitter" -> jitter = Long.parseLong(value);
+                    case "dist" -> dist = Distribution.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "sigma" -> sig = Double.parseDouble(value);
+                    case "alpha" -> alp = Double.parseDouble(value);
+                    case "max" -> max = Long.parseLong(value);
+                    case "errors" -> errors = Double.parseDouble(value);
+                    case "status" -> status = Integer.parseInt(value);
+                    case "retry-after" -> retryAfter = Long.parseLong(value);
+                    case "resets" -> resets = Double.parseDouble(value);
+                    case "truncate" -> truncate = Double.parseDouble(value);
+                    case "truncate-at" -> cut = Double.parseDouble(value);
+                    case "drip" -> drip = Double.parseDouble(value);
+                    case "drip-chunk" -> chunk = Integer.parseInt(value);
+                    case "drip-ms" -> dripMs = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + option.getKey());
+                }
+            }
+            return new Profile(latency, jitter, dist, sig, alp, max, errors, status, retryAfter,
+                    resets, truncate, cut, drip, chunk, dripMs);
+        }
+    }
+
+    /**
+     * Что сделать с конкретным запросом
+     */
+    public record Decision(Profile profile, long delayMs, Fault fault) {
+
+        public static final Decision PASS = new Decision(Profile.NONE, 0, Fault.NONE);
+    }
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+
+    public MockOriginProfiles(@Value("${mock.origin.profiles:}") String spec) {
+        profiles.putAll(parse(spec));
+    }
+
+    public Profile profileFor(String source) {
+        Profile own = profiles.get(source);
+        if (own != null) {
+            return own;
+        }
+        return profiles.getOrDefault(ANY, Profile.NONE);
+    }
+
+    /**
+     * @param overrides опции запроса поверх профиля источника (только из OPTIONS)
+     */
+    public Decision decide(String source, Map<String, String> overrides) {
+        Profile profile = profileFor(source);
+        if (!overrides.isEmpty()) {
+            profile = profile.with(overrides);
+        }
+        if (profile.equals(Profile.NONE)) {
+            return Decision.PASS;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new Decision(profile, profile.nextDelayMs(random), profile.nextFault(random));
+    }
+
+    /**
+     * Заменить профиль источника ("*" — по умолчанию); опции — поверх NONE
+     */
+    public Profile put(String source, String options) {
+        Profile profile = Profile.NONE.with(OptionSpec.options(options));
+        profiles.put(source, profile);
+        return profile;
+    }
+
+    public boolean remove(String source) {
+        return profiles.remove(source) != null;
+    }
+
+    public void clear() {
+        profiles.clear();
+    }
+
+    /**
+     * Источник → опции, по алфавиту
+     */
+    public Map<String, String> snapshot() {
+        Map<String, String> result = new TreeMap<>();
+        profiles.forEach((source, profile) -> result.put(source, profile.toSpec()));
+        return result;
+    }
+
+    /**
+     * Текущие профили в формате mock.origin.profiles — для отчётов бенчмарка
+     */
+    public String spec() {
+        StringBuilder spec = new StringBuilder();
+        snapshot().forEach((source, options) ->
+                spec.append(spec.isEmpty() ? "" : ";").append(source).append(':').append(options));
+        return spec.toString();
+    }
+
+    static Map<String, Profile> parse(String spec) {
+        return OptionSpec.parse(spec, "source", Profile.NONE::with);
+    }
+}
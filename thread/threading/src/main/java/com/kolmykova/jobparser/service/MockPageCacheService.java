@@ -0,0 +1,124 @@
+package com.kolmykova.jobparser.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш отрендеренных мок-страниц в виде готовых UTF-8 байтов (и, опционально, gzip).
+ *
+ * Ограничен суммарным размером байтов, вытеснение — LRU. Запись привязана к ETag:
+ * если вакансия в MockVacancyCacheService сменилась, страница рендерится заново.
+ * Рендеринг выполняется вне блокировки — при одновременном промахе страницу
+ * могут отрендерить дважды, это дешевле, чем держать замок на время шаблона.
+ */
+@Service
+public class MockPageCacheService {
+
+    /**
+     * Байты отдаются как есть, без копирования — изменять их нельзя
+     */
+    public record RenderedPage(String etag, long lastModified, byte[] body, byte[] gzipped) {
+
+        long weight() {
+            return body.length + (gzipped != null ? gzipped.length : 0);
+        }
+    }
+
+    private final long maxBytes;
+    private final boolean gzip;
+
+    // key = type + ":" + id
+    private final Map<String, RenderedPage> pages = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public MockPageCacheService(MeterRegistry registry,
+                                @Value("${mock.page-cache.max-bytes:67108864}") long maxBytes,
+                                @Value("${mock.page-cache.gzip:true}") boolean gzip) {
+        this.maxBytes = maxBytes;
+        this.gzip = gzip;
+        this.hits = Counter.builder("jobparser.mock.page.cache.requests.total")
+                .description("Mock page cache lookups")
+                .tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder("jobparser.mock.page.cache.requests.total")
+                .description("Mock page cache lookups")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("jobparser.mock.page.cache.bytes", this, MockPageCacheService::bytes)
+                .description("Bytes held by pre-rendered mock pages")
+                .register(registry);
+    }
+
+    public boolean gzipEnabled() {
+        return gzip;
+    }
+
+    public RenderedPage getOrRender(String key, String etag, long lastModified, Supplier<String> renderer) {
+        synchronized (pages) {
+            RenderedPage page = pages.get(key);
+            if (page != null && page.etag().equals(etag)) {
+                hits.increment();
+                return page;
+            }
+        }
+        misses.increment();
+
+        byte[] body = renderer.get().getBytes(StandardCharsets.UTF_8);
+        RenderedPage page = new RenderedPage(etag, lastModified, body, gzip ? gzip(body) : null);
+        if (page.weight() > maxBytes) {
+            return page;
+        }
+
+        synchronized (pages) {
+            RenderedPage previous = pages.put(key, page);
+            if (previous != null) {
+                bytes -= previous.weight();
+            }
+            bytes += page.weight();
+            Iterator<RenderedPage> eldest = pages.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().weight();
+                eldest.remove();
+            }
+        }
+        return page;
+    }
+
+    public double bytes() {
+        synchronized (pages) {
+            return bytes;
+        }
+    }
+
+    public int size() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -2,25 +2,193 @@ package com.kolmykova.jobparser.service;
 
 import com.kolmykova.jobparser.config.VacancyGeneratorConfig.VacancyRandomGenerator;
 import com.kolmykova.jobparser.model.dto.VacancyDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
 
+/**
+ * Ограниченный кэш мок-вакансий с вытеснением CLOCK (second chance).
+ *
+ * Ключ (type, id) не собирается в строку: сегмент и корзина выбираются по
+ * type.hashCode() (кэшируется в String) и id, сравнение — equals + ==,
+ * поэтому попадание ничего не аллоцирует. Каждый сегмент — кольцо слотов
+ * фиксированного размера на примитивных массивах, цепочки корзин — int-индексы.
+ *
+ * При промахе вакансия генерируется заново вне блокировки сегмента;
+ * если её успел вставить другой поток, возвращается уже вставленная.
+ */
 @Service
 public class MockVacancyCacheService {
 
+    private static final int SEGMENTS = 16;
+
     private final VacancyRandomGenerator vacancyRandomGenerator;
+    private final Segment[] segments = new Segment[SEGMENTS];
 
-    // key = type + ":" + id
-    private final Map<String, VacancyDto> cache = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
 
-    public MockVacancyCacheService(VacancyRandomGenerator vacancyRandomGenerator) {
+    public MockVacancyCacheService(VacancyRandomGenerator vacancyRandomGenerator,
+                                   MeterRegistry registry,
+                                   @Value("${mock.vacancy-cache.max-entries:100000}") int maxEntries) {
         this.vacancyRandomGenerator = vacancyRandomGenerator;
+        int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+
+        this.hits = Counter.builder("jobparser.mock.vacancy.cache.requests.total")
+                .description("Mock vacancy cache lookups")
+                .tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder("jobparser.mock.vacancy.cache.requests.total")
+                .description("Mock vacancy cache lookups")
+                .tag("result", "miss")
+                .register(registry);
+        this.evictions = Counter.builder("jobparser.mock.vacancy.cache.evictions.total")
+                .description("Mock vacancies evicted by CLOCK")
+                .register(registry);
+        Gauge.builder("jobparser.mock.vacancy.cache.size", this, MockVacancyCacheService::size)
+                .description("Mock vacancies currently cached")
+                .register(registry);
     }
 
     public VacancyDto getOrCreate(String type, Long id) {
-        String key = type + ":" + id;
-        return cache.computeIfAbsent(key, k -> vacancyRandomGenerator.generateRandomVacancy(type, id));
+        long key = id;
+        int hash = hash(type, key);
+        Segment segment = segments[(hash >>> 28) & (SEGMENTS - 1)];
+
+        VacancyDto cached = segment.get(type, key, hash);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        VacancyDto created = vacancyRandomGenerator.generateRandomVacancy(type, id);
+        return segment.putIfAbsent(type, key, hash, created, evictions);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private static int hash(String type, long id) {
+        int h = type.hashCode() * 31 + Long.hashCode(id);
+        // перемешивание из HashMap.hash + старшие биты для выбора сегмента
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Segment {
+
+        private final String[] types;
+        private final long[] ids;
+        private final int[] hashes;
+        private final VacancyDto[] values;
+        private final boolean[] referenced;
+        // next[slot] — следующий слот в цепочке корзины, -1 — конец
+        private final int[] next;
+        private final int[] buckets;
+        private int size;
+        private int hand;
+
+        Segment(int capacity) {
+            types = new String[capacity];
+            ids = new long[capacity];
+            hashes = new int[capacity];
+            values = new VacancyDto[capacity];
+            referenced = new boolean[capacity];
+            next = new int[capacity];
+            buckets = new int[Integer.highestOneBit(Math.max(1, capacity - 1)) << 1];
+            Arrays.fill(buckets, -1);
+        }
+
+        synchronized VacancyDto get(String type, long id, int hash) {
+            int slot = find(type, id, hash);
+            if (slot < 0) {
+                return null;
+            }
+            referenced[slot] = true;
+            return values[slot];
+        }
+
+        synchronized VacancyDto putIfAbsent(String type, long id, int hash, VacancyDto value, Counter evictions) {
+            int existing = find(type, id, hash);
+            if (existing >= 0) {
+                referenced[existing] = true;
+                return values[existing];
+            }
+
+            int slot;
+            if (size < values.length) {
+                slot = size++;
+            } else {
+                slot = victim();
+                unlink(slot);
+                evictions.increment();
+            }
+
+            types[slot] = type;
+            ids[slot] = id;
+            hashes[slot] = hash;
+            values[slot] = value;
+            referenced[slot] = false;
+            int bucket = hash & (buckets.length - 1);
+            next[slot] = buckets[bucket];
+            buckets[bucket] = slot;
+            return value;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int find(String type, long id, int hash) {
+            for (int slot = buckets[hash & (buckets.length - 1)]; slot >= 0; slot = next[slot]) {
+                if (hashes[slot] == hash && ids[slot] == id && types[slot].equals(type)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Стрелка CLOCK: слот с поднятым битом получает второй шанс, первый без бита — жертва
+         */
+        private int victim() {
+            while (true) {
+                int slot = hand;
+                hand = (hand + 1) % values.length;
+                if (referenced[slot]) {
+                    referenced[slot] = false;
+                } else {
+                    return slot;
+                }
+            }
+        }
+
+        private void unlink(int slot) {
+            int bucket = hashes[slot] & (buckets.length - 1);
+            if (buckets[bucket] == slot) {
+                buckets[bucket] = next[slot];
+                return;
+            }
+            for (int prev = buckets[bucket]; prev >= 0; prev = next[prev]) {
+                if (next[prev] == slot) {
+                    next[prev] = next[slot];
+                    return;
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,16 @@
 package com.kolmykova.jobparser.service;
 
+import com.kolmykova.jobparser.jfr.FetchEvent;
+import com.kolmykova.jobparser.jfr.JfrEvents;
 import com.kolmykova.jobparser.logging.LoggingDaemon;
 import com.kolmykova.jobparser.metrics.ParserMetrics;
 import com.kolmykova.jobparser.model.Vacancy;
 import com.kolmykova.jobparser.model.dto.VacancyDto;
-import com.kolmykova.jobparser.repository.VacancyRepository;
+import com.kolmykova.jobparser.service.client.FetchResult;
+import com.kolmykova.jobparser.service.client.FetchTimeoutException;
+import com.kolmykova.jobparser.service.client.HostGuards;
 import com.kolmykova.jobparser.service.client.WebFluxMockHtmlClient;
-import io.micrometer.core.instrument.Timer;
+import com.kolmykova.jobparser.service.persistence.VacancyWriteBehind;
 import io.micrometer.tracing.Span;
 import io.micrometer.tracing.Tracer;
 import org.springframework.dao.DataAccessException;
@@ -14,45 +18,49 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ParseService {
 
-    private static final int BATCH_SIZE = 50;
+    // результат processAsync: URL обработан (иначе — через сколько мс повторить)
+    private static final long DONE = -1;
 
     private final ExecutorService vacancyExecutor;
     private final WebFluxMockHtmlClient mockHtmlClient;
     private final VacancyParser vacancyParser;
-    private final VacancyRepository vacancyRepository;
     private final LoggingDaemon loggingDaemon;
     private final ParserMetrics metrics;
     private final Tracer tracer;
     private final ParsingTaskService parsingTaskService;
-
-    private final Object batchLock = new Object();
-    private final List<Vacancy> batch = new ArrayList<>();
+    private final VacancyWriteBehind writeBehind;
+    private final HostGuards hostGuards;
 
     public ParseService(ExecutorService vacancyExecutor,
                         WebFluxMockHtmlClient mockHtmlClient,
                         VacancyParser vacancyParser,
-                        VacancyRepository vacancyRepository,
                         LoggingDaemon loggingDaemon,
                         ParserMetrics metrics,
                         Tracer tracer,
-                        ParsingTaskService parsingTaskService) {
+                        ParsingTaskService parsingTaskService,
+                        VacancyWriteBehind writeBehind,
+                        HostGuards hostGuards) {
         this.vacancyExecutor = vacancyExecutor;
         this.mockHtmlClient = mockHtmlClient;
         this.vacancyParser = vacancyParser;
-        this.vacancyRepository = vacancyRepository;
         this.loggingDaemon = loggingDaemon;
         this.metrics = metrics;
         this.tracer = tracer;
         this.parsingTaskService = parsingTaskService;
+        this.writeBehind = writeBehind;
+        this.hostGuards = hostGuards;
     }
 
     /**
@@ -77,7 +85,7 @@ public class ParseService {
                     try {
                         String html = mockHtmlClient.fetchHtml(url);
                         Vacancy vacancy = vacancyParser.parse(html, url);
-                        Vacancy saved = vacancyRepository.save(vacancy);
+                        Vacancy saved = writeBehind.saveNow(vacancy);
 
                         VacancyDto dto = toDto(saved);
                         synchronized (results) {
@@ -89,7 +97,7 @@ public class ParseService {
 
                     } catch (Exception e) {
                         processedCount.incrementAndGet();
-                        loggingDaemon.log("Error processing url " + url + ": " + e.getMessage());
+                        loggingDaemon.log("Error processing url {}: {}", url, e.getMessage());
                     }
                 }
 
@@ -106,12 +114,30 @@ public class ParseService {
         return taskId;
     }
 
-    public void parseUrls(List<String> urls) {
+    /**
+     * Запускает обработку пачки и сразу возвращается.
+     * Завершение пачки (flush write-behind буфера, метрика и спан пачки) навешивается
+     * колбэком на завершение задач по URL — отдельный ожидающий поток не занимается.
+     *
+     * @return future, завершающийся, когда вакансии пачки записаны
+     */
+    public CompletableFuture<Void> parseUrls(List<String> urls) {
+        return parseUrls(urls, false);
+    }
+
+    /**
+     * @param force загружать сразу, не дожидаясь разрешения HostGuards
+     *              (ручной запуск, например /api/parse/force)
+     */
+    public CompletableFuture<Void> parseUrls(List<String> urls, boolean force) {
         if (urls == null || urls.isEmpty()) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        Span batchSpan = tracer.nextSpan();
+        // решение о трассировке — одно на всю пачку (в режиме FULL всегда true)
+        boolean traced = metrics.sampleTrace();
+
+        Span batchSpan = nextSpan(traced);
         if (batchSpan != null) {
             batchSpan
                     .name("parseUrls.batch")
@@ -119,85 +145,101 @@ public class ParseService {
                     .start();
         }
 
-        Timer.Sample batchSample = metrics.startBatchTimer();
-        CountDownLatch latch = new CountDownLatch(urls.size());
+        long batchStart = metrics.start();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[urls.size()];
 
         try (Tracer.SpanInScope batchScope = (batchSpan != null ? tracer.withSpan(batchSpan) : null)) {
 
-            Span parentSpan = tracer.currentSpan();
-
-            for (String url : urls) {
-                vacancyExecutor.submit(() -> {
-                    Span urlSpan = tracer.nextSpan(parentSpan);
-                    if (urlSpan != null) {
-                        urlSpan
-                                .name("processUrl.async")
-                                .tag("jobparser.url", url)
-                                .start();
-                    }
+            Span parentSpan = traced ? tracer.currentSpan() : null;
 
-                    try (Tracer.SpanInScope urlScope = (urlSpan != null ? tracer.withSpan(urlSpan) : null)) {
-                        processUrl(url);
-                    } catch (Exception e) {
-                        if (urlSpan != null) {
-                            urlSpan.error(e);
-                        }
-                    } finally {
-                        if (urlSpan != null) {
-                            urlSpan.end();
-                        }
-                        latch.countDown();
-                    }
-                });
+            for (int i = 0; i < tasks.length; i++) {
+                long submittedAt = System.nanoTime();
+                tasks[i] = processAsync(urls.get(i), traced, parentSpan, force,
+                        vacancyExecutor, submittedAt, submittedAt, 0);
             }
 
-            vacancyExecutor.submit(() -> {
-                Span awaitSpan = tracer.nextSpan(parentSpan);
-                if (awaitSpan != null) {
-                    awaitSpan
-                            .name("parseUrls.awaitAndFlush")
-                            .start();
-                }
+        } catch (RuntimeException e) {
+            if (batchSpan != null) {
+                batchSpan.error(e);
+                batchSpan.end();
+            }
+            metrics.recordBatch(batchStart);
+            throw e;
+        }
 
-                try (Tracer.SpanInScope awaitScope = (awaitSpan != null ? tracer.withSpan(awaitSpan) : null)) {
-                    latch.await();
-                    flushBatch();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    metrics.incError("unknown");
-                    if (awaitSpan != null) {
-                        awaitSpan.error(e);
-                    }
-                } catch (Exception e) {
-                    if (awaitSpan != null) {
-                        awaitSpan.error(e);
-                    }
-                    throw e;
-                } finally {
-                    if (awaitSpan != null) {
-                        awaitSpan.end();
+        // колбэк в потоке, завершившем последнюю задачу пачки; дальше ждём только запись буфера
+        return CompletableFuture.allOf(tasks)
+                .thenCompose(ignored -> writeBehind.flush())
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        metrics.incError("unknown");
+                        if (batchSpan != null) {
+                            batchSpan.error(error);
+                        }
                     }
-                    metrics.stopBatchTimer(batchSample);
+                    metrics.recordBatch(batchStart);
                     if (batchSpan != null) {
                         batchSpan.end();
                     }
+                });
+    }
+
+    /**
+     * Задача по URL. Если хост сейчас не принимает загрузки, воркер не ждёт: URL
+     * перезапускается на том же пуле через HostGuards.deferDelayMs, а future завершается только
+     * после его обработки — пачка не считается готовой, пока отложенные URL не сделаны.
+     * URL, ждущий дольше parsing.fetch.defer.max-wait-ms с постановки в пачку, грузится без разрешения.
+     *
+     * @param readyAt     когда задача может начаться (для времени ожидания в очереди)
+     * @param submittedAt когда URL поставлен в пачку
+     * @param deferrals   сколько раз URL уже откладывали
+     */
+    private CompletableFuture<Void> processAsync(String url, boolean traced, Span parentSpan, boolean force,
+                                                 Executor executor, long readyAt, long submittedAt, int deferrals) {
+        return CompletableFuture.supplyAsync(() -> {
+            JfrEvents.queueWait("vacancy-executor", System.nanoTime() - readyAt);
+            HostGuards.Permit permit = hostGuards.tryAcquire(url);
+            if (!permit.granted() && !force) {
+                long delayMs = hostGuards.deferDelayMs(permit, submittedAt, deferrals);
+                if (delayMs > 0) {
+                    return delayMs;
                 }
-            });
+            }
 
-        } catch (Exception e) {
-            if (batchSpan != null) {
-                batchSpan.error(e);
+            Span urlSpan = nextSpan(traced, parentSpan);
+            if (urlSpan != null) {
+                urlSpan
+                        .name("processUrl.async")
+                        .tag("jobparser.url", url)
+                        .start();
             }
-            metrics.stopBatchTimer(batchSample);
-            if (batchSpan != null) {
-                batchSpan.end();
+
+            try (Tracer.SpanInScope urlScope = (urlSpan != null ? tracer.withSpan(urlSpan) : null)) {
+                processUrl(url, traced, permit);
+            } catch (Exception e) {
+                if (urlSpan != null) {
+                    urlSpan.error(e);
+                }
+            } finally {
+                if (urlSpan != null) {
+                    urlSpan.end();
+                }
             }
-            throw e;
-        }
+            return DONE;
+        }, executor).thenCompose(deferMs -> deferMs == DONE
+                ? CompletableFuture.completedFuture(null)
+                : processAsync(url, traced, parentSpan, force,
+                        CompletableFuture.delayedExecutor(deferMs, TimeUnit.MILLISECONDS, vacancyExecutor),
+                        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deferMs), submittedAt,
+                        deferrals + 1));
     }
 
-    private void processUrl(String url) {
-        Span span = tracer.nextSpan();
+    /**
+     * @param permit разрешение HostGuards; при force или истёкшем ожидании может быть не выдано —
+     *               тогда загрузка в HostGuards не учитывается
+     */
+    private void processUrl(String url, boolean traced, HostGuards.Permit permit) {
+        Span span = nextSpan(traced);
         if (span != null) {
             span
                     .name("processUrl")
@@ -206,14 +248,18 @@ public class ParseService {
         }
 
         metrics.incProcessed();
-        Timer.Sample urlSample = metrics.startUrlTimer();
+        long urlStart = metrics.start();
 
         try (Tracer.SpanInScope scope = (span != null ? tracer.withSpan(span) : null)) {
 
-            Timer.Sample fetchSample = metrics.startFetchTimer();
-            String html;
+            long fetchStart = metrics.start();
+            FetchResult fetched = null;
+            String html = null;
+            FetchEvent fetchEvent = new FetchEvent();
+            fetchEvent.begin();
+            Throwable fetchError = null;
 
-            Span fetchSpan = tracer.nextSpan();
+            Span fetchSpan = nextSpan(traced);
             if (fetchSpan != null) {
                 fetchSpan
                         .name("fetchHtml")
@@ -222,23 +268,43 @@ public class ParseService {
             }
 
             try (Tracer.SpanInScope fetchScope = (fetchSpan != null ? tracer.withSpan(fetchSpan) : null)) {
-                html = mockHtmlClient.fetchHtml(url);
+                fetched = mockHtmlClient.fetchConditional(url);
+                html = fetched.body();
             } catch (Exception e) {
+                fetchError = e;
                 if (fetchSpan != null) {
                     fetchSpan.error(e);
                 }
                 throw e;
             } finally {
+                hostGuards.release(permit, fetchError);
+                long htmlBytes = JfrEvents.utf8Length(html);
+                metrics.recordHostFetch(url, fetchStart, htmlBytes, httpStatus(fetched, fetchError));
+                if (fetchEvent.shouldCommit()) {
+                    fetchEvent.host = JfrEvents.host(url);
+                    fetchEvent.bytes = htmlBytes;
+                    fetchEvent.outcome = JfrEvents.outcome(fetchError);
+                    fetchEvent.commit();
+                }
                 if (fetchSpan != null) {
                     fetchSpan.end();
                 }
-                metrics.stopFetchTimer(fetchSample);
+                metrics.recordFetch(fetchStart);
+            }
+
+            // страница не менялась с прошлого обхода — разбирать и сохранять нечего
+            if (fetched.notModified()) {
+                metrics.incNotModified();
+                if (span != null) {
+                    span.tag("jobparser.not_modified", "true");
+                }
+                return;
             }
 
-            Timer.Sample parseSample = metrics.startParseTimer();
+            long parseStart = metrics.start();
             Vacancy vacancy;
 
-            Span parseSpan = tracer.nextSpan();
+            Span parseSpan = nextSpan(traced);
             if (parseSpan != null) {
                 parseSpan
                         .name("parseHtml")
@@ -249,6 +315,7 @@ public class ParseService {
             try (Tracer.SpanInScope parseScope = (parseSpan != null ? tracer.withSpan(parseSpan) : null)) {
                 vacancy = vacancyParser.parse(html, url);
             } catch (Exception e) {
+                metrics.incHostParseError(url);
                 if (parseSpan != null) {
                     parseSpan.error(e);
                 }
@@ -257,106 +324,64 @@ public class ParseService {
                 if (parseSpan != null) {
                     parseSpan.end();
                 }
-                metrics.stopParseTimer(parseSample);
-            }
-
-            List<Vacancy> toSave = null;
-            synchronized (batchLock) {
-                batch.add(vacancy);
-                if (batch.size() >= BATCH_SIZE) {
-                    toSave = new ArrayList<>(batch);
-                    batch.clear();
-                }
+                metrics.recordParse(parseStart);
             }
 
-            if (toSave != null) {
-                saveBatch(toSave, url);
-            }
+            // сохранение — в потоке write-behind буфера; при переполнении здесь ждём.
+            // Валидаторы запоминаем только после записи строки: иначе при ошибке БД
+            // следующий обход получит 304 и вакансия не сохранится никогда
+            FetchResult result = fetched;
+            writeBehind.add(vacancy, () -> mockHtmlClient.remember(url, result));
 
         } catch (Exception e) {
             metrics.incError(classifyError(e));
-            loggingDaemon.log("Error processing url " + url + ": " +
-                    e.getClass().getSimpleName() + " - " + e.getMessage());
+            loggingDaemon.log("Error processing url {}: {} - {}",
+                    url, e.getClass().getSimpleName(), e.getMessage());
             if (span != null) {
                 span.error(e);
             }
         } finally {
-            metrics.stopUrlTimer(urlSample);
+            metrics.recordUrl(urlStart);
             if (span != null) {
                 span.end();
             }
         }
     }
 
-    private void flushBatch() {
-        Span span = tracer.nextSpan();
-        if (span != null) {
-            span.name("flushBatch").start();
-        }
-
-        try (Tracer.SpanInScope scope = (span != null ? tracer.withSpan(span) : null)) {
-            List<Vacancy> toSave;
-
-            synchronized (batchLock) {
-                if (batch.isEmpty()) {
-                    if (span != null) {
-                        span.tag("jobparser.batch.size", "0");
-                    }
-                    return;
-                }
-                toSave = new ArrayList<>(batch);
-                batch.clear();
-            }
-
-            if (span != null) {
-                span.tag("jobparser.batch.size", String.valueOf(toSave.size()));
-            }
-            saveBatch(toSave, "flush");
+    /**
+     * Для пачек, не попавших в выборку, спаны не создаются вовсе
+     */
+    private Span nextSpan(boolean traced) {
+        return traced ? tracer.nextSpan() : null;
+    }
 
-        } catch (Exception e) {
-            if (span != null) {
-                span.error(e);
-            }
-            throw e;
-        } finally {
-            if (span != null) {
-                span.end();
-            }
-        }
+    private Span nextSpan(boolean traced, Span parent) {
+        return traced ? tracer.nextSpan(parent) : null;
     }
 
-    private void saveBatch(List<Vacancy> toSave, String context) {
-        Span dbSpan = tracer.nextSpan();
-        if (dbSpan != null) {
-            dbSpan
-                    .name("saveBatch")
-                    .tag("jobparser.batch.size", String.valueOf(toSave.size()))
-                    .tag("jobparser.save.context", context)
-                    .start();
+    /**
+     * Статус ответа (в т.ч. 304 и 4xx/5xx), 0 для сетевой ошибки
+     */
+    private int httpStatus(FetchResult fetched, Throwable fetchError) {
+        if (fetchError == null) {
+            return fetched != null ? fetched.status() : 200;
         }
-
-        Timer.Sample dbSample = metrics.startDbTimer();
-
-        try (Tracer.SpanInScope scope = (dbSpan != null ? tracer.withSpan(dbSpan) : null)) {
-            vacancyRepository.saveAll(toSave);
-        } catch (Exception e) {
-            if (dbSpan != null) {
-                dbSpan.error(e);
-            }
-            throw e;
-        } finally {
-            metrics.stopDbTimer(dbSample);
-            if (dbSpan != null) {
-                dbSpan.end();
-            }
+        if (fetchError instanceof WebClientResponseException e) {
+            return e.getStatusCode().value();
         }
-
-        metrics.incSaved(toSave.size());
-        loggingDaemon.log("Saved batch of " + toSave.size() + " vacancies (context: " + context + ")");
+        if (fetchError instanceof WebClientRequestException || fetchError instanceof FetchTimeoutException
+                || fetchError instanceof UncheckedIOException) {
+            return 0;
+        }
+        return -1;
     }
 
     private String classifyError(Exception e) {
-        if (e instanceof WebClientResponseException || e instanceof WebClientRequestException) {
+        if (e instanceof FetchTimeoutException) {
+            return "timeout";
+        }
+        if (e instanceof WebClientResponseException || e instanceof WebClientRequestException
+                || e instanceof UncheckedIOException) {
             return "http";
         }
         if (e instanceof DataAccessException) {
@@ -2,24 +2,26 @@ package com.kolmykova.jobparser.service;
 
 import com.kolmykova.jobparser.model.dto.ParsingStatus;
 import com.kolmykova.jobparser.model.dto.VacancyDto;
-import com.kolmykova.jobparser.websocket.ParsingWebSocketHandler;
+import com.kolmykova.jobparser.service.task.ParsingTaskStore;
+import com.kolmykova.jobparser.service.task.TaskProgressPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class ParsingTaskService {
 
-    private final Map<String, ParsingStatus> tasks = new ConcurrentHashMap<>();
-    private final ParsingWebSocketHandler webSocketHandler;
+    private final ParsingTaskStore taskStore;
+    private final TaskProgressPublisher progressPublisher;
 
-    public ParsingTaskService(ParsingWebSocketHandler webSocketHandler) {
-        this.webSocketHandler = webSocketHandler;
+    public ParsingTaskService(ParsingTaskStore taskStore,
+                              TaskProgressPublisher progressPublisher) {
+        this.taskStore = taskStore;
+        this.progressPublisher = progressPublisher;
     }
 
     public String createTask(int totalUrls) {
@@ -31,14 +33,15 @@ public class ParsingTaskService {
                 .processedUrls(0)
                 .savedVacancies(0)
                 .startedAt(LocalDateTime.now())
-                .results(new ArrayList<>())
+                // список читается снапшотами из WS/REST, пока задача его пополняет
+                .results(Collections.synchronizedList(new ArrayList<>()))
                 .build();
-        tasks.put(taskId, status);
+        taskStore.put(status);
         return taskId;
     }
 
     public void updateProgress(String taskId, int processedUrls, VacancyDto vacancy) {
-        ParsingStatus status = tasks.get(taskId);
+        ParsingStatus status = taskStore.getResident(taskId);
         if (status != null) {
             status.setStatus("IN_PROGRESS");
             status.setProcessedUrls(processedUrls);
@@ -46,13 +49,13 @@ public class ParsingTaskService {
                 status.getResults().add(vacancy);
                 status.setSavedVacancies(status.getResults().size());
             }
-            // Отправляем обновление через WebSocket
-            webSocketHandler.broadcastMessage(status);
+            // Через WebSocket уходит только дельта (счётчики + новая вакансия)
+            progressPublisher.progress(status, vacancy);
         }
     }
 
     public void completeTask(String taskId, List<VacancyDto> results) {
-        ParsingStatus status = tasks.get(taskId);
+        ParsingStatus status = taskStore.getResident(taskId);
         if (status != null) {
             status.setStatus("COMPLETED");
             status.setCompletedAt(LocalDateTime.now());
@@ -61,26 +64,33 @@ public class ParsingTaskService {
                 status.setResults(results);
                 status.setSavedVacancies(results.size());
             }
-            // Отправляем финальный результат через WebSocket
-            webSocketHandler.broadcastMessage(status);
+            // Финальное сообщение без полного списка — он доступен через REST/снапшот
+            progressPublisher.completed(status);
         }
     }
 
     public void failTask(String taskId, String errorMessage) {
-        ParsingStatus status = tasks.get(taskId);
+        ParsingStatus status = taskStore.getResident(taskId);
         if (status != null) {
             status.setStatus("ERROR");
             status.setCompletedAt(LocalDateTime.now());
             status.setErrorMessage(errorMessage);
-            webSocketHandler.broadcastMessage(status);
+            progressPublisher.failed(status);
         }
     }
 
     public ParsingStatus getStatus(String taskId) {
-        return tasks.get(taskId);
+        return getStatus(taskId, true);
+    }
+
+    /**
+     * Статус задачи; результаты выгруженных задач читаются с диска только по запросу
+     */
+    public ParsingStatus getStatus(String taskId, boolean includeResults) {
+        return taskStore.find(taskId, includeResults);
     }
 
     public void removeTask(String taskId) {
-        tasks.remove(taskId);
+        taskStore.remove(taskId);
     }
 }
\ No newline at end of file
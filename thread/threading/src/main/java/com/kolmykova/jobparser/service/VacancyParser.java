@@ -1,5 +1,7 @@
 package com.kolmykova.jobparser.service;
 
+import com.kolmykova.jobparser.jfr.JfrEvents;
+import com.kolmykova.jobparser.jfr.ParseEvent;
 import com.kolmykova.jobparser.model.Vacancy;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -13,9 +15,38 @@ import java.time.format.DateTimeParseException;
 public class VacancyParser {
 
     public Vacancy parse(String html, String originalUrl) {
-        Document doc = Jsoup.parse(html);
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        Throwable error = null;
+        try {
+            return doParse(html, originalUrl);
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.host = JfrEvents.host(originalUrl);
+                event.bytes = JfrEvents.utf8Length(html);
+                event.outcome = JfrEvents.outcome(error);
+                event.commit();
+            }
+        }
+    }
 
+    private Vacancy doParse(String html, String originalUrl) {
+        return extract(Jsoup.parse(html), originalUrl);
+    }
+
+    /**
+     * Извлечение полей из уже разобранного документа (отдельно от Jsoup.parse — для бенчмарков)
+     */
+    public Vacancy extract(Document doc, String originalUrl) {
         String title        = textOrNull(doc.selectFirst("h1.title"));
+        if (title == null) {
+            // обрезанная или чужая страница: без заголовка вакансия не ляжет в БД (title NOT NULL)
+            // и утянет за собой всю пачку write-behind
+            throw new IllegalArgumentException("No vacancy title on page " + originalUrl);
+        }
         String salary       = textOrNull(doc.selectFirst("div.salary"));
         String company      = textOrNull(selectMetaValueAfterLabel(doc, "Компания:"));
         String city         = textOrNull(selectMetaValueAfterLabel(doc, "Город:"));
@@ -70,7 +101,7 @@ public class VacancyParser {
      *
      * И возвращает текст второго span.
      */
-    private Element selectMetaValueAfterLabel(Document doc, String labelText) {
+    public static Element selectMetaValueAfterLabel(Document doc, String labelText) {
         for (Element meta : doc.select("div.meta")) {
             Element label = meta.selectFirst("span.label");
             if (label != null && label.text().trim().equalsIgnoreCase(labelText)) {
@@ -0,0 +1,73 @@
+package com.kolmykova.jobparser.service.client;
+
+/**
+ * Адаптивный лимит одновременных загрузок с хоста (градиент по задержке, как Gradient2).
+ *
+ * Долгая задержка — скользящее среднее, короткая — последний замер:
+ *   gradient = clamp(TOLERANCE * long / short, 0.5, 1)
+ *   limit    = limit * (1 - SMOOTHING) + (limit * gradient + sqrt(limit)) * SMOOTHING
+ * Пока хост отвечает как обычно, лимит растёт на ~sqrt(limit); когда ответы медленнее
+ * долгой задержки в TOLERANCE раз — сжимается. Отказ (таймаут, сетевая ошибка, 5xx)
+ * уменьшает лимит в BACKOFF раз. Если занято меньше половины лимита, он не растёт —
+ * по недогруженному хосту судить о его пределе нельзя.
+ */
+class AdaptiveLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private double longRtt;
+    private int inFlight;
+
+    AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * @param rttNanos время загрузки
+     * @param dropped  загрузка отказала по вине хоста
+     */
+    synchronized void release(long rttNanos, boolean dropped) {
+        int inFlightAtEnd = inFlight--;
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            return;
+        }
+        double rtt = Math.max(1, rttNanos);
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / LONG_WINDOW;
+        // задержки заметно упали (нагрузка ушла) — быстрее забываем прежний уровень
+        if (longRtt / rtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (inFlightAtEnd < limit / 2) {
+            return;
+        }
+        double gradient = Math.clamp(TOLERANCE * longRtt / rtt, 0.5, 1.0);
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.clamp(limit * (1 - SMOOTHING) + target * SMOOTHING, minLimit, maxLimit);
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,142 @@
+package com.kolmykova.jobparser.service.client;
+
+import java.util.Arrays;
+
+/**
+ * Circuit breaker хоста по доле отказов в последних window загрузках.
+ *
+ * CLOSED → OPEN, когда из не меньше minCalls последних загрузок отказов не меньше failureRate;
+ * OPEN → HALF_OPEN через openNanos; в HALF_OPEN пропускается probes пробных загрузок:
+ * все успешны — CLOSED с чистым окном, любой отказ — снова OPEN.
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    interface Listener {
+        void onTransition(State from, State to);
+    }
+
+    /**
+     * Результат tryAcquire: загрузка пропущена как пробная
+     */
+    static final long PROBE = -1;
+
+    private final boolean[] failures;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openNanos;
+    private final int probes;
+    private final Listener listener;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int calls;
+    private int failed;
+    private long openedAt;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    CircuitBreaker(int window, int minCalls, double failureRate, long openNanos, int probes, Listener listener) {
+        this.failures = new boolean[window];
+        this.minCalls = Math.min(minCalls, window);
+        this.failureRate = failureRate;
+        this.openNanos = openNanos;
+        this.probes = Math.max(1, probes);
+        this.listener = listener;
+    }
+
+    /**
+     * @return 0 — пропустить, PROBE — пропустить пробной загрузкой,
+     * больше нуля — через сколько наносекунд спросить снова
+     */
+    synchronized long tryAcquire(long now) {
+        if (state == State.OPEN) {
+            long openFor = now - openedAt;
+            if (openFor < openNanos) {
+                return openNanos - openFor;
+            }
+            moveTo(State.HALF_OPEN, now);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probesSucceeded >= probes) {
+                // пробы ещё идут — повторить примерно через десятую часть open-интервала
+                return Math.max(1_000_000, openNanos / 10);
+            }
+            probesInFlight++;
+            return PROBE;
+        }
+        return 0;
+    }
+
+    /**
+     * Загрузка пропущена, но не состоялась (например, отказал лимит конкурентности)
+     */
+    synchronized void cancel(boolean probe) {
+        if (probe && state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    synchronized void onResult(boolean failure, boolean probe, long now) {
+        switch (state) {
+            case CLOSED -> {
+                if (probe) {
+                    return;
+                }
+                if (calls == failures.length) {
+                    if (failures[next]) {
+                        failed--;
+                    }
+                } else {
+                    calls++;
+                }
+                failures[next] = failure;
+                if (failure) {
+                    failed++;
+                }
+                next = (next + 1) % failures.length;
+                if (calls >= minCalls && failed >= failureRate * calls) {
+                    moveTo(State.OPEN, now);
+                }
+            }
+            case HALF_OPEN -> {
+                // результаты загрузок, начатых ещё в CLOSED, пробами не считаются
+                if (!probe) {
+                    return;
+                }
+                probesInFlight--;
+                if (failure) {
+                    moveTo(State.OPEN, now);
+                } else if (++probesSucceeded >= probes) {
+                    moveTo(State.CLOSED, now);
+                }
+            }
+            case OPEN -> {
+            }
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void moveTo(State to, long now) {
+        State from = state;
+        state = to;
+        switch (to) {
+            case OPEN -> openedAt = now;
+            case HALF_OPEN -> {
+                probesInFlight = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                Arrays.fill(failures, false);
+                next = 0;
+                calls = 0;
+                failed = 0;
+            }
+        }
+        listener.onTransition(from, to);
+    }
+}
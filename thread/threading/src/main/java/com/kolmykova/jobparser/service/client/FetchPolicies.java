@@ -0,0 +1,104 @@
+package com.kolmykova.jobparser.service.client;
+
+import com.kolmykova.jobparser.config.OptionSpec;
+import com.kolmykova.jobparser.metrics.HostMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Политики загрузки и состояние по хостам (ключ — как в HostMetrics: источник для мок-страниц).
+ *
+ * Политика по умолчанию — из parsing.fetch.*, для отдельных хостов её опции
+ * переопределяются в parsing.fetch.hosts. Состояние хоста — бюджет повторов
+ * и окно времён ответа для хеджа; хостов с собственным состоянием не больше
+ * MAX_HOSTS, остальные делят общее.
+ */
+@Component
+public class FetchPolicies {
+
+    static final int MAX_HOSTS = 1024;
+    private static final int LATENCY_WINDOW = 512;
+
+    /**
+     * Бюджет и окно задержек одного хоста
+     */
+    public static final class HostState {
+        final RetryBudget budget;
+        final LatencyWindow latency = new LatencyWindow(LATENCY_WINDOW);
+
+        HostState(RetryBudget budget) {
+            this.budget = budget;
+        }
+    }
+
+    private final FetchPolicy defaults;
+    private final Map<String, FetchPolicy> perHost;
+    private final double budgetRatio;
+    private final double budgetMinPerSecond;
+    private final int hedgeMinSamples;
+    private final Map<String, HostState> states = new ConcurrentHashMap<>();
+    private final HostState shared;
+
+    @Autowired
+    public FetchPolicies(@Value("${parsing.fetch.read-timeout-ms:5000}") long readTimeoutMs,
+                         @Value("${parsing.fetch.total-timeout-ms:15000}") long totalTimeoutMs,
+                         @Value("${parsing.fetch.max-attempts:3}") int maxAttempts,
+                         @Value("${parsing.fetch.backoff.base-ms:50}") long backoffBaseMs,
+                         @Value("${parsing.fetch.backoff.max-ms:2000}") long backoffMaxMs,
+                         @Value("${parsing.fetch.hedge.enabled:false}") boolean hedge,
+                         @Value("${parsing.fetch.hedge.min-delay-ms:20}") long hedgeMinDelayMs,
+                         @Value("${parsing.fetch.hedge.min-samples:50}") int hedgeMinSamples,
+                         @Value("${parsing.fetch.retry-budget.ratio:0.1}") double budgetRatio,
+                         @Value("${parsing.fetch.retry-budget.min-per-second:5}") double budgetMinPerSecond,
+                         @Value("${parsing.fetch.hosts:}") String hosts) {
+        this(new FetchPolicy(readTimeoutMs, totalTimeoutMs, maxAttempts, backoffBaseMs, backoffMaxMs,
+                hedge, hedgeMinDelayMs), hosts, budgetRatio, budgetMinPerSecond, hedgeMinSamples);
+    }
+
+    FetchPolicies(FetchPolicy defaults, String hosts, double budgetRatio, double budgetMinPerSecond,
+                  int hedgeMinSamples) {
+        this.defaults = defaults;
+        this.perHost = OptionSpec.parse(hosts, "host", defaults::with);
+        this.budgetRatio = budgetRatio;
+        this.budgetMinPerSecond = budgetMinPerSecond;
+        this.hedgeMinSamples = hedgeMinSamples;
+        this.shared = new HostState(new RetryBudget(budgetRatio, budgetMinPerSecond));
+    }
+
+    public static String hostOf(String url) {
+        return HostMetrics.hostKey(url);
+    }
+
+    public FetchPolicy policyFor(String host) {
+        return perHost.getOrDefault(host, defaults);
+    }
+
+    public HostState stateFor(String host) {
+        HostState state = states.get(host);
+        if (state != null) {
+            return state;
+        }
+        if (states.size() >= MAX_HOSTS) {
+            return shared;
+        }
+        return states.computeIfAbsent(host, h -> new HostState(new RetryBudget(budgetRatio, budgetMinPerSecond)));
+    }
+
+    /**
+     * Задержка хеджа: p95 хоста, но не меньше hedge-min-delay; -1 — хеджировать нельзя
+     */
+    long hedgeDelayNanos(FetchPolicy policy, HostState state) {
+        if (!policy.hedge()) {
+            return -1;
+        }
+        long p95 = state.latency.p95(hedgeMinSamples);
+        if (p95 < 0) {
+            return -1;
+        }
+        return Math.max(p95, policy.hedgeMinDelayMs() * 1_000_000);
+    }
+}
@@ -0,0 +1,64 @@
+package com.kolmykova.jobparser.service.client;
+
+import java.util.Map;
+
+/**
+ * Политика загрузки страниц одного хоста.
+ *
+ *   parsing.fetch.hosts=hh.ru:read=2000,total=6000,attempts=2,hedge=true;superjob.ru:backoff=200
+ *
+ * @param readTimeoutMs   наибольшая пауза между чтениями ответа (в т.ч. до заголовков)
+ * @param totalTimeoutMs  предел на всю загрузку: попытки, паузы между ними и хедж
+ * @param maxAttempts     попыток всего, включая первую
+ * @param backoffBaseMs   нижняя граница паузы перед повтором (decorrelated jitter)
+ * @param backoffMaxMs    верхняя граница паузы; Retry-After больше неё — повтора не будет
+ * @param hedge           дублировать запрос, если ответа нет дольше p95 хоста
+ * @param hedgeMinDelayMs хедж не раньше этой задержки, даже если p95 меньше
+ */
+public record FetchPolicy(long readTimeoutMs,
+                          long totalTimeoutMs,
+                          int maxAttempts,
+                          long backoffBaseMs,
+                          long backoffMaxMs,
+                          boolean hedge,
+                          long hedgeMinDelayMs) {
+
+    public FetchPolicy {
+        if (readTimeoutMs <= 0 || totalTimeoutMs <= 0) {
+            throw new IllegalArgumentException("read and total timeouts must be > 0");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("attempts must be >= 1: " + maxAttempts);
+        }
+        if (backoffBaseMs < 0 || backoffMaxMs < backoffBaseMs) {
+            throw new IllegalArgumentException("backoff must satisfy 0 <= backoff <= backoff-max");
+        }
+        if (hedgeMinDelayMs < 0) {
+            throw new IllegalArgumentException("hedge-min-delay must be >= 0");
+        }
+    }
+
+    /**
+     * Копия с заменёнными опциями; неизвестная опция — IllegalArgumentException
+     */
+    public FetchPolicy with(Map<String, String> options) {
+        long read = readTimeoutMs, total = totalTimeoutMs, base = backoffBaseMs, max = backoffMaxMs;
+        long hedgeMin = hedgeMinDelayMs;
+        int attempts = maxAttempts;
+        boolean hedged = hedge;
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            String value = option.getValue().trim();
+            switch (option.getKey().trim()) {
+                case "read" -> read = Long.parseLong(value);
+                case "total" -> total = Long.parseLong(value);
+                case "attempts" -> attempts = Integer.parseInt(value);
+                case "backoff" -> base = Long.parseLong(value);
+                case "backoff-max" -> max = Long.parseLong(value);
+                case "hedge" -> hedged = Boolean.parseBoolean(value);
+                case "hedge-min-delay" -> hedgeMin = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown fetch option: " + option.getKey());
+            }
+        }
+        return new FetchPolicy(read, total, attempts, base, max, hedged, hedgeMin);
+    }
+}
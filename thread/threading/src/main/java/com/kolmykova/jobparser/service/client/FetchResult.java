@@ -0,0 +1,28 @@
+package com.kolmykova.jobparser.service.client;
+
+/**
+ * Ответ условной загрузки страницы.
+ *
+ * @param status       HTTP-статус (200, 304, ...)
+ * @param body         HTML; null при 304
+ * @param etag         ETag ответа или null
+ * @param lastModified Last-Modified ответа как есть или null
+ */
+public record FetchResult(int status, String body, String etag, String lastModified) {
+
+    public static FetchResult ok(String body) {
+        return new FetchResult(200, body, null, null);
+    }
+
+    public static FetchResult notModifiedResult() {
+        return new FetchResult(304, null, null, null);
+    }
+
+    public boolean notModified() {
+        return status == 304;
+    }
+
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+}
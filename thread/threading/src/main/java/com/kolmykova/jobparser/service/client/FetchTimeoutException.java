@@ -0,0 +1,13 @@
+package com.kolmykova.jobparser.service.client;
+
+/**
+ * Загрузка не уложилась в total-таймаут политики хоста
+ */
+public class FetchTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public FetchTimeoutException(String message) {
+        super(message);
+    }
+}
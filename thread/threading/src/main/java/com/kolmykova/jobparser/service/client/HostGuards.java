@@ -0,0 +1,250 @@
+package com.kolmykova.jobparser.service.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Допуск загрузок по хостам: circuit breaker и адаптивный лимит конкурентности перед стадией fetch.
+ *
+ * Загрузку, которую хост сейчас не принимает (цепь разомкнута или лимит занят),
+ * ParseService не ждёт, а перезапускает URL в той же пачке позже — воркер уходит на URL
+ * здоровых источников. При занятом лимите пауза растёт с каждым отказом URL (limit.defer-ms,
+ * вдвое за отказ, до limit.defer-max-ms), а не крутится с шагом defer-ms. Прождавший дольше max-wait-ms URL грузится
+ * без разрешения, чтобы пачка завершилась. Отказом хоста считается то же, что повторяет
+ * WebFluxMockHtmlClient (таймауты, сетевые ошибки, 408/429/5xx); 404 и ошибки разбора — нет.
+ *
+ * Метрики: jobparser.host.circuit.transitions.total{host,from,to}, jobparser.host.circuit.state{host}
+ * (0 — closed, 1 — half-open, 2 — open), jobparser.host.concurrency.limit{host},
+ * jobparser.host.concurrency.in_flight{host}, jobparser.url.deferred.total{reason}.
+ */
+@Component
+public class HostGuards {
+
+    private static final String OTHER = "other";
+
+    /**
+     * Разрешение на одну загрузку; если не выдано — через сколько отложить URL
+     */
+    public static final class Permit {
+        private static final Permit UNGUARDED = new Permit(null, false, 0, null, 0);
+
+        private final Guard guard;
+        private final boolean probe;
+        private final long startNanos;
+        private final String deferReason;
+        private final long deferMs;
+
+        private Permit(Guard guard, boolean probe, long startNanos, String deferReason, long deferMs) {
+            this.guard = guard;
+            this.probe = probe;
+            this.startNanos = startNanos;
+            this.deferReason = deferReason;
+            this.deferMs = deferMs;
+        }
+
+        public boolean granted() {
+            return deferReason == null;
+        }
+
+        public String deferReason() {
+            return deferReason;
+        }
+
+        public long deferMs() {
+            return deferMs;
+        }
+    }
+
+    private final class Guard {
+        final CircuitBreaker breaker;
+        final AdaptiveLimit limit;
+
+        Guard(String host) {
+            this.breaker = new CircuitBreaker(window, minCalls, failureRate, openNanos, halfOpenProbes,
+                    (from, to) -> {
+                        Counter.builder("jobparser.host.circuit.transitions.total")
+                                .description("Circuit breaker state changes per host")
+                                .tags("host", host, "from", name(from), "to", name(to))
+                                .register(registry)
+                                .increment();
+                        System.out.println("[CIRCUIT] " + host + ": " + name(from) + " -> " + name(to));
+                    });
+            this.limit = new AdaptiveLimit(initialLimit, minLimit, maxLimit);
+            Gauge.builder("jobparser.host.circuit.state", breaker, b -> b.state().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .tag("host", host)
+                    .register(registry);
+            Gauge.builder("jobparser.host.concurrency.limit", limit, AdaptiveLimit::limit)
+                    .description("Adaptive limit of concurrent fetches per host")
+                    .tag("host", host)
+                    .register(registry);
+            Gauge.builder("jobparser.host.concurrency.in_flight", limit, AdaptiveLimit::inFlight)
+                    .description("Fetches in flight per host")
+                    .tag("host", host)
+                    .register(registry);
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final int window;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long limitDeferMs;
+    private final long limitDeferMaxMs;
+    private final long maxDeferWaitNanos;
+
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+    private final Counter deferredByCircuit;
+    private final Counter deferredByLimit;
+    private final Counter deferExpired;
+    private volatile Guard shared;
+
+    public HostGuards(MeterRegistry registry,
+                      @Value("${parsing.fetch.guard.enabled:true}") boolean enabled,
+                      @Value("${parsing.fetch.circuit.window:20}") int window,
+                      @Value("${parsing.fetch.circuit.min-calls:10}") int minCalls,
+                      @Value("${parsing.fetch.circuit.failure-rate:0.5}") double failureRate,
+                      @Value("${parsing.fetch.circuit.open-ms:5000}") long openMs,
+                      @Value("${parsing.fetch.circuit.half-open-probes:3}") int halfOpenProbes,
+                      @Value("${parsing.fetch.limit.initial:20}") int initialLimit,
+                      @Value("${parsing.fetch.limit.min:2}") int minLimit,
+                      @Value("${parsing.fetch.limit.max:200}") int maxLimit,
+                      @Value("${parsing.fetch.limit.defer-ms:50}") long limitDeferMs,
+                      @Value("${parsing.fetch.limit.defer-max-ms:2000}") long limitDeferMaxMs,
+                      @Value("${parsing.fetch.defer.max-wait-ms:30000}") long maxDeferWaitMs) {
+        this.registry = registry;
+        this.enabled = enabled;
+        this.window = window;
+        this.minCalls = minCalls;
+        this.failureRate = failureRate;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.halfOpenProbes = halfOpenProbes;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limitDeferMs = limitDeferMs;
+        this.limitDeferMaxMs = Math.max(limitDeferMs, limitDeferMaxMs);
+        this.maxDeferWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxDeferWaitMs);
+
+        this.deferredByCircuit = Counter.builder("jobparser.url.deferred.total")
+                .description("URL fetches postponed because their host does not accept fetches now")
+                .tag("reason", "circuit")
+                .register(registry);
+        this.deferredByLimit = Counter.builder("jobparser.url.deferred.total")
+                .description("URL fetches postponed because their host does not accept fetches now")
+                .tag("reason", "limit")
+                .register(registry);
+        this.deferExpired = Counter.builder("jobparser.url.defer.expired.total")
+                .description("URLs fetched without a permit after waiting longer than parsing.fetch.defer.max-wait-ms")
+                .register(registry);
+    }
+
+    public Permit tryAcquire(String url) {
+        if (!enabled) {
+            return Permit.UNGUARDED;
+        }
+        Guard guard = guardFor(FetchPolicies.hostOf(url));
+        long now = System.nanoTime();
+        long wait = guard.breaker.tryAcquire(now);
+        if (wait > 0) {
+            deferredByCircuit.increment();
+            return new Permit(null, false, 0, "circuit", TimeUnit.NANOSECONDS.toMillis(wait));
+        }
+        boolean probe = wait == CircuitBreaker.PROBE;
+        if (!guard.limit.tryAcquire()) {
+            guard.breaker.cancel(probe);
+            deferredByLimit.increment();
+            return new Permit(null, false, 0, "limit", limitDeferMs);
+        }
+        return new Permit(guard, probe, now, null, 0);
+    }
+
+    /**
+     * Через сколько мс повторить URL, которому не выдали разрешение: не позже, чем
+     * истекут max-wait-ms с submittedAt (System.nanoTime). 0 — ожидание истекло, URL грузят
+     * без разрешения: иначе пачка с ним не завершится, пока хост не восстановится.
+     *
+     * @param deferrals сколько раз этот URL уже откладывали
+     */
+    public long deferDelayMs(Permit permit, long submittedAt, int deferrals) {
+        long leftMs = TimeUnit.NANOSECONDS.toMillis(submittedAt + maxDeferWaitNanos - System.nanoTime());
+        if (leftMs <= 0) {
+            deferExpired.increment();
+            return 0;
+        }
+        long delayMs = permit.deferMs();
+        if ("limit".equals(permit.deferReason())) {
+            // за слот лимита URL конкурирует с загрузками хоста: чем дольше не пускают, тем реже спрашивает
+            delayMs = Math.min(delayMs << Math.min(deferrals, 20), limitDeferMaxMs);
+        }
+        return Math.max(1, Math.min(jitter(delayMs), leftMs));
+    }
+
+    /**
+     * Итог загрузки по разрешению из tryAcquire
+     *
+     * @param error исключение загрузки, null — ответ получен
+     */
+    public void release(Permit permit, Throwable error) {
+        if (permit.guard == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        boolean failure = hostFailure(error);
+        permit.guard.limit.release(now - permit.startNanos, failure);
+        permit.guard.breaker.onResult(failure, permit.probe, now);
+    }
+
+    static boolean hostFailure(Throwable error) {
+        return error instanceof RuntimeException e && WebFluxMockHtmlClient.retryReason(e) != null
+                || error instanceof FetchTimeoutException;
+    }
+
+    /**
+     * Хостов с собственными цепью и лимитом — не больше FetchPolicies.MAX_HOSTS, остальные делят общие
+     */
+    private Guard guardFor(String host) {
+        Guard guard = guards.get(host);
+        if (guard != null) {
+            return guard;
+        }
+        if (guards.size() < FetchPolicies.MAX_HOSTS) {
+            return guards.computeIfAbsent(host, Guard::new);
+        }
+        Guard other = shared;
+        if (other == null) {
+            synchronized (this) {
+                if (shared == null) {
+                    shared = new Guard(OTHER);
+                }
+                other = shared;
+            }
+        }
+        return other;
+    }
+
+    /**
+     * +0..20%, чтобы отложенные URL хоста не вернулись все в один момент
+     */
+    private static long jitter(long ms) {
+        return ms + ThreadLocalRandom.current().nextLong(ms / 5 + 1);
+    }
+
+    private static String name(CircuitBreaker.State state) {
+        return state.name().toLowerCase().replace('_', '-');
+    }
+}
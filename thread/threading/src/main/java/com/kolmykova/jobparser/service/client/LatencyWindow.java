@@ -0,0 +1,46 @@
+package com.kolmykova.jobparser.service.client;
+
+import java.util.Arrays;
+
+/**
+ * Последние N времён успешных ответов хоста и их p95 — задержка для хеджа.
+ * Квантиль пересчитывается не чаще чем раз в N/8 замеров.
+ */
+class LatencyWindow {
+
+    private final long[] samples;
+    private final int recomputeEvery;
+    private int next;
+    private long count;
+    private long sinceRecompute;
+    private long p95Nanos = -1;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+        this.recomputeEvery = Math.max(1, size / 8);
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count++;
+        sinceRecompute++;
+    }
+
+    /**
+     * @return p95 в наносекундах; -1, пока замеров меньше minSamples
+     */
+    synchronized long p95(int minSamples) {
+        if (count < minSamples) {
+            return -1;
+        }
+        if (p95Nanos < 0 || sinceRecompute >= recomputeEvery) {
+            int n = (int) Math.min(count, samples.length);
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            p95Nanos = sorted[Math.min(n - 1, (int) Math.ceil(n * 0.95) - 1)];
+            sinceRecompute = 0;
+        }
+        return p95Nanos;
+    }
+}
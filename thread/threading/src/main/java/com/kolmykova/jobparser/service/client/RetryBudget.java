@@ -0,0 +1,54 @@
+package com.kolmykova.jobparser.service.client;
+
+/**
+ * Бюджет повторов хоста: каждый запрос добавляет ratio жетона, повтор или хедж
+ * тратит целый, плюс minPerSecond жетонов в секунду, чтобы редкие запросы
+ * тоже могли повторяться. Запас ограничен — при отказе хоста повторы
+ * не больше чем в (1 + ratio) раз умножают нагрузку на него.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxBalance;
+
+    private double balance;
+    private long refilledAt;
+
+    public RetryBudget(double ratio, double minPerSecond) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        // запас — примерно на 10 секунд минимального потока и сотню запросов
+        this.maxBalance = Math.max(1, minPerSecond * 10 + ratio * 100);
+        this.balance = maxBalance;
+        this.refilledAt = System.nanoTime();
+    }
+
+    public synchronized void onRequest() {
+        refill();
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /**
+     * @return false — бюджет исчерпан, повторять нельзя
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    synchronized double balance() {
+        refill();
+        return balance;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(maxBalance, balance + minPerSecond * (now - refilledAt) / 1e9);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,89 @@
+package com.kolmykova.jobparser.service.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Валидаторы HTTP-кэша (ETag / Last-Modified) по URL для повторного обхода.
+ *
+ * Хранятся только для страниц, которые были успешно разобраны и отданы на сохранение:
+ * иначе 304 на следующем обходе пропустил бы вакансию, которой нет в БД.
+ * Размер ограничен, вытесняется давно не запрашивавшийся URL (LRU). Кэш разбит на
+ * сегменты по хэшу URL, у каждого свой LRU и свой монитор, — запросы к разным URL
+ * почти не ждут друг друга; LRU приблизительный (в пределах сегмента). Маленькому кэшу
+ * (меньше MIN_PER_SEGMENT записей на сегмент) сегменты не нужны — он остаётся одним точным LRU.
+ */
+@Component
+public class ValidatorCache {
+
+    private static final int SEGMENTS = 16;
+    private static final int MIN_PER_SEGMENT = 64;
+
+    public record Validators(String etag, String lastModified) {
+    }
+
+    private final Segment[] segments;
+
+    public ValidatorCache(@Value("${parsing.fetch.validator-cache.max-entries:100000}") int maxEntries) {
+        int count = maxEntries >= SEGMENTS * MIN_PER_SEGMENT ? SEGMENTS : 1;
+        this.segments = new Segment[count];
+        // сумма по сегментам не больше maxEntries
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / count));
+        }
+    }
+
+    public Validators get(String url) {
+        Segment segment = segmentFor(url);
+        synchronized (segment) {
+            return segment.get(url);
+        }
+    }
+
+    public void put(String url, String etag, String lastModified) {
+        Segment segment = segmentFor(url);
+        synchronized (segment) {
+            if (etag == null && lastModified == null) {
+                segment.remove(url);
+            } else {
+                segment.put(url, new Validators(etag, lastModified));
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String url) {
+        int h = url.hashCode() * 0x9E3779B9;
+        return segments[(h >>> 28) & (segments.length - 1)];
+    }
+
+    /**
+     * LRU одного сегмента; доступ — под монитором самого сегмента
+     */
+    private static final class Segment extends LinkedHashMap<String, Validators> {
+
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Validators> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
@@ -1,22 +1,372 @@
 package com.kolmykova.jobparser.service.client;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Загрузка страниц с таймаутами, повторами и хеджированием по политике хоста (см. FetchPolicies).
+ *
+ * Таймауты: connect — общий для клиента (WebClientConfig), read — на каждую попытку,
+ * total — на всю загрузку, включая паузы между повторами. Повторяются 408, 429, 5xx
+ * (кроме 501) и сетевые ошибки; пауза — decorrelated jitter, но не меньше Retry-After.
+ * Каждый повтор и хедж тратят бюджет повторов хоста — при отказе источника
+ * повторы не умножают нагрузку на него.
+ */
 @Service
 public class WebFluxMockHtmlClient {
 
     private final WebClient webClient;
+    private final ValidatorCache validatorCache;
+    private final FetchPolicies policies;
+    private final MeterRegistry registry;
+
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+    private final Counter budgetExhausted;
+    private final Counter readTimeouts;
+    private final Counter totalTimeouts;
 
-    public WebFluxMockHtmlClient(WebClient webClient) {
+    public WebFluxMockHtmlClient(WebClient webClient, ValidatorCache validatorCache, FetchPolicies policies,
+                                 MeterRegistry registry) {
         this.webClient = webClient;
+        this.validatorCache = validatorCache;
+        this.policies = policies;
+        this.registry = registry;
+
+        this.hedgesFired = Counter.builder("jobparser.fetch.hedges.total")
+                .description("Hedged requests sent after the host p95 and those that answered first")
+                .tag("outcome", "fired")
+                .register(registry);
+        this.hedgesWon = Counter.builder("jobparser.fetch.hedges.total")
+                .description("Hedged requests sent after the host p95 and those that answered first")
+                .tag("outcome", "won")
+                .register(registry);
+        this.budgetExhausted = Counter.builder("jobparser.fetch.retry_budget.exhausted.total")
+                .description("Retries and hedges skipped because the host retry budget was empty")
+                .register(registry);
+        this.readTimeouts = Counter.builder("jobparser.fetch.timeouts.total")
+                .description("Fetch attempts cut by the read timeout and fetches cut by the total timeout")
+                .tag("kind", "read")
+                .register(registry);
+        this.totalTimeouts = Counter.builder("jobparser.fetch.timeouts.total")
+                .description("Fetch attempts cut by the read timeout and fetches cut by the total timeout")
+                .tag("kind", "total")
+                .register(registry);
     }
 
     public String fetchHtml(String url) {
+        return fetch(url, null).body();
+    }
+
+    /**
+     * Загрузка с If-None-Match / If-Modified-Since из кэша валидаторов.
+     * На 304 тело не читается; 4xx/5xx после всех попыток — WebClientResponseException,
+     * сетевая ошибка — WebClientRequestException или UncheckedIOException,
+     * не уложились в total — FetchTimeoutException.
+     * Новые валидаторы запоминаются только через {@link #remember}.
+     */
+    public FetchResult fetchConditional(String url) {
+        return fetch(url, validatorCache.get(url));
+    }
+
+    /**
+     * Запоминает валидаторы ответа — вызывать, когда разобранная страница записана в БД
+     */
+    public void remember(String url, FetchResult result) {
+        if (result != null && !result.notModified()) {
+            validatorCache.put(url, result.etag(), result.lastModified());
+        }
+    }
+
+    private FetchResult fetch(String url, ValidatorCache.Validators validators) {
+        String host = FetchPolicies.hostOf(url);
+        FetchPolicy policy = policies.policyFor(host);
+        FetchPolicies.HostState state = policies.stateFor(host);
+        state.budget.onRequest();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.totalTimeoutMs());
+        long backoff = policy.backoffBaseMs();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return execute(url, validators, policy, state, deadline);
+            } catch (RuntimeException e) {
+                String reason = retryReason(e);
+                if (reason == null || attempt >= policy.maxAttempts()) {
+                    throw e;
+                }
+                backoff = nextBackoff(policy, backoff);
+                long retryAfter = retryAfterMs(e);
+                if (retryAfter > policy.backoffMaxMs()) {
+                    throw e;
+                }
+                long sleepMs = Math.max(backoff, retryAfter);
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sleepMs) >= deadline) {
+                    throw e;
+                }
+                if (!state.budget.tryAcquire()) {
+                    budgetExhausted.increment();
+                    throw e;
+                }
+                registry.counter("jobparser.fetch.retries.total", "reason", reason).increment();
+                sleep(sleepMs, e);
+            }
+        }
+    }
+
+    /**
+     * Одна попытка; если включён хедж и ответа нет дольше p95 хоста — вторая параллельно,
+     * берётся первый успешный ответ, проигравший запрос отменяется
+     */
+    private FetchResult execute(String url, ValidatorCache.Validators validators, FetchPolicy policy,
+                                FetchPolicies.HostState state, long deadline) {
+        long start = System.nanoTime();
+        CompletableFuture<FetchResult> primary = attempt(url, validators, policy).toFuture();
+        long hedgeDelay = policies.hedgeDelayNanos(policy, state);
+        if (hedgeDelay < 0 || start + hedgeDelay >= deadline) {
+            FetchResult result = await(primary, url, policy, deadline);
+            state.latency.record(System.nanoTime() - start);
+            return result;
+        }
+
+        try {
+            FetchResult result = primary.get(hedgeDelay, TimeUnit.NANOSECONDS);
+            state.latency.record(System.nanoTime() - start);
+            return result;
+        } catch (TimeoutException slow) {
+            // первая попытка дольше p95 — хеджируем, если позволяет бюджет
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            throw interrupted(primary, url);
+        }
+        if (!state.budget.tryAcquire()) {
+            budgetExhausted.increment();
+            FetchResult result = await(primary, url, policy, deadline);
+            state.latency.record(System.nanoTime() - start);
+            return result;
+        }
+
+        hedgesFired.increment();
+        long hedgeStart = System.nanoTime();
+        CompletableFuture<FetchResult> hedge = attempt(url, validators, policy).toFuture();
+        CompletableFuture<FetchResult> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicBoolean hedgeWon = new AtomicBoolean();
+        primary.whenComplete((result, error) -> {
+            if (error == null) {
+                first.complete(result);
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        hedge.whenComplete((result, error) -> {
+            if (error == null) {
+                hedgeWon.set(first.complete(result));
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        try {
+            FetchResult result = await(first, url, policy, deadline);
+            if (hedgeWon.get()) {
+                hedgesWon.increment();
+                state.latency.record(System.nanoTime() - hedgeStart);
+            } else {
+                state.latency.record(System.nanoTime() - start);
+            }
+            return result;
+        } finally {
+            primary.cancel(true);
+            hedge.cancel(true);
+        }
+    }
+
+    private Mono<FetchResult> attempt(String url, ValidatorCache.Validators validators, FetchPolicy policy) {
+        Duration readTimeout = Duration.ofMillis(policy.readTimeoutMs());
         return webClient.get()
                 .uri(url)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block(); // для примера, блокируем
+                .headers(headers -> {
+                    if (validators != null && validators.etag() != null) {
+                        headers.set(HttpHeaders.IF_NONE_MATCH, validators.etag());
+                    }
+                    if (validators != null && validators.lastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified());
+                    }
+                })
+                .httpRequest(request -> {
+                    // у заглушек без Reactor Netty нативного запроса нет
+                    if (request.getNativeRequest() instanceof HttpClientRequest nativeRequest) {
+                        nativeRequest.responseTimeout(readTimeout);
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return response.releaseBody().thenReturn(FetchResult.notModifiedResult());
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.<FetchResult>createError();
+                    }
+                    HttpHeaders headers = response.headers().asHttpHeaders();
+                    int status = response.statusCode().value();
+                    return response.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .map(body -> new FetchResult(status, body, headers.getETag(),
+                                    headers.getFirst(HttpHeaders.LAST_MODIFIED)));
+                })
+                .doOnError(error -> {
+                    if (hasCause(error, ReadTimeoutException.class)) {
+                        readTimeouts.increment();
+                    }
+                });
+    }
+
+    private <T> T await(CompletableFuture<T> future, String url, FetchPolicy policy, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            totalTimeouts.increment();
+            throw new FetchTimeoutException("No response from " + url + " within " + policy.totalTimeoutMs() + " ms");
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            throw interrupted(future, url);
+        }
+    }
+
+    private static UncheckedIOException interrupted(CompletableFuture<?> future, String url) {
+        Thread.currentThread().interrupt();
+        future.cancel(true);
+        return new UncheckedIOException(new InterruptedIOException("Interrupted while fetching " + url));
+    }
+
+    private static void sleep(long ms, RuntimeException pending) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw pending;
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof RuntimeException e) {
+            return e;
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+        if (error instanceof IOException e) {
+            return new UncheckedIOException(e);
+        }
+        return new IllegalStateException(error);
+    }
+
+    /**
+     * Причина повтора для метрики; null — ошибка не временная, повторять бессмысленно
+     */
+    static String retryReason(RuntimeException e) {
+        // прерывание — не сбой источника: не повторяем и не тратим токен бюджета
+        if (Thread.currentThread().isInterrupted() || isInterrupt(e)) {
+            return null;
+        }
+        if (e instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            if (status == 429 || status == 408) {
+                return String.valueOf(status);
+            }
+            return status >= 500 && status != 501 ? "5xx" : null;
+        }
+        if (e instanceof FetchTimeoutException) {
+            return null; // total исчерпан
+        }
+        if (hasCause(e, ReadTimeoutException.class)) {
+            return "timeout";
+        }
+        if (e instanceof WebClientRequestException || hasCause(e, IOException.class)) {
+            return "io";
+        }
+        return null;
+    }
+
+    /**
+     * Decorrelated jitter: случайно между base и тройной прошлой паузой, не больше max
+     */
+    static long nextBackoff(FetchPolicy policy, long previous) {
+        long base = policy.backoffBaseMs();
+        long bound = Math.max(base + 1, previous * 3);
+        return Math.min(policy.backoffMaxMs(), ThreadLocalRandom.current().nextLong(base, bound));
+    }
+
+    /**
+     * Retry-After в миллисекундах (секунды или HTTP-дата); -1 — заголовка нет
+     */
+    static long retryAfterMs(RuntimeException e) {
+        if (!(e instanceof WebClientResponseException response)) {
+            return -1;
+        }
+        String value = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException notSeconds) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+            } catch (DateTimeParseException notDate) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * InterruptedIOException из interrupted(); её подкласс SocketTimeoutException — это таймаут, не прерывание
+     */
+    private static boolean isInterrupt(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t.getClass() == InterruptedIOException.class) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasCause(Throwable error, Class<? extends Throwable> type) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package com.kolmykova.jobparser.service.persistence;
+
+/**
+ * INSERT — каждая разобранная вакансия новой строкой (повторный парсинг даёт дубликаты);
+ * UPSERT — одна строка на нормализованный URL, неизменившиеся вакансии не пишутся.
+ */
+public enum PersistenceMode {
+    INSERT,
+    UPSERT
+}
@@ -0,0 +1,736 @@
+package com.kolmykova.jobparser.service.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kolmykova.jobparser.jfr.BatchSaveEvent;
+import com.kolmykova.jobparser.jfr.JfrEvents;
+import com.kolmykova.jobparser.logging.LoggingDaemon;
+import com.kolmykova.jobparser.metrics.ParserMetrics;
+import com.kolmykova.jobparser.model.Vacancy;
+import com.kolmykova.jobparser.repository.VacancyRepository;
+import com.kolmykova.jobparser.repository.VacancyRepositoryCustom.UpsertResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind буфер сохранения вакансий.
+ *
+ * Воркеры парсинга пишут в полосы (stripes) — поток выбирает полосу по своему id,
+ * так что при пуле фиксированного размера у каждого воркера практически своя полоса.
+ * В полосе лежит чанк на batch-size вакансий: место в нём занимается одним
+ * getAndIncrement, без блокировок. Полный чанк заменяет в полосе первый, кто
+ * на него наткнулся (CAS), а заполнивший его поток отдаёт чанк потоку записи
+ * через lock-free очередь; в upsertAll/insertAll чанк уходит как есть, без копирования.
+ *
+ * Поток "vacancy-writer" пишет полные чанки сразу, а неполные забирает сам
+ * (запечатывает) по max-linger-ms, по flush() и при остановке.
+ *
+ * Обратное давление: полный чанк встаёт в очередь, только взяв разрешение семафора
+ * (capacity / batch-size), и возвращает его после записи. Когда разрешений нет,
+ * заполнивший чанк поток ждёт. Неполные чанки в полосах и полные, ждущие разрешения,
+ * в лимит не входят, поэтому фактический предел —
+ * capacity + (stripes + число производителей) × batch-size.
+ *
+ * Остановка — "запечатать, затем дочистить": shutdown выставляет stopping, поток записи
+ * ждёт, пока закончатся уже начатые add (счётчик activeAdds), и только потом забирает
+ * полосы и очередь. add, пришедший после stopping, сразу пишет вакансию в spill-файл.
+ *
+ * Если пачка не записалась, её строки пишутся по одной, и в spill-файл (JSON Lines)
+ * уходят только те, что не записались и поодиночке, — одна битая строка не тянет
+ * за собой всю пачку. Туда же уходит всё, что осталось при остановке. Spill-файл
+ * повторно пишется при старте и затем раз в spill-retry-ms.
+ */
+@Component
+public class VacancyWriteBehind {
+
+    private static final long PERMIT_POLL_MS = 10;
+
+    private final VacancyRepository vacancyRepository;
+    private final ParserMetrics metrics;
+    private final LoggingDaemon loggingDaemon;
+    private final Tracer tracer;
+    private final ObjectMapper objectMapper;
+    private final PersistenceMode mode;
+
+    private final int batchSize;
+    private final long maxLingerNanos;
+    private final long spillRetryNanos;
+    private final Path spillFile;
+    private final Path replayFile;
+
+    private final AtomicReferenceArray<Chunk> stripes;
+    private final int stripeMask;
+    private final Queue<Chunk> full = new ConcurrentLinkedQueue<>();
+    private final Queue<CompletableFuture<Void>> flushWaiters = new ConcurrentLinkedQueue<>();
+    private final Semaphore permits;
+    private final Object spillLock = new Object();
+
+    private final Thread writer;
+    private volatile boolean stopping;
+    // поток записи не закончил за время shutdown — add больше не ждут его разрешений
+    private volatile boolean abandoned;
+    // add, начатые до того, как они увидели stopping
+    private final AtomicInteger activeAdds = new AtomicInteger();
+    private volatile int inFlight;
+    // вакансии из spill-файла прошлого запуска; читает и обнуляет только поток записи
+    private List<Vacancy> replay;
+
+    private final Timer blockedTime;
+    private final Map<String, Counter> flushes;
+    private final Counter spilled;
+    private final Counter replayed;
+    private final Counter spillErrors;
+
+    public VacancyWriteBehind(VacancyRepository vacancyRepository,
+                              ParserMetrics metrics,
+                              LoggingDaemon loggingDaemon,
+                              Tracer tracer,
+                              ObjectMapper objectMapper,
+                              MeterRegistry registry,
+                              @Value("${parsing.persistence.mode:UPSERT}") PersistenceMode mode,
+                              @Value("${parsing.write-behind.batch-size:50}") int batchSize,
+                              @Value("${parsing.write-behind.max-linger-ms:1000}") long maxLingerMs,
+                              @Value("${parsing.write-behind.capacity:5000}") int capacity,
+                              @Value("${parsing.write-behind.stripes:0}") int stripes,
+                              @Value("${parsing.write-behind.spill-file:data/write-behind/pending.jsonl}") String spillFile,
+                              @Value("${parsing.write-behind.spill-retry-ms:60000}") long spillRetryMs) {
+        this.vacancyRepository = vacancyRepository;
+        this.metrics = metrics;
+        this.loggingDaemon = loggingDaemon;
+        this.tracer = tracer;
+        this.objectMapper = objectMapper;
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+        this.spillRetryNanos = TimeUnit.MILLISECONDS.toNanos(spillRetryMs);
+        this.spillFile = Path.of(spillFile);
+        this.replayFile = Path.of(spillFile + ".replay");
+        this.permits = new Semaphore(Math.max(1, capacity / batchSize));
+
+        // 0 — по числу ядер; всегда степень двойки
+        int requested = stripes > 0 ? stripes : 2 * Runtime.getRuntime().availableProcessors();
+        int count = requested <= 1 ? 1 : Integer.highestOneBit(requested - 1) << 1;
+        this.stripes = new AtomicReferenceArray<>(count);
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            this.stripes.set(i, new Chunk(batchSize));
+        }
+
+        registry.gauge("jobparser.writebehind.pending", this, VacancyWriteBehind::pending);
+        this.blockedTime = Timer.builder("jobparser.writebehind.blocked.time")
+                .description("Time producers waited for free space in the write-behind buffer")
+                .register(registry);
+        this.flushes = Map.of(
+                "size", flushCounter(registry, "size"),
+                "linger", flushCounter(registry, "linger"),
+                "explicit", flushCounter(registry, "explicit"),
+                "shutdown", flushCounter(registry, "shutdown"));
+        this.spilled = Counter.builder("jobparser.writebehind.spilled.total")
+                .description("Vacancies written to the spill file instead of the database")
+                .register(registry);
+        this.replayed = Counter.builder("jobparser.writebehind.replayed.total")
+                .description("Vacancies re-queued from the spill file on startup and by the retry timer")
+                .register(registry);
+        this.spillErrors = Counter.builder("jobparser.writebehind.spill.errors.total")
+                .description("Failed writes to the spill file (vacancies lost)")
+                .register(registry);
+
+        this.replay = loadSpill();
+
+        this.writer = new Thread(this::runWriter);
+        writer.setName("vacancy-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Ставит вакансию в очередь на сохранение.
+     * Если буфер заполнен, ждёт, пока поток записи освободит место.
+     */
+    public void add(Vacancy vacancy) {
+        add(vacancy, null);
+    }
+
+    /**
+     * То же, что {@link #add(Vacancy)}; onSaved вызывается в потоке записи после того,
+     * как строка записана в БД. Для строки, ушедшей в spill-файл, не вызывается.
+     */
+    public void add(Vacancy vacancy, Runnable onSaved) {
+        // счётчик до проверки stopping: либо add видит остановку, либо остановка ждёт этот add
+        activeAdds.incrementAndGet();
+        try {
+            if (stopping) {
+                // буфер уже запечатывается — сразу на диск
+                spill(List.of(vacancy));
+                return;
+            }
+            int stripe = stripe();
+            while (true) {
+                Chunk chunk = stripes.get(stripe);
+                int index = chunk.claimed.getAndIncrement();
+                if (index < batchSize) {
+                    chunk.onSaved[index] = onSaved;
+                    chunk.items[index] = vacancy;
+                    if (index == 0) {
+                        chunk.firstAddedAt = System.nanoTime();
+                    }
+                    chunk.published.incrementAndGet();
+                    if (index == batchSize - 1) {
+                        handOff(stripe, chunk);
+                    } else if (index == 0) {
+                        // поток записи заводит таймер linger для нового чанка
+                        LockSupport.unpark(writer);
+                    }
+                    return;
+                }
+                // чанк полон или запечатан: не ждём того, кто его заполнил, — ставим новый сами
+                stripes.compareAndSet(stripe, chunk, new Chunk(batchSize));
+            }
+        } finally {
+            if (activeAdds.decrementAndGet() == 0 && stopping) {
+                LockSupport.unpark(writer);
+            }
+        }
+    }
+
+    /**
+     * Синхронная запись одной вакансии мимо буфера (нужен id для ответа клиенту).
+     * В режиме UPSERT возвращается сохранённая строка с тем же нормализованным URL.
+     */
+    public Vacancy saveNow(Vacancy vacancy) {
+        if (mode == PersistenceMode.INSERT) {
+            vacancyRepository.insertAll(List.of(vacancy));
+            metrics.incSaved(1);
+            return vacancy;
+        }
+        UpsertResult result = vacancyRepository.upsertAll(List.of(vacancy));
+        metrics.recordUpsert(result.inserted(), result.updated(), result.unchanged());
+        if (vacancy.getUrlKey() == null) {
+            return vacancy;
+        }
+        return vacancyRepository.findByUrlKey(vacancy.getUrlKey()).orElse(vacancy);
+    }
+
+    /**
+     * @return future, завершающийся, когда всё добавленное до вызова записано
+     * (в БД или, при ошибке, в spill-файл)
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        flushWaiters.add(future);
+        LockSupport.unpark(writer);
+        if (!writer.isAlive()) {
+            future.complete(null);
+        }
+        return future;
+    }
+
+    /**
+     * Приблизительное число вакансий, ожидающих записи
+     */
+    public int pending() {
+        int pending = inFlight + full.size() * batchSize;
+        for (int i = 0; i < stripes.length(); i++) {
+            pending += Math.min(stripes.get(i).claimed.get(), batchSize);
+        }
+        return pending;
+    }
+
+    /**
+     * Остаток буфера дописывает поток записи (см. runWriter). Если он не успел
+     * (например, завис на БД), остаток уходит в spill-файл отсюда.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writer.isAlive()) {
+            // add, ждущие разрешения, больше его не ждут и пишут свой чанк на диск сами
+            abandoned = true;
+            awaitAdds(this::spillFull);
+            for (int i = 0; i < stripes.length(); i++) {
+                Chunk chunk = stripes.get(i);
+                if (chunk.claimed.get() == 0) {
+                    continue;
+                }
+                // null — чанк полон и уже отдан: он в очереди или в spill-файле
+                List<Vacancy> rest = seal(i, chunk);
+                if (rest != null) {
+                    spill(rest);
+                }
+            }
+            spillFull();
+        }
+        flushWaiters.forEach(f -> f.complete(null));
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+    }
+
+    /**
+     * Отдаёт полный чанк потоку записи. Новый чанк в полосу к этому моменту мог уже
+     * поставить любой поток, наткнувшийся на полный; ставим, если ещё нет.
+     * Чанк в очереди держит разрешение семафора до конца записи; если разрешений нет,
+     * заполнивший поток ждёт здесь — это и есть обратное давление.
+     */
+    private void handOff(int stripe, Chunk chunk) {
+        stripes.compareAndSet(stripe, chunk, new Chunk(batchSize));
+        if (!permits.tryAcquire()) {
+            long waitStart = System.nanoTime();
+            boolean acquired = acquirePermit();
+            blockedTime.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                spill(chunk.view(awaitPublished(chunk, batchSize)));
+                chunk.handedOff = true;
+                return;
+            }
+        }
+        full.add(chunk);
+        chunk.handedOff = true;
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Ждёт разрешение, пока поток записи не брошен остановкой
+     *
+     * @return false — разрешения не будет, чанк надо писать на диск самому
+     */
+    private boolean acquirePermit() {
+        boolean interrupted = false;
+        try {
+            while (!abandoned) {
+                try {
+                    if (permits.tryAcquire(PERMIT_POLL_MS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Ждёт окончания начатых add; drain освобождает разрешения, которых они могут ждать.
+     * Последний add будит поток записи, остальным хватает короткого парковочного таймаута.
+     */
+    private void awaitAdds(Runnable drain) {
+        while (activeAdds.get() > 0) {
+            drain.run();
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(PERMIT_POLL_MS));
+        }
+        drain.run();
+    }
+
+    /**
+     * Очередь полных чанков — в spill-файл (shutdown без потока записи)
+     */
+    private void spillFull() {
+        Chunk chunk;
+        while ((chunk = full.poll()) != null) {
+            spill(chunk.view(awaitPublished(chunk, batchSize)));
+            permits.release();
+        }
+    }
+
+    /**
+     * Забирает неполный чанк из полосы (поток записи или shutdown)
+     *
+     * @return вакансии чанка; null, если чанк полон и его отдаёт в очередь заполнивший поток
+     */
+    private List<Vacancy> seal(int stripe, Chunk chunk) {
+        int count = chunk.claimed.getAndSet(batchSize);
+        if (count >= batchSize) {
+            return null;
+        }
+        stripes.compareAndSet(stripe, chunk, new Chunk(batchSize));
+        awaitPublished(chunk, count);
+        return chunk.view(count);
+    }
+
+    private static int awaitPublished(Chunk chunk, int count) {
+        while (chunk.published.get() < count) {
+            Thread.onSpinWait();
+        }
+        return count;
+    }
+
+    private void runWriter() {
+        if (!replay.isEmpty()) {
+            write(replay, null, "replay");
+            replay = List.of();
+            deleteReplayFile();
+        }
+        long nextSpillRetry = System.nanoTime() + spillRetryNanos;
+        // ответ на flush ждёт, пока полные чанки, запечатанные заполнившим потоком, не окажутся в очереди
+        List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        List<Chunk> handingOff = new ArrayList<>();
+
+        while (true) {
+            boolean stop = stopping;
+            if (stop) {
+                // новые add уже идут мимо буфера; полосы запечатываем, когда закончатся начатые
+                awaitAdds(this::drainFull);
+            }
+            drainFull();
+
+            if (spillRetryNanos > 0 && !stop && System.nanoTime() - nextSpillRetry >= 0) {
+                retrySpill();
+                nextSpillRetry = System.nanoTime() + spillRetryNanos;
+            }
+
+            CompletableFuture<Void> waiter;
+            while ((waiter = flushWaiters.poll()) != null) {
+                waiters.add(waiter);
+            }
+
+            long now = System.nanoTime();
+            long parkNanos = maxLingerNanos;
+            if (spillRetryNanos > 0) {
+                parkNanos = Math.min(parkNanos, Math.max(0, nextSpillRetry - now));
+            }
+            String trigger = stop ? "shutdown" : !waiters.isEmpty() ? "explicit" : "linger";
+            for (int i = 0; i < stripes.length(); i++) {
+                Chunk chunk = stripes.get(i);
+                if (chunk.claimed.get() == 0) {
+                    continue;
+                }
+                // firstAddedAt ещё 0, если первый поток чанка не успел его выставить
+                long firstAddedAt = chunk.firstAddedAt;
+                long age = firstAddedAt == 0 ? 0 : now - firstAddedAt;
+                if (stop || !waiters.isEmpty() || age >= maxLingerNanos) {
+                    List<Vacancy> sealed = seal(i, chunk);
+                    if (sealed == null) {
+                        handingOff.add(chunk);
+                    } else if (!sealed.isEmpty()) {
+                        flushes.get(trigger).increment();
+                        write(sealed, chunk.callbacks(sealed.size()), trigger);
+                    }
+                } else {
+                    parkNanos = Math.min(parkNanos, maxLingerNanos - age);
+                }
+            }
+            // запись освобождает разрешения, которых могут ждать заполнившие чанки потоки;
+            // отданный чанк уже в очереди (или в spill-файле) и пишется следующим drainFull
+            drainFull();
+            handingOff.removeIf(chunk -> chunk.handedOff);
+            drainFull();
+            if (handingOff.isEmpty() || stop) {
+                waiters.forEach(f -> f.complete(null));
+                waiters.clear();
+            }
+
+            if (stop) {
+                return;
+            }
+            // handOff будит поток записи, как только чанк встал в очередь
+            if (full.isEmpty() && flushWaiters.isEmpty() && !stopping) {
+                LockSupport.parkNanos(this, parkNanos);
+            }
+        }
+    }
+
+    private void drainFull() {
+        Chunk chunk;
+        while ((chunk = full.poll()) != null) {
+            flushes.get("size").increment();
+            int count = awaitPublished(chunk, batchSize);
+            write(chunk.view(count), chunk.callbacks(count), "size");
+            permits.release();
+        }
+    }
+
+    /**
+     * Запись в БД пачками по batchSize. Неудачная пачка пишется по одной строке,
+     * в spill-файл уходят только строки, не записавшиеся и поодиночке
+     *
+     * @param onSaved колбэки строк toWrite (null — колбэков нет), вызываются после записи строки
+     */
+    private void write(List<Vacancy> toWrite, List<Runnable> onSaved, String context) {
+        inFlight = toWrite.size();
+        for (int from = 0; from < toWrite.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, toWrite.size());
+            List<Vacancy> chunk = toWrite.subList(from, to);
+            try {
+                saveBatch(chunk, context);
+            } catch (Exception e) {
+                metrics.incError("db");
+                if (chunk.size() == 1) {
+                    loggingDaemon.log("Failed to save vacancy, spilling: {}", e.getMessage());
+                    spill(chunk);
+                    continue;
+                }
+                loggingDaemon.log("Failed to save batch of {} vacancies, retrying one by one: {}",
+                        chunk.size(), e.getMessage());
+                spill(saveOneByOne(chunk, onSaved != null ? onSaved.subList(from, to) : null, context));
+                continue;
+            }
+            if (onSaved != null) {
+                onSaved.subList(from, to).forEach(VacancyWriteBehind::runCallback);
+            }
+        }
+        inFlight = 0;
+    }
+
+    /**
+     * @return вакансии, которые не удалось записать
+     */
+    private List<Vacancy> saveOneByOne(List<Vacancy> chunk, List<Runnable> onSaved, String context) {
+        List<Vacancy> failed = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Vacancy vacancy = chunk.get(i);
+            try {
+                saveBatch(List.of(vacancy), context);
+            } catch (Exception e) {
+                metrics.incError("db");
+                loggingDaemon.log("Failed to save vacancy {}, spilling: {}", vacancy.getUrl(), e.getMessage());
+                failed.add(vacancy);
+                continue;
+            }
+            if (onSaved != null) {
+                runCallback(onSaved.get(i));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Ошибка колбэка не должна ни остановить поток записи, ни отправить записанную строку в spill
+     */
+    private static void runCallback(Runnable callback) {
+        if (callback == null) {
+            return;
+        }
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            System.err.println("[WRITE-BEHIND] onSaved callback failed: " + e);
+        }
+    }
+
+    private void saveBatch(List<Vacancy> toSave, String context) {
+        Span dbSpan = metrics.sampleTrace() ? tracer.nextSpan() : null;
+        if (dbSpan != null) {
+            dbSpan
+                    .name("saveBatch")
+                    .tag("jobparser.batch.size", String.valueOf(toSave.size()))
+                    .tag("jobparser.save.context", context)
+                    .start();
+        }
+
+        long dbStart = metrics.start();
+        BatchSaveEvent saveEvent = new BatchSaveEvent();
+        saveEvent.begin();
+        Throwable saveError = null;
+
+        UpsertResult result;
+        try (Tracer.SpanInScope scope = (dbSpan != null ? tracer.withSpan(dbSpan) : null)) {
+            if (mode == PersistenceMode.UPSERT) {
+                result = vacancyRepository.upsertAll(toSave);
+            } else {
+                result = new UpsertResult(vacancyRepository.insertAll(toSave), 0, 0);
+            }
+        } catch (Exception e) {
+            saveError = e;
+            if (dbSpan != null) {
+                dbSpan.error(e);
+            }
+            throw e;
+        } finally {
+            if (saveEvent.shouldCommit()) {
+                saveEvent.batchSize = toSave.size();
+                saveEvent.context = context;
+                saveEvent.outcome = JfrEvents.outcome(saveError);
+                saveEvent.commit();
+            }
+            metrics.recordDb(dbStart);
+            if (dbSpan != null) {
+                dbSpan.end();
+            }
+        }
+
+        if (mode == PersistenceMode.UPSERT) {
+            metrics.recordUpsert(result.inserted(), result.updated(), result.unchanged());
+            loggingDaemon.log("Upserted batch: {} new, {} changed, {} unchanged",
+                    result.inserted(), result.updated(), result.unchanged());
+        } else {
+            metrics.incSaved(toSave.size());
+            loggingDaemon.log("Saved batch of {} vacancies (context: {})", toSave.size(), context);
+        }
+    }
+
+    /**
+     * Дописывает вакансии в spill-файл с fsync
+     */
+    private void spill(List<Vacancy> vacancies) {
+        if (vacancies.isEmpty()) {
+            return;
+        }
+        synchronized (spillLock) {
+            try {
+                Path dir = spillFile.toAbsolutePath().getParent();
+                if (dir != null) {
+                    Files.createDirectories(dir);
+                }
+                try (FileOutputStream out = new FileOutputStream(spillFile.toFile(), true);
+                     Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                    for (Vacancy v : vacancies) {
+                        w.write(objectMapper.writeValueAsString(v));
+                        w.write('\n');
+                    }
+                    w.flush();
+                    out.getFD().sync();
+                }
+                spilled.increment(vacancies.size());
+            } catch (IOException e) {
+                spillErrors.increment();
+                System.err.println("[WRITE-BEHIND] Failed to spill " + vacancies.size() + " vacancies: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Повтор spill-файла по таймеру: строки, которые снова не запишутся,
+     * вернутся в новый spill-файл и будут повторены в следующий раз
+     */
+    private void retrySpill() {
+        if (!Files.exists(spillFile)) {
+            return;
+        }
+        List<Vacancy> loaded = loadSpill();
+        if (!loaded.isEmpty()) {
+            write(loaded, null, "replay");
+            deleteReplayFile();
+        }
+    }
+
+    /**
+     * Читает вакансии из spill-файла; при старте поток записи пишет их первыми.
+     * Файл переименовывается в .replay и удаляется только после записи (или повторной
+     * выгрузки), так что падение во время повтора не теряет данные. Возможны дубликаты.
+     */
+    private List<Vacancy> loadSpill() {
+        try {
+            synchronized (spillLock) {
+                if (Files.exists(spillFile)) {
+                    if (Files.exists(replayFile)) {
+                        // незавершённый повтор с прошлого запуска — дописываем к нему
+                        Files.write(replayFile, Files.readAllBytes(spillFile), StandardOpenOption.APPEND);
+                        Files.delete(spillFile);
+                    } else {
+                        Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+            }
+            if (!Files.exists(replayFile)) {
+                return List.of();
+            }
+            List<Vacancy> loaded = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Vacancy v = objectMapper.readValue(line, Vacancy.class);
+                    v.setId(null);
+                    loaded.add(v);
+                }
+            }
+            if (loaded.isEmpty()) {
+                Files.delete(replayFile);
+                return List.of();
+            }
+            replayed.increment(loaded.size());
+            System.out.println("[WRITE-BEHIND] Re-queued " + loaded.size() + " vacancies from " + replayFile);
+            return loaded;
+        } catch (IOException e) {
+            System.err.println("[WRITE-BEHIND] Failed to replay spill file " + replayFile + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void deleteReplayFile() {
+        try {
+            Files.deleteIfExists(replayFile);
+        } catch (IOException e) {
+            System.err.println("[WRITE-BEHIND] Failed to delete " + replayFile + ": " + e.getMessage());
+        }
+    }
+
+    private static Counter flushCounter(MeterRegistry registry, String trigger) {
+        return Counter.builder("jobparser.writebehind.flush.total")
+                .description("Write-behind buffer flushes by trigger")
+                .tag("trigger", trigger)
+                .register(registry);
+    }
+
+    /**
+     * Чанк полосы: claimed — занятые места (может перескочить размер),
+     * published — места, в которые вакансия уже записана
+     */
+    private static final class Chunk {
+
+        final Vacancy[] items;
+        final Runnable[] onSaved;
+        final AtomicInteger claimed = new AtomicInteger();
+        final AtomicInteger published = new AtomicInteger();
+        volatile long firstAddedAt;
+        // заполнивший поток поставил чанк в очередь (или сам записал в spill-файл)
+        volatile boolean handedOff;
+
+        Chunk(int size) {
+            this.items = new Vacancy[size];
+            this.onSaved = new Runnable[size];
+        }
+
+        List<Vacancy> view(int count) {
+            return Arrays.asList(items).subList(0, count);
+        }
+
+        List<Runnable> callbacks(int count) {
+            return Arrays.asList(onSaved).subList(0, count);
+        }
+    }
+}
@@ -1,7 +1,7 @@
-package com.shanaurin.jobparser.service.scheduler;
+package com.kolmykova.jobparser.service.scheduler;
 
-import com.shanaurin.jobparser.service.ParseService;
-import com.shanaurin.jobparser.service.UrlQueueService;
+import com.kolmykova.jobparser.service.ParseService;
+import com.kolmykova.jobparser.service.UrlQueueService;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -0,0 +1,257 @@
+package com.kolmykova.jobparser.service.task;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kolmykova.jobparser.model.dto.ParsingStatus;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Хранилище задач парсинга с ограничением по размеру и TTL.
+ *
+ * В памяти ("resident") держатся активные задачи и недавно завершённые.
+ * Завершённые задачи выгружаются на диск (JSON), в памяти остаётся только
+ * краткая сводка без списка результатов; результаты подгружаются лениво.
+ * По истечении TTL задача удаляется полностью.
+ */
+@Component
+public class ParsingTaskStore {
+
+    private final Map<String, ParsingStatus> resident = new ConcurrentHashMap<>();
+    // сводки выгруженных задач (results == null)
+    private final Map<String, ParsingStatus> spilled = new ConcurrentHashMap<>();
+
+    private final ObjectMapper objectMapper;
+    private final Path spillDir;
+    private final int maxResident;
+    private final int maxSpilled;
+    private final Duration ttl;
+    private final Duration spillAfter;
+
+    private final Counter spilledCounter;
+    private final Counter evictedTtl;
+    private final Counter evictedSize;
+    private final Counter spillErrors;
+
+    public ParsingTaskStore(ObjectMapper objectMapper,
+                            MeterRegistry registry,
+                            @Value("${parsing.tasks.spill-dir:data/tasks}") String spillDir,
+                            @Value("${parsing.tasks.max-resident:100}") int maxResident,
+                            @Value("${parsing.tasks.max-spilled:10000}") int maxSpilled,
+                            @Value("${parsing.tasks.ttl-minutes:1440}") long ttlMinutes,
+                            @Value("${parsing.tasks.spill-after-seconds:60}") long spillAfterSeconds) {
+        this.objectMapper = objectMapper;
+        this.spillDir = Path.of(spillDir);
+        this.maxResident = maxResident;
+        this.maxSpilled = maxSpilled;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.spillAfter = Duration.ofSeconds(spillAfterSeconds);
+
+        registry.gauge("jobparser.tasks.resident", resident, Map::size);
+        registry.gauge("jobparser.tasks.spilled", spilled, Map::size);
+
+        this.spilledCounter = Counter.builder("jobparser.tasks.evicted.total")
+                .description("Tasks evicted from memory by reason")
+                .tag("reason", "spill")
+                .register(registry);
+
+        this.evictedTtl = Counter.builder("jobparser.tasks.evicted.total")
+                .description("Tasks evicted from memory by reason")
+                .tag("reason", "ttl")
+                .register(registry);
+
+        this.evictedSize = Counter.builder("jobparser.tasks.evicted.total")
+                .description("Tasks evicted from memory by reason")
+                .tag("reason", "size")
+                .register(registry);
+
+        this.spillErrors = Counter.builder("jobparser.tasks.spill.errors.total")
+                .description("Failed attempts to spill task results to disk")
+                .register(registry);
+    }
+
+    public void put(ParsingStatus status) {
+        resident.put(status.getTaskId(), status);
+        if (resident.size() > maxResident) {
+            enforceResidentLimit();
+        }
+    }
+
+    /**
+     * "Живой" объект статуса для обновления прогресса (только задачи в памяти)
+     */
+    public ParsingStatus getResident(String taskId) {
+        return resident.get(taskId);
+    }
+
+    /**
+     * Статус задачи для отдачи клиенту.
+     * Для выгруженных задач результаты читаются с диска только при includeResults = true.
+     */
+    public ParsingStatus find(String taskId, boolean includeResults) {
+        ParsingStatus status = resident.get(taskId);
+        if (status != null) {
+            return includeResults ? withResultsCopy(status) : withoutResults(status);
+        }
+
+        ParsingStatus summary = spilled.get(taskId);
+        if (summary == null) {
+            return null;
+        }
+        if (!includeResults) {
+            return summary;
+        }
+        ParsingStatus loaded = load(taskId);
+        return loaded != null ? loaded : summary;
+    }
+
+    public void remove(String taskId) {
+        resident.remove(taskId);
+        if (spilled.remove(taskId) != null) {
+            deleteSpillFile(taskId);
+        }
+    }
+
+    /**
+     * Периодическая чистка: TTL, выгрузка завершённых задач и лимит на число сводок
+     */
+    @Scheduled(fixedDelayString = "${parsing.tasks.sweep-interval-ms:30000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expireBefore = now.minus(ttl);
+        LocalDateTime spillBefore = now.minus(spillAfter);
+
+        for (ParsingStatus status : List.copyOf(resident.values())) {
+            if (!isFinished(status)) {
+                continue;
+            }
+            if (status.getCompletedAt().isBefore(expireBefore)) {
+                resident.remove(status.getTaskId());
+                evictedTtl.increment();
+            } else if (status.getCompletedAt().isBefore(spillBefore)) {
+                spill(status);
+            }
+        }
+
+        for (ParsingStatus summary : List.copyOf(spilled.values())) {
+            if (summary.getCompletedAt().isBefore(expireBefore)) {
+                remove(summary.getTaskId());
+                evictedTtl.increment();
+            }
+        }
+
+        int overflow = spilled.size() - maxSpilled;
+        if (overflow > 0) {
+            spilled.values().stream()
+                    .sorted(Comparator.comparing(ParsingStatus::getCompletedAt))
+                    .limit(overflow)
+                    .map(ParsingStatus::getTaskId)
+                    .toList()
+                    .forEach(taskId -> {
+                        remove(taskId);
+                        evictedSize.increment();
+                    });
+        }
+    }
+
+    public int residentCount() {
+        return resident.size();
+    }
+
+    public int spilledCount() {
+        return spilled.size();
+    }
+
+    private synchronized void enforceResidentLimit() {
+        int overflow = resident.size() - maxResident;
+        if (overflow <= 0) {
+            return;
+        }
+        // активные задачи не трогаем, выгружаем самые старые завершённые
+        resident.values().stream()
+                .filter(this::isFinished)
+                .sorted(Comparator.comparing(ParsingStatus::getCompletedAt))
+                .limit(overflow)
+                .toList()
+                .forEach(this::spill);
+    }
+
+    private void spill(ParsingStatus status) {
+        String taskId = status.getTaskId();
+        try {
+            Files.createDirectories(spillDir);
+            objectMapper.writeValue(spillFile(taskId).toFile(), status);
+        } catch (IOException e) {
+            // результаты теряем, но сводку сохраняем — память важнее
+            spillErrors.increment();
+            System.err.println("[TASKS] Error spilling task " + taskId + ": " + e.getMessage());
+        }
+        spilled.put(taskId, withoutResults(status));
+        resident.remove(taskId);
+        spilledCounter.increment();
+    }
+
+    private ParsingStatus load(String taskId) {
+        Path file = spillFile(taskId);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), ParsingStatus.class);
+        } catch (IOException e) {
+            System.err.println("[TASKS] Error loading task " + taskId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void deleteSpillFile(String taskId) {
+        try {
+            Files.deleteIfExists(spillFile(taskId));
+        } catch (IOException e) {
+            System.err.println("[TASKS] Error deleting task file " + taskId + ": " + e.getMessage());
+        }
+    }
+
+    private Path spillFile(String taskId) {
+        return spillDir.resolve(taskId + ".json");
+    }
+
+    private boolean isFinished(ParsingStatus status) {
+        return status.getCompletedAt() != null
+                && ("COMPLETED".equals(status.getStatus()) || "ERROR".equals(status.getStatus()));
+    }
+
+    private ParsingStatus withResultsCopy(ParsingStatus status) {
+        List<VacancyDto> results = status.getResults();
+        if (results == null) {
+            return status.toBuilder().build();
+        }
+        List<VacancyDto> copy;
+        synchronized (results) {
+            copy = new ArrayList<>(results);
+        }
+        return status.toBuilder()
+                .results(copy)
+                .build();
+    }
+
+    private ParsingStatus withoutResults(ParsingStatus status) {
+        return status.toBuilder()
+                .results(null)
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.kolmykova.jobparser.service.task;
+
+import com.kolmykova.jobparser.model.dto.ParsingProgressMessage;
+import com.kolmykova.jobparser.model.dto.ParsingStatus;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import com.kolmykova.jobparser.websocket.ParsingWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Рассылает прогресс задач дельтами подписчикам задачи.
+ *
+ * Новые вакансии копятся в буфере задачи и уходят не чаще, чем раз в
+ * parsing.progress.min-interval-ms. Если обновление пришло раньше — планируется
+ * отложенная отправка, так что последние изменения не "застревают".
+ */
+@Component
+public class TaskProgressPublisher {
+
+    private final ParsingWebSocketHandler webSocketHandler;
+    private final TaskScheduler taskScheduler;
+    private final long minIntervalMs;
+
+    private final Map<String, PendingProgress> pending = new ConcurrentHashMap<>();
+
+    public TaskProgressPublisher(ParsingWebSocketHandler webSocketHandler,
+                                 TaskScheduler taskScheduler,
+                                 @Value("${parsing.progress.min-interval-ms:200}") long minIntervalMs) {
+        this.webSocketHandler = webSocketHandler;
+        this.taskScheduler = taskScheduler;
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    public void progress(ParsingStatus status, VacancyDto vacancy) {
+        PendingProgress p = pending.computeIfAbsent(status.getTaskId(), id -> new PendingProgress(status));
+
+        // отправка под локом задачи — сообщения одной задачи не обгоняют друг друга
+        synchronized (p) {
+            if (vacancy != null) {
+                p.vacancies.add(vacancy);
+            }
+            long wait = p.lastSentAt + minIntervalMs - System.currentTimeMillis();
+            if (wait <= 0) {
+                send(p, ParsingProgressMessage.DELTA);
+            } else if (!p.flushScheduled) {
+                p.flushScheduled = true;
+                taskScheduler.schedule(() -> flush(status.getTaskId()), Instant.now().plusMillis(wait));
+            }
+        }
+    }
+
+    public void completed(ParsingStatus status) {
+        finish(status, ParsingProgressMessage.COMPLETED);
+    }
+
+    public void failed(ParsingStatus status) {
+        finish(status, ParsingProgressMessage.ERROR);
+    }
+
+    int pendingTasks() {
+        return pending.size();
+    }
+
+    private void finish(ParsingStatus status, String type) {
+        PendingProgress p = pending.remove(status.getTaskId());
+        if (p == null) {
+            p = new PendingProgress(status);
+        }
+        synchronized (p) {
+            p.status = status;
+            webSocketHandler.publishFinal(status.getTaskId(), message(p, type));
+        }
+    }
+
+    private void flush(String taskId) {
+        PendingProgress p = pending.get(taskId);
+        if (p == null) {
+            return; // задача уже завершена, остаток ушёл в COMPLETED
+        }
+        synchronized (p) {
+            p.flushScheduled = false;
+            send(p, ParsingProgressMessage.DELTA);
+        }
+    }
+
+    private void send(PendingProgress p, String type) {
+        webSocketHandler.publish(p.status.getTaskId(), message(p, type));
+    }
+
+    private ParsingProgressMessage message(PendingProgress p, String type) {
+        List<VacancyDto> fresh = new ArrayList<>(p.vacancies);
+        p.vacancies.clear();
+        p.lastSentAt = System.currentTimeMillis();
+        return ParsingProgressMessage.of(type, p.status, fresh);
+    }
+
+    private static final class PendingProgress {
+        private final List<VacancyDto> vacancies = new ArrayList<>();
+        private ParsingStatus status;
+        private long lastSentAt;
+        private boolean flushScheduled;
+
+        private PendingProgress(ParsingStatus status) {
+            this.status = status;
+        }
+    }
+}
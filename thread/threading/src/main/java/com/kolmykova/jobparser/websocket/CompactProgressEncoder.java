@@ -0,0 +1,170 @@
+package com.kolmykova.jobparser.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kolmykova.jobparser.model.dto.ParsingProgressMessage;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Компактное бинарное кодирование ParsingProgressMessage (encoding=compact).
+ *
+ * Формат (все целые — unsigned varint, LEB128):
+ * <pre>
+ * u8      версия формата (1)
+ * u8      тип: 0=SNAPSHOT 1=DELTA 2=COMPLETED 3=ERROR
+ * dict    taskId
+ * dict    status
+ * varint  totalUrls, processedUrls, savedVacancies
+ * time    startedAt, completedAt
+ * str     errorMessage
+ * varint  число вакансий + 1 (0 = null), затем вакансии:
+ *         varint id + 1 (0 = null)
+ *         dict source, str url, str title, dict company, dict city,
+ *         str salary, str requirements, time publishedAt, time createdAt
+ *
+ * str   — varint (длина UTF-8 + 1), 0 = null, затем байты
+ * time  — varint (epoch millis UTC + 1), 0 = null; LocalDateTime трактуется как UTC
+ * dict  — varint: 0 = null; 1 = литерал (str без null), который добавляется в словарь
+ *         сессии, пока в нём меньше MAX_DICTIONARY_SIZE записей; n >= 2 — запись n - 2
+ * </pre>
+ *
+ * Словарь живёт всё время сессии, клиент ведёт такой же. Поэтому кодирование
+ * выполняется только в потоке отправки сессии, строго в порядке отправки.
+ * Прочие типы сообщений уходят обычным JSON-текстом.
+ */
+class CompactProgressEncoder implements SessionEncoder {
+
+    static final int FORMAT_VERSION = 1;
+    static final int MAX_DICTIONARY_SIZE = 4096;
+
+    private static final List<String> TYPES = List.of(
+            ParsingProgressMessage.SNAPSHOT,
+            ParsingProgressMessage.DELTA,
+            ParsingProgressMessage.COMPLETED,
+            ParsingProgressMessage.ERROR
+    );
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+
+    CompactProgressEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public WebSocketMessage<?> encode(OutboundPayload payload) throws IOException {
+        if (payload.value() instanceof ParsingProgressMessage message && TYPES.contains(message.getType())) {
+            return new BinaryMessage(encode(message));
+        }
+        return payload.json(objectMapper);
+    }
+
+    @Override
+    public String name() {
+        return "compact";
+    }
+
+    @Override
+    public boolean stateful() {
+        return true;
+    }
+
+    int dictionarySize() {
+        return dictionary.size();
+    }
+
+    byte[] encode(ParsingProgressMessage m) {
+        out.reset();
+        out.write(FORMAT_VERSION);
+        out.write(TYPES.indexOf(m.getType()));
+        writeDict(m.getTaskId());
+        writeDict(m.getStatus());
+        writeVarint(m.getTotalUrls());
+        writeVarint(m.getProcessedUrls());
+        writeVarint(m.getSavedVacancies());
+        writeTime(m.getStartedAt());
+        writeTime(m.getCompletedAt());
+        writeString(m.getErrorMessage());
+
+        List<VacancyDto> vacancies = m.getVacancies();
+        if (vacancies == null) {
+            writeVarint(0);
+        } else {
+            writeVarint(vacancies.size() + 1L);
+            for (VacancyDto v : vacancies) {
+                writeVarint(v.getId() == null ? 0 : v.getId() + 1);
+                writeDict(v.getSource());
+                writeString(v.getUrl());
+                writeString(v.getTitle());
+                writeDict(v.getCompany());
+                writeDict(v.getCity());
+                writeString(v.getSalary());
+                writeString(v.getRequirements());
+                writeTime(v.getPublishedAt());
+                writeTime(v.getCreatedAt());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private void writeDict(String value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarint(index + 2L);
+            return;
+        }
+        writeVarint(1);
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.put(value, dictionary.size());
+        }
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private void writeBytes(byte[] bytes) {
+        writeVarint(bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private void writeTime(LocalDateTime time) {
+        if (time == null) {
+            writeVarint(0);
+            return;
+        }
+        long millis = time.toInstant(ZoneOffset.UTC).toEpochMilli();
+        // даты до 1970 в этом протоколе не передаются
+        writeVarint(millis < 0 ? 0 : millis + 1);
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
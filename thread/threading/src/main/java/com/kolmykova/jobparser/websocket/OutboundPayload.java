@@ -0,0 +1,33 @@
+package com.kolmykova.jobparser.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * Сообщение, разосланное нескольким сессиям.
+ * JSON-представление строится один раз (лениво) и переиспользуется всеми JSON-сессиями.
+ */
+final class OutboundPayload {
+
+    private final Object value;
+    private volatile TextMessage json;
+
+    OutboundPayload(Object value) {
+        this.value = value;
+    }
+
+    Object value() {
+        return value;
+    }
+
+    TextMessage json(ObjectMapper objectMapper) throws JsonProcessingException {
+        TextMessage result = json;
+        if (result == null) {
+            // гонка безвредна: в худшем случае сериализуем дважды
+            result = new TextMessage(objectMapper.writeValueAsString(value));
+            json = result;
+        }
+        return result;
+    }
+}
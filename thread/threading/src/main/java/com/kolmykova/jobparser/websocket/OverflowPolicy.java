@@ -0,0 +1,13 @@
+package com.kolmykova.jobparser.websocket;
+
+/**
+ * Что делать, если очередь исходящих сообщений сессии переполнена
+ */
+public enum OverflowPolicy {
+    /** выбросить самое старое сообщение */
+    DROP_OLDEST,
+    /** выбросить все ожидающие сообщения задачи и вместо них отправить один свежий снапшот */
+    COALESCE,
+    /** закрыть "медленную" сессию */
+    DISCONNECT
+}
@@ -1,72 +1,301 @@
-package com.shanaurin.jobparser.websocket;
+package com.kolmykova.jobparser.websocket;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kolmykova.jobparser.metrics.WebSocketMetrics;
+import com.kolmykova.jobparser.model.dto.ParsingProgressMessage;
+import com.kolmykova.jobparser.model.dto.ParsingStatus;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import com.kolmykova.jobparser.service.task.ParsingTaskStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class ParsingWebSocketHandler extends TextWebSocketHandler {
 
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    // sessionId -> очередь отправки сессии
+    private final Map<String, SessionSender> senders = new ConcurrentHashMap<>();
+    // taskId -> подписанные сессии, и обратный индекс для очистки при закрытии сессии
+    private final Map<String, Set<String>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sessionTasks = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper;
+    private final ParsingTaskStore taskStore;
+    private final WebSocketMetrics metrics;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
 
     // Spring инжектирует ObjectMapper из JacksonConfig
-    public ParsingWebSocketHandler(ObjectMapper objectMapper) {
+    public ParsingWebSocketHandler(ObjectMapper objectMapper,
+                                   ParsingTaskStore taskStore,
+                                   WebSocketMetrics metrics,
+                                   @Value("${parsing.ws.queue-capacity:256}") int queueCapacity,
+                                   @Value("${parsing.ws.overflow-policy:COALESCE}") OverflowPolicy overflowPolicy) {
         this.objectMapper = objectMapper;
+        this.taskStore = taskStore;
+        this.metrics = metrics;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
     }
 
+    /**
+     * Кодирование выбирает клиент: /ws/parsing?encoding=compact — бинарные кадры
+     * (см. CompactProgressEncoder), по умолчанию — JSON-текст.
+     */
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.put(session.getId(), session);
-        System.out.println("[WS] Session connected: " + session.getId());
+        SessionEncoder encoder = encoderFor(session);
+        senders.put(session.getId(),
+                new SessionSender(session, queueCapacity, overflowPolicy, encoder, this::resyncMessage, metrics));
+        System.out.println("[WS] Session connected: " + session.getId() + " (encoding: " + encoder.name() + ")");
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session.getId());
+        SessionSender sender = senders.remove(session.getId());
+        if (sender != null) {
+            sender.close();
+        }
+        Set<String> taskIds = sessionTasks.remove(session.getId());
+        if (taskIds != null) {
+            taskIds.forEach(taskId -> unsubscribe(session.getId(), taskId));
+        }
         System.out.println("[WS] Session closed: " + session.getId());
     }
 
+    /**
+     * Команды клиента:
+     * {"action":"subscribe","taskId":"..."}   — получать прогресс задачи (сразу приходит SNAPSHOT);
+     * {"action":"unsubscribe","taskId":"..."} — отписаться;
+     * {"action":"snapshot","taskId":"..."}    — прислать полное текущее состояние задачи.
+     */
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
         System.out.println("[WS] Received from " + session.getId() + ": " + message.getPayload());
-    }
 
-    public void broadcastMessage(Object payload) {
         try {
-            String json = objectMapper.writeValueAsString(payload);
-            TextMessage message = new TextMessage(json);
+            JsonNode command = objectMapper.readTree(message.getPayload());
+            String action = command.path("action").asText();
+            String taskId = command.path("taskId").asText(null);
 
-            for (WebSocketSession session : sessions.values()) {
-                if (session.isOpen()) {
-                    session.sendMessage(message);
+            if (taskId == null) {
+                return;
+            }
+            switch (action) {
+                case "subscribe" -> {
+                    ParsingStatus status = taskStore.find(taskId, true);
+                    if (status == null) {
+                        return;
+                    }
+                    // снапшот встаёт в очередь раньше первой дельты задачи
+                    sendSnapshot(session.getId(), status);
+                    // на завершённую задачу не подписываем — достаточно снапшота
+                    if (status.getCompletedAt() == null) {
+                        subscribe(session.getId(), taskId);
+                        catchUpIfFinished(session.getId(), taskId, status);
+                    }
+                }
+                case "unsubscribe" -> {
+                    unsubscribe(session.getId(), taskId);
+                    Set<String> taskIds = sessionTasks.get(session.getId());
+                    if (taskIds != null) {
+                        taskIds.remove(taskId);
+                    }
+                }
+                case "snapshot" -> {
+                    ParsingStatus status = taskStore.find(taskId, true);
+                    if (status != null) {
+                        sendSnapshot(session.getId(), status);
+                    }
                 }
+                default -> System.err.println("[WS] Unknown action from " + session.getId() + ": " + action);
             }
         } catch (IOException e) {
-            System.err.println("[WS] Error broadcasting: " + e.getMessage());
+            System.err.println("[WS] Bad command from " + session.getId() + ": " + e.getMessage());
         }
     }
 
-    public void sendToSession(String sessionId, Object payload) {
-        WebSocketSession session = sessions.get(sessionId);
-        if (session != null && session.isOpen()) {
-            try {
-                String json = objectMapper.writeValueAsString(payload);
-                session.sendMessage(new TextMessage(json));
-            } catch (IOException e) {
-                System.err.println("[WS] Error sending to session: " + e.getMessage());
+    /**
+     * Отправка сообщения задачи только её подписчикам.
+     * Сообщение лишь кладётся в очереди сессий — вызывающий поток никогда не ждёт сеть.
+     * Кодирует его поток отправки сессии; JSON строится один раз на все JSON-сессии.
+     */
+    public void publish(String taskId, Object payload) {
+        Set<String> targets = subscribers.get(taskId);
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        OutboundPayload message = new OutboundPayload(payload);
+        for (String sessionId : targets) {
+            SessionSender sender = senders.get(sessionId);
+            if (sender != null) {
+                sender.enqueue(taskId, message);
+            }
+        }
+    }
+
+    /**
+     * Финальное сообщение задачи (COMPLETED/ERROR) и снятие подписок на неё.
+     * Оба шага идут под локом записи задачи в subscribers, поэтому подписка, пришедшая
+     * одновременно, либо получает сообщение, либо остаётся в новом наборе подписчиков
+     * и досылает его сама (catchUpIfFinished). После него подписки на задачу не нужны.
+     */
+    public void publishFinal(String taskId, Object payload) {
+        OutboundPayload message = new OutboundPayload(payload);
+        Set<String> targets = new HashSet<>();
+        subscribers.computeIfPresent(taskId, (id, sessions) -> {
+            for (String sessionId : sessions) {
+                SessionSender sender = senders.get(sessionId);
+                if (sender != null) {
+                    sender.enqueue(taskId, message);
+                }
             }
+            targets.addAll(sessions);
+            return null;
+        });
+        forgetTask(taskId, targets);
+    }
+
+    public void broadcastMessage(Object payload) {
+        OutboundPayload message = new OutboundPayload(payload);
+        for (SessionSender sender : senders.values()) {
+            sender.enqueue(null, message);
+        }
+    }
+
+    public void sendToSession(String sessionId, Object payload) {
+        SessionSender sender = senders.get(sessionId);
+        if (sender != null) {
+            sender.enqueue(null, new OutboundPayload(payload));
         }
     }
 
     public int getActiveSessionsCount() {
-        return sessions.size();
+        return senders.size();
+    }
+
+    public int getSubscribersCount(String taskId) {
+        Set<String> targets = subscribers.get(taskId);
+        return targets != null ? targets.size() : 0;
+    }
+
+    private void subscribe(String sessionId, String taskId) {
+        subscribers.computeIfAbsent(taskId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        sessionTasks.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(taskId);
+    }
+
+    /**
+     * @return true, если сессия была среди подписчиков задачи
+     */
+    private boolean unsubscribe(String sessionId, String taskId) {
+        boolean[] removed = {false};
+        subscribers.computeIfPresent(taskId, (id, targets) -> {
+            removed[0] = targets.remove(sessionId);
+            return targets.isEmpty() ? null : targets;
+        });
+        return removed[0];
+    }
+
+    private void forgetTask(String taskId, Set<String> sessionIds) {
+        for (String sessionId : sessionIds) {
+            Set<String> taskIds = sessionTasks.get(sessionId);
+            if (taskIds != null) {
+                taskIds.remove(taskId);
+            }
+        }
+    }
+
+    /**
+     * Задача могла завершиться между чтением снапшота и подпиской — тогда её финальное
+     * сообщение ушло без этой сессии. Если сессия всё ещё числится подписчиком, publishFinal
+     * до неё не дошёл (он снимает подписчиков тем же шагом): досылаем финал сами с вакансиями,
+     * которых не было в снапшоте, и отписываем сессию.
+     */
+    private void catchUpIfFinished(String sessionId, String taskId, ParsingStatus snapshot) {
+        ParsingStatus latest = taskStore.find(taskId, true);
+        if (latest != null && latest.getCompletedAt() == null) {
+            return;
+        }
+        if (!unsubscribe(sessionId, taskId)) {
+            return;
+        }
+        forgetTask(taskId, Set.of(sessionId));
+        SessionSender sender = senders.get(sessionId);
+        if (latest == null || sender == null) {
+            return;
+        }
+        String type = "ERROR".equals(latest.getStatus())
+                ? ParsingProgressMessage.ERROR
+                : ParsingProgressMessage.COMPLETED;
+        sender.enqueue(taskId, new OutboundPayload(ParsingProgressMessage.of(type, latest,
+                unseen(latest.getResults(), snapshot.getResults()))));
+    }
+
+    private static List<VacancyDto> unseen(List<VacancyDto> latest, List<VacancyDto> seen) {
+        if (latest == null) {
+            return List.of();
+        }
+        int from = seen != null ? Math.min(seen.size(), latest.size()) : 0;
+        return new ArrayList<>(latest.subList(from, latest.size()));
+    }
+
+    private void sendSnapshot(String sessionId, ParsingStatus status) {
+        SessionSender sender = senders.get(sessionId);
+        if (sender != null) {
+            sender.enqueue(status.getTaskId(), new OutboundPayload(snapshotMessage(status)));
+        }
+    }
+
+    /**
+     * Снапшот, которым очередь сессии заменяет выброшенные дельты задачи (COALESCE)
+     */
+    private ParsingProgressMessage resyncMessage(String taskId) {
+        ParsingStatus status = taskStore.find(taskId, true);
+        return status != null ? snapshotMessage(status) : null;
+    }
+
+    private ParsingProgressMessage snapshotMessage(ParsingStatus status) {
+        return ParsingProgressMessage.of(ParsingProgressMessage.SNAPSHOT, status, status.getResults());
+    }
+
+    private SessionEncoder encoderFor(WebSocketSession session) {
+        URI uri = session.getUri();
+        String encoding = uri != null
+                ? UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst("encoding")
+                : null;
+        if ("compact".equalsIgnoreCase(encoding)) {
+            return new CompactProgressEncoder(objectMapper);
+        }
+        return new JsonEncoder();
+    }
+
+    /**
+     * Кодирование по умолчанию — JSON-текст, общий для всех сессий
+     */
+    private class JsonEncoder implements SessionEncoder {
+
+        @Override
+        public WebSocketMessage<?> encode(OutboundPayload payload) throws IOException {
+            return payload.json(objectMapper);
+        }
+
+        @Override
+        public String name() {
+            return "json";
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.kolmykova.jobparser.websocket;
+
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.IOException;
+
+/**
+ * Кодирование сообщений для конкретной сессии.
+ * Вызывается только из потока отправки сессии, поэтому может хранить состояние.
+ */
+interface SessionEncoder {
+
+    WebSocketMessage<?> encode(OutboundPayload payload) throws IOException;
+
+    String name();
+
+    /**
+     * true — кодирование меняет состояние, общее с клиентом (словарь compact);
+     * после неотправленного сообщения клиент уже не декодирует следующие
+     */
+    default boolean stateful() {
+        return false;
+    }
+}
@@ -0,0 +1,250 @@
+package com.kolmykova.jobparser.websocket;
+
+import com.kolmykova.jobparser.jfr.JfrEvents;
+import com.kolmykova.jobparser.jfr.WsSendEvent;
+import com.kolmykova.jobparser.metrics.WebSocketMetrics;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Function;
+
+/**
+ * Исходящая очередь одной WebSocket-сессии.
+ *
+ * Воркеры парсера только кладут сообщение в ограниченную очередь, а отправкой
+ * занимается отдельный виртуальный поток. Так медленный клиент не блокирует
+ * потоки vacancy-parser, и отправки в одну сессию не перемешиваются.
+ * Кодирование (JSON или compact) тоже выполняется здесь, в порядке отправки.
+ */
+class SessionSender {
+
+    private final WebSocketSession session;
+    private final BlockingDeque<Outbound> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final SessionEncoder encoder;
+    // строит свежий снапшот задачи вместо выброшенных дельт (COALESCE)
+    private final Function<String, Object> resyncFactory;
+    // задачи, чью вытесненную дельту заменит снапшот: места в очереди под маркер не было
+    private final Set<String> resyncPending = ConcurrentHashMap.newKeySet();
+    private final WebSocketMetrics metrics;
+    private final Thread worker;
+
+    private volatile boolean closed;
+
+    SessionSender(WebSocketSession session,
+                  int capacity,
+                  OverflowPolicy overflowPolicy,
+                  SessionEncoder encoder,
+                  Function<String, Object> resyncFactory,
+                  WebSocketMetrics metrics) {
+        this.session = session;
+        this.queue = new LinkedBlockingDeque<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.encoder = encoder;
+        this.resyncFactory = resyncFactory;
+        this.metrics = metrics;
+        this.worker = Thread.ofVirtual()
+                .name("ws-sender-" + session.getId())
+                .start(this::drain);
+    }
+
+    /**
+     * @param key ключ для склейки (taskId) или null, если сообщение склеивать нельзя
+     */
+    void enqueue(String key, OutboundPayload payload) {
+        if (closed) {
+            return;
+        }
+        offer(new Outbound(key, payload, System.nanoTime()));
+    }
+
+    String encoding() {
+        return encoder.name();
+    }
+
+    int queueSize() {
+        return queue.size();
+    }
+
+    void close() {
+        closed = true;
+        worker.interrupt();
+        int dropped = 0;
+        while (queue.pollFirst() != null) {
+            dropped++;
+        }
+        metrics.onDequeued(dropped);
+        resyncPending.clear();
+    }
+
+    private synchronized void offer(Outbound out) {
+        if (queue.offerLast(out)) {
+            metrics.onEnqueued();
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> dropOldestAndOffer(out);
+            case COALESCE -> {
+                if (out.key() == null) {
+                    dropOldestAndOffer(out);
+                } else {
+                    coalesce(out.key());
+                }
+            }
+            case DISCONNECT -> disconnect();
+        }
+    }
+
+    private void dropOldestAndOffer(Outbound out) {
+        while (!queue.offerLast(out)) {
+            Outbound evicted = queue.pollFirst();
+            if (evicted != null) {
+                metrics.onDequeued(1);
+                metrics.incDroppedOldest();
+                // в COALESCE дельта задачи не теряется молча — клиент получит снапшот задачи
+                if (overflowPolicy == OverflowPolicy.COALESCE && evicted.key() != null) {
+                    resyncPending.add(evicted.key());
+                }
+            }
+        }
+        metrics.onEnqueued();
+    }
+
+    private void coalesce(String key) {
+        int removed = 0;
+        for (Iterator<Outbound> it = queue.iterator(); it.hasNext(); ) {
+            if (key.equals(it.next().key())) {
+                it.remove();
+                removed++;
+            }
+        }
+        metrics.onDequeued(removed);
+        // +1 — само новое сообщение, оно тоже заменяется снапшотом
+        metrics.incDroppedCoalesced(removed + 1);
+        dropOldestAndOffer(new Outbound(key, null, System.nanoTime()));
+    }
+
+    private void disconnect() {
+        metrics.incSlowDisconnect();
+        close();
+        // close() отправляет close-фрейм — делаем это не на потоке производителя
+        Thread.ofVirtual().start(this::closeSession);
+    }
+
+    /**
+     * Отправка со stateful-кодированием не удалась: дальше сессию не обслуживаем,
+     * клиент переподключится и получит снапшот с новым словарём
+     */
+    private void closeUnreliable() {
+        close();
+        // close() прерывает воркер, а мы и есть воркер — снимаем флаг, чтобы close-фрейм ушёл
+        Thread.interrupted();
+        closeSession();
+    }
+
+    private void closeSession() {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            System.err.println("[WS] Error closing session " + session.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private void drain() {
+        while (!closed) {
+            Outbound out = nextResync();
+            if (out == null) {
+                try {
+                    out = queue.takeFirst();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                metrics.onDequeued(1);
+                long waitNanos = System.nanoTime() - out.enqueuedAt();
+                metrics.recordQueueWait(waitNanos);
+                JfrEvents.queueWait("ws-session", waitNanos);
+            }
+
+            OutboundPayload payload = out.payload();
+            if (payload == null) {
+                Object snapshot = resyncFactory.apply(out.key());
+                payload = snapshot != null ? new OutboundPayload(snapshot) : null;
+            }
+            if (payload == null || !session.isOpen()) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            // событие покрывает кодирование и отправку
+            WsSendEvent event = new WsSendEvent();
+            event.begin();
+            int size = 0;
+            Throwable error = null;
+            try {
+                WebSocketMessage<?> message = encoder.encode(payload);
+                size = sizeOf(message);
+                metrics.recordEncode(encoder.name(), System.nanoTime() - start, size);
+
+                start = System.nanoTime();
+                session.sendMessage(message);
+            } catch (IOException e) {
+                error = e;
+                metrics.incSendError();
+                System.err.println("[WS] Error sending to session " + session.getId() + ": " + e.getMessage());
+                if (encoder.stateful()) {
+                    // словарь уже пополнен литералами неотправленного сообщения — клиент рассинхронизирован
+                    closeUnreliable();
+                }
+            } finally {
+                metrics.recordSend(System.nanoTime() - start);
+                if (event.shouldCommit()) {
+                    event.sessionId = session.getId();
+                    event.encoding = encoder.name();
+                    event.bytes = size;
+                    event.outcome = JfrEvents.outcome(error);
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Маркер снапшота для задачи из resyncPending — отправляется раньше очереди
+     */
+    private Outbound nextResync() {
+        Iterator<String> it = resyncPending.iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        String key = it.next();
+        it.remove();
+        return new Outbound(key, null, System.nanoTime());
+    }
+
+    private static int sizeOf(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return text.asBytes().length;
+        }
+        if (message instanceof BinaryMessage binary) {
+            return binary.getPayloadLength();
+        }
+        return message.getPayloadLength();
+    }
+
+    /**
+     * payload == null — маркер "отправить снапшот задачи key"
+     */
+    private record Outbound(String key, OutboundPayload payload, long enqueuedAt) {
+    }
+}
@@ -10,9 +10,12 @@ CREATE TABLE vacancies (
     salary VARCHAR(100),
     requirements VARCHAR(2000),
     published_at TIMESTAMP,
-    created_at TIMESTAMP
+    created_at TIMESTAMP,
+    url_key VARCHAR(500),
+    content_hash BIGINT
 );
 
 CREATE INDEX IF NOT EXISTS idx_vacancies_city ON vacancies(city);
 CREATE INDEX IF NOT EXISTS idx_vacancies_company ON vacancies(company);
 CREATE INDEX IF NOT EXISTS idx_vacancies_published_at ON vacancies(published_at);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_vacancies_url_key ON vacancies(url_key);
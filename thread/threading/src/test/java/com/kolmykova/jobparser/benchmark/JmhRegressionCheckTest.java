@@ -0,0 +1,84 @@
+package com.kolmykova.jobparser.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JmhRegressionCheckTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String json) throws Exception {
+        Path file = dir.resolve(name);
+        Files.writeString(file, json);
+        return file;
+    }
+
+    private static String run(String benchmark, String mode, String params, double score) {
+        return """
+                {"benchmark": "%s", "mode": "%s", "threads": 1, "params": {%s},
+                 "primaryMetric": {"score": %s, "scoreError": "NaN", "scoreUnit": "ms/op"}}
+                """.formatted(benchmark, mode, params, score);
+    }
+
+    private static String run(String benchmark, String mode, double score, double error) {
+        return """
+                {"benchmark": "%s", "mode": "%s", "threads": 1,
+                 "primaryMetric": {"score": %s, "scoreError": %s, "scoreUnit": "ms/op"}}
+                """.formatted(benchmark, mode, score, error);
+    }
+
+    @Test
+    void compare_shouldMatchByParamsAndRespectMetricDirection() throws Exception {
+        Path baseline = write("baseline.json", "[" + String.join(",",
+                run("a.analyzeAll", "avgt", "\"size\": \"10000\", \"mode\": \"SEQUENTIAL\"", 10.0),
+                run("a.analyzeAll", "avgt", "\"size\": \"10000\", \"mode\": \"PARALLEL\"", 5.0),
+                run("a.throughput", "thrpt", "", 100.0),
+                run("a.removed", "avgt", "", 1.0)) + "]");
+        // порядок параметров в JSON не важен
+        Path current = write("current.json", "[" + String.join(",",
+                run("a.analyzeAll", "avgt", "\"mode\": \"SEQUENTIAL\", \"size\": \"10000\"", 12.0),
+                run("a.analyzeAll", "avgt", "\"size\": \"10000\", \"mode\": \"PARALLEL\"", 4.0),
+                run("a.throughput", "thrpt", "", 80.0),
+                run("a.added", "avgt", "", 1.0)) + "]");
+
+        List<JmhRegressionCheck.Change> changes = JmhRegressionCheck.compare(baseline, current);
+
+        assertThat(changes).hasSize(3);
+        assertThat(changes.get(0).worsePercent()).isEqualTo(20.0, org.assertj.core.data.Offset.offset(1e-9));
+        assertThat(changes.get(1).worsePercent()).isNegative();
+        // падение пропускной способности — тоже ухудшение
+        assertThat(changes.get(2).worsePercent()).isEqualTo(20.0, org.assertj.core.data.Offset.offset(1e-9));
+        assertThat(changes).filteredOn(c -> c.regression(10.0)).hasSize(2);
+        assertThat(changes).filteredOn(c -> c.regression(25.0)).isEmpty();
+    }
+
+    @Test
+    void compare_shouldNotFlagChangeWithinScoreError() throws Exception {
+        Path baseline = write("baseline.json", "[" + String.join(",",
+                run("a.noisy", "avgt", 10.0, 1.5),
+                run("a.slower", "avgt", 10.0, 0.5),
+                run("a.noisyThroughput", "thrpt", 100.0, 15.0),
+                run("a.lowerThroughput", "thrpt", 100.0, 2.0)) + "]");
+        Path current = write("current.json", "[" + String.join(",",
+                run("a.noisy", "avgt", 12.0, 1.5),
+                run("a.slower", "avgt", 12.0, 0.5),
+                run("a.noisyThroughput", "thrpt", 80.0, 10.0),
+                run("a.lowerThroughput", "thrpt", 80.0, 2.0)) + "]");
+
+        List<JmhRegressionCheck.Change> changes = JmhRegressionCheck.compare(baseline, current);
+
+        // у всех ухудшение на 20%, но у noisy интервалы 8.5..11.5 и 10.5..13.5 пересекаются
+        assertThat(changes).allMatch(c -> c.worsePercent() > 10.0);
+        assertThat(changes).filteredOn(c -> c.regression(10.0))
+                .extracting(JmhRegressionCheck.Change::benchmark)
+                .containsExactly("a.slower", "a.lowerThroughput");
+        assertThat(changes.get(0).baselineError()).isEqualTo(1.5);
+    }
+}
@@ -0,0 +1,35 @@
+package com.kolmykova.jobparser.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OptionSpecTest {
+
+    @Test
+    void parse_shouldSplitEntriesAndOptionsInOrder() {
+        Map<String, Map<String, String>> parsed = OptionSpec.parse(
+                " hh.ru:read=2000, attempts = 2 ;; superjob.ru:backoff=200;*:", "host", options -> options);
+
+        assertThat(parsed).containsOnlyKeys("hh.ru", "superjob.ru", "*");
+        assertThat(parsed.get("hh.ru")).containsExactly(Map.entry("read", "2000"), Map.entry("attempts", "2"));
+        assertThat(parsed.get("superjob.ru")).containsExactly(Map.entry("backoff", "200"));
+        assertThat(parsed.get("*")).isEmpty();
+        assertThat(OptionSpec.parse(" ", "host", options -> options)).isEmpty();
+    }
+
+    @Test
+    void parse_shouldRejectMalformedEntries() {
+        assertThatThrownBy(() -> OptionSpec.parse("hh.ru", "source", options -> options))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("<source>:");
+        assertThatThrownBy(() -> OptionSpec.parse("hh.ru:read", "host", options -> options))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("<key>=<value>");
+        assertThatThrownBy(() -> OptionSpec.options("latency=5,,errors=0.1"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,47 @@
+package com.kolmykova.jobparser.config;
+
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig.VacancyRandomGenerator;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VacancyGeneratorConfigTest {
+
+    private final VacancyRandomGenerator generator = new VacancyGeneratorConfig().vacancyRandomGenerator();
+
+    @Test
+    void generateRandomVacancy_shouldBePureFunctionOfSourceAndId() throws Exception {
+        VacancyDto first = generator.generateRandomVacancy("hh.ru", 42L);
+        // другой экземпляр генератора и другой поток — тот же результат
+        VacancyDto second = CompletableFuture.supplyAsync(() ->
+                new VacancyGeneratorConfig().vacancyRandomGenerator().generateRandomVacancy("hh.ru", 42L)).get();
+
+        assertThat(second).usingRecursiveComparison().isEqualTo(first);
+        assertThat(first.getUrl()).isEqualTo("https://hh.ru/vacancy/42");
+        assertThat(generator.generateRandomVacancy("hh.ru", 43L))
+                .usingRecursiveComparison().isNotEqualTo(first);
+        assertThat(generator.generateRandomVacancy("superjob.ru", 42L).getRequirements())
+                .isNotEqualTo(first.getRequirements());
+    }
+
+    @Test
+    void generateRandomVacancy_shouldProduceDistinctRequirementsAndFormattedSalary() {
+        for (long id = 0; id < 1_000; id++) {
+            VacancyDto v = generator.generateRandomVacancy("habr.com", id);
+
+            List<String> requirements = Arrays.asList(v.getRequirements().split("; "));
+            assertThat(requirements).hasSizeBetween(5, 10);
+            assertThat(new HashSet<>(requirements)).hasSameSizeAs(requirements);
+            assertThat(VacancyConfig.REQUIREMENTS).containsAll(requirements);
+
+            assertThat(v.getSalary()).matches("от \\d{2,3} \\d{3} до \\d{3} \\d{3} руб\\. на руки");
+            assertThat(v.getPublishedAt()).isBeforeOrEqualTo(v.getCreatedAt());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.kolmykova.jobparser.controller;
+
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import com.kolmykova.jobparser.service.MockPageCacheService;
+import com.kolmykova.jobparser.service.MockVacancyCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class MockHtmlControllerTest {
+
+    private static final String HTML = "<html>вакансия</html>";
+
+    private MockMvc mockMvc;
+    private TemplateEngine templateEngine;
+    private final VacancyDto vacancy = new VacancyDto(
+            1L, "hh.ru", "http://localhost:8080/mock/vacancy/hh.ru/1", "Java Dev", "ООО Ромашка",
+            "Москва", "100k", "Требования",
+            LocalDateTime.of(2024, 10, 1, 10, 0), LocalDateTime.of(2024, 10, 2, 12, 0));
+
+    @BeforeEach
+    void setUp() {
+        MockVacancyCacheService cacheService = mock(MockVacancyCacheService.class);
+        when(cacheService.getOrCreate("hh.ru", 1L)).thenReturn(vacancy);
+        templateEngine = mock(TemplateEngine.class);
+        when(templateEngine.process(eq("vacancy-mock"), any(IContext.class))).thenReturn(HTML);
+        MockPageCacheService pageCache = new MockPageCacheService(new SimpleMeterRegistry(), 1 << 20, true);
+        mockMvc = MockMvcBuilders.standaloneSetup(new MockHtmlController(cacheService, pageCache, templateEngine))
+                .build();
+    }
+
+    @Test
+    void getMockVacancy_shouldServeCachedBytesWithStableEtagAndLength() throws Exception {
+        String etag = MockHtmlController.etag(vacancy);
+        int length = HTML.getBytes(StandardCharsets.UTF_8).length;
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/mock/vacancy/hh.ru/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, length))
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                    .andExpect(content().bytes(HTML.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        // второй запрос отдан из кэша байтов
+        verify(templateEngine, times(1)).process(anyString(), any(IContext.class));
+    }
+
+    @Test
+    void getMockVacancy_withAcceptGzip_shouldServePreCompressedVariant() throws Exception {
+        MvcResult result = mockMvc.perform(get("/mock/vacancy/hh.ru/1")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG,
+                        MockHtmlController.gzipEtag(MockHtmlController.etag(vacancy))))
+                .andReturn();
+
+        byte[] gzipped = result.getResponse().getContentAsByteArray();
+        assertThat(result.getResponse().getContentLength()).isEqualTo(gzipped.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(HTML);
+        }
+    }
+
+    @Test
+    void getMockVacancy_withMatchingIfNoneMatch_shouldReturn304WithoutRendering() throws Exception {
+        mockMvc.perform(get("/mock/vacancy/hh.ru/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, MockHtmlController.etag(vacancy)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(templateEngine, never()).process(anyString(), any(IContext.class));
+    }
+}
@@ -0,0 +1,209 @@
+package com.kolmykova.jobparser.controller;
+
+import com.kolmykova.jobparser.service.MockOriginProfiles;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class MockOriginFaultFilterTest {
+
+    private static final String PAGE = "<html><body>" + "x".repeat(1000) + "</body></html>";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private MockOriginProfiles profiles;
+    private MockOriginFaultFilter filter;
+    private MockMvc mockMvc;
+
+    /**
+     * Вместо MockHtmlController — страница фиксированной длины
+     */
+    @RestController
+    static class PageController {
+
+        @GetMapping("/mock/vacancy/{source}/{id}")
+        ResponseEntity<byte[]> page(@PathVariable String source, @PathVariable long id) {
+            byte[] body = PAGE.getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.ok().eTag("\"" + id + "\"").contentLength(body.length).body(body);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        profiles = new MockOriginProfiles("");
+        filter = new MockOriginFaultFilter(profiles, registry, 5000);
+        mockMvc = MockMvcBuilders.standaloneSetup(new PageController())
+                .addFilters(filter)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        filter.shutdown();
+    }
+
+    private double faults(String fault) {
+        return registry.get("jobparser.mock.origin.faults.total").tag("fault", fault).counter().count();
+    }
+
+    /**
+     * Дождаться, пока таймер фильтра вернёт запрос из задержки, и прогнать ASYNC-диспетчеризацию
+     */
+    private MvcResult afterDelay(MvcResult result) throws Exception {
+        MockHttpServletRequest request = result.getRequest();
+        assertThat(request.isAsyncStarted()).isTrue();
+        CountDownLatch dispatched = new CountDownLatch(1);
+        ((MockAsyncContext) request.getAsyncContext()).addDispatchHandler(dispatched::countDown);
+        assertThat(dispatched.await(5, TimeUnit.SECONDS)).isTrue();
+        return mockMvc.perform(servletContext -> {
+            request.setDispatcherType(DispatcherType.ASYNC);
+            request.setAsyncStarted(false);
+            return request;
+        }).andReturn();
+    }
+
+    /**
+     * Медленную отдачу дописывает и завершает таймер фильтра
+     */
+    private static void awaitCompleted(MvcResult result) throws InterruptedException {
+        for (int i = 0; i < 500 && result.getRequest().isAsyncStarted(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(result.getRequest().isAsyncStarted()).isFalse();
+    }
+
+    @Test
+    void withoutProfile_shouldPassThrough() throws Exception {
+        mockMvc.perform(get("/mock/vacancy/hh.ru/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(PAGE));
+    }
+
+    @Test
+    void latency_shouldReleaseRequestThreadAndAnswerAfterDelay() throws Exception {
+        profiles.put("hh.ru", "latency=100,errors=1,status=503");
+
+        long start = System.nanoTime();
+        MvcResult delayed = mockMvc.perform(get("/mock/vacancy/hh.ru/1")).andReturn();
+        // поток запроса свободен сразу, ответа ещё нет
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(100);
+        assertThat(faults("error")).isZero();
+
+        MvcResult result = afterDelay(delayed);
+        assertThat((System.nanoTime() - start) / 1_000_000).isGreaterThanOrEqualTo(100);
+        assertThat(result.getResponse().getStatus()).isEqualTo(503);
+        assertThat(faults("error")).isEqualTo(1.0);
+    }
+
+    @Test
+    void latencyWithoutFault_shouldServePageAfterDelay() throws Exception {
+        MvcResult result = afterDelay(mockMvc.perform(get("/mock/vacancy/hh.ru/1?latency=20")).andReturn());
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(result.getResponse().getContentAsString()).isEqualTo(PAGE);
+    }
+
+    @Test
+    void overrides_shouldCapMaxDelay() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/mock/vacancy/hh.ru/1");
+        request.setQueryString("latency=60000&max=600000");
+        request.addParameter("latency", "60000");
+        request.addParameter("max", "600000");
+
+        assertThat(MockOriginFaultFilter.overrides(request, 5000)).containsEntry("max", "5000");
+        assertThat(profiles.decide("hh.ru", MockOriginFaultFilter.overrides(request, 5000)).delayMs())
+                .isEqualTo(5000);
+
+        request.setParameter("max", "200");
+        assertThat(MockOriginFaultFilter.overrides(request, 5000)).containsEntry("max", "200");
+    }
+
+    @Test
+    void error_shouldAnswerConfiguredStatusWithRetryAfter() throws Exception {
+        profiles.put("hh.ru", "errors=1,status=429,retry-after=3");
+
+        mockMvc.perform(get("/mock/vacancy/hh.ru/1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(content().string(""));
+        // другой источник не задет
+        mockMvc.perform(get("/mock/vacancy/superjob.ru/1"))
+                .andExpect(status().isOk());
+        assertThat(faults("error")).isEqualTo(1.0);
+    }
+
+    @Test
+    void truncate_shouldServeConsistentButCutPage() throws Exception {
+        MvcResult result = mockMvc.perform(get("/mock/vacancy/hh.ru/1?truncate=1&truncate-at=0.25"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        int expected = PAGE.length() / 4;
+        assertThat(body).hasSize(expected);
+        assertThat(result.getResponse().getContentLength()).isEqualTo(expected);
+        assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo(PAGE.substring(0, expected));
+    }
+
+    @Test
+    void drip_shouldDeliverWholePageSlowly() throws Exception {
+        long start = System.nanoTime();
+        MvcResult result = mockMvc.perform(get("/mock/vacancy/hh.ru/1?drip=1&drip-chunk=256&drip-ms=20"))
+                .andExpect(status().isOk())
+                .andReturn();
+        awaitCompleted(result);
+
+        // 1027 байт — 5 кусков, 4 паузы между ними
+        assertThat((System.nanoTime() - start) / 1_000_000).isGreaterThanOrEqualTo(80);
+        assertThat(result.getResponse().getContentAsString()).isEqualTo(PAGE);
+        assertThat(faults("drip")).isEqualTo(1.0);
+    }
+
+    @Test
+    void drip_shouldSendRestAtOnceAfterMaxDelay() throws Exception {
+        long start = System.nanoTime();
+        MvcResult result = mockMvc.perform(get("/mock/vacancy/hh.ru/1?drip=1&drip-chunk=16&drip-ms=50&max=100"))
+                .andReturn();
+        awaitCompleted(result);
+
+        // без потолка — 64 паузы по 50 мс
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1000);
+        assertThat(result.getResponse().getContentAsString()).isEqualTo(PAGE);
+    }
+
+    @Test
+    void reset_shouldCommitHeadersAndAbort() {
+        profiles.put("*", "resets=1");
+
+        assertThatThrownBy(() -> mockMvc.perform(get("/mock/vacancy/hh.ru/1")))
+                .isInstanceOf(MockOriginFaultFilter.MockOriginResetException.class);
+        assertThat(faults("reset")).isEqualTo(1.0);
+    }
+
+    @Test
+    void invalidOverride_shouldBeBadRequest() throws Exception {
+        mockMvc.perform(get("/mock/vacancy/hh.ru/1?errors=2"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,84 @@
+package com.kolmykova.jobparser.crawlbench;
+
+import com.kolmykova.jobparser.config.JacksonConfig;
+import com.kolmykova.jobparser.metrics.InstrumentationMode;
+import com.kolmykova.jobparser.metrics.ParserMetrics;
+import com.kolmykova.jobparser.metrics.VacancyCountTracker;
+import com.kolmykova.jobparser.service.MockOriginProfiles;
+import com.kolmykova.jobparser.service.ParseService;
+import com.kolmykova.jobparser.service.persistence.VacancyWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CrawlBenchmarkTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void urls_shouldRotateSourcesWithDistinctIds() {
+        List<String> urls = CrawlBenchmark.urls("http://localhost:8080", 1, 3);
+
+        assertThat(urls).containsExactly(
+                "http://localhost:8080/mock/vacancy/superjob.ru/1",
+                "http://localhost:8080/mock/vacancy/rabota.ru/2",
+                "http://localhost:8080/mock/vacancy/linkedin.com/3");
+    }
+
+    @Test
+    void run_direct_shouldSplitIntoBatchesAndReportStageDeltas() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ParserMetrics metrics = new ParserMetrics(registry, new VacancyCountTracker(null, registry, Long.MAX_VALUE),
+                InstrumentationMode.FULL, 0.0, 1000, 20);
+        ParseService parseService = mock(ParseService.class);
+        // каждая пачка "обрабатывает" свои URL: по одному замеру url и fetch на URL
+        when(parseService.parseUrls(anyList())).thenAnswer(inv -> {
+            List<String> batch = inv.getArgument(0);
+            for (int i = 0; i < batch.size(); i++) {
+                long start = metrics.start() - TimeUnit.MILLISECONDS.toNanos(2);
+                metrics.recordFetch(start);
+                metrics.recordUrl(start);
+            }
+            metrics.incError("http");
+            return CompletableFuture.completedFuture(null);
+        });
+        VacancyWriteBehind writeBehind = mock(VacancyWriteBehind.class);
+        when(writeBehind.flush()).thenReturn(CompletableFuture.completedFuture(null));
+        CrawlBenchmark benchmark = new CrawlBenchmark(parseService, writeBehind, metrics,
+                registry, mock(WebClient.class), Executors.newSingleThreadExecutor(), new MockOriginProfiles(""),
+                new JacksonConfig().objectMapper(), "UPSERT");
+
+        CrawlBenchReport report = benchmark.run(new CrawlBenchSpec(CrawlBenchSpec.Entry.DIRECT,
+                100, 20, 25, 2, 1, "http://localhost:8080", 10, null));
+
+        // прогрев — одна пачка, замер — четыре; в отчёт попадает только замер
+        verify(parseService, times(5)).parseUrls(anyList());
+        assertThat(report.result().completed()).isTrue();
+        assertThat(report.result().urls()).isEqualTo(100);
+        assertThat(report.result().errors()).containsEntry("http", 4L);
+        assertThat(report.stages().get("url").count()).isEqualTo(100);
+        assertThat(report.stages().get("fetch").meanMs()).isGreaterThanOrEqualTo(2.0);
+        assertThat(report.stages().get("parse").count()).isZero();
+        assertThat(report.config().persistenceMode()).isEqualTo("UPSERT");
+
+        Path file = dir.resolve("report/crawl.json");
+        benchmark.write(report, file.toString());
+        assertThat(Files.readString(file)).contains("\"urlsPerSec\"", "\"p99Ms\"", "\"gc\"");
+    }
+}
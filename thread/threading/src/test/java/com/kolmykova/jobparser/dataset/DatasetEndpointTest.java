@@ -0,0 +1,72 @@
+package com.kolmykova.jobparser.dataset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class DatasetEndpointTest {
+
+    @TempDir
+    Path dir;
+
+    private final DatasetGenerator generator = mock(DatasetGenerator.class);
+    private DatasetEndpoint endpoint;
+
+    @AfterEach
+    void tearDown() {
+        if (endpoint != null) {
+            endpoint.close();
+        }
+    }
+
+    private DatasetEndpoint endpoint(boolean truncateEnabled) {
+        endpoint = new DatasetEndpoint(generator, dir.resolve("vacancies.csv").toString(), 1, 1000,
+                dir.toString(), truncateEnabled);
+        return endpoint;
+    }
+
+    @Test
+    void resolveCsvPath_shouldKeepFilesInsideDatasetDir() {
+        DatasetEndpoint endpoint = endpoint(false);
+
+        assertThat(endpoint.resolveCsvPath("10m/vacancies.csv"))
+                .isEqualTo(dir.toAbsolutePath().normalize().resolve("10m/vacancies.csv"));
+        assertThat(endpoint.resolveCsvPath("a/../b.csv"))
+                .isEqualTo(dir.toAbsolutePath().normalize().resolve("b.csv"));
+    }
+
+    @Test
+    void resolveCsvPath_shouldRejectPathsOutsideDatasetDir() {
+        DatasetEndpoint endpoint = endpoint(false);
+
+        assertThatThrownBy(() -> endpoint.resolveCsvPath("../escape.csv"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> endpoint.resolveCsvPath("a/../../escape.csv"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> endpoint.resolveCsvPath(dir.resolve("inside.csv").toAbsolutePath().toString()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> endpoint.resolveCsvPath("/etc/cron.d/job"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void start_shouldRejectBadRequestsBeforeStartingJob() {
+        DatasetEndpoint endpoint = endpoint(false);
+
+        assertThatThrownBy(() -> endpoint.start(10, "CSV", "../../home/user/.bashrc", null, null, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> endpoint.start(10, "DB", null, null, null, null, null, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("truncate");
+
+        assertThat(endpoint.status()).containsEntry("state", "NONE");
+        verifyNoInteractions(generator);
+    }
+}
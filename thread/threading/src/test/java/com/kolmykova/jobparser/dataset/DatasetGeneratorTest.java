@@ -0,0 +1,110 @@
+package com.kolmykova.jobparser.dataset;
+
+import com.kolmykova.jobparser.adapter.out.file.FileVacancyDataSource;
+import com.kolmykova.jobparser.config.VacancyConfig;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig;
+import com.kolmykova.jobparser.domain.model.VacancyDomain;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatasetGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private DatasetGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:dataset-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        generator = new DatasetGenerator(new VacancyGeneratorConfig().vacancyRandomGenerator(), jdbcTemplate, null);
+    }
+
+    private static DatasetSpec spec(long rows, DatasetSpec.Target target, String path, long seed, double skew) {
+        return new DatasetSpec(rows, target, path, seed, skew, 1, 3, 100, false);
+    }
+
+    @Test
+    void generate_db_shouldInsertAllRowsInParallelBatches() throws Exception {
+        AtomicLong progress = new AtomicLong();
+
+        long written = generator.generate(spec(2_345, DatasetSpec.Target.DB, null, 7, 1.0), progress);
+
+        assertThat(written).isEqualTo(2_345);
+        assertThat(progress).hasValue(2_345);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vacancies", Long.class)).isEqualTo(2_345);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT url_key) FROM vacancies WHERE content_hash IS NOT NULL", Long.class))
+                .isEqualTo(2_345);
+    }
+
+    @Test
+    void generate_csv_shouldBeReadableByFileAdapterAndReproducible() throws Exception {
+        Path csv = dir.resolve("out/vacancies.csv");
+        generator.generate(spec(1_050, DatasetSpec.Target.CSV, csv.toString(), 42, 1.0), new AtomicLong());
+
+        List<VacancyDomain> vacancies = new FileVacancyDataSource(csv).fetchAll();
+
+        assertThat(vacancies).hasSize(1_050);
+        // блоки пишутся по порядку, несмотря на параллельный рендеринг
+        assertThat(vacancies).extracting(VacancyDomain::getId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 1_050).boxed().toList());
+        VacancyDomain row = vacancies.get(500);
+        VacancyDto expected = generator.row(spec(1_050, DatasetSpec.Target.CSV, csv.toString(), 42, 1.0), 500);
+        assertThat(row.getTitle()).isEqualTo(expected.getTitle());
+        assertThat(row.getCity()).isEqualTo(expected.getCity());
+        assertThat(row.getPublishedAt()).isEqualTo(expected.getPublishedAt());
+        assertThat(row.getRequirements()).doesNotContain(";");
+    }
+
+    @Test
+    void generate_csv_shouldCapThreadsAtAvailableProcessors() throws Exception {
+        Path csv = dir.resolve("capped.csv");
+        // threads из эндпоинта не проверяется: пул и окно блоков считаются от числа ядер
+        DatasetSpec spec = new DatasetSpec(250, DatasetSpec.Target.CSV, csv.toString(), 3, 1.0, 1,
+                Integer.MAX_VALUE, 100, false);
+
+        assertThat(generator.generate(spec, new AtomicLong())).isEqualTo(250);
+        assertThat(new FileVacancyDataSource(csv).fetchAll()).hasSize(250);
+    }
+
+    @Test
+    void rows_shouldFollowSeedAndZipfSkew() {
+        DatasetSpec skewed = spec(10_000, DatasetSpec.Target.DB, null, 1, 1.2);
+        DatasetSpec uniform = spec(10_000, DatasetSpec.Target.DB, null, 1, 0.0);
+        String topCity = VacancyConfig.CITIES.get(0);
+
+        long skewedTop = 0;
+        long uniformTop = 0;
+        for (long i = 0; i < 10_000; i++) {
+            skewedTop += topCity.equals(generator.row(skewed, i).getCity()) ? 1 : 0;
+            uniformTop += topCity.equals(generator.row(uniform, i).getCity()) ? 1 : 0;
+        }
+
+        // при s=1.2 и 20 городах на первый приходится ~35%, при s=0 — ~5%
+        assertThat(skewedTop).isGreaterThan(3_000);
+        assertThat(uniformTop).isBetween(300L, 700L);
+        assertThat(generator.row(skewed, 5).getTitle())
+                .isEqualTo(generator.row(skewed, 5).getTitle());
+        assertThat(generator.row(spec(1, DatasetSpec.Target.DB, null, 2, 1.2), 5).getRequirements())
+                .isNotEqualTo(generator.row(skewed, 5).getRequirements());
+    }
+}
@@ -219,6 +219,41 @@ class VacancyAnalysisServiceTest {
         assertEquals(3, captured.getTotalVacancies());
     }
 
+    @Test
+    @DisplayName("Параллельный режим должен давать тот же результат, что и последовательный")
+    void parallelMode_ShouldMatchSequential() {
+        // Given
+        String[] cities = {"Москва", "Санкт-Петербург", "Казань"};
+        String[] titles = {"Senior Java Developer", "Junior Python Developer", "Middle Frontend Developer"};
+        List<VacancyDomain> vacancies = new java.util.ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            VacancyDomain v = createVacancy((long) i, titles[i % 3], cities[i % 3],
+                    "от " + (50_000 + i * 10) + " до " + (100_000 + i * 10) + " руб.");
+            v.setCompany("Company " + (i % 17));
+            v.setRequirements(i % 2 == 0 ? "Опыт Spring, гибкий график" : "Spring, переработки");
+            vacancies.add(v);
+        }
+        when(mockDataSource.fetchAll()).thenReturn(vacancies);
+        VacancyAnalysisService parallel = new VacancyAnalysisService(mockDataSource, mockPublisher, true);
+
+        // When
+        VacancyAnalysisResult expected = service.analyzeAll(30);
+        VacancyAnalysisResult actual = parallel.analyzeAll(30);
+
+        // Then
+        assertEquals(expected.getTotalVacancies(), actual.getTotalVacancies());
+        assertEquals(expected.getAverageSalary(), actual.getAverageSalary(), 1e-6);
+        assertEquals(expected.getMinSalary(), actual.getMinSalary());
+        assertEquals(expected.getMaxSalary(), actual.getMaxSalary());
+        assertEquals(expected.getVacanciesByCity(), actual.getVacanciesByCity());
+        assertEquals(expected.getVacanciesByCompany(), actual.getVacanciesByCompany());
+        assertEquals(expected.getVacanciesBySeniority(), actual.getVacanciesBySeniority());
+        assertEquals(expected.getRecentVacanciesCount(), actual.getRecentVacanciesCount());
+        assertEquals(expected.getSentimentSummary(), actual.getSentimentSummary());
+        assertEquals(service.analyzeRequirementsSentiment(List.of("spring")),
+                parallel.analyzeRequirementsSentiment(List.of("spring")));
+    }
+
     // ========== Вспомогательные методы ==========
 
     private List<VacancyDomain> createTestVacancies() {
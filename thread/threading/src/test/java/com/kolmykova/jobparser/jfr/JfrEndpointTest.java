@@ -0,0 +1,70 @@
+package com.kolmykova.jobparser.jfr;
+
+import com.kolmykova.jobparser.service.VacancyParser;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrEndpointTest {
+
+    @TempDir
+    Path dir;
+
+    private JfrEndpoint endpoint;
+
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+
+    @Test
+    void startDumpStop_shouldRecordJobParserEvents() throws Exception {
+        endpoint = new JfrEndpoint(dir.toString(), false, 5, 50);
+        endpoint.control("start", null, null);
+        assertThat(endpoint.status()).containsEntry("state", "RUNNING");
+
+        String html = "<html><body><h1 class=\"title\">Java Developer</h1><span class=\"badge\">hh.ru</span></body></html>";
+        new VacancyParser().parse(html, "http://localhost:8080/mock/vacancy/hh.ru/1");
+        JfrEvents.queueWait("test-queue", 1_000_000);
+
+        Map<String, Object> stopped = endpoint.stop();
+        assertThat(stopped).containsEntry("state", "NONE");
+        String dump = (String) stopped.get("dump");
+        assertThat(endpoint.download(dump).exists()).isTrue();
+        assertThat(endpoint.download("../secret.jfr")).isNull();
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dir.resolve(dump));
+        RecordedEvent queueWait = events.stream()
+                .filter(e -> e.getEventType().getName().equals("jobparser.QueueWait"))
+                .findFirst().orElseThrow();
+        assertThat(queueWait.getString("queue")).isEqualTo("test-queue");
+        assertThat(queueWait.getLong("waitTime")).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void settings_shouldOverlayJobParserProfileOnDefault() throws Exception {
+        endpoint = new JfrEndpoint(dir.toString(), false, 5, 50);
+        Map<String, String> settings = JfrEndpoint.settings();
+
+        assertThat(settings).containsEntry("jobparser.Fetch#enabled", "true");
+        assertThat(settings).containsEntry("jobparser.BatchSave#threshold", "0 ms");
+        // из default.jfc
+        assertThat(settings).containsKey("jdk.GarbageCollection#enabled");
+    }
+
+    @Test
+    void host_shouldExtractHostWithoutPortOrPath() {
+        endpoint = new JfrEndpoint(dir.toString(), false, 5, 50);
+        assertThat(JfrEvents.host("http://localhost:8080/mock/vacancy/hh.ru/1")).isEqualTo("localhost");
+        assertThat(JfrEvents.host("https://hh.ru?page=2")).isEqualTo("hh.ru");
+        assertThat(JfrEvents.utf8Length("aЯ€")).isEqualTo(1 + 2 + 3);
+    }
+}
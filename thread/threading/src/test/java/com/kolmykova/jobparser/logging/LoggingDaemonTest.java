@@ -0,0 +1,86 @@
+package com.kolmykova.jobparser.logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingDaemonTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void log_shouldFormatParametersLazilyAndWriteToFile() throws Exception {
+        Path file = dir.resolve("async.log");
+        LoggingDaemon daemon = new LoggingDaemon(registry, 64, LogOverflowPolicy.BLOCK, 10, 16,
+                file.toString(), 10, 2);
+
+        daemon.log("plain message");
+        daemon.log("Saved batch of {} vacancies (context: {})", 50, "http://x/1");
+        daemon.log("Error processing url {}: {} - {}", "http://x/2", "IOException", "timeout");
+        for (int i = 0; i < 100; i++) {
+            daemon.log("line {}", i);
+        }
+        daemon.shutdown();
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(103);
+        assertThat(lines.get(0)).contains("[" + Thread.currentThread().getName() + "] plain message");
+        assertThat(lines.get(1)).endsWith("Saved batch of 50 vacancies (context: http://x/1)");
+        assertThat(lines.get(2)).endsWith("Error processing url http://x/2: IOException - timeout");
+        assertThat(lines.get(102)).endsWith("line 99");
+        assertThat(registry.get("jobparser.log.written.total").counter().count()).isEqualTo(103.0);
+    }
+
+    @Test
+    void ringBuffer_shouldRejectClaimsWhenFullUntilReleased() {
+        LogRingBuffer ring = new LogRingBuffer(4);
+
+        for (int i = 0; i < 4; i++) {
+            long sequence = ring.tryClaim();
+            ring.slot(sequence).set("m{}", 1, i, null, null);
+            ring.publish(sequence);
+        }
+
+        assertThat(ring.used()).isEqualTo(4);
+        assertThat(ring.tryClaim()).isEqualTo(-1);
+
+        LogEvent first = ring.peek(0);
+        StringBuilder sb = new StringBuilder();
+        first.formatMessage(sb);
+        assertThat(sb.toString()).isEqualTo("m0");
+        ring.release(1);
+
+        assertThat(ring.tryClaim()).isEqualTo(4);
+        // слот захвачен, но ещё не опубликован — читатель его не видит
+        assertThat(ring.peek(4)).isNull();
+    }
+
+    @Test
+    void rollingFileSink_shouldRotateBySize() throws Exception {
+        Path file = dir.resolve("rotating.log");
+        byte[] line = "0123456789\n".getBytes(StandardCharsets.UTF_8);
+
+        try (RollingFileSink sink = new RollingFileSink(file, 25, 2)) {
+            for (int i = 0; i < 7; i++) {
+                sink.write(ByteBuffer.wrap(line));
+            }
+        }
+
+        // 7 строк по 11 байт, в файл помещается 2: текущий + .1 + .2, самые старые удалены
+        assertThat(Files.size(file)).isEqualTo(11);
+        assertThat(Files.size(dir.resolve("rotating.log.1"))).isEqualTo(22);
+        assertThat(Files.size(dir.resolve("rotating.log.2"))).isEqualTo(22);
+        assertThat(dir.resolve("rotating.log.3")).doesNotExist();
+    }
+}
@@ -0,0 +1,87 @@
+package com.kolmykova.jobparser.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HostMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static String url(String source, int id) {
+        return "http://localhost:8080/mock/vacancy/" + source + "/" + id;
+    }
+
+    @Test
+    void hostKey_shouldUseSourceForMockPagesAndHostOtherwise() {
+        assertThat(HostMetrics.hostKey(url("hh.ru", 1))).isEqualTo("hh.ru");
+        assertThat(HostMetrics.hostKey("https://career.habr.com:443/vacancies/1")).isEqualTo("career.habr.com");
+        assertThat(HostMetrics.statusClass(503)).isEqualTo("5xx");
+        assertThat(HostMetrics.statusClass(0)).isEqualTo("io");
+    }
+
+    @Test
+    void recordFetch_shouldTagByHostAndStatusClass() {
+        HostMetrics metrics = new HostMetrics(registry, 10);
+
+        metrics.recordFetch(url("hh.ru", 1), 5_000_000, 2048, 200);
+        metrics.recordFetch(url("hh.ru", 2), 7_000_000, 1024, 503);
+        metrics.incParseError(url("hh.ru", 3));
+
+        assertThat(registry.get("jobparser.host.fetch.time").tag("host", "hh.ru").timer().count()).isEqualTo(2);
+        assertThat(registry.get("jobparser.host.response.bytes").tag("host", "hh.ru").summary().totalAmount())
+                .isEqualTo(3072.0);
+        assertThat(registry.get("jobparser.host.responses.total").tags("host", "hh.ru", "status", "5xx")
+                .counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("jobparser.host.parse.errors.total").tag("host", "hh.ru").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void hostTags_shouldStayBoundedAndFollowHeavyHitters() {
+        // без выборки — решения о допуске детерминированы
+        HostMetrics metrics = new HostMetrics(registry, 2, 1);
+
+        metrics.recordFetch(url("a", 1), 1_000_000, 10, 200);
+        metrics.recordFetch(url("b", 1), 1_000_000, 10, 200);
+        for (int i = 0; i < 100; i++) {
+            metrics.recordFetch(url("rare-" + i, 1), 1_000_000, 10, 200);
+        }
+
+        assertThat(metrics.admittedHosts()).isEqualTo(2);
+        assertThat(registry.find("jobparser.host.fetch.time").timers()).hasSize(3); // a, b, other
+        assertThat(registry.get("jobparser.host.fetch.time").tag("host", HostMetrics.OTHER).timer().count())
+                .isEqualTo(100);
+
+        // "c" становится тяжёлым — вытесняет самый лёгкий из допущенных
+        for (int i = 0; i < 10; i++) {
+            metrics.recordFetch(url("a", i), 1_000_000, 10, 200);
+        }
+        for (int i = 0; i < 50; i++) {
+            metrics.recordFetch(url("c", i), 1_000_000, 10, 200);
+        }
+
+        assertThat(registry.find("jobparser.host.fetch.time").tag("host", "c").timer()).isNotNull();
+        assertThat(registry.find("jobparser.host.fetch.time").tag("host", "b").timer()).isNull();
+        assertThat(registry.find("jobparser.host.fetch.time").tag("host", "a").timer()).isNotNull();
+        assertThat(registry.find("jobparser.host.fetch.time").timers()).hasSize(3);
+    }
+
+    @Test
+    void sampledAdmission_shouldStillLetAHeavyNewHostIn() {
+        HostMetrics metrics = new HostMetrics(registry, 2, 16);
+
+        metrics.recordFetch(url("a", 1), 1_000_000, 10, 200);
+        metrics.recordFetch(url("b", 1), 1_000_000, 10, 200);
+        for (int i = 0; i < 2000; i++) {
+            metrics.recordFetch(url("c", i), 1_000_000, 10, 200);
+        }
+
+        assertThat(metrics.admittedHosts()).isEqualTo(2);
+        assertThat(registry.find("jobparser.host.fetch.time").tag("host", "c").timer()).isNotNull();
+        // до допуска запросы c писались под other
+        assertThat(registry.get("jobparser.host.fetch.time").tag("host", HostMetrics.OTHER).timer().count())
+                .isLessThan(2000);
+    }
+}
@@ -0,0 +1,69 @@
+package com.kolmykova.jobparser.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StageRecorderTest {
+
+    @Test
+    void snapshot_shouldMergeThreadLocalRecordersAndNotResetOnRead() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StageRecorder recorder = new StageRecorder(0);
+        recorder.bindTo(registry);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.submit(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    recorder.record(StageRecorder.Stage.FETCH, i * 1_000_000L); // 1..1000 мс
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        recorder.snapshot();
+
+        double p50 = registry.get("jobparser.hdr.stage.time")
+                .tag("stage", "fetch").tag("quantile", "0.5").gauge().value();
+        assertThat(p50).isCloseTo(0.5, within(0.01));
+        assertThat(registry.get("jobparser.hdr.stage.count").tag("stage", "fetch").functionCounter().count())
+                .isEqualTo(4000.0);
+
+        // повторное чтение видит тот же срез — читатели не забирают интервал друг у друга
+        assertThat(recorder.quantileSeconds(StageRecorder.Stage.FETCH, 0.5)).isCloseTo(0.5, within(0.01));
+
+        // следующий интервал пуст: квантили NaN, счётчик накопительный
+        recorder.snapshot();
+        assertThat(recorder.quantileSeconds(StageRecorder.Stage.FETCH, 0.5)).isNaN();
+        assertThat(recorder.totalCount(StageRecorder.Stage.FETCH)).isEqualTo(4000);
+    }
+
+    @Test
+    void parserMetrics_inLightweightMode_shouldNotTouchMicrometerTimers() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ParserMetrics metrics = new ParserMetrics(registry, new VacancyCountTracker(null, registry, 60_000),
+                InstrumentationMode.LIGHTWEIGHT, 0.0, 10, 20);
+
+        metrics.recordFetch(metrics.start());
+        metrics.recordParse(metrics.start());
+
+        // счётчик обновляется срезом по таймеру
+        var count = registry.get("jobparser.hdr.stage.count").tag("stage", "fetch").functionCounter();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (count.count() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        metrics.shutdown();
+
+        assertThat(metrics.sampleTrace()).isFalse();
+        assertThat(registry.get("jobparser.stage.fetch.time").timer().count()).isZero();
+        assertThat(count.count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,60 @@
+package com.kolmykova.jobparser.metrics;
+
+import com.kolmykova.jobparser.repository.VacancyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class VacancyCountTrackerTest {
+
+    private final VacancyRepository repository = mock(VacancyRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void gauge_shouldReadCachedValueWithoutQueryingDatabase() {
+        VacancyCountTracker tracker = new VacancyCountTracker(repository, registry, 60_000);
+        when(repository.count()).thenReturn(100L);
+
+        assertThat(registry.get("jobparser.db.records.total").gauge().value()).isNaN();
+
+        tracker.reconcile();
+        tracker.add(5);
+        tracker.add(3);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(registry.get("jobparser.db.records.total").gauge().value()).isEqualTo(108.0);
+        }
+        verify(repository, times(1)).count();
+    }
+
+    @Test
+    void reconcile_shouldReplaceDriftWithDatabaseCount() {
+        VacancyCountTracker tracker = new VacancyCountTracker(repository, registry, 60_000);
+        when(repository.count()).thenReturn(10L, 50L);
+
+        tracker.reconcile();
+        tracker.add(7);
+        assertThat(tracker.value()).isEqualTo(17.0);
+
+        // строки удалили/добавили в обход saveBatch — сверка возвращает точное значение
+        tracker.reconcile();
+        assertThat(tracker.value()).isEqualTo(50.0);
+        tracker.add(1);
+        assertThat(tracker.value()).isEqualTo(51.0);
+    }
+
+    @Test
+    void staleValue_shouldTriggerBackgroundReconcile() throws Exception {
+        VacancyCountTracker tracker = new VacancyCountTracker(repository, registry, 0);
+        when(repository.count()).thenReturn(1L, 2L);
+
+        tracker.reconcile();
+        Thread.sleep(5);
+
+        // отдаём кэш сразу, сверка идёт в фоне
+        assertThat(tracker.value()).isEqualTo(1.0);
+        verify(repository, timeout(1000).times(2)).count();
+    }
+}
@@ -0,0 +1,142 @@
+package com.kolmykova.jobparser.repository;
+
+import com.kolmykova.jobparser.model.Vacancy;
+import com.kolmykova.jobparser.repository.VacancyRepositoryCustom.UpsertResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VacancyRepositoryImplTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private VacancyRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:upsert-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new VacancyRepositoryImpl(jdbcTemplate);
+    }
+
+    private static Vacancy vacancy(String url, String salary) {
+        return Vacancy.builder()
+                .source("hh.ru")
+                .url(url)
+                .title("Java Developer")
+                .company("Acme")
+                .city("Moscow")
+                .salary(salary)
+                .publishedAt(LocalDateTime.of(2024, 10, 1, 10, 0))
+                .build();
+    }
+
+    private long rows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vacancies", Long.class);
+    }
+
+    @Test
+    void upsertAll_shouldInsertOnceAndSkipUnchangedReparse() {
+        UpsertResult first = repository.upsertAll(List.of(
+                vacancy("http://localhost:8080/mock/vacancy/hh.ru/1", "200000"),
+                vacancy("http://localhost:8080/mock/vacancy/hh.ru/2", "250000")));
+        // тот же URL с другим регистром хоста, фрагментом и завершающим слэшем
+        UpsertResult second = repository.upsertAll(List.of(
+                vacancy("HTTP://LOCALHOST:8080/mock/vacancy/hh.ru/1/#top", "200000"),
+                vacancy("http://localhost:8080/mock/vacancy/hh.ru/2", "250000")));
+
+        assertThat(first).isEqualTo(new UpsertResult(2, 0, 0));
+        assertThat(second).isEqualTo(new UpsertResult(0, 0, 2));
+        assertThat(rows()).isEqualTo(2);
+    }
+
+    @Test
+    void upsertAll_shouldUpdateChangedContentAndKeepCreatedAt() {
+        repository.upsertAll(List.of(vacancy("http://localhost:8080/mock/vacancy/hh.ru/1", "200000")));
+        LocalDateTime createdAt = jdbcTemplate.queryForObject(
+                "SELECT created_at FROM vacancies", LocalDateTime.class);
+
+        UpsertResult result = repository.upsertAll(List.of(
+                vacancy("http://localhost:8080/mock/vacancy/hh.ru/1", "300000")));
+
+        assertThat(result).isEqualTo(new UpsertResult(0, 1, 0));
+        assertThat(rows()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT salary FROM vacancies", String.class)).isEqualTo("300000");
+        assertThat(jdbcTemplate.queryForObject("SELECT created_at FROM vacancies", LocalDateTime.class))
+                .isEqualTo(createdAt);
+    }
+
+    @Test
+    void upsertAll_shouldCollapseDuplicatesWithinBatchAndInsertRowsWithoutUrl() {
+        UpsertResult result = repository.upsertAll(List.of(
+                vacancy("http://localhost:8080/mock/vacancy/hh.ru/1?utm_source=x&b=2&a=1", "100"),
+                vacancy("http://localhost:8080/mock/vacancy/hh.ru/1?a=1&b=2", "200"),
+                vacancy(null, "300"),
+                vacancy(null, "300")));
+
+        assertThat(result).isEqualTo(new UpsertResult(3, 0, 1));
+        assertThat(rows()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT salary FROM vacancies WHERE url_key IS NOT NULL", String.class)).isEqualTo("200");
+    }
+
+    @Test
+    void insertAll_shouldKeepDuplicatesButGiveUrlKeyToFirstRowOnly() {
+        Vacancy first = vacancy("http://localhost:8080/mock/vacancy/hh.ru/1", "200000");
+        Vacancy second = vacancy("http://localhost:8080/mock/vacancy/hh.ru/1/", "250000");
+
+        assertThat(repository.insertAll(List.of(first))).isEqualTo(1);
+        assertThat(repository.insertAll(List.of(second))).isEqualTo(1);
+
+        assertThat(rows()).isEqualTo(2);
+        assertThat(first.getId()).isNotNull();
+        assertThat(second.getId()).isNotNull().isNotEqualTo(first.getId());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM vacancies WHERE content_hash IS NOT NULL", Long.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT id FROM vacancies WHERE url_key IS NOT NULL", Long.class)).isEqualTo(first.getId());
+
+        // upsert после INSERT-режима находит исходную строку, а не вставляет третью
+        repository.upsertAll(List.of(vacancy("http://localhost:8080/mock/vacancy/hh.ru/1", "300000")));
+        assertThat(rows()).isEqualTo(2);
+    }
+
+    @Test
+    void seedRows_shouldCarryKeysThatUpsertRecognises() {
+        DriverManagerDataSource dataSource = (DriverManagerDataSource) jdbcTemplate.getDataSource();
+        new ResourceDatabasePopulator(new ClassPathResource("data.sql")).execute(dataSource);
+
+        List<Vacancy> seeds = jdbcTemplate.query(
+                "SELECT source, url, title, company, city, salary, requirements, published_at FROM vacancies",
+                (rs, i) -> Vacancy.builder()
+                        .source(rs.getString(1)).url(rs.getString(2)).title(rs.getString(3))
+                        .company(rs.getString(4)).city(rs.getString(5)).salary(rs.getString(6))
+                        .requirements(rs.getString(7))
+                        .publishedAt(rs.getTimestamp(8).toLocalDateTime())
+                        .build());
+
+        assertThat(repository.upsertAll(seeds)).isEqualTo(new UpsertResult(0, 0, 3));
+        assertThat(rows()).isEqualTo(3);
+    }
+
+    @Test
+    void normalizeUrl_shouldDropDefaultPortFragmentTrailingSlashAndTrackingParams() {
+        assertThat(VacancyKeys.normalizeUrl("HTTPS://Career.Habr.com:443/vacancies/1/?utm_medium=a&page=2#x"))
+                .isEqualTo("https://career.habr.com/vacancies/1?page=2");
+        assertThat(VacancyKeys.normalizeUrl("http://localhost:8080/")).isEqualTo("http://localhost:8080");
+        assertThat(VacancyKeys.normalizeUrl("not a url")).isEqualTo("not a url");
+        assertThat(VacancyKeys.contentHash(vacancy("u1", "1")))
+                .isEqualTo(VacancyKeys.contentHash(vacancy("u2", "1")))
+                .isNotEqualTo(VacancyKeys.contentHash(vacancy("u1", "2")));
+    }
+}
@@ -0,0 +1,99 @@
+package com.kolmykova.jobparser.service;
+
+import com.kolmykova.jobparser.service.MockOriginProfiles.Decision;
+import com.kolmykova.jobparser.service.MockOriginProfiles.Distribution;
+import com.kolmykova.jobparser.service.MockOriginProfiles.Fault;
+import com.kolmykova.jobparser.service.MockOriginProfiles.Profile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MockOriginProfilesTest {
+
+    @Test
+    void profileFor_shouldUseOwnLineOrWildcard() {
+        MockOriginProfiles profiles = new MockOriginProfiles(
+                "hh.ru:latency=80,jitter=40,errors=0.02; superjob.ru:latency=300,dist=pareto ;*:latency=5");
+
+        assertThat(profiles.profileFor("hh.ru").latencyMs()).isEqualTo(80);
+        assertThat(profiles.profileFor("hh.ru").jitterMs()).isEqualTo(40);
+        assertThat(profiles.profileFor("hh.ru").errorRate()).isEqualTo(0.02);
+        assertThat(profiles.profileFor("superjob.ru").distribution()).isEqualTo(Distribution.PARETO);
+        assertThat(profiles.profileFor("rabota.ru").latencyMs()).isEqualTo(5);
+        assertThat(new MockOriginProfiles("").profileFor("hh.ru")).isSameAs(Profile.NONE);
+        assertThat(new MockOriginProfiles("").decide("hh.ru", Map.of())).isSameAs(Decision.PASS);
+    }
+
+    @Test
+    void spec_shouldRoundTripOnlyChangedOptions() {
+        MockOriginProfiles profiles = new MockOriginProfiles("");
+        profiles.put("hh.ru", "latency=80,dist=lognormal,sigma=0.8,errors=0.1,status=429,retry-after=2");
+        profiles.put("*", "resets=0.01");
+
+        assertThat(profiles.spec()).isEqualTo(
+                "*:resets=0.01;hh.ru:latency=80,dist=lognormal,sigma=0.8,errors=0.1,status=429,retry-after=2");
+        assertThat(MockOriginProfiles.parse(profiles.spec())).isEqualTo(Map.of(
+                "hh.ru", profiles.profileFor("hh.ru"), "*", profiles.profileFor("*")));
+
+        assertThat(profiles.remove("hh.ru")).isTrue();
+        assertThat(profiles.profileFor("hh.ru").resetRate()).isEqualTo(0.01);
+    }
+
+    @Test
+    void decide_shouldApplyOverridesAndPickOneFault() {
+        MockOriginProfiles profiles = new MockOriginProfiles("hh.ru:latency=10");
+
+        Decision reset = profiles.decide("hh.ru", Map.of("resets", "1"));
+        assertThat(reset.fault()).isEqualTo(Fault.RESET);
+        assertThat(reset.delayMs()).isEqualTo(10);
+
+        Decision error = profiles.decide("hh.ru", Map.of("errors", "1", "status", "429", "latency", "0"));
+        assertThat(error.fault()).isEqualTo(Fault.ERROR);
+        assertThat(error.profile().errorStatus()).isEqualTo(429);
+        assertThat(error.delayMs()).isZero();
+
+        assertThat(profiles.decide("hh.ru", Map.of()).fault()).isEqualTo(Fault.NONE);
+    }
+
+    @Test
+    void delays_shouldFollowDistributionAndCap() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Profile pareto = Profile.NONE.with(Map.of("latency", "10", "dist", "pareto", "alpha", "1.1", "max", "5000"));
+        Profile lognormal = Profile.NONE.with(Map.of("latency", "100", "dist", "lognormal", "sigma", "0.5"));
+
+        long[] paretoDelays = new long[10_000];
+        long[] lognormalDelays = new long[10_000];
+        for (int i = 0; i < paretoDelays.length; i++) {
+            paretoDelays[i] = pareto.nextDelayMs(random);
+            lognormalDelays[i] = lognormal.nextDelayMs(random);
+        }
+        Arrays.sort(paretoDelays);
+        Arrays.sort(lognormalDelays);
+
+        // Парето: не меньше масштаба, тяжёлый хвост упирается в max
+        assertThat(paretoDelays[0]).isGreaterThanOrEqualTo(10);
+        assertThat(paretoDelays[9_989]).isGreaterThan(10 * paretoDelays[5_000]);
+        assertThat(paretoDelays[9_999]).isLessThanOrEqualTo(5000);
+        // логнормальное: медиана около latency
+        assertThat(lognormalDelays[5_000]).isBetween(90L, 110L);
+    }
+
+    @Test
+    void parse_shouldRejectMalformedSpec() {
+        assertThatThrownBy(() -> new MockOriginProfiles("hh.ru"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MockOriginProfiles("hh.ru:latency"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MockOriginProfiles("hh.ru:errors=2"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MockOriginProfiles("hh.ru:errors=0.6,resets=0.6"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MockOriginProfiles("hh.ru:colour=red"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,53 @@
+package com.kolmykova.jobparser.service;
+
+import com.kolmykova.jobparser.service.MockPageCacheService.RenderedPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MockPageCacheServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private String page(int size) {
+        renders.incrementAndGet();
+        return "x".repeat(size);
+    }
+
+    @Test
+    void getOrRender_shouldStayWithinByteBudgetEvictingLeastRecentlyUsed() {
+        MockPageCacheService cache = new MockPageCacheService(registry, 250, false);
+
+        cache.getOrRender("a", "\"a\"", -1, () -> page(100));
+        cache.getOrRender("b", "\"b\"", -1, () -> page(100));
+        cache.getOrRender("a", "\"a\"", -1, () -> page(100)); // a становится свежее b
+        cache.getOrRender("c", "\"c\"", -1, () -> page(100));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.bytes()).isEqualTo(200);
+        assertThat(renders).hasValue(3);
+
+        cache.getOrRender("b", "\"b\"", -1, () -> page(100));
+        assertThat(renders).hasValue(4);
+        assertThat(registry.get("jobparser.mock.page.cache.requests.total").tag("result", "hit")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void getOrRender_shouldRerenderWhenEtagChangesAndSkipOversizedPages() {
+        MockPageCacheService cache = new MockPageCacheService(registry, 150, false);
+
+        RenderedPage first = cache.getOrRender("a", "\"v1\"", -1, () -> page(10));
+        RenderedPage second = cache.getOrRender("a", "\"v2\"", -1, () -> page(20));
+        assertThat(second).isNotSameAs(first);
+        assertThat(cache.bytes()).isEqualTo(20);
+
+        RenderedPage huge = cache.getOrRender("big", "\"big\"", -1, () -> page(1000));
+        assertThat(huge.body()).hasSize(1000);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
@@ -1,8 +1,9 @@
-package com.shanaurin.jobparser.service;
+package com.kolmykova.jobparser.service;
 
-import com.shanaurin.jobparser.config.VacancyGeneratorConfig;
-import com.shanaurin.jobparser.config.VacancyGeneratorConfig.VacancyRandomGenerator;
-import com.shanaurin.jobparser.model.dto.VacancyDto;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig;
+import com.kolmykova.jobparser.config.VacancyGeneratorConfig.VacancyRandomGenerator;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.*;
@@ -11,10 +12,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 class MockVacancyCacheServiceTest {
 
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
     @Test
     void getOrCreate_shouldReturnSameInstanceForSameKey() {
         VacancyRandomGenerator generator = new VacancyGeneratorConfig().vacancyRandomGenerator();
-        MockVacancyCacheService cacheService = new MockVacancyCacheService(generator);
+        MockVacancyCacheService cacheService = new MockVacancyCacheService(generator, registry, 1000);
 
         VacancyDto v1 = cacheService.getOrCreate("hh.ru", 1L);
         VacancyDto v2 = cacheService.getOrCreate("hh.ru", 1L);
@@ -25,21 +28,68 @@ class MockVacancyCacheServiceTest {
     @Test
     void getOrCreate_shouldBeThreadSafe() throws Exception {
         VacancyRandomGenerator generator = new VacancyGeneratorConfig().vacancyRandomGenerator();
-        MockVacancyCacheService cacheService = new MockVacancyCacheService(generator);
+        MockVacancyCacheService cacheService = new MockVacancyCacheService(generator, registry, 1000);
 
         ExecutorService executor = Executors.newFixedThreadPool(8);
         int tasks = 50;
         Callable<VacancyDto> task = () -> cacheService.getOrCreate("hh.ru", 42L);
-        Future<VacancyDto>[] futures = new Future[tasks];
+        Future<?>[] futures = new Future<?>[tasks];
         for (int i = 0; i < tasks; i++) {
             futures[i] = executor.submit(task);
         }
         executor.shutdown();
         executor.awaitTermination(5, TimeUnit.SECONDS);
 
-        VacancyDto first = futures[0].get();
+        Object first = futures[0].get();
         for (int i = 1; i < tasks; i++) {
             assertThat(futures[i].get()).isSameAs(first);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void getOrCreate_shouldStayBoundedAndCountEvictions() {
+        VacancyRandomGenerator generator = new VacancyGeneratorConfig().vacancyRandomGenerator();
+        MockVacancyCacheService cacheService = new MockVacancyCacheService(generator, registry, 160);
+
+        for (long id = 0; id < 10_000; id++) {
+            cacheService.getOrCreate("hh.ru", id);
+        }
+
+        assertThat(cacheService.size()).isLessThanOrEqualTo(160);
+        assertThat(registry.get("jobparser.mock.vacancy.cache.requests.total").tag("result", "miss")
+                .counter().count()).isEqualTo(10_000.0);
+        assertThat(registry.get("jobparser.mock.vacancy.cache.evictions.total").counter().count())
+                .isEqualTo(10_000.0 - cacheService.size());
+    }
+
+    @Test
+    void getOrCreate_shouldGiveRecentlyUsedEntriesSecondChance() {
+        VacancyRandomGenerator generator = new VacancyGeneratorConfig().vacancyRandomGenerator();
+        // 16 сегментов по 4 слота: в сегменте горячего ключа вытеснения идут постоянно
+        MockVacancyCacheService cacheService = new MockVacancyCacheService(generator, registry, 16 * 4);
+
+        VacancyDto hot = cacheService.getOrCreate("hh.ru", 1L);
+        for (long id = 2; id < 2_000; id++) {
+            cacheService.getOrCreate("hh.ru", 1L); // горячий ключ поднимает бит обращения
+            cacheService.getOrCreate("hh.ru", id);
+        }
+
+        assertThat(cacheService.getOrCreate("hh.ru", 1L)).isSameAs(hot);
+        assertThat(cacheService.getOrCreate("superjob.ru", 1L)).isNotSameAs(hot);
+    }
+
+    @Test
+    void getOrCreate_afterEviction_shouldRegenerateIdenticalVacancy() {
+        VacancyRandomGenerator generator = new VacancyGeneratorConfig().vacancyRandomGenerator();
+        MockVacancyCacheService cacheService = new MockVacancyCacheService(generator, registry, 16);
+
+        VacancyDto before = cacheService.getOrCreate("hh.ru", 7L);
+        for (long id = 100; id < 1_000; id++) {
+            cacheService.getOrCreate("hh.ru", id);
+        }
+        VacancyDto after = cacheService.getOrCreate("hh.ru", 7L);
+
+        assertThat(after).isNotSameAs(before);
+        assertThat(after).usingRecursiveComparison().isEqualTo(before);
+    }
+}
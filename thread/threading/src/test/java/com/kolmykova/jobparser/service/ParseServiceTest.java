@@ -1,16 +1,24 @@
-package com.shanaurin.jobparser.service;
+package com.kolmykova.jobparser.service;
 
-import com.shanaurin.jobparser.logging.LoggingDaemon;
-import com.shanaurin.jobparser.metrics.ParserMetrics;
-import com.shanaurin.jobparser.model.Vacancy;
-import com.shanaurin.jobparser.repository.VacancyRepository;
-import io.micrometer.core.instrument.Timer;
+import com.kolmykova.jobparser.config.JacksonConfig;
+import com.kolmykova.jobparser.logging.LoggingDaemon;
+import com.kolmykova.jobparser.metrics.ParserMetrics;
+import com.kolmykova.jobparser.model.Vacancy;
+import com.kolmykova.jobparser.repository.VacancyRepository;
+import com.kolmykova.jobparser.service.client.FetchResult;
+import com.kolmykova.jobparser.service.client.FetchTimeoutException;
+import com.kolmykova.jobparser.service.client.HostGuards;
+import com.kolmykova.jobparser.service.client.WebFluxMockHtmlClient;
+import com.kolmykova.jobparser.service.persistence.PersistenceMode;
+import com.kolmykova.jobparser.service.persistence.VacancyWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micrometer.tracing.Tracer;
-import com.shanaurin.jobparser.service.client.WebFluxMockHtmlClient;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
 
@@ -20,10 +28,29 @@ import static org.mockito.Mockito.*;
 class ParseServiceTest {
 
     private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final List<VacancyWriteBehind> writers = new ArrayList<>();
+
+    @TempDir
+    Path spillDir;
 
     @AfterEach
     void tearDown() {
         executor.shutdownNow();
+        writers.forEach(VacancyWriteBehind::shutdown);
+    }
+
+    // длинный linger: в тестах пачка сбрасывается только явным flush в конце parseUrls
+    private VacancyWriteBehind writeBehind(VacancyRepository repository, ParserMetrics metrics) {
+        VacancyWriteBehind writer = new VacancyWriteBehind(repository, metrics, mock(LoggingDaemon.class),
+                mock(Tracer.class), new JacksonConfig().objectMapper(), new SimpleMeterRegistry(),
+                PersistenceMode.INSERT, 50, 60_000, 1000, 0, spillDir.resolve("pending.jsonl").toString(), 0);
+        writers.add(writer);
+        return writer;
+    }
+
+    // окно из 10 загрузок, цепь размыкается на половине отказов на минуту
+    private static HostGuards hostGuards() {
+        return new HostGuards(new SimpleMeterRegistry(), true, 10, 2, 0.5, 60_000, 1, 20, 2, 200, 50, 2000, 30_000);
     }
 
     @Test
@@ -38,12 +65,8 @@ class ParseServiceTest {
         Tracer tracer = mock(Tracer.class);
         ParsingTaskService parsingTaskService = mock(ParsingTaskService.class);
 
-        // metrics timers are used; return "safe" mocks so NPE не случится
-        when(metrics.startBatchTimer()).thenReturn(mock(Timer.Sample.class));
-        when(metrics.startUrlTimer()).thenReturn(mock(Timer.Sample.class));
-        when(metrics.startFetchTimer()).thenReturn(mock(Timer.Sample.class));
-        when(metrics.startParseTimer()).thenReturn(mock(Timer.Sample.class));
-        when(metrics.startDbTimer()).thenReturn(mock(Timer.Sample.class));
+        // пачка попадает в выборку трассировки — проходим и ветку со спанами
+        when(metrics.sampleTrace()).thenReturn(true);
 
         // tracer может быть null-совместимым: сервис везде проверяет span на null
         when(tracer.nextSpan()).thenReturn(null);
@@ -51,7 +74,15 @@ class ParseServiceTest {
         when(tracer.nextSpan(any())).thenReturn(null);
 
         String html = "<html><body>test</body></html>";
-        when(mockClient.fetchHtml(anyString())).thenReturn(html);
+        when(mockClient.fetchConditional(anyString())).thenReturn(FetchResult.ok(html));
+
+        // буфер write-behind переиспользуется после записи — копируем пачку в момент вызова
+        List<Vacancy> saved = new CopyOnWriteArrayList<>();
+        when(repository.insertAll(anyList())).thenAnswer(inv -> {
+            List<Vacancy> batch = inv.getArgument(0);
+            saved.addAll(batch);
+            return batch.size();
+        });
 
         when(parser.parse(eq(html), anyString())).thenAnswer(inv -> {
             String url = inv.getArgument(1, String.class);
@@ -64,26 +95,21 @@ class ParseServiceTest {
                 executor,
                 mockClient,
                 parser,
-                repository,
                 loggingDaemon,
                 metrics,
                 tracer,
-                parsingTaskService
+                parsingTaskService,
+                writeBehind(repository, metrics),
+                hostGuards()
         );
 
         List<String> urls = List.of("http://localhost/mock/1", "http://localhost/mock/2");
 
-        service.parseUrls(urls);
-
-        executor.shutdown();
-        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        service.parseUrls(urls).get(5, TimeUnit.SECONDS);
 
-        // Теперь сохраняется батчем через saveAll(List<Vacancy>) один раз при flushBatch()
-        @SuppressWarnings("unchecked")
-        ArgumentCaptor<List<Vacancy>> batchCaptor = ArgumentCaptor.forClass((Class) List.class);
-
-        verify(repository, times(1)).saveAll(batchCaptor.capture());
-        List<Vacancy> saved = batchCaptor.getValue();
+        // сохраняется пачками insertAll(List<Vacancy>) по явному flush в конце parseUrls
+        // (по одной на полосу буфера, в которую писали воркеры)
+        verify(repository, atLeastOnce()).insertAll(anyList());
 
         assertThat(saved)
                 .extracting(Vacancy::getUrl)
@@ -92,7 +118,52 @@ class ParseServiceTest {
                         "http://localhost/mock/2"
                 );
 
-        verify(loggingDaemon, atLeastOnce()).log(contains("Saved batch of 2 vacancies"));
+        verify(metrics, atLeastOnce()).incSaved(anyInt());
+        verify(mockClient).remember(eq("http://localhost/mock/1"), any());
+    }
+
+    @Test
+    void parseUrls_whenSaveFails_shouldNotRememberValidators() throws Exception {
+        WebFluxMockHtmlClient mockClient = mock(WebFluxMockHtmlClient.class);
+        VacancyParser parser = mock(VacancyParser.class);
+        VacancyRepository repository = mock(VacancyRepository.class);
+        ParserMetrics parserMetrics = mock(ParserMetrics.class);
+
+        when(mockClient.fetchConditional(anyString())).thenReturn(FetchResult.ok("<html></html>"));
+        when(parser.parse(anyString(), anyString())).thenReturn(new Vacancy());
+        when(repository.insertAll(anyList())).thenThrow(new IllegalStateException("db is down"));
+
+        ParseService parseService = new ParseService(executor, mockClient, parser,
+                mock(LoggingDaemon.class), parserMetrics, mock(Tracer.class), mock(ParsingTaskService.class),
+                writeBehind(repository, parserMetrics), hostGuards());
+
+        parseService.parseUrls(List.of("http://localhost/mock/1")).get(5, TimeUnit.SECONDS);
+
+        // строка ушла в spill-файл — следующий обход должен скачать страницу целиком, а не получить 304
+        verify(repository, atLeastOnce()).insertAll(anyList());
+        verify(mockClient, never()).remember(anyString(), any());
+    }
+
+    @Test
+    void parseUrls_whenPageNotModified_shouldSkipParseAndSave() throws Exception {
+        WebFluxMockHtmlClient mockClient = mock(WebFluxMockHtmlClient.class);
+        VacancyParser parser = mock(VacancyParser.class);
+        VacancyRepository repository = mock(VacancyRepository.class);
+        ParserMetrics parserMetrics = mock(ParserMetrics.class);
+
+        when(mockClient.fetchConditional(anyString())).thenReturn(FetchResult.notModifiedResult());
+
+        ParseService parseService = new ParseService(executor, mockClient, parser,
+                mock(LoggingDaemon.class), parserMetrics, mock(Tracer.class), mock(ParsingTaskService.class),
+                writeBehind(repository, parserMetrics), hostGuards());
+
+        parseService.parseUrls(List.of("http://localhost/mock/1")).get(5, TimeUnit.SECONDS);
+
+        verify(parserMetrics).incNotModified();
+        verify(parserMetrics).recordHostFetch(eq("http://localhost/mock/1"), anyLong(), eq(0L), eq(304));
+        verify(parserMetrics, never()).incError(anyString());
+        verifyNoInteractions(parser, repository);
+        verify(mockClient, never()).remember(anyString(), any());
     }
 
     @Test
@@ -105,18 +176,127 @@ class ParseServiceTest {
         Tracer tracer = mock(Tracer.class);
         ParsingTaskService parsingTaskService = mock(ParsingTaskService.class);
 
-        when(mockClient.fetchHtml(anyString())).thenThrow(new RuntimeException("boom"));
+        when(mockClient.fetchConditional(anyString())).thenThrow(new RuntimeException("boom"));
 
         ParseService parseService = new ParseService(
-                executor, mockClient, parser, repository, loggingDaemon, parserMetrics, tracer, parsingTaskService
+                executor, mockClient, parser, loggingDaemon, parserMetrics, tracer, parsingTaskService,
+                writeBehind(repository, parserMetrics), hostGuards()
         );
 
-        parseService.parseUrls(List.of("http://bad-url"));
-
-        executor.shutdown();
-        executor.awaitTermination(5, TimeUnit.SECONDS);
+        parseService.parseUrls(List.of("http://bad-url")).get(5, TimeUnit.SECONDS);
 
-        verify(loggingDaemon).log(contains("Error processing url"));
+        verify(loggingDaemon).log(startsWith("Error processing url"), any(), any(), any());
         verifyNoInteractions(repository);
+        verify(parserMetrics).recordBatch(anyLong());
+    }
+
+    @Test
+    void parseUrls_shouldCompleteBatchWithoutOccupyingExtraWorker() throws Exception {
+        ThreadPoolExecutor single = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        WebFluxMockHtmlClient mockClient = mock(WebFluxMockHtmlClient.class);
+        VacancyParser parser = mock(VacancyParser.class);
+        VacancyRepository repository = mock(VacancyRepository.class);
+        ParserMetrics parserMetrics = mock(ParserMetrics.class);
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockClient.fetchConditional(anyString())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return FetchResult.ok("<html/>");
+        });
+        when(parser.parse(anyString(), anyString())).thenReturn(new Vacancy());
+
+        ParseService parseService = new ParseService(single, mockClient, parser,
+                mock(LoggingDaemon.class), parserMetrics, mock(Tracer.class), mock(ParsingTaskService.class),
+                writeBehind(repository, parserMetrics), hostGuards());
+
+        // две пачки на одном потоке: ожидание завершения не должно занимать воркер
+        CompletableFuture<Void> first = parseService.parseUrls(List.of("u1", "u2"));
+        CompletableFuture<Void> second = parseService.parseUrls(List.of("u3"));
+        assertThat(first).isNotDone();
+
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertThat(single.getTaskCount()).isEqualTo(3); // только задачи по URL
+        verify(parserMetrics, times(2)).recordBatch(anyLong());
+        single.shutdownNow();
+    }
+
+    // цепь размыкается на 200 мс: отложенный URL возвращается в пачку уже в тесте
+    private static HostGuards shortOpenHostGuards() {
+        return new HostGuards(new SimpleMeterRegistry(), true, 10, 2, 0.5, 200, 1, 20, 2, 200, 50, 2000, 30_000);
+    }
+
+    @Test
+    void parseUrls_whenHostCircuitIsOpen_shouldKeepBatchPendingUntilDeferredUrlIsParsed() throws Exception {
+        WebFluxMockHtmlClient mockClient = mock(WebFluxMockHtmlClient.class);
+        VacancyParser parser = mock(VacancyParser.class);
+        ParserMetrics parserMetrics = mock(ParserMetrics.class);
+        VacancyRepository repository = mock(VacancyRepository.class);
+        when(mockClient.fetchConditional(anyString())).thenThrow(new FetchTimeoutException("slow origin"));
+        when(parser.parse(anyString(), anyString())).thenReturn(new Vacancy());
+
+        ParseService parseService = new ParseService(executor, mockClient, parser,
+                mock(LoggingDaemon.class), parserMetrics, mock(Tracer.class), mock(ParsingTaskService.class),
+                writeBehind(repository, parserMetrics), shortOpenHostGuards());
+
+        parseService.parseUrls(List.of("http://localhost/mock/1", "http://localhost/mock/2"))
+                .get(5, TimeUnit.SECONDS);
+
+        // два таймаута подряд разомкнули цепь хоста: третий URL ждёт, пачка не завершена
+        doReturn(FetchResult.ok("<html/>")).when(mockClient).fetchConditional(anyString());
+        CompletableFuture<Void> batch = parseService.parseUrls(List.of("http://localhost/mock/3"));
+        Thread.sleep(50);
+        assertThat(batch).isNotDone();
+        verify(mockClient, times(2)).fetchConditional(anyString());
+
+        // цепь полуоткрылась — URL загружен и записан в той же пачке
+        batch.get(5, TimeUnit.SECONDS);
+        verify(mockClient).fetchConditional("http://localhost/mock/3");
+        verify(repository).insertAll(anyList());
+    }
+
+    @Test
+    void parseUrls_whenHostStaysDown_shouldFetchDeferredUrlAfterMaxWait() throws Exception {
+        WebFluxMockHtmlClient mockClient = mock(WebFluxMockHtmlClient.class);
+        ParserMetrics parserMetrics = mock(ParserMetrics.class);
+        VacancyRepository repository = mock(VacancyRepository.class);
+        when(mockClient.fetchConditional(anyString())).thenThrow(new FetchTimeoutException("slow origin"));
+        // цепь разомкнута на минуту, ждать разрешения — не дольше 100 мс
+        HostGuards guards = new HostGuards(new SimpleMeterRegistry(), true, 10, 2, 0.5, 60_000, 1, 20, 2, 200, 50, 2000, 100);
+
+        ParseService parseService = new ParseService(executor, mockClient, mock(VacancyParser.class),
+                mock(LoggingDaemon.class), parserMetrics, mock(Tracer.class), mock(ParsingTaskService.class),
+                writeBehind(repository, parserMetrics), guards);
+
+        parseService.parseUrls(List.of("http://localhost/mock/1", "http://localhost/mock/2"))
+                .get(5, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        parseService.parseUrls(List.of("http://localhost/mock/3")).get(5, TimeUnit.SECONDS);
+
+        // URL дождался своего срока и загружен без разрешения — пачка завершилась с реальным итогом
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(100);
+        verify(mockClient).fetchConditional("http://localhost/mock/3");
+        verify(parserMetrics, times(3)).incError("timeout");
+    }
+
+    @Test
+    void parseUrls_whenForced_shouldFetchDespiteOpenCircuit() throws Exception {
+        WebFluxMockHtmlClient mockClient = mock(WebFluxMockHtmlClient.class);
+        ParserMetrics parserMetrics = mock(ParserMetrics.class);
+        VacancyRepository repository = mock(VacancyRepository.class);
+        when(mockClient.fetchConditional(anyString())).thenThrow(new FetchTimeoutException("slow origin"));
+
+        ParseService parseService = new ParseService(executor, mockClient, mock(VacancyParser.class),
+                mock(LoggingDaemon.class), parserMetrics, mock(Tracer.class), mock(ParsingTaskService.class),
+                writeBehind(repository, parserMetrics), hostGuards());
+
+        parseService.parseUrls(List.of("http://localhost/mock/1", "http://localhost/mock/2"))
+                .get(5, TimeUnit.SECONDS);
+        parseService.parseUrls(List.of("http://localhost/mock/3"), true).get(5, TimeUnit.SECONDS);
+
+        // цепь разомкнута на минуту, но ручной запуск загружает сразу
+        verify(mockClient).fetchConditional("http://localhost/mock/3");
+        verify(parserMetrics, times(3)).incError("timeout");
     }
-}
\ No newline at end of file
+}
@@ -1,4 +1,4 @@
-package com.shanaurin.jobparser.service;
+package com.kolmykova.jobparser.service;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
@@ -1,9 +1,10 @@
-package com.shanaurin.jobparser.service;
+package com.kolmykova.jobparser.service;
 
-import com.shanaurin.jobparser.model.Vacancy;
+import com.kolmykova.jobparser.model.Vacancy;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class VacancyParserTest {
 
@@ -107,4 +108,14 @@ class VacancyParserTest {
         assertThat(v.getPublishedAt()).isNull();
         assertThat(v.getCreatedAt()).isNotNull();
     }
-}
\ No newline at end of file
+
+    @Test
+    void parse_shouldRejectPageWithoutTitle() {
+        // страница, оборванная до заголовка
+        String html = "<html><body><div class=\"badge\">hh.ru</div><h1 cla";
+
+        assertThatThrownBy(() -> vacancyParser.parse(html, "http://example.com"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("http://example.com");
+    }
+}
@@ -1,8 +1,8 @@
-package com.shanaurin.jobparser.service;
+package com.kolmykova.jobparser.service;
 
-import com.shanaurin.jobparser.model.Vacancy;
-import com.shanaurin.jobparser.model.dto.VacancyDto;
-import com.shanaurin.jobparser.repository.VacancyRepository;
+import com.kolmykova.jobparser.model.Vacancy;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import com.kolmykova.jobparser.repository.VacancyRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
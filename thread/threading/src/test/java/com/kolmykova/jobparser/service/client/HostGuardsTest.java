@@ -0,0 +1,162 @@
+package com.kolmykova.jobparser.service.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HostGuardsTest {
+
+    private static final String HH = "http://localhost:8080/mock/vacancy/hh.ru/";
+    private static final String SUPERJOB = "http://localhost:8080/mock/vacancy/superjob.ru/";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    /**
+     * Окно 4 загрузки, размыкание на половине отказов, open 100 мс, две пробы
+     */
+    private HostGuards guards(int initialLimit) {
+        return new HostGuards(registry, true, 4, 4, 0.5, 100, 2, initialLimit, 1, 100, 50, 2000, 30_000);
+    }
+
+    private static WebClientResponseException status(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), null, null, null);
+    }
+
+    private double transitions(String host, String to) {
+        // по всем from: в open приходят и из closed, и из half-open
+        return registry.find("jobparser.host.circuit.transitions.total").tags("host", host, "to", to)
+                .counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    @Test
+    void circuit_shouldOpenOnFailuresAndCloseAfterSuccessfulProbes() throws InterruptedException {
+        HostGuards guards = guards(20);
+
+        for (int i = 0; i < 4; i++) {
+            HostGuards.Permit permit = guards.tryAcquire(HH + i);
+            guards.release(permit, i % 2 == 0 ? status(HttpStatus.SERVICE_UNAVAILABLE) : null);
+        }
+
+        HostGuards.Permit rejected = guards.tryAcquire(HH + 5);
+        assertThat(rejected.granted()).isFalse();
+        assertThat(rejected.deferReason()).isEqualTo("circuit");
+        assertThat(rejected.deferMs()).isBetween(1L, 120L);
+        assertThat(transitions("hh.ru", "open")).isEqualTo(1.0);
+        // другой источник не затронут
+        assertThat(guards.tryAcquire(SUPERJOB + 1).granted()).isTrue();
+
+        Thread.sleep(120);
+        HostGuards.Permit probe1 = guards.tryAcquire(HH + 6);
+        HostGuards.Permit probe2 = guards.tryAcquire(HH + 7);
+        assertThat(probe1.granted()).isTrue();
+        assertThat(probe2.granted()).isTrue();
+        assertThat(guards.tryAcquire(HH + 8).granted()).isFalse(); // пробы заняты
+        assertThat(registry.get("jobparser.host.circuit.state").tag("host", "hh.ru").gauge().value())
+                .isEqualTo(1.0);
+
+        guards.release(probe1, null);
+        guards.release(probe2, null);
+
+        assertThat(transitions("hh.ru", "closed")).isEqualTo(1.0);
+        assertThat(guards.tryAcquire(HH + 9).granted()).isTrue();
+    }
+
+    @Test
+    void circuit_shouldReopenWhenProbeFails() throws InterruptedException {
+        HostGuards guards = guards(20);
+        for (int i = 0; i < 4; i++) {
+            guards.release(guards.tryAcquire(HH + i), new FetchTimeoutException("slow"));
+        }
+        Thread.sleep(120);
+
+        guards.release(guards.tryAcquire(HH + 5), new FetchTimeoutException("still slow"));
+
+        assertThat(transitions("hh.ru", "open")).isEqualTo(2.0);
+        assertThat(guards.tryAcquire(HH + 6).granted()).isFalse();
+    }
+
+    @Test
+    void clientErrors_shouldNotCountAsHostFailures() {
+        HostGuards guards = guards(20);
+        for (int i = 0; i < 10; i++) {
+            guards.release(guards.tryAcquire(HH + i), status(HttpStatus.NOT_FOUND));
+        }
+
+        assertThat(guards.tryAcquire(HH + 11).granted()).isTrue();
+        assertThat(transitions("hh.ru", "open")).isZero();
+    }
+
+    @Test
+    void limit_shouldDeferBeyondInFlightAndShrinkOnFailures() {
+        HostGuards guards = guards(2);
+
+        List<HostGuards.Permit> held = new ArrayList<>();
+        held.add(guards.tryAcquire(HH + 1));
+        held.add(guards.tryAcquire(HH + 2));
+        HostGuards.Permit third = guards.tryAcquire(HH + 3);
+
+        assertThat(held).allMatch(HostGuards.Permit::granted);
+        assertThat(third.granted()).isFalse();
+        assertThat(third.deferReason()).isEqualTo("limit");
+        assertThat(registry.get("jobparser.url.deferred.total").tag("reason", "limit").counter().count())
+                .isEqualTo(1.0);
+
+        held.forEach(p -> guards.release(p, status(HttpStatus.BAD_GATEWAY)));
+        assertThat(registry.get("jobparser.host.concurrency.limit").tag("host", "hh.ru").gauge().value())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void limitDefer_shouldGrowWithEachRefusalUpToCap() {
+        HostGuards guards = guards(1);
+        guards.tryAcquire(HH + 1);
+        HostGuards.Permit refused = guards.tryAcquire(HH + 2);
+        long submittedAt = System.nanoTime();
+
+        // 50 мс, вдвое за отказ, потолок 2000; джиттер +0..20%
+        assertThat(guards.deferDelayMs(refused, submittedAt, 0)).isBetween(50L, 60L);
+        assertThat(guards.deferDelayMs(refused, submittedAt, 3)).isBetween(400L, 480L);
+        assertThat(guards.deferDelayMs(refused, submittedAt, 10)).isBetween(2000L, 2400L);
+        assertThat(guards.deferDelayMs(refused, submittedAt, 40)).isBetween(2000L, 2400L);
+        // но не дольше, чем осталось до max-wait-ms
+        assertThat(guards.deferDelayMs(refused, submittedAt - 29_900_000_000L, 10)).isLessThanOrEqualTo(100L);
+    }
+
+    @Test
+    void adaptiveLimit_shouldGrowWhileLatencyIsSteadyAndShrinkWhenItRises() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100);
+
+        for (int i = 0; i < 50; i++) {
+            fill(limit);
+            drain(limit, 1_000_000);
+        }
+        int grown = limit.limit();
+        assertThat(grown).isGreaterThan(10);
+
+        // ответы вдесятеро медленнее — лимит сжимается
+        for (int i = 0; i < 20; i++) {
+            fill(limit);
+            drain(limit, 10_000_000);
+        }
+        assertThat(limit.limit()).isLessThan(grown);
+    }
+
+    private static void fill(AdaptiveLimit limit) {
+        while (limit.tryAcquire()) {
+            // занимаем весь лимит — хост нагружен
+        }
+    }
+
+    private static void drain(AdaptiveLimit limit, long rttNanos) {
+        while (limit.inFlight() > 0) {
+            limit.release(rttNanos, false);
+        }
+    }
+}
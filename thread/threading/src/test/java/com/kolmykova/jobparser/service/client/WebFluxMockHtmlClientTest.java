@@ -0,0 +1,245 @@
+package com.kolmykova.jobparser.service.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebFluxMockHtmlClientTest {
+
+    private static final String URL = "http://localhost:8080/mock/vacancy/hh.ru/1";
+    private static final String ETAG = "\"1-abc\"";
+    private static final String LAST_MODIFIED = "Tue, 01 Oct 2024 10:00:00 GMT";
+
+    private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    /**
+     * read 1 с, total 5 с, 3 попытки, пауза 1..20 мс, без хеджа
+     */
+    private static final FetchPolicy FAST_RETRIES = new FetchPolicy(1000, 5000, 3, 1, 20, false, 0);
+
+    private WebFluxMockHtmlClient client(FetchPolicy policy, double budgetRatio, double budgetMinPerSecond,
+                                         Function<Integer, Mono<ClientResponse>> responses) {
+        AtomicInteger calls = new AtomicInteger();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    return responses.apply(calls.incrementAndGet());
+                })
+                .build();
+        FetchPolicies policies = new FetchPolicies(policy, "", budgetRatio, budgetMinPerSecond, 1);
+        return new WebFluxMockHtmlClient(webClient, new ValidatorCache(100), policies, registry);
+    }
+
+    private static Mono<ClientResponse> ok(String body) {
+        return Mono.just(ClientResponse.create(HttpStatus.OK).body(body).build());
+    }
+
+    private static Mono<ClientResponse> status(HttpStatus status) {
+        return Mono.just(ClientResponse.create(status).build());
+    }
+
+    /**
+     * Источник без сервера: 304, если пришёл совпадающий If-None-Match, иначе 200 с валидаторами
+     */
+    private WebFluxMockHtmlClient client(ValidatorCache cache) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    if (ETAG.equals(request.headers().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+                        return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+                    }
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.ETAG, ETAG)
+                            .header(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED)
+                            .body("<html>vacancy</html>")
+                            .build());
+                })
+                .build();
+        return new WebFluxMockHtmlClient(webClient, cache,
+                new FetchPolicies(FAST_RETRIES, "", 0.1, 5, 1), registry);
+    }
+
+    @Test
+    void fetchConditional_shouldSendStoredValidatorsAndReturnNotModified() {
+        ValidatorCache cache = new ValidatorCache(100);
+        WebFluxMockHtmlClient client = client(cache);
+
+        FetchResult first = client.fetchConditional(URL);
+        assertThat(first.status()).isEqualTo(200);
+        assertThat(first.body()).isEqualTo("<html>vacancy</html>");
+        assertThat(first.etag()).isEqualTo(ETAG);
+        assertThat(first.lastModified()).isEqualTo(LAST_MODIFIED);
+        // пока страница не разобрана, валидаторы не запоминаются
+        assertThat(cache.get(URL)).isNull();
+
+        client.remember(URL, first);
+        FetchResult second = client.fetchConditional(URL);
+
+        assertThat(second.notModified()).isTrue();
+        assertThat(second.body()).isNull();
+        assertThat(requests.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH)).isEqualTo(ETAG);
+        assertThat(requests.get(1).headers().getFirst(HttpHeaders.IF_MODIFIED_SINCE)).isEqualTo(LAST_MODIFIED);
+    }
+
+    @Test
+    void fetchConditional_shouldThrowOnErrorStatusAfterLastAttempt() {
+        WebFluxMockHtmlClient client = client(FAST_RETRIES, 0.1, 5,
+                call -> status(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThatThrownBy(() -> client.fetchConditional(URL))
+                .isInstanceOf(WebClientResponseException.class)
+                .hasMessageContaining("503");
+        assertThat(requests).hasSize(3);
+        assertThat(registry.get("jobparser.fetch.retries.total").tag("reason", "5xx").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void fetchConditional_shouldWaitRetryAfterBeforeRetrying() {
+        WebFluxMockHtmlClient client = client(new FetchPolicy(1000, 5000, 3, 1, 2000, false, 0), 0.1, 5,
+                call -> call == 1
+                        ? Mono.just(ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1").build())
+                        : ok("<html>vacancy</html>"));
+
+        long start = System.nanoTime();
+        FetchResult result = client.fetchConditional(URL);
+
+        assertThat(result.body()).isEqualTo("<html>vacancy</html>");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofSeconds(1));
+        assertThat(registry.get("jobparser.fetch.retries.total").tag("reason", "429").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void fetchConditional_shouldNotRetryClientErrors() {
+        WebFluxMockHtmlClient client = client(FAST_RETRIES, 0.1, 5, call -> status(HttpStatus.NOT_FOUND));
+
+        assertThatThrownBy(() -> client.fetchConditional(URL))
+                .isInstanceOf(WebClientResponseException.class)
+                .hasMessageContaining("404");
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void fetchConditional_shouldGiveUpAtTotalTimeout() {
+        WebFluxMockHtmlClient client = client(new FetchPolicy(1000, 200, 3, 1, 20, false, 0), 0.1, 5,
+                call -> Mono.never());
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.fetchConditional(URL)).isInstanceOf(FetchTimeoutException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(registry.get("jobparser.fetch.timeouts.total").tag("kind", "total").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void fetchConditional_shouldStopRetryingWhenBudgetIsEmpty() {
+        // без пополнения в бюджете один жетон — на один повтор
+        WebFluxMockHtmlClient client = client(new FetchPolicy(1000, 5000, 5, 1, 20, false, 0), 0, 0,
+                call -> status(HttpStatus.BAD_GATEWAY));
+
+        assertThatThrownBy(() -> client.fetchConditional(URL)).isInstanceOf(WebClientResponseException.class);
+
+        assertThat(requests).hasSize(2);
+        assertThat(registry.get("jobparser.fetch.retry_budget.exhausted.total").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void fetchConditional_shouldHedgeSlowRequestAfterHostP95() {
+        // первый запрос задаёт p95, второй зависает — его обгоняет хедж
+        WebFluxMockHtmlClient client = client(new FetchPolicy(1000, 5000, 1, 1, 20, true, 20), 0.1, 5,
+                call -> switch (call) {
+                    case 1 -> ok("first");
+                    case 2 -> Mono.never();
+                    default -> ok("hedged");
+                });
+
+        assertThat(client.fetchConditional(URL).body()).isEqualTo("first");
+        assertThat(client.fetchConditional(URL).body()).isEqualTo("hedged");
+
+        assertThat(requests).hasSize(3);
+        assertThat(registry.get("jobparser.fetch.hedges.total").tag("outcome", "fired").counter().count())
+                .isEqualTo(1.0);
+        assertThat(registry.get("jobparser.fetch.hedges.total").tag("outcome", "won").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void retryReason_shouldNotRetryInterruptedFetch() {
+        assertThat(WebFluxMockHtmlClient.retryReason(
+                new UncheckedIOException(new InterruptedIOException("Interrupted while fetching " + URL)))).isNull();
+        // таймаут сокета — подкласс InterruptedIOException, но повторяется как обычная I/O-ошибка
+        assertThat(WebFluxMockHtmlClient.retryReason(
+                new UncheckedIOException(new SocketTimeoutException("connect timed out")))).isEqualTo("io");
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThat(WebFluxMockHtmlClient.retryReason(
+                    new UncheckedIOException(new IOException("connection reset")))).isNull();
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void fetchPolicies_shouldOverrideOptionsPerHost() {
+        FetchPolicies policies = new FetchPolicies(FAST_RETRIES, "hh.ru:attempts=1,hedge=true; superjob.ru:read=300",
+                0.1, 5, 1);
+
+        assertThat(policies.policyFor("hh.ru").maxAttempts()).isEqualTo(1);
+        assertThat(policies.policyFor("hh.ru").hedge()).isTrue();
+        assertThat(policies.policyFor("superjob.ru").readTimeoutMs()).isEqualTo(300);
+        assertThat(policies.policyFor("habr.com")).isEqualTo(FAST_RETRIES);
+        assertThatThrownBy(() -> new FetchPolicies(FAST_RETRIES, "hh.ru:retries=2", 0.1, 5, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void validatorCache_shouldEvictLeastRecentlyUsedUrl() {
+        ValidatorCache cache = new ValidatorCache(2);
+
+        cache.put("a", ETAG, null);
+        cache.put("b", ETAG, null);
+        cache.get("a");
+        cache.put("c", ETAG, null);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isNotNull();
+    }
+
+    @Test
+    void segmentedValidatorCache_shouldStayWithinMaxEntries() {
+        ValidatorCache cache = new ValidatorCache(2048);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("http://localhost/mock/vacancy/hh.ru/" + i, ETAG, null);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(2048).isGreaterThan(1024);
+        assertThat(cache.get("http://localhost/mock/vacancy/hh.ru/9999")).isNotNull();
+        assertThat(cache.get("http://localhost/mock/vacancy/hh.ru/0")).isNull();
+    }
+}
@@ -0,0 +1,307 @@
+package com.kolmykova.jobparser.service.persistence;
+
+import com.kolmykova.jobparser.config.JacksonConfig;
+import com.kolmykova.jobparser.logging.LoggingDaemon;
+import com.kolmykova.jobparser.metrics.ParserMetrics;
+import com.kolmykova.jobparser.model.Vacancy;
+import com.kolmykova.jobparser.repository.VacancyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VacancyWriteBehindTest {
+
+    @TempDir
+    Path dir;
+
+    private final VacancyRepository repository = mock(VacancyRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // размеры пачек в порядке записи
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final List<String> savedUrls = new CopyOnWriteArrayList<>();
+    private VacancyWriteBehind writeBehind;
+
+    @AfterEach
+    void tearDown() {
+        if (writeBehind != null) {
+            writeBehind.shutdown();
+        }
+    }
+
+    private VacancyWriteBehind newWriteBehind(int batchSize, long lingerMs, int capacity) {
+        return new VacancyWriteBehind(repository, mock(ParserMetrics.class), mock(LoggingDaemon.class),
+                mock(Tracer.class), new JacksonConfig().objectMapper(), registry,
+                PersistenceMode.INSERT, batchSize, lingerMs, capacity, 1, dir.resolve("pending.jsonl").toString(), 0);
+    }
+
+    private void recordSaves() {
+        doAnswer(inv -> {
+            List<Vacancy> batch = inv.getArgument(0);
+            batches.add(batch.size());
+            batch.forEach(v -> savedUrls.add(v.getUrl()));
+            return batch.size();
+        }).when(repository).insertAll(anyList());
+    }
+
+    private void awaitSaved(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (savedUrls.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Vacancy vacancy(int i) {
+        Vacancy v = new Vacancy();
+        v.setUrl("http://localhost/mock/" + i);
+        v.setTitle("Java " + i);
+        return v;
+    }
+
+    @Test
+    void add_shouldFlushOnSizeAndOnLinger() throws Exception {
+        recordSaves();
+        writeBehind = newWriteBehind(3, 100, 100);
+
+        for (int i = 0; i < 3; i++) {
+            writeBehind.add(vacancy(i));
+        }
+        awaitSaved(3);
+        writeBehind.add(vacancy(3));
+        awaitSaved(4);
+
+        // три ушли по размеру, четвёртая — по таймеру
+        assertThat(batches).containsExactly(3, 1);
+        assertThat(registry.get("jobparser.writebehind.flush.total").tag("trigger", "size").counter().count())
+                .isEqualTo(1.0);
+        assertThat(registry.get("jobparser.writebehind.flush.total").tag("trigger", "linger").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void flush_shouldCompleteAfterEverythingAddedBeforeIsWritten() throws Exception {
+        recordSaves();
+        writeBehind = newWriteBehind(50, 60_000, 100);
+
+        writeBehind.add(vacancy(1));
+        writeBehind.add(vacancy(2));
+        writeBehind.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(savedUrls).containsExactly("http://localhost/mock/1", "http://localhost/mock/2");
+        assertThat(writeBehind.pending()).isZero();
+    }
+
+    @Test
+    void add_whenBufferIsFull_shouldBlockUntilWriterDrains() throws Exception {
+        CountDownLatch dbReleased = new CountDownLatch(1);
+        when(repository.insertAll(anyList())).thenAnswer(inv -> {
+            dbReleased.await(5, TimeUnit.SECONDS);
+            List<Vacancy> batch = inv.getArgument(0);
+            batch.forEach(v -> savedUrls.add(v.getUrl()));
+            return batch.size();
+        });
+        writeBehind = newWriteBehind(2, 60_000, 2);
+
+        writeBehind.add(vacancy(1));
+        writeBehind.add(vacancy(2)); // полный чанк ушёл в запись и висит на БД, новый взял единственное разрешение
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            writeBehind.add(vacancy(3));
+            writeBehind.add(vacancy(4)); // второй полный чанк: на замену разрешения нет
+        });
+        Thread.sleep(200);
+        assertThat(producer).isNotDone();
+
+        dbReleased.countDown();
+        producer.get(5, TimeUnit.SECONDS);
+        writeBehind.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(savedUrls).hasSize(4);
+        assertThat(registry.get("jobparser.writebehind.blocked.time").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedBatch_shouldBeSpilledAndReplayedOnNextStart() throws Exception {
+        when(repository.insertAll(anyList())).thenThrow(new IllegalStateException("db is down"));
+        writeBehind = newWriteBehind(50, 60_000, 100);
+
+        writeBehind.add(vacancy(1));
+        writeBehind.add(vacancy(2));
+        writeBehind.flush().get(5, TimeUnit.SECONDS);
+        writeBehind.shutdown();
+
+        Path spill = dir.resolve("pending.jsonl");
+        assertThat(Files.readAllLines(spill)).hasSize(2);
+
+        // БД снова доступна: при старте вакансии поднимаются из spill-файла и записываются
+        recordSaves();
+        writeBehind = newWriteBehind(50, 60_000, 100);
+        writeBehind.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(savedUrls).containsExactly("http://localhost/mock/1", "http://localhost/mock/2");
+        assertThat(registry.get("jobparser.writebehind.replayed.total").counter().count()).isEqualTo(2.0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.exists(dir.resolve("pending.jsonl.replay")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(spill).doesNotExist();
+        assertThat(dir.resolve("pending.jsonl.replay")).doesNotExist();
+    }
+
+    @Test
+    void poisonRow_shouldSpillOnlyThatRow() throws Exception {
+        // строка, которую БД не примет ни в пачке, ни отдельно (например, слишком длинное поле)
+        doAnswer(inv -> {
+            List<Vacancy> batch = inv.getArgument(0);
+            batches.add(batch.size());
+            if (batch.stream().anyMatch(v -> v.getUrl().endsWith("/2"))) {
+                throw new IllegalStateException("value too long");
+            }
+            batch.forEach(v -> savedUrls.add(v.getUrl()));
+            return batch.size();
+        }).when(repository).insertAll(anyList());
+        writeBehind = newWriteBehind(50, 60_000, 100);
+
+        List<Integer> confirmed = new CopyOnWriteArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            int id = i;
+            writeBehind.add(vacancy(i), () -> confirmed.add(id));
+        }
+        writeBehind.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(batches).containsExactly(3, 1, 1, 1);
+        assertThat(savedUrls).containsExactly("http://localhost/mock/1", "http://localhost/mock/3");
+        // onSaved — только у записанных строк
+        assertThat(confirmed).containsExactly(1, 3);
+        assertThat(Files.readAllLines(dir.resolve("pending.jsonl")))
+                .singleElement().asString().contains("http://localhost/mock/2");
+    }
+
+    @Test
+    void spillFile_shouldBeRetriedOnTimerWithoutRestart() throws Exception {
+        AtomicBoolean dbUp = new AtomicBoolean(false);
+        doAnswer(inv -> {
+            if (!dbUp.get()) {
+                throw new IllegalStateException("db is down");
+            }
+            List<Vacancy> batch = inv.getArgument(0);
+            batch.forEach(v -> savedUrls.add(v.getUrl()));
+            return batch.size();
+        }).when(repository).insertAll(anyList());
+        writeBehind = new VacancyWriteBehind(repository, mock(ParserMetrics.class), mock(LoggingDaemon.class),
+                mock(Tracer.class), new JacksonConfig().objectMapper(), registry,
+                PersistenceMode.INSERT, 50, 60_000, 100, 1, dir.resolve("pending.jsonl").toString(), 50);
+
+        writeBehind.add(vacancy(1));
+        writeBehind.flush().get(5, TimeUnit.SECONDS);
+        // таймер может в этот момент повторять файл — тогда он лежит как .replay
+        assertThat(Files.exists(dir.resolve("pending.jsonl")) || Files.exists(dir.resolve("pending.jsonl.replay")))
+                .isTrue();
+        assertThat(savedUrls).isEmpty();
+
+        dbUp.set(true);
+        awaitSaved(1);
+
+        assertThat(savedUrls).containsExactly("http://localhost/mock/1");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.exists(dir.resolve("pending.jsonl.replay")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(dir.resolve("pending.jsonl")).doesNotExist();
+        assertThat(dir.resolve("pending.jsonl.replay")).doesNotExist();
+    }
+
+    @Test
+    void shutdown_shouldWriteRemainingBufferBeforeStopping() {
+        recordSaves();
+        writeBehind = newWriteBehind(50, 60_000, 100);
+
+        writeBehind.add(vacancy(1));
+        writeBehind.shutdown();
+
+        assertThat(savedUrls).containsExactly("http://localhost/mock/1");
+        assertThat(registry.get("jobparser.writebehind.flush.total").tag("trigger", "shutdown").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void concurrentAdds_shouldSaveEveryVacancyExactlyOnce() throws Exception {
+        recordSaves();
+        writeBehind = new VacancyWriteBehind(repository, mock(ParserMetrics.class), mock(LoggingDaemon.class),
+                mock(Tracer.class), new JacksonConfig().objectMapper(), registry,
+                PersistenceMode.INSERT, 16, 5, 64, 4, dir.resolve("pending.jsonl").toString(), 0);
+
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    writeBehind.add(vacancy(offset + i));
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        writeBehind.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(savedUrls).hasSize(threads * perThread);
+        assertThat(new HashSet<>(savedUrls)).hasSize(threads * perThread);
+        assertThat(batches).allMatch(size -> size <= 16);
+    }
+
+    @Test
+    void addsRacingShutdown_shouldEndUpEitherSavedOrSpilled() throws Exception {
+        recordSaves();
+        writeBehind = new VacancyWriteBehind(repository, mock(ParserMetrics.class), mock(LoggingDaemon.class),
+                mock(Tracer.class), new JacksonConfig().objectMapper(), registry,
+                PersistenceMode.INSERT, 16, 5, 64, 4, dir.resolve("pending.jsonl").toString(), 0);
+
+        int threads = 4;
+        int perThread = 2000;
+        List<String> callbacks = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            pool.submit(() -> {
+                started.countDown();
+                for (int i = 0; i < perThread; i++) {
+                    Vacancy v = vacancy(offset + i);
+                    writeBehind.add(v, () -> callbacks.add(v.getUrl()));
+                }
+            });
+        }
+        started.await();
+        writeBehind.shutdown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        Path spill = dir.resolve("pending.jsonl");
+        long spilledRows = Files.exists(spill) ? Files.readAllLines(spill).size() : 0;
+        // ни одна строка не потеряна: каждая либо в БД, либо в spill-файле
+        assertThat(savedUrls.size() + spilledRows).isEqualTo(threads * perThread);
+        assertThat(new HashSet<>(savedUrls)).hasSize(savedUrls.size());
+        assertThat(callbacks).hasSameSizeAs(savedUrls);
+    }
+}
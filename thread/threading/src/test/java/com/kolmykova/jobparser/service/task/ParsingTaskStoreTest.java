@@ -0,0 +1,97 @@
+package com.kolmykova.jobparser.service.task;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kolmykova.jobparser.model.dto.ParsingStatus;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParsingTaskStoreTest {
+
+    @TempDir
+    Path spillDir;
+
+    private ParsingTaskStore newStore(int maxResident, long ttlMinutes, long spillAfterSeconds) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return new ParsingTaskStore(mapper, new SimpleMeterRegistry(), spillDir.toString(),
+                maxResident, 1000, ttlMinutes, spillAfterSeconds);
+    }
+
+    private ParsingStatus completed(String taskId, LocalDateTime completedAt) {
+        VacancyDto dto = new VacancyDto();
+        dto.setId(1L);
+        dto.setTitle("Java разработчик");
+        List<VacancyDto> results = new ArrayList<>(List.of(dto));
+        return ParsingStatus.builder()
+                .taskId(taskId)
+                .status("COMPLETED")
+                .totalUrls(1)
+                .processedUrls(1)
+                .savedVacancies(1)
+                .startedAt(completedAt.minusSeconds(1))
+                .completedAt(completedAt)
+                .results(results)
+                .build();
+    }
+
+    @Test
+    void put_overLimit_shouldSpillOldestCompletedAndLoadResultsLazily() {
+        ParsingTaskStore store = newStore(1, 60, 60);
+        LocalDateTime now = LocalDateTime.now();
+
+        store.put(completed("old", now.minusSeconds(10)));
+        store.put(completed("new", now));
+
+        assertThat(store.residentCount()).isEqualTo(1);
+        assertThat(store.spilledCount()).isEqualTo(1);
+        assertThat(spillDir.resolve("old.json")).exists();
+
+        ParsingStatus summary = store.find("old", false);
+        assertThat(summary.getSavedVacancies()).isEqualTo(1);
+        assertThat(summary.getResults()).isNull();
+
+        ParsingStatus full = store.find("old", true);
+        assertThat(full.getResults()).extracting(VacancyDto::getTitle).containsExactly("Java разработчик");
+    }
+
+    @Test
+    void put_overLimit_shouldKeepActiveTasksInMemory() {
+        ParsingTaskStore store = newStore(1, 60, 60);
+
+        store.put(ParsingStatus.builder().taskId("a").status("IN_PROGRESS").results(new ArrayList<>()).build());
+        store.put(ParsingStatus.builder().taskId("b").status("PENDING").results(new ArrayList<>()).build());
+
+        assertThat(store.residentCount()).isEqualTo(2);
+        assertThat(store.getResident("a")).isNotNull();
+    }
+
+    @Test
+    void sweep_shouldEvictExpiredTasksAndDeleteFiles() {
+        ParsingTaskStore store = newStore(10, 1, 0);
+        LocalDateTime now = LocalDateTime.now();
+
+        store.put(completed("expired", now.minusMinutes(5)));
+        store.put(completed("fresh", now.minusSeconds(1)));
+
+        store.sweep();
+
+        assertThat(store.find("expired", false)).isNull();
+        assertThat(store.find("fresh", false)).isNotNull();
+        assertThat(store.spilledCount()).isEqualTo(1);
+
+        store.remove("fresh");
+        assertThat(spillDir.resolve("fresh.json")).doesNotExist();
+    }
+}
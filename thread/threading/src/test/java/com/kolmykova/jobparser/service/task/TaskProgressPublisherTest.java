@@ -0,0 +1,70 @@
+package com.kolmykova.jobparser.service.task;
+
+import com.kolmykova.jobparser.model.dto.ParsingProgressMessage;
+import com.kolmykova.jobparser.model.dto.ParsingStatus;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import com.kolmykova.jobparser.websocket.ParsingWebSocketHandler;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class TaskProgressPublisherTest {
+
+    private VacancyDto vacancy(long id) {
+        VacancyDto dto = new VacancyDto();
+        dto.setId(id);
+        return dto;
+    }
+
+    @Test
+    void progress_shouldCoalesceUpdatesAndFlushRemainderOnCompletion() {
+        ParsingWebSocketHandler handler = mock(ParsingWebSocketHandler.class);
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        TaskProgressPublisher publisher = new TaskProgressPublisher(handler, scheduler, 60_000);
+
+        ParsingStatus status = ParsingStatus.builder().taskId("t1").status("IN_PROGRESS").totalUrls(3).build();
+
+        publisher.progress(status, vacancy(1));
+        publisher.progress(status, vacancy(2));
+        publisher.progress(status, vacancy(3));
+
+        // первая дельта уходит сразу, остальные ждут отложенной отправки (одной)
+        verify(handler, times(1)).publish(eq("t1"), any());
+        verify(scheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+
+        status.setStatus("COMPLETED");
+        publisher.completed(status);
+
+        ArgumentCaptor<ParsingProgressMessage> delta = ArgumentCaptor.forClass(ParsingProgressMessage.class);
+        ArgumentCaptor<ParsingProgressMessage> last = ArgumentCaptor.forClass(ParsingProgressMessage.class);
+        verify(handler, times(1)).publish(eq("t1"), delta.capture());
+        verify(handler).publishFinal(eq("t1"), last.capture());
+
+        assertThat(delta.getValue().getType()).isEqualTo(ParsingProgressMessage.DELTA);
+        assertThat(delta.getValue().getVacancies()).extracting(VacancyDto::getId).containsExactly(1L);
+        assertThat(last.getValue().getType()).isEqualTo(ParsingProgressMessage.COMPLETED);
+        assertThat(last.getValue().getVacancies()).extracting(VacancyDto::getId).containsExactly(2L, 3L);
+        assertThat(publisher.pendingTasks()).isZero();
+    }
+
+    @Test
+    void progress_withoutThrottling_shouldSendEachUpdate() {
+        ParsingWebSocketHandler handler = mock(ParsingWebSocketHandler.class);
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        TaskProgressPublisher publisher = new TaskProgressPublisher(handler, scheduler, 0);
+
+        ParsingStatus status = ParsingStatus.builder().taskId("t2").status("IN_PROGRESS").build();
+
+        publisher.progress(status, vacancy(1));
+        publisher.progress(status, vacancy(2));
+
+        verify(handler, times(2)).publish(eq("t2"), any(ParsingProgressMessage.class));
+        verifyNoInteractions(scheduler);
+    }
+}
@@ -0,0 +1,74 @@
+package com.kolmykova.jobparser.websocket;
+
+import com.kolmykova.jobparser.config.JacksonConfig;
+import com.kolmykova.jobparser.model.dto.ParsingProgressMessage;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactProgressEncoderTest {
+
+    private final CompactProgressEncoder encoder = new CompactProgressEncoder(new JacksonConfig().objectMapper());
+
+    private VacancyDto vacancy(long id) {
+        return new VacancyDto(id, "hh", "http://localhost:8080/mock/vacancy/hh/" + id, "Java Developer",
+                "Яндекс", "Москва", "200 000 - 300 000 руб.", "Java, Spring",
+                LocalDateTime.of(2024, 1, 1, 12, 0), LocalDateTime.of(2024, 1, 1, 12, 0, 5));
+    }
+
+    private ParsingProgressMessage delta(long id) {
+        return ParsingProgressMessage.builder()
+                .type(ParsingProgressMessage.DELTA)
+                .taskId("task-1")
+                .status("IN_PROGRESS")
+                .totalUrls(100)
+                .processedUrls((int) id)
+                .savedVacancies((int) id)
+                .startedAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .vacancies(List.of(vacancy(id)))
+                .build();
+    }
+
+    @Test
+    void encode_shouldWriteHeaderAndUseDictionaryForRepeatedStrings() {
+        byte[] first = encoder.encode(delta(1));
+        int dictionaryAfterFirst = encoder.dictionarySize();
+        byte[] second = encoder.encode(delta(2));
+
+        assertThat(first[0]).isEqualTo((byte) CompactProgressEncoder.FORMAT_VERSION);
+        assertThat(first[1]).isEqualTo((byte) 1); // DELTA
+        // taskId, status, source, company, city
+        assertThat(dictionaryAfterFirst).isEqualTo(5);
+        assertThat(encoder.dictionarySize()).isEqualTo(5);
+        assertThat(second.length).isLessThan(first.length);
+    }
+
+    @Test
+    void encode_shouldBeSmallerThanJson() throws Exception {
+        ParsingProgressMessage message = delta(1);
+        int json = new TextMessage(new JacksonConfig().objectMapper().writeValueAsString(message)).getPayloadLength();
+
+        encoder.encode(message);
+        byte[] compact = encoder.encode(delta(2));
+
+        assertThat(compact.length).isLessThan(json / 2);
+    }
+
+    @Test
+    void encode_shouldFallBackToJsonForOtherPayloads() throws Exception {
+        WebSocketMessage<?> progress = encoder.encode(new OutboundPayload(delta(1)));
+        WebSocketMessage<?> other = encoder.encode(new OutboundPayload(Map.of("type", "PING")));
+
+        assertThat(progress).isInstanceOf(BinaryMessage.class);
+        assertThat(other).isInstanceOf(TextMessage.class);
+        assertThat(((TextMessage) other).getPayload()).contains("PING");
+    }
+}
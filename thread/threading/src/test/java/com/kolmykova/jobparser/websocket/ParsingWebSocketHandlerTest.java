@@ -0,0 +1,149 @@
+package com.kolmykova.jobparser.websocket;
+
+import com.kolmykova.jobparser.config.JacksonConfig;
+import com.kolmykova.jobparser.metrics.WebSocketMetrics;
+import com.kolmykova.jobparser.model.dto.ParsingProgressMessage;
+import com.kolmykova.jobparser.model.dto.ParsingStatus;
+import com.kolmykova.jobparser.model.dto.VacancyDto;
+import com.kolmykova.jobparser.service.task.ParsingTaskStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ParsingWebSocketHandlerTest {
+
+    private ParsingTaskStore taskStore;
+    private ParsingWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        taskStore = mock(ParsingTaskStore.class);
+        handler = new ParsingWebSocketHandler(new JacksonConfig().objectMapper(), taskStore,
+                new WebSocketMetrics(new SimpleMeterRegistry()), 16, OverflowPolicy.COALESCE);
+    }
+
+    private WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+
+    private ParsingStatus running(String taskId) {
+        return ParsingStatus.builder().taskId(taskId).status("IN_PROGRESS").results(new ArrayList<>()).build();
+    }
+
+    @Test
+    void publish_shouldDeliverOnlyToSubscribersOfTask() throws Exception {
+        when(taskStore.find("t1", true)).thenReturn(running("t1"));
+        WebSocketSession subscriber = session("s1");
+        WebSocketSession other = session("s2");
+
+        handler.handleTextMessage(subscriber, new TextMessage("{\"action\":\"subscribe\",\"taskId\":\"t1\"}"));
+        // снапшот при подписке (отправка асинхронная — через очередь сессии)
+        verify(subscriber, timeout(1000).times(1)).sendMessage(any());
+
+        handler.publish("t1", ParsingProgressMessage.builder().type(ParsingProgressMessage.DELTA).taskId("t1").build());
+
+        verify(subscriber, timeout(1000).times(2)).sendMessage(any());
+        verify(other, after(100).never()).sendMessage(any());
+        assertThat(handler.getSubscribersCount("t1")).isEqualTo(1);
+    }
+
+    @Test
+    void publishFinalAndSessionClose_shouldCleanUpSubscriptions() throws Exception {
+        when(taskStore.find(anyString(), eq(true))).thenAnswer(inv -> running(inv.getArgument(0)));
+        WebSocketSession session = session("s1");
+
+        handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"taskId\":\"t1\"}"));
+        handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"taskId\":\"t2\"}"));
+
+        handler.publishFinal("t1", ParsingProgressMessage.builder().type(ParsingProgressMessage.COMPLETED).taskId("t1").build());
+        assertThat(handler.getSubscribersCount("t1")).isZero();
+        assertThat(handler.getSubscribersCount("t2")).isEqualTo(1);
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        assertThat(handler.getSubscribersCount("t2")).isZero();
+    }
+
+    @Test
+    void subscribe_toFinishedTask_shouldOnlySendSnapshot() throws Exception {
+        ParsingStatus done = running("t1");
+        done.setStatus("COMPLETED");
+        done.setCompletedAt(LocalDateTime.now());
+        when(taskStore.find("t1", true)).thenReturn(done);
+        WebSocketSession session = session("s1");
+
+        handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"taskId\":\"t1\"}"));
+
+        verify(session, timeout(1000).times(1)).sendMessage(any());
+        assertThat(handler.getSubscribersCount("t1")).isZero();
+    }
+
+    @Test
+    void subscribe_shouldQueueSnapshotBeforeFirstDelta() throws Exception {
+        when(taskStore.find("t1", true)).thenReturn(running("t1"));
+        WebSocketSession session = session("s1");
+
+        handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"taskId\":\"t1\"}"));
+        handler.publish("t1", ParsingProgressMessage.builder().type(ParsingProgressMessage.DELTA).taskId("t1").build());
+
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, timeout(1000).times(2)).sendMessage(sent.capture());
+        assertThat(sent.getAllValues()).extracting(TextMessage::getPayload)
+                .satisfiesExactly(
+                        first -> assertThat(first).contains("\"SNAPSHOT\""),
+                        second -> assertThat(second).contains("\"DELTA\""));
+    }
+
+    @Test
+    void subscribe_whenTaskCompletesBeforeSubscription_shouldSendCompletedAndUnsubscribe() throws Exception {
+        ParsingStatus before = running("t1");
+        ParsingStatus after = running("t1");
+        after.setStatus("COMPLETED");
+        after.setCompletedAt(LocalDateTime.now());
+        VacancyDto last = new VacancyDto();
+        last.setId(7L);
+        after.getResults().add(last);
+        // финал ушёл, пока сессия ещё не была подписчиком
+        when(taskStore.find("t1", true)).thenReturn(before, after);
+        WebSocketSession session = session("s1");
+
+        handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"taskId\":\"t1\"}"));
+
+        ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+        verify(session, timeout(1000).times(2)).sendMessage(sent.capture());
+        assertThat(sent.getAllValues().get(1).getPayload()).contains("\"COMPLETED\"").contains("\"id\":7");
+        assertThat(handler.getSubscribersCount("t1")).isZero();
+    }
+
+    @Test
+    void compactEncoding_shouldBeNegotiatedPerSession() throws Exception {
+        when(taskStore.find("t1", true)).thenReturn(running("t1"));
+        WebSocketSession json = session("s1");
+        WebSocketSession compact = mock(WebSocketSession.class);
+        when(compact.getId()).thenReturn("s2");
+        when(compact.isOpen()).thenReturn(true);
+        when(compact.getUri()).thenReturn(URI.create("ws://localhost:8080/ws/parsing?encoding=compact"));
+        handler.afterConnectionEstablished(compact);
+
+        handler.handleTextMessage(json, new TextMessage("{\"action\":\"subscribe\",\"taskId\":\"t1\"}"));
+        handler.handleTextMessage(compact, new TextMessage("{\"action\":\"subscribe\",\"taskId\":\"t1\"}"));
+
+        verify(json, timeout(1000)).sendMessage(any(TextMessage.class));
+        verify(compact, timeout(1000)).sendMessage(any(BinaryMessage.class));
+    }
+}
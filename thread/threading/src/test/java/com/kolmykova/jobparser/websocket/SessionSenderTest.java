@@ -0,0 +1,188 @@
+package com.kolmykova.jobparser.websocket;
+
+import com.kolmykova.jobparser.metrics.WebSocketMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class SessionSenderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WebSocketMetrics metrics = new WebSocketMetrics(registry);
+    private final SessionEncoder plainText = new SessionEncoder() {
+        @Override
+        public WebSocketMessage<?> encode(OutboundPayload payload) {
+            return new TextMessage(payload.value().toString());
+        }
+
+        @Override
+        public String name() {
+            return "text";
+        }
+    };
+
+    /**
+     * Сессия, у которой первая отправка "висит", пока не откроют latch
+     */
+    private WebSocketSession stalledSession(CountDownLatch release) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("slow");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(inv -> {
+            release.await();
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private void awaitStalled(SessionSender sender) throws InterruptedException {
+        // первое сообщение забрано воркером и висит в sendMessage
+        for (int i = 0; i < 100 && sender.queueSize() > 0; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void dropOldest_shouldKeepNewestMessagesWithoutBlockingProducer() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession session = stalledSession(release);
+        SessionSender sender = new SessionSender(session, 2, OverflowPolicy.DROP_OLDEST, plainText, key -> null, metrics);
+
+        sender.enqueue(null, new OutboundPayload("m0"));
+        awaitStalled(sender);
+        for (int i = 1; i <= 5; i++) {
+            sender.enqueue(null, new OutboundPayload("m" + i));
+        }
+
+        assertThat(sender.queueSize()).isEqualTo(2);
+        assertThat(registry.get("jobparser.ws.messages.dropped.total").tag("policy", "drop_oldest").counter().count())
+                .isEqualTo(3.0);
+
+        release.countDown();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, timeout(1000).times(3)).sendMessage(captor.capture());
+        assertThat(captor.getAllValues()).extracting(m -> (String) m.getPayload()).containsExactly("m0", "m4", "m5");
+        sender.close();
+    }
+
+    @Test
+    void coalesce_shouldReplacePendingTaskMessagesWithSingleSnapshot() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession session = stalledSession(release);
+        SessionSender sender = new SessionSender(session, 3, OverflowPolicy.COALESCE, plainText,
+                key -> "snapshot:" + key, metrics);
+
+        sender.enqueue("t1", new OutboundPayload("d0"));
+        awaitStalled(sender);
+        sender.enqueue("t2", new OutboundPayload("other"));
+        sender.enqueue("t1", new OutboundPayload("d1"));
+        sender.enqueue("t1", new OutboundPayload("d2"));
+        sender.enqueue("t1", new OutboundPayload("d3")); // переполнение
+
+        release.countDown();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, timeout(1000).times(3)).sendMessage(captor.capture());
+        List<Object> payloads = captor.getAllValues().stream().map(m -> (Object) m.getPayload()).toList();
+        assertThat(payloads).containsExactly("d0", "other", "snapshot:t1");
+        assertThat(registry.get("jobparser.ws.encode.time").tag("encoding", "text").timer().count()).isEqualTo(3);
+        sender.close();
+    }
+
+    @Test
+    void coalesce_whenOtherTaskDeltaIsEvicted_shouldResyncThatTask() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession session = stalledSession(release);
+        SessionSender sender = new SessionSender(session, 2, OverflowPolicy.COALESCE, plainText,
+                key -> "snapshot:" + key, metrics);
+
+        sender.enqueue("t1", new OutboundPayload("d0"));
+        awaitStalled(sender);
+        sender.enqueue("t2", new OutboundPayload("a1"));
+        sender.enqueue("t2", new OutboundPayload("a2"));
+        sender.enqueue("t3", new OutboundPayload("b1")); // переполнение, дельт t3 в очереди нет
+
+        release.countDown();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, timeout(1000).times(4)).sendMessage(captor.capture());
+        List<Object> payloads = captor.getAllValues().stream().map(m -> (Object) m.getPayload()).toList();
+        // вытесненная a1 не пропала молча: t2 получает снапшот
+        assertThat(payloads).containsExactly("d0", "snapshot:t2", "a2", "snapshot:t3");
+        sender.close();
+    }
+
+    @Test
+    void disconnect_shouldCloseSlowSession() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession session = stalledSession(release);
+        SessionSender sender = new SessionSender(session, 1, OverflowPolicy.DISCONNECT, plainText, key -> null, metrics);
+
+        sender.enqueue(null, new OutboundPayload("m0"));
+        awaitStalled(sender);
+        sender.enqueue(null, new OutboundPayload("m1"));
+        sender.enqueue(null, new OutboundPayload("m2")); // переполнение
+
+        verify(session, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(registry.get("jobparser.ws.slow.disconnects.total").counter().count()).isEqualTo(1.0);
+        release.countDown();
+    }
+
+    @Test
+    void sendFailure_withStatefulEncoder_shouldCloseSessionAsNotReliable() throws Exception {
+        SessionEncoder stateful = new SessionEncoder() {
+            @Override
+            public WebSocketMessage<?> encode(OutboundPayload payload) {
+                return new TextMessage(payload.value().toString());
+            }
+
+            @Override
+            public String name() {
+                return "stateful";
+            }
+
+            @Override
+            public boolean stateful() {
+                return true;
+            }
+        };
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        doThrow(new IOException("broken pipe")).when(session).sendMessage(any());
+        SessionSender sender = new SessionSender(session, 4, OverflowPolicy.COALESCE, stateful, key -> null, metrics);
+
+        sender.enqueue(null, new OutboundPayload("m0"));
+
+        verify(session, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        sender.enqueue(null, new OutboundPayload("m1"));
+        verify(session, after(100).times(1)).sendMessage(any());
+    }
+
+    @Test
+    void sendFailure_withStatelessEncoder_shouldKeepSession() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        doThrow(new IOException("broken pipe")).doNothing().when(session).sendMessage(any());
+        SessionSender sender = new SessionSender(session, 4, OverflowPolicy.COALESCE, plainText, key -> null, metrics);
+
+        sender.enqueue(null, new OutboundPayload("m0"));
+        sender.enqueue(null, new OutboundPayload("m1"));
+
+        verify(session, timeout(1000).times(2)).sendMessage(any());
+        verify(session, never()).close(any());
+    }
+}